@@ -17,7 +17,7 @@ public abstract class PlainTree implements Cache {
                 return node;
             }
             if (node.key() < key) {
-                node.right();
+                node = node.right();
             } else {
                 node = node.left();
             }
@@ -0,0 +1,147 @@
+package com.lightbox.jmkv.btree;
+
+import java.util.function.ToLongBiFunction;
+
+/**
+ * Monoid that aggregates entries of Btree.
+ * Tree keeps aggregate of every subtree in root of subtree,
+ * so aggregate of key range combines O(log n) subtrees
+ * instead of visiting every entry.
+ * Combine has to be associative and identity has to be neutral for it
+ *
+ * @param <A> Type of aggregate
+ */
+public interface Aggregate<A> {
+
+    /**
+     * Aggregate of no entries.
+     *
+     * @return Identity
+     */
+    A identity();
+
+    /**
+     * Aggregate of one entry.
+     *
+     * @param key   Key
+     * @param value Value
+     * @return Aggregate
+     */
+    A of(int key, String value);
+
+    /**
+     * Combine aggregates of neighbour ranges.
+     *
+     * @param left  Aggregate of lower keys
+     * @param right Aggregate of bigger keys
+     * @return Aggregate of both ranges
+     */
+    A combine(A left, A right);
+
+    /**
+     * Sum of numeric projection of entries.
+     */
+    final class Sum implements Aggregate<Long> {
+
+        /**
+         * Projection of entry.
+         */
+        private final ToLongBiFunction<Integer, String> projection;
+
+        /**
+         * Ctor.
+         *
+         * @param projection Projection of entry
+         */
+        public Sum(final ToLongBiFunction<Integer, String> projection) {
+            this.projection = projection;
+        }
+
+        @Override
+        public Long identity() {
+            return 0L;
+        }
+
+        @Override
+        public Long of(final int key, final String value) {
+            return this.projection.applyAsLong(key, value);
+        }
+
+        @Override
+        public Long combine(final Long left, final Long right) {
+            return left + right;
+        }
+    }
+
+    /**
+     * Minimum of numeric projection of entries.
+     * Empty range gives Long.MAX_VALUE
+     */
+    final class Min implements Aggregate<Long> {
+
+        /**
+         * Projection of entry.
+         */
+        private final ToLongBiFunction<Integer, String> projection;
+
+        /**
+         * Ctor.
+         *
+         * @param projection Projection of entry
+         */
+        public Min(final ToLongBiFunction<Integer, String> projection) {
+            this.projection = projection;
+        }
+
+        @Override
+        public Long identity() {
+            return Long.MAX_VALUE;
+        }
+
+        @Override
+        public Long of(final int key, final String value) {
+            return this.projection.applyAsLong(key, value);
+        }
+
+        @Override
+        public Long combine(final Long left, final Long right) {
+            return Math.min(left, right);
+        }
+    }
+
+    /**
+     * Maximum of numeric projection of entries.
+     * Empty range gives Long.MIN_VALUE
+     */
+    final class Max implements Aggregate<Long> {
+
+        /**
+         * Projection of entry.
+         */
+        private final ToLongBiFunction<Integer, String> projection;
+
+        /**
+         * Ctor.
+         *
+         * @param projection Projection of entry
+         */
+        public Max(final ToLongBiFunction<Integer, String> projection) {
+            this.projection = projection;
+        }
+
+        @Override
+        public Long identity() {
+            return Long.MIN_VALUE;
+        }
+
+        @Override
+        public Long of(final int key, final String value) {
+            return this.projection.applyAsLong(key, value);
+        }
+
+        @Override
+        public Long combine(final Long left, final Long right) {
+            return Math.max(left, right);
+        }
+    }
+}
@@ -0,0 +1,597 @@
+package com.lightbox.jmkv.btree;
+
+import com.lightbox.jmkv.Cache;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrent B-link tree for int keys by Lehman and Yao.
+ * Unlike {@link OlcBtree} reader never restarts: every node has
+ * high key and link to its right neighbour, so search that went
+ * down before split moves right to the key instead.
+ * Writer locks one node per level bottom-up and publishes both
+ * halves of split before it locks parent for separator.
+ * Nodes are never merged. Clear must not run concurrently with writes
+ */
+public final class BlinkTree implements Cache {
+
+    /**
+     * Default max amount of keys in node.
+     */
+    public static final int CAPACITY = 64;
+
+    /**
+     * High key of the rightmost node on level.
+     */
+    private static final long INFINITY = Long.MAX_VALUE;
+
+    /**
+     * Max amount of keys in node.
+     */
+    private final int capacity;
+
+    /**
+     * Amount of keys.
+     */
+    private final LongAdder size;
+
+    /**
+     * Lock for replacement of root.
+     */
+    private final ReentrantLock rooting;
+
+    /**
+     * Root.
+     */
+    private volatile Node root;
+
+    /**
+     * Ctor.
+     */
+    public BlinkTree() {
+        this(CAPACITY);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param capacity Max amount of keys in node, at least 3
+     */
+    public BlinkTree(final int capacity) {
+        if (capacity < 3) {
+            throw new IllegalArgumentException(
+                    String.format("Capacity %d is less than 3", capacity)
+            );
+        }
+        this.capacity = capacity;
+        this.size = new LongAdder();
+        this.rooting = new ReentrantLock();
+        this.root = new Node(0, Page.EMPTY);
+    }
+
+    /**
+     * Get value by key.
+     * Takes no locks
+     *
+     * @param key Key
+     * @return Value or null
+     */
+    public String get(final int key) {
+        Page page = this.locate(key, 0, null).page;
+        while (key >= page.high) {
+            page = page.right.page;
+        }
+        return page.value(key);
+    }
+
+    /**
+     * Put key value pair, replacing previous value.
+     *
+     * @param key   Key
+     * @param value Value
+     * @return Value
+     */
+    public String put(final int key, final String value) {
+        Objects.requireNonNull(value, "Value can't be null");
+        final Deque<Node> stack = new ArrayDeque<>();
+        final Node leaf = BlinkTree.lockRight(
+                this.locate(key, 0, stack),
+                key
+        );
+        final Page page = leaf.page;
+        final int index = page.search(key);
+        if (index >= 0) {
+            leaf.page = page.replace(index, value);
+            leaf.lock.unlock();
+        } else {
+            this.size.increment();
+            this.grow(leaf, page.put(-index - 1, key, value), stack);
+        }
+        return value;
+    }
+
+    /**
+     * Delete value by key.
+     *
+     * @param key Key
+     * @return Deleted value or null
+     */
+    public String delete(final int key) {
+        final Node leaf = BlinkTree.lockRight(
+                this.locate(key, 0, null),
+                key
+        );
+        final Page page = leaf.page;
+        final int index = page.search(key);
+        String removed = null;
+        if (index >= 0) {
+            removed = page.values[index];
+            leaf.page = page.remove(index);
+            this.size.decrement();
+        }
+        leaf.lock.unlock();
+        return removed;
+    }
+
+    /**
+     * Check that value with given key is present.
+     *
+     * @param key Key
+     * @return True if value is present
+     */
+    public boolean exists(final int key) {
+        return this.get(key) != null;
+    }
+
+    @Override
+    public boolean clear() {
+        this.root = new Node(0, Page.EMPTY);
+        this.size.reset();
+        return true;
+    }
+
+    @Override
+    public String get(final Integer key) {
+        return this.get(key.intValue());
+    }
+
+    @Override
+    public String put(final Integer key, final String value) {
+        return this.put(key.intValue(), value);
+    }
+
+    @Override
+    public String delete(final Integer key) {
+        return this.delete(key.intValue());
+    }
+
+    @Override
+    public boolean exists(final Integer key) {
+        return this.exists(key.intValue());
+    }
+
+    @Override
+    public int size() {
+        return (int) this.size.sum();
+    }
+
+    /**
+     * Height of tree.
+     *
+     * @return Amount of levels
+     */
+    public int height() {
+        return this.root.level + 1;
+    }
+
+    /**
+     * Go down from root to node on level that may contain key.
+     * Node may split before it's locked, so caller still
+     * has to move right
+     *
+     * @param key   Key
+     * @param level Level, zero for leaves
+     * @param stack Nodes where search went down or null
+     * @return Node
+     */
+    private Node locate(
+            final int key,
+            final int level,
+            final Deque<Node> stack
+    ) {
+        Node node = this.root;
+        while (node.level > level) {
+            final Page page = node.page;
+            if (key >= page.high) {
+                node = page.right;
+            } else {
+                if (stack != null) {
+                    stack.push(node);
+                }
+                node = page.children[page.route(key)];
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Publish grown page of locked node, splitting it and its
+     * ancestors while they have too many keys.
+     * Child stays locked until its parent is locked
+     *
+     * @param locked Locked node
+     * @param grown  Page with one more key
+     * @param stack  Nodes where search went down
+     */
+    private void grow(
+            final Node locked,
+            final Page grown,
+            final Deque<Node> stack
+    ) {
+        Node node = locked;
+        Page page = grown;
+        while (page != null && page.keys.length > this.capacity) {
+            final int half = page.keys.length / 2;
+            final int separator = page.keys[half];
+            final Node right = new Node(node.level, page.upper(half));
+            node.page = page.lower(half, right);
+            final Node parent = this.parent(node, separator, right, stack);
+            node.lock.unlock();
+            node = parent;
+            if (parent == null) {
+                page = null;
+            } else {
+                page = parent.page.attach(separator, right);
+            }
+        }
+        if (node != null) {
+            node.page = page;
+            node.lock.unlock();
+        }
+    }
+
+    /**
+     * Lock parent for separator of split node.
+     * If split node is root, new root is made of both halves
+     *
+     * @param node      Split node
+     * @param separator The first key of right half
+     * @param right     Right half
+     * @param stack     Nodes where search went down
+     * @return Locked parent or null if root was replaced
+     */
+    private Node parent(
+            final Node node,
+            final int separator,
+            final Node right,
+            final Deque<Node> stack
+    ) {
+        Node parent = stack.poll();
+        if (parent == null) {
+            this.rooting.lock();
+            try {
+                if (this.root == node) {
+                    this.root = new Node(
+                            node.level + 1,
+                            Page.top(node, separator, right)
+                    );
+                } else {
+                    parent = this.locate(separator, node.level + 1, null);
+                }
+            } finally {
+                this.rooting.unlock();
+            }
+        }
+        if (parent == null) {
+            return null;
+        } else {
+            return BlinkTree.lockRight(parent, separator);
+        }
+    }
+
+    /**
+     * Lock node and move right while key isn't lower than high key.
+     *
+     * @param node Node to start
+     * @param key  Key
+     * @return Locked node with key in range
+     */
+    private static Node lockRight(final Node node, final int key) {
+        Node current = node;
+        current.lock.lock();
+        while (key >= current.page.high) {
+            final Node next = current.page.right;
+            next.lock.lock();
+            current.lock.unlock();
+            current = next;
+        }
+        return current;
+    }
+
+    /**
+     * Node of tree.
+     * Content is replaced by new page under lock
+     */
+    private static final class Node {
+
+        /**
+         * Lock for writers.
+         */
+        private final ReentrantLock lock;
+
+        /**
+         * Level, zero for leaves.
+         */
+        private final int level;
+
+        /**
+         * Content.
+         */
+        private volatile Page page;
+
+        /**
+         * Ctor.
+         *
+         * @param level Level, zero for leaves
+         * @param page  Content
+         */
+        Node(final int level, final Page page) {
+            this.lock = new ReentrantLock();
+            this.level = level;
+            this.page = page;
+        }
+    }
+
+    /**
+     * Immutable content of node.
+     * Keys, high key and right link are replaced together,
+     * so reader never sees keys of one split with link of another
+     */
+    private static final class Page {
+
+        /**
+         * Page of empty root.
+         */
+        private static final Page EMPTY = new Page(
+                new int[0],
+                new String[0],
+                null,
+                INFINITY,
+                null
+        );
+
+        /**
+         * Sorted keys or separators.
+         */
+        private final int[] keys;
+
+        /**
+         * Values of keys or null for inner node.
+         */
+        private final String[] values;
+
+        /**
+         * Children or null for leaf.
+         */
+        private final Node[] children;
+
+        /**
+         * Keys of node are lower than it.
+         */
+        private final long high;
+
+        /**
+         * Right neighbour or null for the rightmost node.
+         */
+        private final Node right;
+
+        /**
+         * Ctor.
+         *
+         * @param keys     Sorted keys
+         * @param values   Values or null
+         * @param children Children or null
+         * @param high     Keys of node are lower than it
+         * @param right    Right neighbour
+         */
+        Page(
+                final int[] keys,
+                final String[] values,
+                final Node[] children,
+                final long high,
+                final Node right
+        ) {
+            this.keys = keys;
+            this.values = values;
+            this.children = children;
+            this.high = high;
+            this.right = right;
+        }
+
+        /**
+         * Page of new root.
+         *
+         * @param left      Left child
+         * @param separator Separator
+         * @param right     Right child
+         * @return Page
+         */
+        static Page top(
+                final Node left,
+                final int separator,
+                final Node right
+        ) {
+            return new Page(
+                    new int[]{separator},
+                    null,
+                    new Node[]{left, right},
+                    INFINITY,
+                    null
+            );
+        }
+
+        /**
+         * Search key.
+         *
+         * @param key Key
+         * @return Position of key or (-(insertion point) - 1)
+         */
+        int search(final int key) {
+            return Arrays.binarySearch(this.keys, key);
+        }
+
+        /**
+         * Position of child that may contain key.
+         *
+         * @param key Key
+         * @return Amount of separators that are lower or equal to key
+         */
+        int route(final int key) {
+            return BplusNodes.route(this.search(key));
+        }
+
+        /**
+         * Value of key in leaf.
+         *
+         * @param key Key
+         * @return Value or null
+         */
+        String value(final int key) {
+            final int index = this.search(key);
+            if (index >= 0) {
+                return this.values[index];
+            } else {
+                return null;
+            }
+        }
+
+        /**
+         * Leaf with value replaced.
+         *
+         * @param index Position of key
+         * @param value Value
+         * @return Page
+         */
+        Page replace(final int index, final String value) {
+            final String[] changed = this.values.clone();
+            changed[index] = value;
+            return new Page(this.keys, changed, null, this.high, this.right);
+        }
+
+        /**
+         * Leaf with key inserted.
+         *
+         * @param index Position
+         * @param key   Key
+         * @param value Value
+         * @return Page
+         */
+        Page put(final int index, final int key, final String value) {
+            return new Page(
+                    BplusNodes.inserted(this.keys, index, key),
+                    BplusNodes.inserted(this.values, index, value),
+                    null,
+                    this.high,
+                    this.right
+            );
+        }
+
+        /**
+         * Leaf with key removed.
+         *
+         * @param index Position of key
+         * @return Page
+         */
+        Page remove(final int index) {
+            final int[] keys = new int[this.keys.length - 1];
+            final String[] values = new String[keys.length];
+            System.arraycopy(this.keys, 0, keys, 0, index);
+            System.arraycopy(this.values, 0, values, 0, index);
+            final int tail = keys.length - index;
+            System.arraycopy(this.keys, index + 1, keys, index, tail);
+            System.arraycopy(this.values, index + 1, values, index, tail);
+            return new Page(keys, values, null, this.high, this.right);
+        }
+
+        /**
+         * Inner node with separator and child after it inserted.
+         *
+         * @param separator Separator
+         * @param child     Child that goes after separator
+         * @return Page
+         */
+        Page attach(final int separator, final Node child) {
+            final int index = this.route(separator);
+            return new Page(
+                    BplusNodes.inserted(this.keys, index, separator),
+                    null,
+                    BplusNodes.inserted(this.children, index + 1, child),
+                    this.high,
+                    this.right
+            );
+        }
+
+        /**
+         * Left half of split page.
+         * Its high key is the first key of right half
+         *
+         * @param half  Position of separator
+         * @param right Node with right half
+         * @return Page
+         */
+        Page lower(final int half, final Node right) {
+            final int[] keys = Arrays.copyOf(this.keys, half);
+            if (this.children == null) {
+                return new Page(
+                        keys,
+                        Arrays.copyOf(this.values, half),
+                        null,
+                        this.keys[half],
+                        right
+                );
+            } else {
+                return new Page(
+                        keys,
+                        null,
+                        Arrays.copyOf(this.children, half + 1),
+                        this.keys[half],
+                        right
+                );
+            }
+        }
+
+        /**
+         * Right half of split page, see {@link BplusNodes#upper}.
+         *
+         * @param half Position of separator
+         * @return Page
+         */
+        Page upper(final int half) {
+            final int length = this.keys.length;
+            final int from = BplusNodes.upper(this.children == null, half);
+            final int[] keys = Arrays.copyOfRange(this.keys, from, length);
+            if (this.children == null) {
+                return new Page(
+                        keys,
+                        Arrays.copyOfRange(this.values, from, length),
+                        null,
+                        this.high,
+                        this.right
+                );
+            } else {
+                return new Page(
+                        keys,
+                        null,
+                        Arrays.copyOfRange(this.children, from, length + 1),
+                        this.high,
+                        this.right
+                );
+            }
+        }
+    }
+}
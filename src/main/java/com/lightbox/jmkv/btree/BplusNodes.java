@@ -0,0 +1,135 @@
+package com.lightbox.jmkv.btree;
+
+import java.util.Arrays;
+
+/**
+ * Helpers of B+tree nodes with int keys.
+ * Route search to child, pick the right half of split node
+ * and copy arrays of nodes that are never changed in place
+ */
+final class BplusNodes {
+
+    /**
+     * Ctor.
+     */
+    private BplusNodes() {
+    }
+
+    /**
+     * Search key in sorted keys without allocation.
+     *
+     * @param keys Sorted keys
+     * @param key  Key to search
+     * @return Position of key if found,
+     * otherwise (-(insertion point) - 1)
+     */
+    static int search(final Keys keys, final int key) {
+        int low = 0;
+        int high = keys.size() - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int current = keys.key(mid);
+            if (current < key) {
+                low = mid + 1;
+            } else if (current > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Position of child that may contain key.
+     * Child in position i has keys that are bigger or equal to
+     * separator i-1 and lower than separator i
+     *
+     * @param result Encoded result of search of key in separators
+     * @return Amount of separators that are lower or equal to key
+     */
+    static int route(final int result) {
+        final int child;
+        if (result >= 0) {
+            child = result + 1;
+        } else {
+            child = -result - 1;
+        }
+        return child;
+    }
+
+    /**
+     * Position of the first key of right half.
+     * Leaf keeps separator as its first key of right half
+     * because values live only in leaves, inner node moves
+     * separator to parent
+     *
+     * @param leaf True if node is leaf
+     * @param half Position of separator
+     * @return Position of the first key that moves right
+     */
+    static int upper(final boolean leaf, final int half) {
+        final int upper;
+        if (leaf) {
+            upper = half;
+        } else {
+            upper = half + 1;
+        }
+        return upper;
+    }
+
+    /**
+     * Copy of keys with one more key.
+     *
+     * @param array Keys
+     * @param index Position
+     * @param key   Key
+     * @return Copy
+     */
+    static int[] inserted(final int[] array, final int index, final int key) {
+        final int[] copy = new int[array.length + 1];
+        System.arraycopy(array, 0, copy, 0, index);
+        copy[index] = key;
+        final int tail = array.length - index;
+        System.arraycopy(array, index, copy, index + 1, tail);
+        return copy;
+    }
+
+    /**
+     * Copy of array with one more item.
+     *
+     * @param array Array
+     * @param index Position
+     * @param item  Item
+     * @param <T>   Type of item
+     * @return Copy
+     */
+    static <T> T[] inserted(final T[] array, final int index, final T item) {
+        final T[] copy = Arrays.copyOf(array, array.length + 1);
+        final int tail = array.length - index;
+        System.arraycopy(array, index, copy, index + 1, tail);
+        copy[index] = item;
+        return copy;
+    }
+
+    /**
+     * Sorted int keys of node that doesn't keep them in array.
+     */
+    interface Keys {
+
+        /**
+         * Amount of keys.
+         *
+         * @return Amount of keys
+         */
+        int size();
+
+        /**
+         * Key by position.
+         *
+         * @param index Position
+         * @return Key
+         */
+        int key(int index);
+    }
+}
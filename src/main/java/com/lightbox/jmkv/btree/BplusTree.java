@@ -0,0 +1,751 @@
+package com.lightbox.jmkv.btree;
+
+import com.lightbox.jmkv.Cache;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * B+tree for int keys with leaves chained in both directions.
+ * Inner nodes keep only separators, so range scan and descending
+ * scan find the edge leaf once and then walk the chain
+ * without going back to parents.
+ * Delete borrows from or merges with neighbour on the way up,
+ * so no node except root stays underfull. Not thread safe
+ */
+public final class BplusTree
+        implements Cache, Iterable<Map.Entry<Integer, String>> {
+
+    /**
+     * Default max amount of keys in node.
+     */
+    public static final int CAPACITY = 64;
+
+    /**
+     * Max amount of keys in node.
+     */
+    private final int capacity;
+
+    /**
+     * Min amount of keys in node except root.
+     */
+    private final int minimum;
+
+    /**
+     * Root.
+     */
+    private Node root;
+
+    /**
+     * Amount of keys.
+     */
+    private int size;
+
+    /**
+     * Amount of structural modifications.
+     * Iterators fail when it changes
+     */
+    private int modifications;
+
+    /**
+     * Ctor.
+     */
+    public BplusTree() {
+        this(CAPACITY);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param capacity Max amount of keys in node, at least 3
+     */
+    public BplusTree(final int capacity) {
+        if (capacity < 3) {
+            throw new IllegalArgumentException(
+                    String.format("Capacity %d is less than 3", capacity)
+            );
+        }
+        this.capacity = capacity;
+        this.minimum = (capacity - 1) / 2;
+        this.root = new Node(capacity, true);
+    }
+
+    /**
+     * Get value by key.
+     *
+     * @param key Key
+     * @return Value or null
+     */
+    public String get(final int key) {
+        final Node leaf = this.leaf(key);
+        final int index = leaf.search(key);
+        if (index >= 0) {
+            return leaf.values[index];
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Put key value pair, replacing previous value.
+     *
+     * @param key   Key
+     * @param value Value
+     * @return Value
+     */
+    public String put(final int key, final String value) {
+        Objects.requireNonNull(value, "Value can't be null");
+        if (this.root.full()) {
+            final Node top = new Node(this.capacity, false);
+            top.children[0] = this.root;
+            this.split(top, 0);
+            this.root = top;
+        }
+        Node node = this.root;
+        while (!node.leaf) {
+            int index = node.route(key);
+            if (node.children[index].full()) {
+                this.split(node, index);
+                if (key >= node.keys[index]) {
+                    index++;
+                }
+            }
+            node = node.children[index];
+        }
+        final int index = node.search(key);
+        if (index >= 0) {
+            node.values[index] = value;
+        } else {
+            node.insert(-index - 1, key, value);
+            this.size++;
+            this.modifications++;
+        }
+        return value;
+    }
+
+    /**
+     * Delete value by key.
+     *
+     * @param key Key
+     * @return Deleted value or null
+     */
+    public String delete(final int key) {
+        final String removed = this.delete(this.root, key);
+        if (!this.root.leaf && this.root.size == 0) {
+            this.root = this.root.children[0];
+        }
+        if (removed != null) {
+            this.size--;
+            this.modifications++;
+        }
+        return removed;
+    }
+
+    /**
+     * Check that value with given key is present.
+     *
+     * @param key Key
+     * @return True if value is present
+     */
+    public boolean exists(final int key) {
+        return this.get(key) != null;
+    }
+
+    /**
+     * Iterate over keys in range in ascending order.
+     * Walks chain of leaves from the first key of range
+     *
+     * @param from The first key
+     * @param to   Key after the last one
+     * @return Iterator of keys and values
+     */
+    public Iterator<Map.Entry<Integer, String>> range(
+            final int from,
+            final int to
+    ) {
+        return new Scan(from, to, false);
+    }
+
+    /**
+     * Iterate over keys in range in descending order.
+     * Walks chain of leaves back from the last key of range
+     *
+     * @param from The first key
+     * @param to   Key after the last one
+     * @return Iterator of keys and values
+     */
+    public Iterator<Map.Entry<Integer, String>> descendingRange(
+            final int from,
+            final int to
+    ) {
+        return new Scan(from, to, true);
+    }
+
+    @Override
+    public Iterator<Map.Entry<Integer, String>> iterator() {
+        return new Scan(Integer.MIN_VALUE, Integer.MAX_VALUE + 1L, false);
+    }
+
+    @Override
+    public boolean clear() {
+        this.root = new Node(this.capacity, true);
+        this.size = 0;
+        this.modifications++;
+        return true;
+    }
+
+    @Override
+    public String get(final Integer key) {
+        return this.get(key.intValue());
+    }
+
+    @Override
+    public String put(final Integer key, final String value) {
+        return this.put(key.intValue(), value);
+    }
+
+    @Override
+    public String delete(final Integer key) {
+        return this.delete(key.intValue());
+    }
+
+    @Override
+    public boolean exists(final Integer key) {
+        return this.exists(key.intValue());
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Height of tree.
+     *
+     * @return Amount of levels
+     */
+    public int height() {
+        int height = 1;
+        for (Node node = this.root; !node.leaf; node = node.children[0]) {
+            height++;
+        }
+        return height;
+    }
+
+    /**
+     * Leaf where key is or would be.
+     *
+     * @param key Key
+     * @return Leaf
+     */
+    private Node leaf(final int key) {
+        Node node = this.root;
+        while (!node.leaf) {
+            node = node.children[node.route(key)];
+        }
+        return node;
+    }
+
+    /**
+     * Delete key from subtree and fix child that has too few keys.
+     *
+     * @param node Root of subtree
+     * @param key  Key
+     * @return Deleted value or null
+     */
+    private String delete(final Node node, final int key) {
+        final String removed;
+        if (node.leaf) {
+            final int index = node.search(key);
+            if (index >= 0) {
+                removed = node.values[index];
+                node.remove(index);
+            } else {
+                removed = null;
+            }
+        } else {
+            final int index = node.route(key);
+            removed = this.delete(node.children[index], key);
+            if (removed != null && node.children[index].size < this.minimum) {
+                this.rebalance(node, index);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Borrow key from neighbour of child or merge child with it.
+     *
+     * @param parent Parent
+     * @param index  Position of child that has too few keys
+     */
+    private void rebalance(final Node parent, final int index) {
+        if (index > 0 && parent.children[index - 1].size > this.minimum) {
+            parent.borrowLeft(index);
+        } else if (index < parent.size
+                && parent.children[index + 1].size > this.minimum) {
+            parent.borrowRight(index);
+        } else if (index > 0) {
+            BplusTree.merge(parent, index - 1);
+        } else {
+            BplusTree.merge(parent, index);
+        }
+    }
+
+    /**
+     * Merge right neighbour into child and drop separator between them.
+     *
+     * @param parent Parent
+     * @param index  Position of left child
+     */
+    private static void merge(final Node parent, final int index) {
+        final Node left = parent.children[index];
+        final Node right = parent.children[index + 1];
+        if (left.leaf) {
+            left.append(right);
+            left.next = right.next;
+            if (right.next != null) {
+                right.next.prev = left;
+            }
+        } else {
+            left.keys[left.size] = parent.keys[index];
+            left.size++;
+            left.append(right);
+        }
+        parent.detach(index);
+    }
+
+    /**
+     * Split full child in two halves and link right leaf
+     * into chain of leaves.
+     *
+     * @param parent Parent that isn't full
+     * @param index  Position of full child
+     */
+    private void split(final Node parent, final int index) {
+        final Node full = parent.children[index];
+        final Node right = new Node(this.capacity, full.leaf);
+        final int half = full.size / 2;
+        final int separator = full.keys[half];
+        right.take(full, BplusNodes.upper(full.leaf, half), full.size);
+        full.size = half;
+        if (full.leaf) {
+            right.prev = full;
+            right.next = full.next;
+            if (full.next != null) {
+                full.next.prev = right;
+            }
+            full.next = right;
+        }
+        parent.attach(index, separator, right);
+        this.modifications++;
+    }
+
+    /**
+     * Node of tree.
+     * Leaf keeps keys with values and links to neighbour leaves,
+     * inner node keeps separators and children
+     */
+    private static final class Node {
+
+        /**
+         * Sorted keys or separators.
+         */
+        private final int[] keys;
+
+        /**
+         * Values of keys or null for inner node.
+         */
+        private final String[] values;
+
+        /**
+         * Children or null for leaf.
+         */
+        private final Node[] children;
+
+        /**
+         * True if node has no children.
+         */
+        private final boolean leaf;
+
+        /**
+         * Amount of keys.
+         */
+        private int size;
+
+        /**
+         * Previous leaf.
+         */
+        private Node prev;
+
+        /**
+         * Next leaf.
+         */
+        private Node next;
+
+        /**
+         * Ctor.
+         *
+         * @param capacity Max amount of keys
+         * @param leaf     True if node has no children
+         */
+        Node(final int capacity, final boolean leaf) {
+            this.keys = new int[capacity];
+            this.leaf = leaf;
+            if (leaf) {
+                this.values = new String[capacity];
+                this.children = null;
+            } else {
+                this.values = null;
+                this.children = new Node[capacity + 1];
+            }
+        }
+
+        /**
+         * Search key.
+         *
+         * @param key Key
+         * @return Position of key or (-(insertion point) - 1)
+         */
+        int search(final int key) {
+            return Arrays.binarySearch(this.keys, 0, this.size, key);
+        }
+
+        /**
+         * Position of child that may contain key.
+         *
+         * @param key Key
+         * @return Amount of separators that are lower or equal to key
+         */
+        int route(final int key) {
+            return BplusNodes.route(this.search(key));
+        }
+
+        /**
+         * Check that node can't take one more key.
+         *
+         * @return True if node has max amount of keys
+         */
+        boolean full() {
+            return this.size == this.keys.length;
+        }
+
+        /**
+         * Insert key into leaf.
+         *
+         * @param index Position
+         * @param key   Key
+         * @param value Value
+         */
+        void insert(final int index, final int key, final String value) {
+            final int tail = this.size - index;
+            System.arraycopy(this.keys, index, this.keys, index + 1, tail);
+            System.arraycopy(this.values, index, this.values, index + 1, tail);
+            this.keys[index] = key;
+            this.values[index] = value;
+            this.size++;
+        }
+
+        /**
+         * Remove key from leaf.
+         *
+         * @param index Position of key
+         */
+        void remove(final int index) {
+            final int tail = this.size - index - 1;
+            System.arraycopy(this.keys, index + 1, this.keys, index, tail);
+            System.arraycopy(this.values, index + 1, this.values, index, tail);
+            this.size--;
+            this.values[this.size] = null;
+        }
+
+        /**
+         * Insert separator and child after it.
+         *
+         * @param index     Position of separator
+         * @param separator Separator
+         * @param child     Child that goes after separator
+         */
+        void attach(final int index, final int separator, final Node child) {
+            final int tail = this.size - index;
+            System.arraycopy(this.keys, index, this.keys, index + 1, tail);
+            System.arraycopy(
+                    this.children,
+                    index + 1,
+                    this.children,
+                    index + 2,
+                    tail
+            );
+            this.keys[index] = separator;
+            this.children[index + 1] = child;
+            this.size++;
+        }
+
+        /**
+         * Remove separator and child after it.
+         *
+         * @param index Position of separator
+         */
+        void detach(final int index) {
+            final int tail = this.size - index - 1;
+            System.arraycopy(this.keys, index + 1, this.keys, index, tail);
+            System.arraycopy(
+                    this.children,
+                    index + 2,
+                    this.children,
+                    index + 1,
+                    tail
+            );
+            this.children[this.size] = null;
+            this.size--;
+        }
+
+        /**
+         * Move the tail of other node to this empty node.
+         *
+         * @param other Node to split
+         * @param from  Position of the first key to move
+         * @param to    Position after the last key
+         */
+        void take(final Node other, final int from, final int to) {
+            final int count = to - from;
+            System.arraycopy(other.keys, from, this.keys, 0, count);
+            if (this.leaf) {
+                System.arraycopy(other.values, from, this.values, 0, count);
+                Arrays.fill(other.values, from, to, null);
+                other.size = from;
+            } else {
+                System.arraycopy(
+                        other.children,
+                        from,
+                        this.children,
+                        0,
+                        count + 1
+                );
+                Arrays.fill(other.children, from, to + 1, null);
+            }
+            this.size = count;
+        }
+
+        /**
+         * Append all keys and children of right neighbour.
+         *
+         * @param other Right neighbour
+         */
+        void append(final Node other) {
+            System.arraycopy(other.keys, 0, this.keys, this.size, other.size);
+            if (this.leaf) {
+                System.arraycopy(
+                        other.values,
+                        0,
+                        this.values,
+                        this.size,
+                        other.size
+                );
+            } else {
+                System.arraycopy(
+                        other.children,
+                        0,
+                        this.children,
+                        this.size,
+                        other.size + 1
+                );
+            }
+            this.size += other.size;
+        }
+
+        /**
+         * Move the last key of left neighbour to child.
+         *
+         * @param index Position of child
+         */
+        void borrowLeft(final int index) {
+            final Node child = this.children[index];
+            final Node left = this.children[index - 1];
+            final int last = left.size - 1;
+            if (child.leaf) {
+                child.insert(0, left.keys[last], left.values[last]);
+                left.remove(last);
+                this.keys[index - 1] = child.keys[0];
+            } else {
+                System.arraycopy(child.keys, 0, child.keys, 1, child.size);
+                System.arraycopy(
+                        child.children,
+                        0,
+                        child.children,
+                        1,
+                        child.size + 1
+                );
+                child.keys[0] = this.keys[index - 1];
+                child.children[0] = left.children[left.size];
+                child.size++;
+                this.keys[index - 1] = left.keys[last];
+                left.children[left.size] = null;
+                left.size--;
+            }
+        }
+
+        /**
+         * Move the first key of right neighbour to child.
+         *
+         * @param index Position of child
+         */
+        void borrowRight(final int index) {
+            final Node child = this.children[index];
+            final Node right = this.children[index + 1];
+            if (child.leaf) {
+                child.insert(child.size, right.keys[0], right.values[0]);
+                right.remove(0);
+                this.keys[index] = right.keys[0];
+            } else {
+                child.keys[child.size] = this.keys[index];
+                child.children[child.size + 1] = right.children[0];
+                child.size++;
+                this.keys[index] = right.keys[0];
+                System.arraycopy(right.keys, 1, right.keys, 0, right.size - 1);
+                System.arraycopy(
+                        right.children,
+                        1,
+                        right.children,
+                        0,
+                        right.size
+                );
+                right.children[right.size] = null;
+                right.size--;
+            }
+        }
+    }
+
+    /**
+     * Iterator over chain of leaves.
+     * Fails if tree was changed
+     */
+    private final class Scan implements Iterator<Map.Entry<Integer, String>> {
+
+        /**
+         * The first key.
+         */
+        private final long from;
+
+        /**
+         * Key after the last one.
+         */
+        private final long to;
+
+        /**
+         * True if scan goes from bigger keys to lower ones.
+         */
+        private final boolean descending;
+
+        /**
+         * Modifications of tree which scan expects.
+         */
+        private final int expected;
+
+        /**
+         * Current leaf or null if scan passed all leaves.
+         */
+        private Node leaf;
+
+        /**
+         * Position of key in current leaf.
+         */
+        private int index;
+
+        /**
+         * Ctor.
+         *
+         * @param from       The first key
+         * @param to         Key after the last one
+         * @param descending True if scan goes to lower keys
+         */
+        Scan(final long from, final long to, final boolean descending) {
+            this.from = from;
+            this.to = to;
+            this.descending = descending;
+            this.expected = BplusTree.this.modifications;
+            if (from >= to) {
+                this.leaf = null;
+            } else if (descending) {
+                final int last = (int) (to - 1L);
+                this.leaf = BplusTree.this.leaf(last);
+                final int search = this.leaf.search(last);
+                if (search >= 0) {
+                    this.index = search;
+                } else {
+                    this.index = -search - 2;
+                }
+                this.settle();
+            } else {
+                this.leaf = BplusTree.this.leaf((int) from);
+                final int search = this.leaf.search((int) from);
+                if (search >= 0) {
+                    this.index = search;
+                } else {
+                    this.index = -search - 1;
+                }
+                this.settle();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            boolean next = this.leaf != null;
+            if (next) {
+                final int key = this.leaf.keys[this.index];
+                if (this.descending) {
+                    next = key >= this.from;
+                } else {
+                    next = key < this.to;
+                }
+            }
+            return next;
+        }
+
+        @Override
+        public Map.Entry<Integer, String> next() {
+            if (this.expected != BplusTree.this.modifications) {
+                throw new ConcurrentModificationException();
+            }
+            if (!this.hasNext()) {
+                throw new NoSuchElementException("Range has no more keys");
+            }
+            final Map.Entry<Integer, String> entry =
+                    new AbstractMap.SimpleImmutableEntry<>(
+                            this.leaf.keys[this.index],
+                            this.leaf.values[this.index]
+                    );
+            if (this.descending) {
+                this.index--;
+            } else {
+                this.index++;
+            }
+            this.settle();
+            return entry;
+        }
+
+        /**
+         * Move to neighbour leaf if current one is passed.
+         */
+        private void settle() {
+            if (this.descending) {
+                while (this.leaf != null && this.index < 0) {
+                    this.leaf = this.leaf.prev;
+                    if (this.leaf != null) {
+                        this.index = this.leaf.size - 1;
+                    }
+                }
+            } else {
+                while (this.leaf != null && this.index >= this.leaf.size) {
+                    this.leaf = this.leaf.next;
+                    this.index = 0;
+                }
+            }
+        }
+    }
+}
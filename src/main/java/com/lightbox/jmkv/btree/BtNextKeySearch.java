@@ -19,7 +19,7 @@ public final class BtNextKeySearch extends BtreeSearch {
      */
     public BtNextKeySearch(
             final BtreeNode node,
-            final Integer key
+            final int key
     ) {
         super(
                 node,
@@ -49,6 +49,17 @@ public final class BtNextKeySearch extends BtreeSearch {
         );
     }
 
+    /**
+     * Find position after given key without allocation.
+     *
+     * @param node Node
+     * @param key  Key to search
+     * @return Next position
+     */
+    public static int position(final BtreeNode node, final int key) {
+        return BtNextKeySearch.search(node, 1, node.keys(), key);
+    }
+
     /**
      * Find position after given key.
      *
@@ -58,23 +69,15 @@ public final class BtNextKeySearch extends BtreeSearch {
      * @param key       Key
      * @return Next position
      */
-    private static BtreeSearch search(
+    private static int search(
             final BtreeNode node,
             final int indexFrom,
             final int indexTo,
-            final Integer key
+            final int key
     ) {
-        int low = indexFrom;
-        int high = indexTo - 1;
-        while (low <= high) {
-            final int mid = (low + high) >>> 1;
-            final Integer midVal = node.key(mid).key;
-            if (midVal < key) {
-                low = mid;
-            } else if (midVal >= key) {
-                return new BtreeSearch(true, mid);
-            }
-        }
-        return new BtreeSearch(true, node.keys() - 1);
+        return Math.min(
+                BtreeSearch.lower(node, indexFrom, indexTo, key),
+                node.keys() - 1
+        );
     }
 }
@@ -1,80 +1,115 @@
-/*
 package com.lightbox.jmkv.btree;
 
-import com.lightbox.jmkv.ImmutableEntry;
-
+import java.util.AbstractMap;
 import java.util.Collection;
-import java.util.Map;
+import java.util.Comparator;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.SortedMap;
 
-*/
 /**
  * B-tree implementation.
- *//*
-
-public final class Btree implements Map<Integer, String> {
-
-    */
-/**
+ * Insert splits full nodes on the way down and delete fills
+ * nodes with minimal amount of keys on the way down,
+ * so both operations are one pass from root to leaf.
+ * Range views and iterators keep path from root to current key,
+ * so every step of iteration costs amortized O(1)
+ * instead of new search from root.
+ * Every node knows amount of keys in its subtree,
+ * so rank, select and size of range take O(t log n).
+ * Nodes also keep aggregates of their subtrees,
+ * so aggregate of key range takes O(t log n) as well.
+ * Values can't be null. Not thread safe
+ */
+public final class Btree extends AbstractMap<Integer, String>
+        implements NavigableMap<Integer, String> {
+
+    /**
+     * Default minimal degree.
+     */
+    public static final int DEGREE = 32;
+
+    /**
      * Number to determine amount of max keys and max children.
-     * 1) Number of children [B,2B-1) (false for parent node)
-     * 2) Number of keys [B-1,2B)
-     *//*
-
+     * 1) Number of children [B,2B] (false for root node)
+     * 2) Number of keys [B-1,2B-1]
+     */
     private final int branchingNumber;
 
-    */
-/**
-     * Current size of tree.
-     *//*
-
-    private final AtomicInteger size = new AtomicInteger(0);
+    /**
+     * View of all keys.
+     */
+    private final BtreeRange whole;
 
-    */
-/**
-     * Reference to parent.
-     * Protected for testing
-     *//*
+    /**
+     * Aggregates kept in nodes.
+     */
+    private final Aggregate<?>[] aggregates;
 
+    /**
+     * Reference to root.
+     */
     private BtreeNode root;
 
-    */
-/**
+    /**
+     * Amount of structural modifications.
+     * Iterators fail when it changes
+     */
+    private int modifications;
+
+    /**
      * Ctor.
-     *
-     * @param branchingFactor Order
-     *//*
+     */
+    public Btree() {
+        this(DEGREE);
+    }
 
-    public Btree(final int branchingFactor) {
+    /**
+     * Ctor.
+     *
+     * @param branchingFactor Minimal degree, at least 2
+     * @param aggregates      Aggregates to keep in nodes
+     */
+    public Btree(
+            final int branchingFactor,
+            final Aggregate<?>... aggregates
+    ) {
+        if (branchingFactor < 2) {
+            throw new IllegalArgumentException(
+                    String.format(
+                            "Branching factor %d is less than 2",
+                            branchingFactor
+                    )
+            );
+        }
         this.branchingNumber = branchingFactor;
+        this.aggregates = aggregates.clone();
+        this.root = new BtreeNode(this.maxKeys(), this.maxChildren());
+        this.whole = new BtreeRange(this);
     }
 
     @Override
     public int size() {
-        return this.size.get();
+        return this.root.entries();
     }
 
     @Override
     public boolean isEmpty() {
-        return this.root == null;
+        return this.size() == 0;
     }
 
     @Override
     public boolean containsKey(final Object key) {
-        return this.get(key) != null;
-    }
-
-    @Override
-    public boolean containsValue(final Object value) {
-        return false;
+        return this.search((Integer) key) != null;
     }
 
     @Override
     public String get(final Object key) {
-        @SuppressWarnings("LineLength") final ImmutableEntry<BtreeNode, Integer> entry = this.search((Integer) key);
+        final NodeKey entry = this.search((Integer) key);
         if (entry != null) {
-            return entry.getKey().key(entry.getValue()).value;
+            return entry.value;
         } else {
             return null;
         }
@@ -82,381 +117,698 @@ public final class Btree implements Map<Integer, String> {
 
     @Override
     public String put(final Integer key, final String value) {
-        if (this.root == null) {
-            this.root = new SingleKeyNode(
-                    this.maxKeys(),
-                    this.maxChildren(),
-                    key,
-                    value
-            );
+        Objects.requireNonNull(key, "Key can't be null");
+        Objects.requireNonNull(value, "Value can't be null");
+        if (this.root.keys() == this.maxKeys()) {
+            final BtreeNode top =
+                    new BtreeNode(this.maxKeys(), this.maxChildren());
+            top.addChild(this.root);
+            this.split(top, 0);
+            this.refresh(top);
+            this.root = top;
+        }
+        final NodeKey entry = new NodeKey(key, value);
+        BtreeNode node = this.root;
+        NodeKey previous = null;
+        boolean done = false;
+        while (!done) {
+            final int search = BtreeSearch.search(node, key);
+            int position = BtreeSearch.position(search);
+            if (BtreeSearch.found(search)) {
+                previous = node.replaceKey(position, entry);
+                this.update(node, 0);
+                done = true;
+            } else if (!node.hasChildren()) {
+                node.addKey(entry);
+                this.update(node, 1);
+                this.modifications++;
+                done = true;
+            } else {
+                if (node.child(position).keys() == this.maxKeys()) {
+                    this.split(node, position);
+                    final int middle = node.key(position).key;
+                    if (key > middle) {
+                        position++;
+                    } else if (key == middle) {
+                        previous = node.replaceKey(position, entry);
+                        this.update(node, 0);
+                        done = true;
+                    }
+                }
+                node = node.child(position);
+            }
+        }
+        if (previous != null) {
+            return previous.value;
         } else {
-            this.put(new NodeKey(key, value));
+            return null;
         }
-        this.size.incrementAndGet();
-        return value;
     }
 
     @Override
     public String remove(final Object key) {
-        //key is node , value is position
-        @SuppressWarnings("LineLength") final ImmutableEntry<BtreeNode, Integer> entry = this.search((Integer) key);
-        if (entry != null) {
-            return this.remove(entry.getKey(), entry.getValue());
+        final NodeKey removed = this.delete(this.root, (Integer) key);
+        if (!this.root.hasKeys() && this.root.hasChildren()) {
+            this.root = this.root.child(0);
+            this.root.removeParent();
+        }
+        if (removed != null) {
+            this.modifications++;
+            return removed.value;
         } else {
             return null;
         }
     }
 
-    */
-/**
-     * Delete key from node.
-     *
-     * @param node        Node that contains value to delete
-     * @param keyPosition Position of key to be deleted
-     * @return Value of deleted key
-     *//*
+    @Override
+    public void clear() {
+        this.root = new BtreeNode(this.maxKeys(), this.maxChildren());
+        this.modifications++;
+    }
 
-    private String remove(
-            final BtreeNode node,
-            final Integer keyPosition
-    ) {
-        final NodeKey removed = node.removeKey(keyPosition);
-        if (!node.hasChildren()) {
-            if (node.hasParent() && node.keys() < this.minKeys()) {
-                this.combined(node);
-            } else if (!node.hasParent() && !node.hasKeys()) {
-                this.root = null;
-            }
-        } else {
-            final BtreeNode greatest = node.child(keyPosition).greatestChild();
-            node.addKey(greatest.removeLastKey());
-            if (greatest.hasParent() && greatest.keys() < this.minKeys()) {
-                this.combined(greatest);
-            }
-            if (greatest.children() > maxChildren()) {
-                this.split(greatest);
-            }
-        }
-        this.size.decrementAndGet();
-        return removed.value;
-    }
-
-    private void combined(final BtreeNode node) {
-        final BtreeNode parent = node.parent();
-        final int index = parent.indexOfNode(node);
-        final int left = index - 1;
-        final int right = index + 1;
-        BtreeNode rightNeighbour = null;
-        if (right < parent.children()) {
-            rightNeighbour = parent.child(right);
-        }
-        if (rightNeighbour != null && rightNeighbour.keys() > this.minKeys()) {
-            final NodeKey firstKey = rightNeighbour.firstKey();
-            final TheoreticalKeyPosition search = new TheoreticalKeyPosition(parent, firstKey);
-            final NodeKey parentKey = parent.removeKey(search.position());
-            final NodeKey neighborKey = rightNeighbour.removeFirstKey();
-            node.addKey(parentKey);
-            parent.addKey(neighborKey);
-            if (rightNeighbour.hasChildren()) {
-                node.addChild(rightNeighbour.removeChild(0));
-            }
-        } else {
-            BtreeNode leftNeighbour = null;
-            if (left >= 0) {
-                leftNeighbour = parent.child(left);
-            }
-            if (leftNeighbour != null && leftNeighbour.keys() >= this.minKeys()) {
-                final NodeKey lastKey = leftNeighbour.lastKey();
-                final BtNextKeySearch search = new BtNextKeySearch(parent, lastKey);
-                final NodeKey parentKey = parent.removeKey(search.position());
-                final NodeKey neighbourKey = leftNeighbour.removeLastKey();
-                node.addKey(parentKey);
-                parent.addKey(neighbourKey);
-            } else if (rightNeighbour != null && parent.hasKeys()) {
-                final NodeKey firstKey = rightNeighbour.firstKey();
-                final TheoreticalKeyPosition search = new TheoreticalKeyPosition(parent, firstKey);
-                final NodeKey parentKey = parent.removeKey(search.position());
-                parent.removeChild(rightNeighbour);
-                node.addKey(parentKey);
-                node.addAllKeys(rightNeighbour);
-                node.addAllChildren(rightNeighbour);
-                if (parent.hasParent() && parent.keys() < this.minKeys()) {
-                    this.combined(parent);
-                } else if (!parent.hasKeys()) {
-                    node.removeParent();
-                    this.root = node;
-                }
-            } else if (leftNeighbour != null && parent.hasKeys()) {
-                final NodeKey lastKey = leftNeighbour.lastKey();
-                final BtNextKeySearch search = new BtNextKeySearch(parent, lastKey);
-                final NodeKey parentKey = parent.removeKey(search.position());
-                parent.removeChild(leftNeighbour);
-                node.addKey(parentKey);
-                node.addAllKeys(leftNeighbour);
-                node.addAllChildren(leftNeighbour);
-                if (parent.hasParent() && parent.keys() < this.minKeys()) {
-                    this.combined(parent);
-                } else {
-                    node.removeParent();
-                    this.root = node;
-                }
-            }
-        }
+    @Override
+    public Set<Entry<Integer, String>> entrySet() {
+        return this.whole.entrySet();
     }
 
     @Override
-    public void putAll(final Map<? extends Integer, ? extends String> map) {
+    public NavigableSet<Integer> keySet() {
+        return this.whole.navigableKeySet();
+    }
 
+    @Override
+    public Collection<String> values() {
+        return this.whole.values();
     }
 
     @Override
-    public void clear() {
-        this.root = null;
+    public Entry<Integer, String> lowerEntry(final Integer key) {
+        return this.whole.lowerEntry(key);
     }
 
     @Override
-    public Set<Integer> keySet() {
-        return null;
+    public Integer lowerKey(final Integer key) {
+        return this.whole.lowerKey(key);
     }
 
     @Override
-    public Collection<String> values() {
-        return null;
+    public Entry<Integer, String> floorEntry(final Integer key) {
+        return this.whole.floorEntry(key);
     }
 
     @Override
-    public Set<Entry<Integer, String>> entrySet() {
+    public Integer floorKey(final Integer key) {
+        return this.whole.floorKey(key);
+    }
+
+    @Override
+    public Entry<Integer, String> ceilingEntry(final Integer key) {
+        return this.whole.ceilingEntry(key);
+    }
+
+    @Override
+    public Integer ceilingKey(final Integer key) {
+        return this.whole.ceilingKey(key);
+    }
+
+    @Override
+    public Entry<Integer, String> higherEntry(final Integer key) {
+        return this.whole.higherEntry(key);
+    }
+
+    @Override
+    public Integer higherKey(final Integer key) {
+        return this.whole.higherKey(key);
+    }
+
+    @Override
+    public Entry<Integer, String> firstEntry() {
+        return this.whole.firstEntry();
+    }
+
+    @Override
+    public Entry<Integer, String> lastEntry() {
+        return this.whole.lastEntry();
+    }
+
+    @Override
+    public Entry<Integer, String> pollFirstEntry() {
+        return this.whole.pollFirstEntry();
+    }
+
+    @Override
+    public Entry<Integer, String> pollLastEntry() {
+        return this.whole.pollLastEntry();
+    }
+
+    @Override
+    public NavigableMap<Integer, String> descendingMap() {
+        return this.whole.descendingMap();
+    }
+
+    @Override
+    public NavigableSet<Integer> navigableKeySet() {
+        return this.whole.navigableKeySet();
+    }
+
+    @Override
+    public NavigableSet<Integer> descendingKeySet() {
+        return this.whole.descendingKeySet();
+    }
+
+    @Override
+    public NavigableMap<Integer, String> subMap(
+            final Integer fromKey,
+            final boolean fromInclusive,
+            final Integer toKey,
+            final boolean toInclusive
+    ) {
+        return this.whole.subMap(fromKey, fromInclusive, toKey, toInclusive);
+    }
+
+    @Override
+    public NavigableMap<Integer, String> headMap(
+            final Integer toKey,
+            final boolean inclusive
+    ) {
+        return this.whole.headMap(toKey, inclusive);
+    }
+
+    @Override
+    public NavigableMap<Integer, String> tailMap(
+            final Integer fromKey,
+            final boolean inclusive
+    ) {
+        return this.whole.tailMap(fromKey, inclusive);
+    }
+
+    @Override
+    public Comparator<? super Integer> comparator() {
         return null;
     }
 
-    */
-/**
-     * Get current parent.
-     * For testing purposes
+    @Override
+    public SortedMap<Integer, String> subMap(
+            final Integer fromKey,
+            final Integer toKey
+    ) {
+        return this.whole.subMap(fromKey, toKey);
+    }
+
+    @Override
+    public SortedMap<Integer, String> headMap(final Integer toKey) {
+        return this.whole.headMap(toKey);
+    }
+
+    @Override
+    public SortedMap<Integer, String> tailMap(final Integer fromKey) {
+        return this.whole.tailMap(fromKey);
+    }
+
+    @Override
+    public Integer firstKey() {
+        return this.whole.firstKey();
+    }
+
+    @Override
+    public Integer lastKey() {
+        return this.whole.lastKey();
+    }
+
+    /**
+     * Amount of keys that are lower than given one.
+     *
+     * @param key Key
+     * @return Rank of key
+     */
+    public int rank(final int key) {
+        return this.rank(key, false);
+    }
+
+    /**
+     * Entry by its position in ascending order of keys.
      *
-     * @return Reference to parent
-     *//*
+     * @param index Position from zero
+     * @return Entry
+     */
+    public Entry<Integer, String> select(final int index) {
+        if (index < 0 || index >= this.size()) {
+            throw new IndexOutOfBoundsException(
+                    String.format(
+                            "Index %d is out of range [0, %d)",
+                            index,
+                            this.size()
+                    )
+            );
+        }
+        BtreeNode node = this.root;
+        int rest = index;
+        NodeKey entry = null;
+        while (entry == null) {
+            if (node.hasChildren()) {
+                int position = 0;
+                while (rest > node.child(position).entries()) {
+                    rest -= node.child(position).entries() + 1;
+                    position++;
+                }
+                if (rest == node.child(position).entries()) {
+                    entry = node.key(position);
+                } else {
+                    node = node.child(position);
+                }
+            } else {
+                entry = node.key(rest);
+            }
+        }
+        return new SimpleImmutableEntry<>(entry.key, entry.value);
+    }
 
-    protected BtreeNode root() {
+    /**
+     * Aggregate of entries in range.
+     *
+     * @param aggregate Aggregate that was given to constructor
+     * @param from      The lowest key, inclusive
+     * @param to        The biggest key, exclusive
+     * @param <A>       Type of aggregate
+     * @return Aggregate of range
+     */
+    public <A> A aggregate(
+            final Aggregate<A> aggregate,
+            final int from,
+            final int to
+    ) {
+        int slot = 0;
+        while (slot < this.aggregates.length
+                && this.aggregates[slot] != aggregate) {
+            slot++;
+        }
+        if (slot == this.aggregates.length) {
+            throw new IllegalArgumentException(
+                    "Aggregate isn't kept in nodes of tree"
+            );
+        }
+        return Btree.aggregate(this.root, aggregate, slot, from, to);
+    }
+
+    /**
+     * Amount of keys in range.
+     *
+     * @param from The lowest key, inclusive
+     * @param to   The biggest key, exclusive
+     * @return Amount of keys
+     */
+    public int count(final int from, final int to) {
+        return Math.max(0, this.rank(to, false) - this.rank(from, false));
+    }
+
+    /**
+     * Get current root.
+     *
+     * @return Reference to root
+     */
+    BtreeNode root() {
         return this.root;
     }
 
-    */
-/**
-     * Search given key in the Btree.
+    /**
+     * Amount of structural modifications.
      *
-     * @param key Key to search
-     * @return Entry where Key is node with given key
-     * and Value is position of given key
-     * Null if key doesn't exist
-     *//*
+     * @return Counter that changes on every insert, delete or split
+     */
+    int modifications() {
+        return this.modifications;
+    }
 
-    private ImmutableEntry<BtreeNode, Integer> search(final Integer key) {
+    /**
+     * Amount of keys that are lower than given one.
+     * Keys of children on the left of path are counted
+     * by their subtree counts without descent
+     *
+     * @param key       Key
+     * @param inclusive True if equal key is counted too
+     * @return Amount of keys
+     */
+    int rank(final int key, final boolean inclusive) {
         BtreeNode node = this.root;
+        int rank = 0;
         while (node != null) {
-            //if in left child
-            if (key < node.firstKey().key) {
-                node = node.childOrNull(0);
-                continue;
-            }
-            //if in right child
-            if (key > node.lastKey().key) {
-                node = node.childOrNull(node.children() - 1);
-                continue;
-            }
-            //if among keys of current node
-            final BtreeSearch search = new BtreeSearch(node, key);
-            if (search.found()) {
-                return new ImmutableEntry<>(node, search.position());
-            } else {
-                //if key between first and last child
-                if (this.betweenFirstAndLast(node, search.position())) {
-                    node = node.child(search.position());
-                    continue;
+            final int search = BtreeSearch.search(node, key);
+            if (BtreeSearch.found(search)) {
+                rank += node.entries(search + 1) + search;
+                if (inclusive) {
+                    rank++;
                 }
-                return null;
+                node = null;
+            } else {
+                final int position = BtreeSearch.position(search);
+                rank += node.entries(position) + position;
+                node = node.childOrNull(position);
             }
         }
-        return null;
+        return rank;
     }
 
-    */
-/**
-     * Insert new key to Btree.
+    /**
+     * The smallest key.
      *
-     * @param key Key to insert
-     *//*
+     * @return Key or null if tree is empty
+     */
+    NodeKey first() {
+        BtreeNode node = this.root;
+        while (node.hasChildren()) {
+            node = node.child(0);
+        }
+        if (node.hasKeys()) {
+            return node.firstKey();
+        } else {
+            return null;
+        }
+    }
 
-    private void put(final NodeKey key) {
+    /**
+     * The biggest key.
+     *
+     * @return Key or null if tree is empty
+     */
+    NodeKey last() {
+        final BtreeNode node = this.root.greatestChild();
+        if (node.hasKeys()) {
+            return node.lastKey();
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * The smallest key that is bigger than given one.
+     *
+     * @param key       Key
+     * @param inclusive True if equal key matches too
+     * @return Key or null
+     */
+    NodeKey ceiling(final int key, final boolean inclusive) {
         BtreeNode node = this.root;
+        NodeKey ceiling = null;
         while (node != null) {
-            if (!node.hasChildren()) {
-                node.addKey(key);
-                if (node.keys() > this.maxKeys()) {
-                    this.split(node);
-                    break;
+            final int search = BtreeSearch.search(node, key);
+            if (BtreeSearch.found(search) && inclusive) {
+                ceiling = node.key(search);
+                node = null;
+            } else {
+                final int position;
+                if (BtreeSearch.found(search)) {
+                    position = search + 1;
+                } else {
+                    position = BtreeSearch.position(search);
                 }
-            }
-            //go to first child
-            if (key.key <= node.firstKey().key) {
-                //go to left child
-                node = node.childOrNull(0);
-                continue;
-            }
-            //go to last child
-            if (key.key > node.lastKey().key) {
-                node = node.childOrNull(node.keys());
-                continue;
-            }
-            //find child between first and last
-            for (int i = 1; i < node.keys(); i++) {
-                final NodeKey prev = node.key(i - 1);
-                final NodeKey current = node.key(i);
-                if (Btree.keyBetweenEntries(key.key, prev, current)) {
-                    node = node.childOrNull(i);
-                    break;
+                if (position < node.keys()) {
+                    ceiling = node.key(position);
                 }
+                node = node.childOrNull(position);
             }
         }
+        return ceiling;
     }
 
-    */
-/**
-     * Min amount of keys.
+    /**
+     * The biggest key that is lower than given one.
      *
-     * @return Min amount of keys
-     *//*
-
-    private int minKeys() {
-        return this.branchingNumber - 1;
+     * @param key       Key
+     * @param inclusive True if equal key matches too
+     * @return Key or null
+     */
+    NodeKey floor(final int key, final boolean inclusive) {
+        BtreeNode node = this.root;
+        NodeKey floor = null;
+        while (node != null) {
+            final int search = BtreeSearch.search(node, key);
+            if (BtreeSearch.found(search) && inclusive) {
+                floor = node.key(search);
+                node = null;
+            } else {
+                final int position = BtreeSearch.position(search) - 1;
+                if (position >= 0) {
+                    floor = node.key(position);
+                }
+                node = node.childOrNull(position + 1);
+            }
+        }
+        return floor;
     }
 
-    */
-/**
-     * Max amount of keys.
+    /**
+     * Search given key in the Btree.
      *
-     * @return Max amount of keys
-     *//*
+     * @param key Key to search
+     * @return Entry with given key or null if key doesn't exist
+     */
+    private NodeKey search(final int key) {
+        BtreeNode node = this.root;
+        NodeKey entry = null;
+        while (node != null) {
+            final int search = BtreeSearch.search(node, key);
+            if (BtreeSearch.found(search)) {
+                entry = node.key(search);
+                node = null;
+            } else {
+                node = node.childOrNull(BtreeSearch.position(search));
+            }
+        }
+        return entry;
+    }
 
-    private int maxKeys() {
-        return (this.branchingNumber * 2) - 1;
+    /**
+     * Delete key from subtree.
+     * Node has at least t keys unless it's root
+     *
+     * @param node Root of subtree
+     * @param key  Key
+     * @return Deleted entry or null
+     */
+    private NodeKey delete(final BtreeNode node, final int key) {
+        final int search = BtreeSearch.search(node, key);
+        final NodeKey removed;
+        if (BtreeSearch.found(search) && !node.hasChildren()) {
+            removed = node.removeKey(search);
+        } else if (BtreeSearch.found(search)) {
+            removed = node.key(search);
+            this.deleteInner(node, search);
+        } else if (!node.hasChildren()) {
+            removed = null;
+        } else {
+            removed = this.delete(
+                    this.fill(node, BtreeSearch.position(search)),
+                    key
+            );
+        }
+        if (removed != null) {
+            node.addEntries(-1);
+            node.aggregate(this.aggregates);
+        }
+        return removed;
     }
 
-    */
-/**
-     * Min amount of children.
+    /**
+     * Delete key of inner node.
+     * Key is replaced with predecessor or successor
+     * or both children are merged around it
      *
-     * @return Min amount of children
-     *//*
+     * @param node  Inner node
+     * @param index Position of key
+     */
+    private void deleteInner(final BtreeNode node, final int index) {
+        final BtreeNode left = node.child(index);
+        final BtreeNode right = node.child(index + 1);
+        if (left.keys() >= this.branchingNumber) {
+            final NodeKey pred = left.greatestChild().lastKey();
+            node.replaceKey(index, pred);
+            this.delete(left, pred.key);
+        } else if (right.keys() >= this.branchingNumber) {
+            BtreeNode min = right;
+            while (min.hasChildren()) {
+                min = min.child(0);
+            }
+            final NodeKey succ = min.firstKey();
+            node.replaceKey(index, succ);
+            this.delete(right, succ.key);
+        } else {
+            final int key = node.key(index).key;
+            this.merge(node, index);
+            this.delete(left, key);
+        }
+    }
 
-    private int minChildren() {
-        return this.branchingNumber;
+    /**
+     * Make sure that child has at least t keys before descent.
+     * Borrows key from neighbour or merges child with neighbour
+     *
+     * @param node  Parent
+     * @param index Position of child
+     * @return Child to descend into
+     */
+    private BtreeNode fill(final BtreeNode node, final int index) {
+        final BtreeNode child = node.child(index);
+        BtreeNode next = child;
+        if (child.keys() < this.branchingNumber) {
+            this.modifications++;
+            if (index > 0
+                    && node.child(index - 1).keys() >= this.branchingNumber) {
+                final BtreeNode left = node.child(index - 1);
+                child.addKey(node.replaceKey(index - 1, left.removeLastKey()));
+                if (left.hasChildren()) {
+                    child.addChild(left.removeChild(left.children() - 1));
+                }
+                this.refresh(left);
+                this.refresh(child);
+            } else if (index < node.keys()
+                    && node.child(index + 1).keys() >= this.branchingNumber) {
+                final BtreeNode right = node.child(index + 1);
+                child.addKey(node.replaceKey(index, right.removeFirstKey()));
+                if (right.hasChildren()) {
+                    child.addChild(right.removeChild(0));
+                }
+                this.refresh(right);
+                this.refresh(child);
+            } else if (index < node.keys()) {
+                this.merge(node, index);
+            } else {
+                next = node.child(index - 1);
+                this.merge(node, index - 1);
+            }
+        }
+        return next;
     }
 
-    */
-/**
-     * Max amount of children.
+    /**
+     * Split full child in two halves and move middle key to node.
      *
-     * @return Max amount of children
-     *//*
+     * @param node  Parent that isn't full
+     * @param index Position of full child
+     */
+    private void split(final BtreeNode node, final int index) {
+        final BtreeNode full = node.child(index);
+        final int middle = this.branchingNumber - 1;
+        final BtreeNode left = new SplitBtn(full, 0, middle);
+        final BtreeNode right = new SplitBtn(full, middle + 1, full.keys());
+        node.removeChild(index);
+        node.addKey(full.key(middle));
+        node.addChild(left);
+        node.addChild(right);
+        left.aggregate(this.aggregates);
+        right.aggregate(this.aggregates);
+        this.modifications++;
+    }
 
-    private int maxChildren() {
-        return this.maxKeys() + 1;
+    /**
+     * Count keys and aggregate subtree of node again.
+     *
+     * @param node Node whose keys or children were changed
+     */
+    private void refresh(final BtreeNode node) {
+        node.recount();
+        node.aggregate(this.aggregates);
     }
 
-    */
-/**
-     * Split tree recursively.
-     * Create two new nodes : left and right
-     * Add first half of keys from original node to left
-     * Add first half of children from original node to left
-     * Add second half of keys from original node to right
-     * Add second half of children from original node to right
-     * Create new parent if current one is parent without parent
+    /**
+     * Change amount of keys and aggregate subtrees
+     * from node up to root.
      *
-     * @param node Node to split
-     *//*
-
-    private void split(final BtreeNode node) {
-        final int keys = node.keys();
-        final int middle = (keys >> 1) - 1;
-        final BtreeNode left = new SplitBtn(node, 0, middle);
-        final BtreeNode right = new SplitBtn(node, middle + 1, keys);
-        final NodeKey middleKey = node.key(middle);
-        if (!node.hasParent()) {
-            this.splitRoot(left, right, middleKey);
-        } else {
-            final BtreeNode parent = node.parent();
-            parent.addKey(middleKey);
-            parent.removeChild(node);
-            parent.addChild(left);
-            parent.addChild(right);
-            if (parent.keys() > this.maxKeys()) {
-                this.split(parent);
-            }
+     * @param node  Node whose keys were changed
+     * @param delta Amount of added keys
+     */
+    private void update(final BtreeNode node, final int delta) {
+        for (BtreeNode up = node; up != null; up = up.parent()) {
+            up.addEntries(delta);
+            up.aggregate(this.aggregates);
         }
     }
 
-    */
-/**
-     * Check if key is between the first and the lst child.
+    /**
+     * Max amount of keys.
      *
-     * @param node           Node with keys
-     * @param searchPosition Search result
-     * @return True if need to search key in next child
-     *//*
+     * @return Max amount of keys
+     */
+    private int maxKeys() {
+        return (this.branchingNumber * 2) - 1;
+    }
 
-    private boolean betweenFirstAndLast(
-            final BtreeNode node,
-            final int searchPosition
-    ) {
-        final int last = node.keys() - 1;
-        //search is equal to last if key was bigger
-        // than middle element if node
-        return searchPosition <= last && searchPosition < node.children();
+    /**
+     * Max amount of children.
+     *
+     * @return Max amount of children
+     */
+    private int maxChildren() {
+        return this.maxKeys() + 1;
     }
 
-    */
-/**
-     * Create new parent.
-     * This method is called only if current node is parent
+    /**
+     * Merge child, key and its right neighbour into child.
      *
-     * @param left      Left node
-     * @param right     Right node
-     * @param middleKey Middle key entry
-     *//*
-
-    private void splitRoot(
-            final BtreeNode left,
-            final BtreeNode right,
-            final NodeKey middleKey
-    ) {
-        this.root = new SingleKeyNode(
-                this.maxKeys(),
-                this.maxChildren(),
-                middleKey
-        );
-        this.root.addChild(left);
-        this.root.addChild(right);
+     * @param node  Parent
+     * @param index Position of key
+     */
+    private void merge(final BtreeNode node, final int index) {
+        final BtreeNode left = node.child(index);
+        final BtreeNode right = node.removeChild(index + 1);
+        left.addKey(node.removeKey(index));
+        left.addAllKeys(right);
+        left.addAllChildren(right);
+        this.refresh(left);
     }
 
-    */
-/**
-     * Check if key between prev and next.
+    /**
+     * Aggregate of entries of subtree in range.
+     * Only subtrees that hold a bound are visited,
+     * subtrees between bounds give aggregates kept in them
      *
-     * @param key     Current key
-     * @param prev    Previous node
-     * @param current Current node
-     * @return True of key is bigger that prev and less or eq to current
-     *//*
-
-    private static boolean keyBetweenEntries(
-            final Integer key,
-            final NodeKey prev,
-            final NodeKey current
+     * @param node      Root of subtree
+     * @param aggregate Aggregate
+     * @param slot      Position of aggregate in nodes
+     * @param from      The lowest key, inclusive, or null
+     * @param to        The biggest key, exclusive, or null
+     * @param <A>       Type of aggregate
+     * @return Aggregate of range
+     */
+    private static <A> A aggregate(
+            final BtreeNode node,
+            final Aggregate<A> aggregate,
+            final int slot,
+            final Integer from,
+            final Integer to
     ) {
-        return key.compareTo(prev.key) > 0
-                && key.compareTo(current.key) <= 0;
+        if (from == null && to == null) {
+            return node.total(aggregate, slot);
+        }
+        int first = 0;
+        if (from != null) {
+            first = BtreeSearch.position(BtreeSearch.search(node, from));
+        }
+        int last = node.keys();
+        if (to != null) {
+            last = BtreeSearch.position(BtreeSearch.search(node, to));
+        }
+        A total = aggregate.identity();
+        for (int i = first; i <= last; i++) {
+            if (node.hasChildren()) {
+                total = aggregate.combine(
+                        total,
+                        Btree.aggregate(
+                                node.child(i),
+                                aggregate,
+                                slot,
+                                i == first ? from : null,
+                                i == last ? to : null
+                        )
+                );
+            }
+            if (i < last) {
+                final NodeKey key = node.key(i);
+                total = aggregate.combine(
+                        total,
+                        aggregate.of(key.key, key.value)
+                );
+            }
+        }
+        return total;
     }
 }
-*/
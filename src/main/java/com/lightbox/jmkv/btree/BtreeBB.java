@@ -2,9 +2,13 @@ package com.lightbox.jmkv.btree;
 
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Comparator;
 import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
 
 
 /**
@@ -50,6 +54,165 @@ public class BtreeBB<T extends Comparable<T>>  {
         this.maxChildrenSize = maxKeySize + 1;
     }
 
+    /**
+     * Build B-Tree bottom-up from values sorted in ascending order. Leaves are
+     * filled straight from the iterator and every (fill + 1)-th value becomes a
+     * separator for the level above, upper levels are grouped the same way from
+     * nodes of the level below. Only the last node of a level can be short, it
+     * is balanced with its left neighbour. Runs in linear time and never
+     * searches from the root.
+     *
+     * @param order
+     *            minimum number of keys in a non-parent node.
+     * @param fillFactor
+     *            part of max keys to put into every node, in (0, 1].
+     * @param sorted
+     *            values in ascending order.
+     * @return B-Tree with all values.
+     */
+    public static <T extends Comparable<T>> BtreeBB<T> load(int order, double fillFactor, Iterator<T> sorted) {
+        if (!(fillFactor > 0 && fillFactor <= 1))
+            throw new IllegalArgumentException("Fill factor " + fillFactor + " is not in (0, 1]");
+        BtreeBB<T> tree = new BtreeBB<T>(order);
+        int fill = (int) Math.round(fillFactor * tree.maxKeySize);
+        fill = Math.max(tree.minKeySize, Math.min(tree.maxKeySize, fill));
+
+        // Leaves
+        List<Node<T>> nodes = new ArrayList<Node<T>>();
+        List<T> separators = new ArrayList<T>();
+        Node<T> leaf = null;
+        T previous = null;
+        while (sorted.hasNext()) {
+            T value = sorted.next();
+            if (previous != null && previous.compareTo(value) > 0)
+                throw new IllegalArgumentException("Value " + value + " goes after " + previous);
+            previous = value;
+            if (leaf != null && leaf.keysSize == fill) {
+                nodes.add(leaf);
+                separators.add(value);
+                leaf = null;
+            } else {
+                if (leaf == null) leaf = new Node<T>(null, tree.maxKeySize, tree.maxChildrenSize);
+                leaf.keys[leaf.keysSize++] = value;
+            }
+            tree.size++;
+        }
+        if (leaf == null && !separators.isEmpty()) {
+            // Stream ended on a separator, it has no leaf on the right
+            T last = separators.get(separators.size() - 1);
+            Node<T> full = nodes.get(nodes.size() - 1);
+            if (full.keysSize < tree.maxKeySize) {
+                separators.remove(separators.size() - 1);
+                full.keys[full.keysSize++] = last;
+            } else {
+                leaf = new Node<T>(null, tree.maxKeySize, tree.maxChildrenSize);
+                leaf.keys[leaf.keysSize++] = last;
+                separators.set(separators.size() - 1, full.keys[--full.keysSize]);
+                full.keys[full.keysSize] = null;
+            }
+        }
+        if (leaf != null) nodes.add(leaf);
+        tree.balanceLast(nodes, separators);
+
+        // Upper levels
+        while (nodes.size() > 1) {
+            List<Node<T>> parents = new ArrayList<Node<T>>();
+            List<T> upper = new ArrayList<T>();
+            Node<T> parent = new Node<T>(null, tree.maxKeySize, tree.maxChildrenSize);
+            appendChild(parent, nodes.get(0));
+            for (int i = 0; i < separators.size(); i++) {
+                if (parent.keysSize == fill) {
+                    parents.add(parent);
+                    upper.add(separators.get(i));
+                    parent = new Node<T>(null, tree.maxKeySize, tree.maxChildrenSize);
+                } else {
+                    parent.keys[parent.keysSize++] = separators.get(i);
+                }
+                appendChild(parent, nodes.get(i + 1));
+            }
+            parents.add(parent);
+            tree.balanceLast(parents, upper);
+            nodes = parents;
+            separators = upper;
+        }
+        if (!nodes.isEmpty()) tree.root = nodes.get(0);
+        return tree;
+    }
+
+    /**
+     * Balance the last node of a level with its left neighbour if it has less
+     * than minKeySize keys. Both nodes are merged around their separator when
+     * they fit into one node, otherwise keys and children are split in half.
+     *
+     * @param nodes
+     *            of the level.
+     * @param separators
+     *            between the nodes.
+     */
+    private void balanceLast(List<Node<T>> nodes, List<T> separators) {
+        int count = nodes.size();
+        if (count < 2 || nodes.get(count - 1).keysSize >= minKeySize) return;
+        Node<T> left = nodes.get(count - 2);
+        Node<T> right = nodes.get(count - 1);
+        int total = left.keysSize + 1 + right.keysSize;
+        T[] keys = (T[]) new Comparable[total];
+        System.arraycopy(left.keys, 0, keys, 0, left.keysSize);
+        keys[left.keysSize] = separators.get(count - 2);
+        System.arraycopy(right.keys, 0, keys, left.keysSize + 1, right.keysSize);
+        Node<T>[] children = new Node[left.childrenSize + right.childrenSize];
+        System.arraycopy(left.children, 0, children, 0, left.childrenSize);
+        System.arraycopy(right.children, 0, children, left.childrenSize, right.childrenSize);
+        if (total <= maxKeySize) {
+            refill(left, keys, children, 0, total);
+            nodes.remove(count - 1);
+            separators.remove(count - 2);
+        } else {
+            int half = total / 2;
+            refill(left, keys, children, 0, half);
+            separators.set(count - 2, keys[half]);
+            refill(right, keys, children, half + 1, total);
+        }
+    }
+
+    /**
+     * Replace keys and children of the node with a range of keys and children
+     * that go around them.
+     *
+     * @param node
+     *            to refill.
+     * @param keys
+     *            sorted keys.
+     * @param children
+     *            children of keys, empty for leaves.
+     * @param from
+     *            index of the first key.
+     * @param to
+     *            index after the last key.
+     */
+    private static <T extends Comparable<T>> void refill(Node<T> node, T[] keys, Node<T>[] children, int from, int to) {
+        Arrays.fill(node.keys, null);
+        System.arraycopy(keys, from, node.keys, 0, to - from);
+        node.keysSize = to - from;
+        Arrays.fill(node.children, null);
+        node.childrenSize = 0;
+        if (children.length > 0) {
+            for (int i = from; i <= to; i++) appendChild(node, children[i]);
+        }
+    }
+
+    /**
+     * Append child after all children of the node.
+     *
+     * @param node
+     *            parent.
+     * @param child
+     *            bigger than all children of the node.
+     */
+    private static <T extends Comparable<T>> void appendChild(Node<T> node, Node<T> child) {
+        child.parent = node;
+        node.children[node.childrenSize++] = child;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -106,6 +269,118 @@ public class BtreeBB<T extends Comparable<T>>  {
         return true;
     }
 
+    /**
+     * Add a batch of values. The batch is sorted, then the leaf of the smallest
+     * value left is found from the root once and takes all values up to the
+     * separator that bounds it on the right. A leaf that overflows is cut at
+     * once into as few leaves as fit and all of them go to the parent, so a
+     * leaf splits once per batch instead of once per value.
+     *
+     * @param values
+     *            to add.
+     * @return number of added values.
+     */
+    public int addAll(Collection<T> values) {
+        T[] batch = (T[]) values.toArray(new Comparable[values.size()]);
+        Arrays.sort(batch);
+        if (batch.length > 0 && root == null) root = new Node<T>(null, maxKeySize, maxChildrenSize);
+        int from = 0;
+        while (from < batch.length) {
+            Node<T> node = root;
+            T high = null;
+            while (node.numberOfChildren() > 0) {
+                int index = lowerBound(node, batch[from]);
+                if (index < node.numberOfKeys()) high = node.getKey(index);
+                node = node.getChild(index);
+            }
+            int to = from + 1;
+            while (to < batch.length && (high == null || batch[to].compareTo(high) <= 0)) to++;
+            addToLeaf(node, batch, from, to);
+            from = to;
+        }
+        size += batch.length;
+        return batch.length;
+    }
+
+    /**
+     * Index of the first key of the node that is not less than the value, it
+     * is also the index of the child where the value goes.
+     *
+     * @param node
+     *            to search.
+     * @param value
+     *            to find.
+     * @return index of key.
+     */
+    private static <T extends Comparable<T>> int lowerBound(Node<T> node, T value) {
+        int low = 0;
+        int high = node.numberOfKeys();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (node.getKey(middle).compareTo(value) < 0) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * Merge sorted values into the leaf. A leaf that overflows keeps the first
+     * part of the keys, the rest is cut into new leaves of even size that are
+     * put into the parent right after it with their separators. The parent is
+     * split like after a single add when it overflows.
+     *
+     * @param leaf
+     *            to add values to.
+     * @param batch
+     *            sorted values.
+     * @param from
+     *            index of the first value for the leaf.
+     * @param to
+     *            index after the last value for the leaf.
+     */
+    private void addToLeaf(Node<T> leaf, T[] batch, int from, int to) {
+        int total = leaf.numberOfKeys() + to - from;
+        T[] keys = (T[]) new Comparable[total];
+        int i = 0;
+        int j = from;
+        for (int k = 0; k < total; k++) {
+            if (j == to || (i < leaf.numberOfKeys() && leaf.getKey(i).compareTo(batch[j]) <= 0)) keys[k] = leaf.getKey(i++);
+            else keys[k] = batch[j++];
+        }
+        Node<T>[] none = new Node[0];
+        // count = ceil((total + 1) / (maxKeySize + 1)) leaves with a separator between them
+        int count = (total + maxKeySize + 1) / (maxKeySize + 1);
+        int length = total + 1 - count;
+        int start = 0;
+        Node<T> previous = null;
+        for (int piece = 0; piece < count; piece++) {
+            int end = start + length / count + (piece < length % count ? 1 : 0);
+            if (previous == null) {
+                refill(leaf, keys, none, start, end);
+                previous = leaf;
+            } else {
+                Node<T> next = new Node<T>(null, maxKeySize, maxChildrenSize);
+                refill(next, keys, none, start, end);
+                if (previous.parent == null) {
+                    root = new Node<T>(null, maxKeySize, maxChildrenSize);
+                    appendChild(root, previous);
+                }
+                Node<T> parent = previous.parent;
+                int index = parent.indexOf(previous);
+                System.arraycopy(parent.keys, index, parent.keys, index + 1, parent.keysSize - index);
+                parent.keys[index] = keys[start - 1];
+                parent.keysSize++;
+                System.arraycopy(parent.children, index + 1, parent.children, index + 2, parent.childrenSize - index - 1);
+                parent.children[index + 1] = next;
+                parent.childrenSize++;
+                next.parent = parent;
+                if (parent.numberOfKeys() > maxKeySize) split(parent);
+                previous = next;
+            }
+            start = end + 1;
+        }
+    }
+
     /**
      * The node's key size is greater than maxKeySize, split down the middle.
      *
@@ -595,8 +870,14 @@ public class BtreeBB<T extends Comparable<T>>  {
         }
 
         private void addKey(T value) {
-            keys[keysSize++] = value;
-            Arrays.sort(keys, 0, keysSize);
+            // find position with binary search and shift the tail once
+            int index = Arrays.binarySearch(keys, 0, keysSize, value);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            System.arraycopy(keys, index, keys, index + 1, keysSize - index);
+            keys[index] = value;
+            keysSize++;
         }
 
         private T removeKey(T value) {
@@ -652,8 +933,13 @@ public class BtreeBB<T extends Comparable<T>>  {
 
         private boolean addChild(Node<T> child) {
             child.parent = this;
-            children[childrenSize++] = child;
-            Arrays.sort(children, 0, childrenSize, comparator);
+            int index = Arrays.binarySearch(children, 0, childrenSize, child, comparator);
+            if (index < 0) {
+                index = -index - 1;
+            }
+            System.arraycopy(children, index, children, index + 1, childrenSize - index);
+            children[index] = child;
+            childrenSize++;
             return true;
         }
 
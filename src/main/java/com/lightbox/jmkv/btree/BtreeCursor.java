@@ -0,0 +1,177 @@
+package com.lightbox.jmkv.btree;
+
+/**
+ * Position in Btree.
+ * Keeps path from root to current key in stack,
+ * so move to the next key goes up or down only
+ * on the border of node instead of new search from root.
+ * Frame of node on the path points to the key
+ * that goes after subtree of child the cursor is in,
+ * so frame becomes current when its child is passed
+ */
+final class BtreeCursor {
+
+    /**
+     * Nodes of path, the last one is current.
+     */
+    private final BtreeNode[] nodes;
+
+    /**
+     * Positions of keys in nodes of path.
+     */
+    private final int[] positions;
+
+    /**
+     * Root of tree.
+     */
+    private final BtreeNode root;
+
+    /**
+     * True if cursor moves from bigger keys to lower ones.
+     */
+    private final boolean descending;
+
+    /**
+     * Amount of nodes in path.
+     */
+    private int depth;
+
+    /**
+     * Ctor.
+     *
+     * @param root       Root of tree
+     * @param descending True if cursor moves to lower keys
+     */
+    BtreeCursor(final BtreeNode root, final boolean descending) {
+        int height = 1;
+        for (BtreeNode node = root; node.hasChildren(); node = node.child(0)) {
+            height++;
+        }
+        this.nodes = new BtreeNode[height];
+        this.positions = new int[height];
+        this.root = root;
+        this.descending = descending;
+    }
+
+    /**
+     * Move to the first key in order of cursor.
+     */
+    void first() {
+        this.depth = 0;
+        this.edge(this.root);
+        this.settle();
+    }
+
+    /**
+     * Move to the first key in order of cursor that
+     * goes after given key.
+     *
+     * @param key       Key
+     * @param inclusive True if equal key matches too
+     */
+    void seek(final int key, final boolean inclusive) {
+        this.depth = 0;
+        BtreeNode node = this.root;
+        while (node != null) {
+            final int search = BtreeSearch.search(node, key);
+            if (BtreeSearch.found(search) && inclusive) {
+                this.push(node, search);
+                node = null;
+            } else if (this.descending) {
+                final int position = BtreeSearch.position(search) - 1;
+                this.push(node, position);
+                node = node.childOrNull(position + 1);
+            } else {
+                int position = BtreeSearch.position(search);
+                if (BtreeSearch.found(search)) {
+                    position++;
+                }
+                this.push(node, position);
+                node = node.childOrNull(position);
+            }
+        }
+        this.settle();
+    }
+
+    /**
+     * Check that cursor points to key.
+     *
+     * @return False if cursor passed all keys
+     */
+    boolean valid() {
+        return this.depth > 0;
+    }
+
+    /**
+     * Current key.
+     *
+     * @return Key
+     */
+    NodeKey current() {
+        final int top = this.depth - 1;
+        return this.nodes[top].key(this.positions[top]);
+    }
+
+    /**
+     * Move to the next key in order of cursor.
+     */
+    void next() {
+        final int top = this.depth - 1;
+        final BtreeNode node = this.nodes[top];
+        final int position = this.positions[top];
+        if (this.descending) {
+            this.positions[top] = position - 1;
+            this.edge(node.childOrNull(position));
+        } else {
+            this.positions[top] = position + 1;
+            this.edge(node.childOrNull(position + 1));
+        }
+        this.settle();
+    }
+
+    /**
+     * Go down to the first key of subtree in order of cursor.
+     *
+     * @param subtree Root of subtree or null
+     */
+    private void edge(final BtreeNode subtree) {
+        BtreeNode node = subtree;
+        while (node != null) {
+            if (this.descending) {
+                this.push(node, node.keys() - 1);
+                node = node.childOrNull(node.keys());
+            } else {
+                this.push(node, 0);
+                node = node.childOrNull(0);
+            }
+        }
+    }
+
+    /**
+     * Pop frames that passed all their keys.
+     */
+    private void settle() {
+        boolean passed = true;
+        while (passed && this.depth > 0) {
+            final int top = this.depth - 1;
+            final int position = this.positions[top];
+            passed = position < 0 || position >= this.nodes[top].keys();
+            if (passed) {
+                this.nodes[top] = null;
+                this.depth--;
+            }
+        }
+    }
+
+    /**
+     * Push frame to path.
+     *
+     * @param node     Node
+     * @param position Position of key
+     */
+    private void push(final BtreeNode node, final int position) {
+        this.nodes[this.depth] = node;
+        this.positions[this.depth] = position;
+        this.depth++;
+    }
+}
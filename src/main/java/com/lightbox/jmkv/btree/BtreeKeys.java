@@ -0,0 +1,180 @@
+package com.lightbox.jmkv.btree;
+
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.SortedSet;
+
+/**
+ * Keys of Btree range.
+ * Every operation goes to range view
+ */
+final class BtreeKeys extends AbstractSet<Integer>
+        implements NavigableSet<Integer> {
+
+    /**
+     * Range view.
+     */
+    private final BtreeRange range;
+
+    /**
+     * Ctor.
+     *
+     * @param range Range view
+     */
+    BtreeKeys(final BtreeRange range) {
+        this.range = range;
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return this.range.keyIterator();
+    }
+
+    @Override
+    public Iterator<Integer> descendingIterator() {
+        return this.range.descendingMap().keyIterator();
+    }
+
+    @Override
+    public int size() {
+        return this.range.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.range.isEmpty();
+    }
+
+    @Override
+    public boolean contains(final Object obj) {
+        return this.range.containsKey(obj);
+    }
+
+    @Override
+    public boolean remove(final Object obj) {
+        return this.range.remove(obj) != null;
+    }
+
+    @Override
+    public void clear() {
+        this.range.clear();
+    }
+
+    @Override
+    public Integer lower(final Integer key) {
+        return this.range.lowerKey(key);
+    }
+
+    @Override
+    public Integer floor(final Integer key) {
+        return this.range.floorKey(key);
+    }
+
+    @Override
+    public Integer ceiling(final Integer key) {
+        return this.range.ceilingKey(key);
+    }
+
+    @Override
+    public Integer higher(final Integer key) {
+        return this.range.higherKey(key);
+    }
+
+    @Override
+    public Integer pollFirst() {
+        return BtreeKeys.key(this.range.pollFirstEntry());
+    }
+
+    @Override
+    public Integer pollLast() {
+        return BtreeKeys.key(this.range.pollLastEntry());
+    }
+
+    @Override
+    public NavigableSet<Integer> descendingSet() {
+        return new BtreeKeys(this.range.descendingMap());
+    }
+
+    @Override
+    public NavigableSet<Integer> subSet(
+            final Integer fromElement,
+            final boolean fromInclusive,
+            final Integer toElement,
+            final boolean toInclusive
+    ) {
+        return new BtreeKeys(
+                this.range.subMap(
+                        fromElement,
+                        fromInclusive,
+                        toElement,
+                        toInclusive
+                )
+        );
+    }
+
+    @Override
+    public NavigableSet<Integer> headSet(
+            final Integer toElement,
+            final boolean inclusive
+    ) {
+        return new BtreeKeys(this.range.headMap(toElement, inclusive));
+    }
+
+    @Override
+    public NavigableSet<Integer> tailSet(
+            final Integer fromElement,
+            final boolean inclusive
+    ) {
+        return new BtreeKeys(this.range.tailMap(fromElement, inclusive));
+    }
+
+    @Override
+    public SortedSet<Integer> subSet(
+            final Integer fromElement,
+            final Integer toElement
+    ) {
+        return this.subSet(fromElement, true, toElement, false);
+    }
+
+    @Override
+    public SortedSet<Integer> headSet(final Integer toElement) {
+        return this.headSet(toElement, false);
+    }
+
+    @Override
+    public SortedSet<Integer> tailSet(final Integer fromElement) {
+        return this.tailSet(fromElement, true);
+    }
+
+    @Override
+    public Comparator<? super Integer> comparator() {
+        return this.range.comparator();
+    }
+
+    @Override
+    public Integer first() {
+        return this.range.firstKey();
+    }
+
+    @Override
+    public Integer last() {
+        return this.range.lastKey();
+    }
+
+    /**
+     * Key of entry.
+     *
+     * @param entry Entry or null
+     * @return Key or null
+     */
+    private static Integer key(final Map.Entry<Integer, String> entry) {
+        if (entry == null) {
+            return null;
+        } else {
+            return entry.getKey();
+        }
+    }
+}
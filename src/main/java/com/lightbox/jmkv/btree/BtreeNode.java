@@ -1,7 +1,6 @@
 package com.lightbox.jmkv.btree;
 
 import com.lightbox.jmkv.ArraySort;
-import com.sun.istack.internal.Nullable;
 
 import java.util.Arrays;
 import java.util.Comparator;
@@ -52,6 +51,18 @@ class BtreeNode {
      */
     private final AtomicInteger childrenSize = new AtomicInteger(0);
 
+    /**
+     * Amount of keys in subtree.
+     * Node doesn't update it, owner of tree does
+     */
+    private int entries;
+
+    /**
+     * Aggregates of subtree.
+     * Node doesn't update them, owner of tree does
+     */
+    private Object[] totals;
+
     /**
      * Ctor.
      *
@@ -94,37 +105,20 @@ class BtreeNode {
     }
 
     /**
-     * Add key and sort array of keys.
-     * Move all elements of array to one position right
-     * Add new key to empty position
+     * Add key to its position.
+     * Position is found by binary search and keys after it
+     * are moved one position right with a single copy
      *
      * @param entry Entry to add
      */
     public final void addKey(final NodeKey entry) {
-        if (this.keysSize.get() == 0) {
-            this.keys[this.keysSize.getAndIncrement()] = entry;
-        } else {
-            int index;
-            //TODO rewrite to binary search
-            for (index = 0; index < this.keysSize.get(); index++) {
-                if (this.keys[index].compareTo(entry) >= 0) {
-                    break;
-                }
-            }
-            if (index == this.keysSize.get()) {
-                this.keys[this.keysSize.getAndIncrement()] = entry;
-            } else {
-                //move all elements to one position right
-                System.arraycopy(
-                        this.keys,
-                        index,
-                        this.keys,
-                        index + 1,
-                        this.keysSize.getAndIncrement() - index
-                );
-                this.keys[index] = entry;
-            }
-        }
+        final int size = this.keysSize.get();
+        final int index = BtreeNode.insertion(
+                Arrays.binarySearch(this.keys, 0, size, entry)
+        );
+        System.arraycopy(this.keys, index, this.keys, index + 1, size - index);
+        this.keys[index] = entry;
+        this.keysSize.incrementAndGet();
     }
 
     /**
@@ -139,15 +133,26 @@ class BtreeNode {
     }
 
     /**
-     * Add key and sort array of keys.
+     * Add child to its position.
+     * Children are ordered by their first keys
      *
      * @param child Child to add
      */
     public final void addChild(final BtreeNode child) {
         child.parent = this;
-        this.children[this.childrenSize.getAndIncrement()] = child;
-
-        Arrays.sort(this.children, 0, this.childrenSize.get(), COMPARATOR);
+        final int size = this.childrenSize.get();
+        final int index = BtreeNode.insertion(
+                Arrays.binarySearch(this.children, 0, size, child, COMPARATOR)
+        );
+        System.arraycopy(
+                this.children,
+                index,
+                this.children,
+                index + 1,
+                size - index
+        );
+        this.children[index] = child;
+        this.childrenSize.incrementAndGet();
     }
 
     /**
@@ -189,7 +194,6 @@ class BtreeNode {
      * @param index Index
      * @return Child Or Null
      */
-    @Nullable
     public final BtreeNode childOrNull(final int index) {
         if (index >= this.childrenSize.get() || index < 0) {
             return null;
@@ -206,6 +210,84 @@ class BtreeNode {
         return this.keysSize.get();
     }
 
+    /**
+     * Amount of keys in subtree of this node.
+     *
+     * @return Amount of keys
+     */
+    final int entries() {
+        return this.entries;
+    }
+
+    /**
+     * Change amount of keys in subtree.
+     *
+     * @param delta Amount of added keys, negative for removed keys
+     */
+    final void addEntries(final int delta) {
+        this.entries += delta;
+    }
+
+    /**
+     * Count keys in subtree from own keys and counts of children.
+     */
+    final void recount() {
+        int count = this.keysSize.get();
+        for (int i = 0; i < this.childrenSize.get(); i++) {
+            count += this.children[i].entries;
+        }
+        this.entries = count;
+    }
+
+    /**
+     * Aggregate subtree from own keys and aggregates of children.
+     *
+     * @param aggregates Aggregates of tree
+     */
+    final void aggregate(final Aggregate<?>[] aggregates) {
+        if (aggregates.length > 0) {
+            if (this.totals == null) {
+                this.totals = new Object[aggregates.length];
+            }
+            for (int slot = 0; slot < aggregates.length; slot++) {
+                this.totals[slot] = this.aggregate(aggregates[slot], slot);
+            }
+        }
+    }
+
+    /**
+     * Aggregate of subtree of this node.
+     *
+     * @param aggregate Aggregate
+     * @param slot      Position of aggregate in tree
+     * @param <A>       Type of aggregate
+     * @return Aggregate
+     */
+    @SuppressWarnings("unchecked")
+    final <A> A total(final Aggregate<A> aggregate, final int slot) {
+        final A total;
+        if (this.totals == null) {
+            total = aggregate.identity();
+        } else {
+            total = (A) this.totals[slot];
+        }
+        return total;
+    }
+
+    /**
+     * Amount of keys in subtrees of the first children.
+     *
+     * @param count Amount of children
+     * @return Amount of keys
+     */
+    final int entries(final int count) {
+        int entries = 0;
+        for (int i = 0; i < count && i < this.childrenSize.get(); i++) {
+            entries += this.children[i].entries;
+        }
+        return entries;
+    }
+
     /**
      * Get key by index.
      *
@@ -337,6 +419,20 @@ class BtreeNode {
         return removed;
     }
 
+    /**
+     * Replace key in position.
+     * New key must keep order of keys
+     *
+     * @param keyPosition Position of key
+     * @param key         New key
+     * @return Replaced key
+     */
+    final NodeKey replaceKey(final int keyPosition, final NodeKey key) {
+        final NodeKey replaced = this.keys[keyPosition];
+        this.keys[keyPosition] = key;
+        return replaced;
+    }
+
     /**
      * Remove the last key from node.
      *
@@ -388,9 +484,9 @@ class BtreeNode {
      * @return Index of key or -1 if not found
      */
     public final int indexOfKey(final NodeKey key) {
-        final BtreeSearch btreeSearch = new BtreeSearch(this, key);
-        if (btreeSearch.found()) {
-            return btreeSearch.position();
+        final int search = BtreeSearch.search(this, key.key);
+        if (BtreeSearch.found(search)) {
+            return search;
         } else {
             return -1;
         }
@@ -407,23 +503,89 @@ class BtreeNode {
 
     /**
      * Copy all keys.
+     * Both arrays are sorted, so they are merged from the end
+     * in one pass, keys of neighbour node are copied at once
      *
      * @param other Node from which to copy
      */
     public final void addAllKeys(final BtreeNode other) {
-        for (int i = 0; i < other.keysSize.get(); i++) {
-            this.addKey(other.keys[i]);
-        }
+        BtreeNode.merge(
+                this.keys,
+                this.keysSize.get(),
+                other.keys,
+                other.keysSize.get(),
+                Comparator.naturalOrder()
+        );
+        this.keysSize.addAndGet(other.keysSize.get());
     }
 
     /**
      * Copy all children.
+     * Children are merged by their first keys like keys
      *
      * @param other Node from which to copy
      */
     public final void addAllChildren(final BtreeNode other) {
-        for (int i = 0; i < other.childrenSize.get(); i++) {
-            this.addChild(other.children[i]);
+        final int size = other.childrenSize.get();
+        for (int i = 0; i < size; i++) {
+            other.children[i].parent = this;
+        }
+        BtreeNode.merge(
+                this.children,
+                this.childrenSize.get(),
+                other.children,
+                size,
+                COMPARATOR
+        );
+        this.childrenSize.addAndGet(size);
+    }
+
+    /**
+     * Append range of keys that are bigger than keys of this node.
+     *
+     * @param other     Node from which to copy
+     * @param fromIndex Index of the first key
+     * @param toIndex   Index after the last key
+     */
+    final void addKeys(
+            final BtreeNode other,
+            final int fromIndex,
+            final int toIndex
+    ) {
+        final int count = toIndex - fromIndex;
+        System.arraycopy(
+                other.keys,
+                fromIndex,
+                this.keys,
+                this.keysSize.getAndAdd(count),
+                count
+        );
+    }
+
+    /**
+     * Append range of children that are bigger than children
+     * of this node.
+     *
+     * @param other     Node from which to copy
+     * @param fromIndex Index of the first child
+     * @param toIndex   Index after the last child
+     */
+    final void addChildren(
+            final BtreeNode other,
+            final int fromIndex,
+            final int toIndex
+    ) {
+        final int count = toIndex - fromIndex;
+        final int start = this.childrenSize.getAndAdd(count);
+        System.arraycopy(
+                other.children,
+                fromIndex,
+                this.children,
+                start,
+                count
+        );
+        for (int i = start; i < start + count; i++) {
+            this.children[i].parent = this;
         }
     }
 
@@ -434,6 +596,96 @@ class BtreeNode {
         this.parent = null;
     }
 
+    /**
+     * Combine aggregates of keys and children in order of keys.
+     *
+     * @param aggregate Aggregate
+     * @param slot      Position of aggregate in tree
+     * @param <A>       Type of aggregate
+     * @return Aggregate of subtree
+     */
+    private <A> A aggregate(final Aggregate<A> aggregate, final int slot) {
+        final boolean inner = this.hasChildren();
+        A total = aggregate.identity();
+        for (int i = 0; i < this.keysSize.get(); i++) {
+            if (inner) {
+                total = aggregate.combine(
+                        total,
+                        this.children[i].total(aggregate, slot)
+                );
+            }
+            total = aggregate.combine(
+                    total,
+                    aggregate.of(this.keys[i].key, this.keys[i].value)
+            );
+        }
+        if (inner) {
+            total = aggregate.combine(
+                    total,
+                    this.children[this.keysSize.get()].total(aggregate, slot)
+            );
+        }
+        return total;
+    }
+
+    /**
+     * Insertion point from result of binary search.
+     *
+     * @param search Result of Arrays.binarySearch
+     * @return Position of equal element or where it would be inserted
+     */
+    private static int insertion(final int search) {
+        final int index;
+        if (search < 0) {
+            index = -search - 1;
+        } else {
+            index = search;
+        }
+        return index;
+    }
+
+    /**
+     * Merge sorted source into sorted target.
+     * Source that goes after or before target is copied at once,
+     * overlapping arrays are merged from the end.
+     * Target must have room for all elements of source
+     *
+     * @param target     Target array
+     * @param size       Amount of elements in target
+     * @param source     Source array
+     * @param count      Amount of elements in source
+     * @param comparator Order of elements
+     * @param <T>        Type of elements
+     */
+    private static <T> void merge(
+            final T[] target,
+            final int size,
+            final T[] source,
+            final int count,
+            final Comparator<? super T> comparator
+    ) {
+        if (count > 0 && (size == 0
+                || comparator.compare(target[size - 1], source[0]) <= 0)) {
+            System.arraycopy(source, 0, target, size, count);
+        } else if (count > 0
+                && comparator.compare(source[count - 1], target[0]) < 0) {
+            System.arraycopy(target, 0, target, count, size);
+            System.arraycopy(source, 0, target, 0, count);
+        } else {
+            int left = size - 1;
+            int right = count - 1;
+            for (int last = size + count - 1; right >= 0; last--) {
+                final boolean bigger = left >= 0
+                        && comparator.compare(target[left], source[right]) > 0;
+                if (bigger) {
+                    target[last] = target[left--];
+                } else {
+                    target[last] = source[right--];
+                }
+            }
+        }
+    }
+
     @Override
     public String toString() {
         return Arrays.stream(this.keys)
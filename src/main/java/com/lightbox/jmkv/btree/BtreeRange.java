@@ -0,0 +1,859 @@
+package com.lightbox.jmkv.btree;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.function.Function;
+
+/**
+ * View of Btree keys in range.
+ * Bounds are kept in ascending order, descending view
+ * only swaps navigation and iteration order.
+ * Changes of view go to tree and changes of tree are visible in view
+ */
+final class BtreeRange extends AbstractMap<Integer, String>
+        implements NavigableMap<Integer, String> {
+
+    /**
+     * Tree.
+     */
+    private final Btree tree;
+
+    /**
+     * The lowest key or null if range has no lower bound.
+     */
+    private final Integer from;
+
+    /**
+     * True if the lowest key belongs to range.
+     */
+    private final boolean fromInclusive;
+
+    /**
+     * The biggest key or null if range has no upper bound.
+     */
+    private final Integer to;
+
+    /**
+     * True if the biggest key belongs to range.
+     */
+    private final boolean toInclusive;
+
+    /**
+     * True if view goes from bigger keys to lower ones.
+     */
+    private final boolean descending;
+
+    /**
+     * Ctor.
+     *
+     * @param tree Tree
+     */
+    BtreeRange(final Btree tree) {
+        this.tree = tree;
+        this.from = null;
+        this.fromInclusive = true;
+        this.to = null;
+        this.toInclusive = true;
+        this.descending = false;
+    }
+
+    /**
+     * Ctor of view with the same range in opposite order.
+     *
+     * @param origin Origin view
+     */
+    private BtreeRange(final BtreeRange origin) {
+        this.tree = origin.tree;
+        this.from = origin.from;
+        this.fromInclusive = origin.fromInclusive;
+        this.to = origin.to;
+        this.toInclusive = origin.toInclusive;
+        this.descending = !origin.descending;
+    }
+
+    /**
+     * Ctor of view with the same order and new range.
+     *
+     * @param origin        Origin view
+     * @param from          The lowest key or null
+     * @param fromInclusive True if the lowest key belongs to range
+     * @param to            The biggest key or null
+     * @param toInclusive   True if the biggest key belongs to range
+     */
+    private BtreeRange(
+            final BtreeRange origin,
+            final Integer from,
+            final boolean fromInclusive,
+            final Integer to,
+            final boolean toInclusive
+    ) {
+        this.tree = origin.tree;
+        this.from = from;
+        this.fromInclusive = fromInclusive;
+        this.to = to;
+        this.toInclusive = toInclusive;
+        this.descending = origin.descending;
+    }
+
+    @Override
+    public int size() {
+        final int low;
+        if (this.from == null) {
+            low = 0;
+        } else {
+            low = this.tree.rank(this.from, !this.fromInclusive);
+        }
+        final int high;
+        if (this.to == null) {
+            high = this.tree.size();
+        } else {
+            high = this.tree.rank(this.to, this.toInclusive);
+        }
+        return Math.max(0, high - low);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.lowest() == null;
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+        return this.inRange((Integer) key) && this.tree.containsKey(key);
+    }
+
+    @Override
+    public String get(final Object key) {
+        if (this.inRange((Integer) key)) {
+            return this.tree.get(key);
+        } else {
+            return null;
+        }
+    }
+
+    @Override
+    public String put(final Integer key, final String value) {
+        if (!this.inRange(key)) {
+            throw new IllegalArgumentException(
+                    String.format("Key %d is out of range", key)
+            );
+        }
+        return this.tree.put(key, value);
+    }
+
+    @Override
+    public String remove(final Object key) {
+        if (this.inRange((Integer) key)) {
+            return this.tree.remove(key);
+        } else {
+            return null;
+        }
+    }
+
+    @Override
+    public void clear() {
+        if (this.from == null && this.to == null) {
+            this.tree.clear();
+        } else {
+            final Iterator<Integer> keys = this.keyIterator();
+            while (keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        }
+    }
+
+    @Override
+    public Set<Entry<Integer, String>> entrySet() {
+        return new Entries();
+    }
+
+    @Override
+    public Collection<String> values() {
+        return new Values();
+    }
+
+    @Override
+    public NavigableSet<Integer> keySet() {
+        return this.navigableKeySet();
+    }
+
+    @Override
+    public Entry<Integer, String> lowerEntry(final Integer key) {
+        return BtreeRange.exported(this.lower(key));
+    }
+
+    @Override
+    public Integer lowerKey(final Integer key) {
+        return BtreeRange.key(this.lower(key));
+    }
+
+    @Override
+    public Entry<Integer, String> floorEntry(final Integer key) {
+        return BtreeRange.exported(this.floor(key));
+    }
+
+    @Override
+    public Integer floorKey(final Integer key) {
+        return BtreeRange.key(this.floor(key));
+    }
+
+    @Override
+    public Entry<Integer, String> ceilingEntry(final Integer key) {
+        return BtreeRange.exported(this.ceiling(key));
+    }
+
+    @Override
+    public Integer ceilingKey(final Integer key) {
+        return BtreeRange.key(this.ceiling(key));
+    }
+
+    @Override
+    public Entry<Integer, String> higherEntry(final Integer key) {
+        return BtreeRange.exported(this.higher(key));
+    }
+
+    @Override
+    public Integer higherKey(final Integer key) {
+        return BtreeRange.key(this.higher(key));
+    }
+
+    @Override
+    public Entry<Integer, String> firstEntry() {
+        return BtreeRange.exported(this.first());
+    }
+
+    @Override
+    public Entry<Integer, String> lastEntry() {
+        return BtreeRange.exported(this.last());
+    }
+
+    @Override
+    public Entry<Integer, String> pollFirstEntry() {
+        final NodeKey first = this.first();
+        if (first != null) {
+            this.tree.remove(first.key);
+        }
+        return BtreeRange.exported(first);
+    }
+
+    @Override
+    public Entry<Integer, String> pollLastEntry() {
+        final NodeKey last = this.last();
+        if (last != null) {
+            this.tree.remove(last.key);
+        }
+        return BtreeRange.exported(last);
+    }
+
+    @Override
+    public Integer firstKey() {
+        return BtreeRange.existing(this.first());
+    }
+
+    @Override
+    public Integer lastKey() {
+        return BtreeRange.existing(this.last());
+    }
+
+    @Override
+    public BtreeRange descendingMap() {
+        return new BtreeRange(this);
+    }
+
+    @Override
+    public NavigableSet<Integer> navigableKeySet() {
+        return new BtreeKeys(this);
+    }
+
+    @Override
+    public NavigableSet<Integer> descendingKeySet() {
+        return this.descendingMap().navigableKeySet();
+    }
+
+    @Override
+    public BtreeRange subMap(
+            final Integer fromKey,
+            final boolean fromInc,
+            final Integer toKey,
+            final boolean toInc
+    ) {
+        Objects.requireNonNull(fromKey, "From key can't be null");
+        Objects.requireNonNull(toKey, "To key can't be null");
+        if (this.order(fromKey, toKey) > 0) {
+            throw new IllegalArgumentException(
+                    String.format("From key %d is after %d", fromKey, toKey)
+            );
+        }
+        final BtreeRange range;
+        if (this.descending) {
+            range = this.bounded(toKey, toInc, fromKey, fromInc);
+        } else {
+            range = this.bounded(fromKey, fromInc, toKey, toInc);
+        }
+        return range;
+    }
+
+    @Override
+    public BtreeRange headMap(final Integer toKey, final boolean inclusive) {
+        Objects.requireNonNull(toKey, "To key can't be null");
+        final BtreeRange range;
+        if (this.descending) {
+            range = this.bounded(toKey, inclusive, this.to, this.toInclusive);
+        } else {
+            range = this.bounded(
+                    this.from,
+                    this.fromInclusive,
+                    toKey,
+                    inclusive
+            );
+        }
+        return range;
+    }
+
+    @Override
+    public BtreeRange tailMap(final Integer fromKey, final boolean inclusive) {
+        Objects.requireNonNull(fromKey, "From key can't be null");
+        final BtreeRange range;
+        if (this.descending) {
+            range = this.bounded(
+                    this.from,
+                    this.fromInclusive,
+                    fromKey,
+                    inclusive
+            );
+        } else {
+            range = this.bounded(fromKey, inclusive, this.to, this.toInclusive);
+        }
+        return range;
+    }
+
+    @Override
+    public SortedMap<Integer, String> subMap(
+            final Integer fromKey,
+            final Integer toKey
+    ) {
+        return this.subMap(fromKey, true, toKey, false);
+    }
+
+    @Override
+    public SortedMap<Integer, String> headMap(final Integer toKey) {
+        return this.headMap(toKey, false);
+    }
+
+    @Override
+    public SortedMap<Integer, String> tailMap(final Integer fromKey) {
+        return this.tailMap(fromKey, true);
+    }
+
+    @Override
+    public Comparator<? super Integer> comparator() {
+        final Comparator<? super Integer> comparator;
+        if (this.descending) {
+            comparator = Collections.reverseOrder();
+        } else {
+            comparator = null;
+        }
+        return comparator;
+    }
+
+    /**
+     * Iterator of keys in order of view.
+     *
+     * @return Iterator
+     */
+    Iterator<Integer> keyIterator() {
+        return new Cursor<>(key -> key.key);
+    }
+
+    /**
+     * Check that key is in range.
+     *
+     * @param key Key
+     * @return True if key is between bounds
+     */
+    private boolean inRange(final int key) {
+        return !this.tooLow(key) && !this.tooHigh(key);
+    }
+
+    /**
+     * Check that key is lower than range.
+     *
+     * @param key Key
+     * @return True if key is lower than lower bound
+     */
+    private boolean tooLow(final int key) {
+        return this.from != null && (key < this.from
+                || key == this.from && !this.fromInclusive);
+    }
+
+    /**
+     * Check that key is bigger than range.
+     *
+     * @param key Key
+     * @return True if key is bigger than upper bound
+     */
+    private boolean tooHigh(final int key) {
+        return this.to != null && (key > this.to
+                || key == this.to && !this.toInclusive);
+    }
+
+    /**
+     * Compare keys in order of view.
+     *
+     * @param left  Left key
+     * @param right Right key
+     * @return Result of comparison
+     */
+    private int order(final int left, final int right) {
+        final int order;
+        if (this.descending) {
+            order = Integer.compare(right, left);
+        } else {
+            order = Integer.compare(left, right);
+        }
+        return order;
+    }
+
+    /**
+     * Narrow range with new bounds in ascending order.
+     * Bound that is null keeps bound of this range,
+     * so every new bound has to be inside of this range
+     *
+     * @param low          The lowest key or null
+     * @param lowInclusive True if the lowest key belongs to range
+     * @param high         The biggest key or null
+     * @param highInclusive True if the biggest key belongs to range
+     * @return New range
+     */
+    private BtreeRange bounded(
+            final Integer low,
+            final boolean lowInclusive,
+            final Integer high,
+            final boolean highInclusive
+    ) {
+        this.check(low, lowInclusive);
+        this.check(high, highInclusive);
+        return new BtreeRange(
+                this,
+                low,
+                lowInclusive,
+                high,
+                highInclusive
+        );
+    }
+
+    /**
+     * Check that bound of new range is inside of this range.
+     * Exclusive bound can be equal to exclusive bound of this range
+     *
+     * @param bound     Bound or null
+     * @param inclusive True if bound belongs to range
+     */
+    private void check(final Integer bound, final boolean inclusive) {
+        if (bound != null) {
+            final boolean outside;
+            if (inclusive) {
+                outside = !this.inRange(bound);
+            } else {
+                outside = this.from != null && bound < this.from
+                        || this.to != null && bound > this.to;
+            }
+            if (outside) {
+                throw new IllegalArgumentException(
+                        String.format("Key %d is out of range", bound)
+                );
+            }
+        }
+    }
+
+    /**
+     * The lowest key of range.
+     *
+     * @return Key or null
+     */
+    private NodeKey lowest() {
+        final NodeKey lowest;
+        if (this.from == null) {
+            lowest = this.tree.first();
+        } else {
+            lowest = this.tree.ceiling(this.from, this.fromInclusive);
+        }
+        if (lowest == null || this.tooHigh(lowest.key)) {
+            return null;
+        } else {
+            return lowest;
+        }
+    }
+
+    /**
+     * The biggest key of range.
+     *
+     * @return Key or null
+     */
+    private NodeKey highest() {
+        final NodeKey highest;
+        if (this.to == null) {
+            highest = this.tree.last();
+        } else {
+            highest = this.tree.floor(this.to, this.toInclusive);
+        }
+        if (highest == null || this.tooLow(highest.key)) {
+            return null;
+        } else {
+            return highest;
+        }
+    }
+
+    /**
+     * The lowest key of range that is bigger than given one.
+     *
+     * @param key       Key
+     * @param inclusive True if equal key matches too
+     * @return Key or null
+     */
+    private NodeKey above(final int key, final boolean inclusive) {
+        final NodeKey above;
+        if (this.tooLow(key)) {
+            above = this.lowest();
+        } else {
+            final NodeKey ceiling = this.tree.ceiling(key, inclusive);
+            if (ceiling == null || this.tooHigh(ceiling.key)) {
+                above = null;
+            } else {
+                above = ceiling;
+            }
+        }
+        return above;
+    }
+
+    /**
+     * The biggest key of range that is lower than given one.
+     *
+     * @param key       Key
+     * @param inclusive True if equal key matches too
+     * @return Key or null
+     */
+    private NodeKey below(final int key, final boolean inclusive) {
+        final NodeKey below;
+        if (this.tooHigh(key)) {
+            below = this.highest();
+        } else {
+            final NodeKey floor = this.tree.floor(key, inclusive);
+            if (floor == null || this.tooLow(floor.key)) {
+                below = null;
+            } else {
+                below = floor;
+            }
+        }
+        return below;
+    }
+
+    /**
+     * The first key in order of view.
+     *
+     * @return Key or null
+     */
+    private NodeKey first() {
+        if (this.descending) {
+            return this.highest();
+        } else {
+            return this.lowest();
+        }
+    }
+
+    /**
+     * The last key in order of view.
+     *
+     * @return Key or null
+     */
+    private NodeKey last() {
+        if (this.descending) {
+            return this.lowest();
+        } else {
+            return this.highest();
+        }
+    }
+
+    /**
+     * Key that goes before given one in order of view.
+     *
+     * @param key Key
+     * @return Key or null
+     */
+    private NodeKey lower(final int key) {
+        if (this.descending) {
+            return this.above(key, false);
+        } else {
+            return this.below(key, false);
+        }
+    }
+
+    /**
+     * Key that goes before or equal to given one in order of view.
+     *
+     * @param key Key
+     * @return Key or null
+     */
+    private NodeKey floor(final int key) {
+        if (this.descending) {
+            return this.above(key, true);
+        } else {
+            return this.below(key, true);
+        }
+    }
+
+    /**
+     * Key that goes after or equal to given one in order of view.
+     *
+     * @param key Key
+     * @return Key or null
+     */
+    private NodeKey ceiling(final int key) {
+        if (this.descending) {
+            return this.below(key, true);
+        } else {
+            return this.above(key, true);
+        }
+    }
+
+    /**
+     * Key that goes after given one in order of view.
+     *
+     * @param key Key
+     * @return Key or null
+     */
+    private NodeKey higher(final int key) {
+        if (this.descending) {
+            return this.below(key, false);
+        } else {
+            return this.above(key, false);
+        }
+    }
+
+    /**
+     * Immutable entry from key.
+     *
+     * @param key Key or null
+     * @return Entry or null
+     */
+    private static Entry<Integer, String> exported(final NodeKey key) {
+        if (key == null) {
+            return null;
+        } else {
+            return new SimpleImmutableEntry<>(key.key, key.value);
+        }
+    }
+
+    /**
+     * Key of entry.
+     *
+     * @param key Key or null
+     * @return Key or null
+     */
+    private static Integer key(final NodeKey key) {
+        if (key == null) {
+            return null;
+        } else {
+            return key.key;
+        }
+    }
+
+    /**
+     * Key of entry that has to exist.
+     *
+     * @param key Key or null
+     * @return Key
+     */
+    private static Integer existing(final NodeKey key) {
+        if (key == null) {
+            throw new NoSuchElementException("Range is empty");
+        }
+        return key.key;
+    }
+
+    /**
+     * Iterator of range in order of view.
+     * Fails if tree was changed not by this iterator
+     *
+     * @param <T> Type of elements
+     */
+    private final class Cursor<T> implements Iterator<T> {
+
+        /**
+         * Position in tree.
+         */
+        private BtreeCursor cursor;
+
+        /**
+         * Element from key.
+         */
+        private final Function<NodeKey, T> element;
+
+        /**
+         * Modifications of tree which iterator expects.
+         */
+        private int expected;
+
+        /**
+         * The last returned key or null.
+         */
+        private NodeKey last;
+
+        /**
+         * Ctor.
+         *
+         * @param element Element from key
+         */
+        Cursor(final Function<NodeKey, T> element) {
+            this.element = element;
+            this.expected = BtreeRange.this.tree.modifications();
+            this.cursor = new BtreeCursor(
+                    BtreeRange.this.tree.root(),
+                    BtreeRange.this.descending
+            );
+            final Integer start;
+            final boolean inclusive;
+            if (BtreeRange.this.descending) {
+                start = BtreeRange.this.to;
+                inclusive = BtreeRange.this.toInclusive;
+            } else {
+                start = BtreeRange.this.from;
+                inclusive = BtreeRange.this.fromInclusive;
+            }
+            if (start == null) {
+                this.cursor.first();
+            } else {
+                this.cursor.seek(start, inclusive);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            boolean next = this.cursor.valid();
+            if (next) {
+                final int key = this.cursor.current().key;
+                if (BtreeRange.this.descending) {
+                    next = !BtreeRange.this.tooLow(key);
+                } else {
+                    next = !BtreeRange.this.tooHigh(key);
+                }
+            }
+            return next;
+        }
+
+        @Override
+        public T next() {
+            this.checkModifications();
+            if (!this.hasNext()) {
+                throw new NoSuchElementException("Range has no more keys");
+            }
+            this.last = this.cursor.current();
+            this.cursor.next();
+            return this.element.apply(this.last);
+        }
+
+        @Override
+        public void remove() {
+            if (this.last == null) {
+                throw new IllegalStateException("Nothing to remove");
+            }
+            this.checkModifications();
+            BtreeRange.this.tree.remove(this.last.key);
+            this.expected = BtreeRange.this.tree.modifications();
+            this.cursor = new BtreeCursor(
+                    BtreeRange.this.tree.root(),
+                    BtreeRange.this.descending
+            );
+            this.cursor.seek(this.last.key, false);
+            this.last = null;
+        }
+
+        /**
+         * Check that tree wasn't changed not by this iterator.
+         */
+        private void checkModifications() {
+            if (this.expected != BtreeRange.this.tree.modifications()) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    /**
+     * Entries of range.
+     */
+    private final class Entries extends AbstractSet<Entry<Integer, String>> {
+
+        @Override
+        public Iterator<Entry<Integer, String>> iterator() {
+            return new Cursor<>(BtreeRange::exported);
+        }
+
+        @Override
+        public int size() {
+            return BtreeRange.this.size();
+        }
+
+        @Override
+        public boolean contains(final Object obj) {
+            boolean contains = false;
+            if (obj instanceof Map.Entry) {
+                final Entry<?, ?> entry = (Entry<?, ?>) obj;
+                contains = entry.getKey() instanceof Integer
+                        && entry.getValue() != null
+                        && entry.getValue().equals(
+                        BtreeRange.this.get(entry.getKey())
+                );
+            }
+            return contains;
+        }
+
+        @Override
+        public boolean remove(final Object obj) {
+            final boolean contains = this.contains(obj);
+            if (contains) {
+                BtreeRange.this.remove(((Entry<?, ?>) obj).getKey());
+            }
+            return contains;
+        }
+
+        @Override
+        public void clear() {
+            BtreeRange.this.clear();
+        }
+    }
+
+    /**
+     * Values of range.
+     */
+    private final class Values extends AbstractCollection<String> {
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Cursor<>(key -> key.value);
+        }
+
+        @Override
+        public int size() {
+            return BtreeRange.this.size();
+        }
+
+        @Override
+        public void clear() {
+            BtreeRange.this.clear();
+        }
+    }
+}
@@ -2,9 +2,18 @@ package com.lightbox.jmkv.btree;
 
 /**
  * Search key in BtreeNode.
+ * Hot paths use static {@link #search(BtreeNode, int)} which returns
+ * found flag and position encoded in int,
+ * object is only a view of such result
  */
 class BtreeSearch {
 
+    /**
+     * Default search, it's stateless so shared by all searches.
+     */
+    private static final SearchAlg DEFAULT =
+            new SearchAlg.DefaultBinarySearch();
+
     /**
      * True if key was found.
      */
@@ -24,13 +33,13 @@ class BtreeSearch {
      * @param node Node with keys
      * @param key  Key to search
      */
-    BtreeSearch(final BtreeNode node, final Integer key) {
+    BtreeSearch(final BtreeNode node, final int key) {
         this(
                 node,
                 key,
                 0,
                 node.keys(),
-                new SearchAlg.DefaultBinarySearch()
+                DEFAULT
         );
     }
 
@@ -45,20 +54,19 @@ class BtreeSearch {
      */
     BtreeSearch(
             final BtreeNode node,
-            final Integer key,
+            final int key,
             final int positionFrom,
             final int positionTo,
             final SearchAlg searchAlg
     ) {
-        final BtreeSearch btreeSearch =
+        this(
                 searchAlg.searchKey(
                         node,
                         positionFrom,
                         positionTo,
                         key
-                );
-        this.found = btreeSearch.found;
-        this.position = btreeSearch.position;
+                )
+        );
     }
 
     /**
@@ -85,6 +93,84 @@ class BtreeSearch {
         this.position = position;
     }
 
+    /**
+     * Ctor.
+     *
+     * @param result Encoded result of search
+     */
+    private BtreeSearch(final int result) {
+        this(
+                BtreeSearch.found(result),
+                BtreeSearch.position(result)
+        );
+    }
+
+    /**
+     * Search key in all keys of node without allocation.
+     *
+     * @param node Node with keys
+     * @param key  Key to search
+     * @return Position of key if found,
+     * otherwise (-(insertion point) - 1)
+     */
+    static int search(final BtreeNode node, final int key) {
+        return DEFAULT.searchKey(node, 0, node.keys(), key);
+    }
+
+    /**
+     * Index of the first key in range which is bigger or equals to key.
+     *
+     * @param node      Node with keys
+     * @param indexFrom Start position
+     * @param indexTo   End position
+     * @param key       Key to search
+     * @return Index of key or indexTo if all keys are lower
+     */
+    static int lower(
+            final BtreeNode node,
+            final int indexFrom,
+            final int indexTo,
+            final int key
+    ) {
+        int low = indexFrom;
+        int high = indexTo;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (node.key(mid).key < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Shows if encoded result means that key was found.
+     *
+     * @param result Encoded result of search
+     * @return True if found
+     */
+    static boolean found(final int result) {
+        return result >= 0;
+    }
+
+    /**
+     * Position from encoded result.
+     *
+     * @param result Encoded result of search
+     * @return Position of key or insertion point
+     */
+    static int position(final int result) {
+        final int position;
+        if (result >= 0) {
+            position = result;
+        } else {
+            position = -result - 1;
+        }
+        return position;
+    }
+
     /**
      * Shows if key was found.
      *
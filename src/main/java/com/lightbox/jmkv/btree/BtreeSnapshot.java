@@ -0,0 +1,681 @@
+package com.lightbox.jmkv.btree;
+
+import java.util.AbstractMap;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable B+tree for int keys.
+ * Put and delete return new tree that copies only nodes
+ * on the path from root to leaf and shares all other nodes,
+ * so old tree stays a consistent snapshot for as long as
+ * somebody reads it.
+ * Nodes are split when they overflow and merged or
+ * redistributed with neighbour when they underflow
+ * on the way back to root
+ */
+public final class BtreeSnapshot
+        implements Iterable<Map.Entry<Integer, String>> {
+
+    /**
+     * Max amount of keys in node.
+     */
+    private final int capacity;
+
+    /**
+     * Root.
+     */
+    private final Node root;
+
+    /**
+     * Amount of keys.
+     */
+    private final int size;
+
+    /**
+     * Ctor.
+     * Empty tree
+     *
+     * @param capacity Max amount of keys in node, at least 3
+     */
+    BtreeSnapshot(final int capacity) {
+        this(capacity, Node.EMPTY, 0);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param capacity Max amount of keys in node
+     * @param root     Root
+     * @param size     Amount of keys
+     */
+    private BtreeSnapshot(final int capacity, final Node root, final int size) {
+        this.capacity = capacity;
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Get value by key.
+     *
+     * @param key Key
+     * @return Value or null
+     */
+    public String get(final int key) {
+        Node node = this.root;
+        while (!node.leaf()) {
+            node = node.children[node.route(key)];
+        }
+        final int index = node.search(key);
+        if (index >= 0) {
+            return node.values[index];
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Amount of keys.
+     *
+     * @return Size
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Height of tree.
+     *
+     * @return Amount of levels
+     */
+    public int height() {
+        int height = 1;
+        for (Node node = this.root; !node.leaf(); node = node.children[0]) {
+            height++;
+        }
+        return height;
+    }
+
+    /**
+     * Iterate over keys in range in ascending order.
+     *
+     * @param from The first key
+     * @param to   Key after the last one
+     * @return Iterator of keys and values
+     */
+    public Iterator<Map.Entry<Integer, String>> range(
+            final int from,
+            final int to
+    ) {
+        return new Scan(from, to);
+    }
+
+    @Override
+    public Iterator<Map.Entry<Integer, String>> iterator() {
+        return new Scan(Integer.MIN_VALUE, Integer.MAX_VALUE + 1L);
+    }
+
+    /**
+     * Tree with key value pair put.
+     *
+     * @param key   Key
+     * @param value Value
+     * @return New tree
+     */
+    BtreeSnapshot put(final int key, final String value) {
+        int grown = this.size;
+        if (this.get(key) == null) {
+            grown++;
+        }
+        Node top = this.put(this.root, key, value);
+        if (top.size() > this.capacity) {
+            final int half = top.size() / 2;
+            top = new Node(
+                    new int[]{top.keys[half]},
+                    null,
+                    new Node[]{top.lower(half), top.upper(half)}
+            );
+        }
+        return new BtreeSnapshot(this.capacity, top, grown);
+    }
+
+    /**
+     * Tree without key.
+     *
+     * @param key Key
+     * @return New tree or this one if it has no key
+     */
+    BtreeSnapshot delete(final int key) {
+        final BtreeSnapshot result;
+        if (this.get(key) == null) {
+            result = this;
+        } else {
+            Node top = this.delete(this.root, key);
+            if (!top.leaf() && top.size() == 0) {
+                top = top.children[0];
+            }
+            result = new BtreeSnapshot(this.capacity, top, this.size - 1);
+        }
+        return result;
+    }
+
+    /**
+     * Copy of subtree with key value pair put.
+     *
+     * @param node  Root of subtree
+     * @param key   Key
+     * @param value Value
+     * @return Copy that may have one key more than capacity
+     */
+    private Node put(final Node node, final int key, final String value) {
+        final Node result;
+        if (node.leaf()) {
+            result = node.put(key, value);
+        } else {
+            final int index = node.route(key);
+            final Node child = this.put(node.children[index], key, value);
+            if (child.size() > this.capacity) {
+                final int half = child.size() / 2;
+                result = node.split(
+                        index,
+                        child.lower(half),
+                        child.keys[half],
+                        child.upper(half)
+                );
+            } else {
+                result = node.with(index, child);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Copy of subtree without key.
+     * Child that has too few keys is joined with neighbour,
+     * joined node is split again if it has too many keys
+     *
+     * @param node Root of subtree
+     * @param key  Key that subtree has
+     * @return Copy
+     */
+    private Node delete(final Node node, final int key) {
+        final Node result;
+        if (node.leaf()) {
+            result = node.remove(node.search(key));
+        } else {
+            final int index = node.route(key);
+            final Node child = this.delete(node.children[index], key);
+            if (child.size() >= (this.capacity - 1) / 2) {
+                result = node.with(index, child);
+            } else {
+                final int left = Math.max(index - 1, 0);
+                final Node[] pair = {
+                    node.children[left],
+                    node.children[left + 1],
+                };
+                pair[index - left] = child;
+                final Node joined = Node.join(
+                        pair[0],
+                        node.keys[left],
+                        pair[1]
+                );
+                if (joined.size() > this.capacity) {
+                    final int half = joined.size() / 2;
+                    result = node.redistribute(
+                            left,
+                            joined.lower(half),
+                            joined.keys[half],
+                            joined.upper(half)
+                    );
+                } else {
+                    result = node.merge(left, joined);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Immutable node.
+     * It's shared by every tree that reaches it, so it's never changed
+     */
+    private static final class Node {
+
+        /**
+         * Empty leaf.
+         */
+        private static final Node EMPTY = new Node(
+                new int[0],
+                new String[0],
+                null
+        );
+
+        /**
+         * Sorted keys or separators.
+         */
+        private final int[] keys;
+
+        /**
+         * Values of keys or null for inner node.
+         */
+        private final String[] values;
+
+        /**
+         * Children or null for leaf.
+         */
+        private final Node[] children;
+
+        /**
+         * Ctor.
+         *
+         * @param keys     Sorted keys
+         * @param values   Values or null
+         * @param children Children or null
+         */
+        Node(final int[] keys, final String[] values, final Node[] children) {
+            this.keys = keys;
+            this.values = values;
+            this.children = children;
+        }
+
+        /**
+         * Check that node has no children.
+         *
+         * @return True if node is leaf
+         */
+        boolean leaf() {
+            return this.children == null;
+        }
+
+        /**
+         * Amount of keys.
+         *
+         * @return Amount of keys
+         */
+        int size() {
+            return this.keys.length;
+        }
+
+        /**
+         * Search key.
+         *
+         * @param key Key
+         * @return Position of key or (-(insertion point) - 1)
+         */
+        int search(final int key) {
+            return Arrays.binarySearch(this.keys, key);
+        }
+
+        /**
+         * Position of child that may contain key.
+         *
+         * @param key Key
+         * @return Amount of separators that are lower or equal to key
+         */
+        int route(final int key) {
+            return BplusNodes.route(this.search(key));
+        }
+
+        /**
+         * Leaf with key value pair put.
+         *
+         * @param key   Key
+         * @param value Value
+         * @return Copy
+         */
+        Node put(final int key, final String value) {
+            final int index = this.search(key);
+            final Node result;
+            if (index >= 0) {
+                final String[] values = this.values.clone();
+                values[index] = value;
+                result = new Node(this.keys, values, null);
+            } else {
+                final int position = -index - 1;
+                result = new Node(
+                        BplusNodes.inserted(this.keys, position, key),
+                        BplusNodes.inserted(this.values, position, value),
+                        null
+                );
+            }
+            return result;
+        }
+
+        /**
+         * Leaf without key.
+         *
+         * @param index Position of key
+         * @return Copy
+         */
+        Node remove(final int index) {
+            return new Node(
+                    Node.removed(this.keys, index),
+                    Node.removed(this.values, index),
+                    null
+            );
+        }
+
+        /**
+         * Inner node with child replaced.
+         *
+         * @param index Position of child
+         * @param child New child
+         * @return Copy
+         */
+        Node with(final int index, final Node child) {
+            final Node[] children = this.children.clone();
+            children[index] = child;
+            return new Node(this.keys, null, children);
+        }
+
+        /**
+         * Inner node with child replaced by two halves.
+         *
+         * @param index     Position of child
+         * @param left      Left half
+         * @param separator Separator between halves
+         * @param right     Right half
+         * @return Copy
+         */
+        Node split(
+                final int index,
+                final Node left,
+                final int separator,
+                final Node right
+        ) {
+            final Node[] children =
+                    BplusNodes.inserted(this.children, index + 1, right);
+            children[index] = left;
+            return new Node(
+                    BplusNodes.inserted(this.keys, index, separator),
+                    null,
+                    children
+            );
+        }
+
+        /**
+         * Inner node with two neighbour children replaced
+         * by new ones and new separator between them.
+         *
+         * @param index     Position of left child
+         * @param left      Left child
+         * @param separator Separator
+         * @param right     Right child
+         * @return Copy
+         */
+        Node redistribute(
+                final int index,
+                final Node left,
+                final int separator,
+                final Node right
+        ) {
+            final int[] keys = this.keys.clone();
+            keys[index] = separator;
+            final Node[] children = this.children.clone();
+            children[index] = left;
+            children[index + 1] = right;
+            return new Node(keys, null, children);
+        }
+
+        /**
+         * Inner node with two neighbour children replaced by one.
+         *
+         * @param index  Position of left child
+         * @param joined Child with keys of both
+         * @return Copy
+         */
+        Node merge(final int index, final Node joined) {
+            final Node[] children = Node.removed(this.children, index + 1);
+            children[index] = joined;
+            return new Node(Node.removed(this.keys, index), null, children);
+        }
+
+        /**
+         * Left half of node.
+         *
+         * @param half Position of separator
+         * @return Node
+         */
+        Node lower(final int half) {
+            final Node result;
+            if (this.leaf()) {
+                result = new Node(
+                        Arrays.copyOf(this.keys, half),
+                        Arrays.copyOf(this.values, half),
+                        null
+                );
+            } else {
+                result = new Node(
+                        Arrays.copyOf(this.keys, half),
+                        null,
+                        Arrays.copyOf(this.children, half + 1)
+                );
+            }
+            return result;
+        }
+
+        /**
+         * Right half of node, see {@link BplusNodes#upper}.
+         *
+         * @param half Position of separator
+         * @return Node
+         */
+        Node upper(final int half) {
+            final int length = this.keys.length;
+            final int from = BplusNodes.upper(this.leaf(), half);
+            final int[] keys = Arrays.copyOfRange(this.keys, from, length);
+            final Node result;
+            if (this.leaf()) {
+                result = new Node(
+                        keys,
+                        Arrays.copyOfRange(this.values, from, length),
+                        null
+                );
+            } else {
+                result = new Node(
+                        keys,
+                        null,
+                        Arrays.copyOfRange(this.children, from, length + 1)
+                );
+            }
+            return result;
+        }
+
+        /**
+         * Node with keys of two neighbours.
+         * Separator goes between keys of inner nodes
+         *
+         * @param left      Left node
+         * @param separator Separator between nodes in parent
+         * @param right     Right node
+         * @return Node
+         */
+        static Node join(
+                final Node left,
+                final int separator,
+                final Node right
+        ) {
+            final Node result;
+            if (left.leaf()) {
+                result = new Node(
+                        Node.concat(left.keys, right.keys),
+                        Node.concat(left.values, right.values),
+                        null
+                );
+            } else {
+                result = new Node(
+                        Node.concat(
+                                BplusNodes.inserted(
+                                        left.keys,
+                                        left.size(),
+                                        separator
+                                ),
+                                right.keys
+                        ),
+                        null,
+                        Node.concat(left.children, right.children)
+                );
+            }
+            return result;
+        }
+
+        /**
+         * Copy of array without key.
+         *
+         * @param array Array
+         * @param index Position
+         * @return Copy
+         */
+        private static int[] removed(final int[] array, final int index) {
+            final int[] copy = new int[array.length - 1];
+            System.arraycopy(array, 0, copy, 0, index);
+            final int tail = copy.length - index;
+            System.arraycopy(array, index + 1, copy, index, tail);
+            return copy;
+        }
+
+        /**
+         * Copy of array without item.
+         *
+         * @param array Array
+         * @param index Position
+         * @param <T>   Type of item
+         * @return Copy
+         */
+        private static <T> T[] removed(final T[] array, final int index) {
+            final T[] copy = Arrays.copyOf(array, array.length - 1);
+            final int tail = copy.length - index;
+            System.arraycopy(array, index + 1, copy, index, tail);
+            return copy;
+        }
+
+        /**
+         * Concatenation of keys.
+         *
+         * @param left  The first keys
+         * @param right The last keys
+         * @return Keys
+         */
+        private static int[] concat(final int[] left, final int[] right) {
+            final int[] result =
+                    Arrays.copyOf(left, left.length + right.length);
+            System.arraycopy(right, 0, result, left.length, right.length);
+            return result;
+        }
+
+        /**
+         * Concatenation of items.
+         *
+         * @param left  The first items
+         * @param right The last items
+         * @param <T>   Type of item
+         * @return Items
+         */
+        private static <T> T[] concat(final T[] left, final T[] right) {
+            final T[] result = Arrays.copyOf(left, left.length + right.length);
+            System.arraycopy(right, 0, result, left.length, right.length);
+            return result;
+        }
+    }
+
+    /**
+     * Iterator that keeps path from root to current leaf.
+     */
+    private final class Scan implements Iterator<Map.Entry<Integer, String>> {
+
+        /**
+         * Key after the last one.
+         */
+        private final long to;
+
+        /**
+         * Nodes of path, the last one is leaf or null if scan is over.
+         */
+        private final Node[] nodes;
+
+        /**
+         * Positions of child in every node and of key in leaf.
+         */
+        private final int[] positions;
+
+        /**
+         * Ctor.
+         *
+         * @param from The first key
+         * @param to   Key after the last one
+         */
+        Scan(final int from, final long to) {
+            this.to = to;
+            final int height = BtreeSnapshot.this.height();
+            this.nodes = new Node[height];
+            this.positions = new int[height];
+            Node node = BtreeSnapshot.this.root;
+            for (int level = 0; level < height - 1; level++) {
+                this.nodes[level] = node;
+                this.positions[level] = node.route(from);
+                node = node.children[this.positions[level]];
+            }
+            final int search = node.search(from);
+            this.nodes[height - 1] = node;
+            if (search >= 0) {
+                this.positions[height - 1] = search;
+            } else {
+                this.positions[height - 1] = -search - 1;
+            }
+            this.settle();
+        }
+
+        @Override
+        public boolean hasNext() {
+            final int leaf = this.nodes.length - 1;
+            return this.nodes[leaf] != null
+                    && this.nodes[leaf].keys[this.positions[leaf]] < this.to;
+        }
+
+        @Override
+        public Map.Entry<Integer, String> next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException("Scan is over");
+            }
+            final int leaf = this.nodes.length - 1;
+            final Node node = this.nodes[leaf];
+            final int index = this.positions[leaf];
+            this.positions[leaf]++;
+            this.settle();
+            return new AbstractMap.SimpleImmutableEntry<>(
+                    node.keys[index],
+                    node.values[index]
+            );
+        }
+
+        /**
+         * Move to the first key of the next leaf if leaf is over.
+         * Climbs to the lowest node that has next child and
+         * goes down by its leftmost path
+         */
+        private void settle() {
+            final int leaf = this.nodes.length - 1;
+            while (this.nodes[leaf] != null
+                    && this.positions[leaf] == this.nodes[leaf].size()) {
+                int level = leaf - 1;
+                while (level >= 0
+                        && this.positions[level] == this.nodes[level].size()) {
+                    level--;
+                }
+                if (level < 0) {
+                    this.nodes[leaf] = null;
+                } else {
+                    this.positions[level]++;
+                    for (int down = level + 1; down <= leaf; down++) {
+                        final Node parent = this.nodes[down - 1];
+                        this.nodes[down] =
+                                parent.children[this.positions[down - 1]];
+                        this.positions[down] = 0;
+                    }
+                }
+            }
+        }
+    }
+}
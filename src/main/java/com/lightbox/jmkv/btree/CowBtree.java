@@ -0,0 +1,170 @@
+package com.lightbox.jmkv.btree;
+
+import com.lightbox.jmkv.Cache;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Copy-on-write B+tree for int keys.
+ * Current tree is an immutable {@link BtreeSnapshot},
+ * write builds new one that copies only path from root to leaf
+ * and publishes it with compare-and-set, retrying if another
+ * writer was first.
+ * Snapshot is just the current tree, so taking it costs nothing
+ * and scans of snapshot never block writers nor see their changes
+ */
+public final class CowBtree
+        implements Cache, Iterable<Map.Entry<Integer, String>> {
+
+    /**
+     * Default max amount of keys in node.
+     */
+    public static final int CAPACITY = 32;
+
+    /**
+     * Max amount of keys in node.
+     */
+    private final int capacity;
+
+    /**
+     * Current tree.
+     */
+    private final AtomicReference<BtreeSnapshot> current;
+
+    /**
+     * Ctor.
+     */
+    public CowBtree() {
+        this(CAPACITY);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param capacity Max amount of keys in node, at least 3
+     */
+    public CowBtree(final int capacity) {
+        if (capacity < 3) {
+            throw new IllegalArgumentException(
+                    String.format("Capacity %d is less than 3", capacity)
+            );
+        }
+        this.capacity = capacity;
+        this.current = new AtomicReference<>(new BtreeSnapshot(capacity));
+    }
+
+    /**
+     * Consistent view of tree that never changes.
+     *
+     * @return Current tree
+     */
+    public BtreeSnapshot snapshot() {
+        return this.current.get();
+    }
+
+    /**
+     * Get value by key.
+     *
+     * @param key Key
+     * @return Value or null
+     */
+    public String get(final int key) {
+        return this.current.get().get(key);
+    }
+
+    /**
+     * Put key value pair, replacing previous value.
+     *
+     * @param key   Key
+     * @param value Value
+     * @return Value
+     */
+    public String put(final int key, final String value) {
+        Objects.requireNonNull(value, "Value can't be null");
+        BtreeSnapshot tree;
+        do {
+            tree = this.current.get();
+        } while (!this.current.compareAndSet(tree, tree.put(key, value)));
+        return value;
+    }
+
+    /**
+     * Delete value by key.
+     *
+     * @param key Key
+     * @return Deleted value or null
+     */
+    public String delete(final int key) {
+        BtreeSnapshot tree;
+        String removed;
+        do {
+            tree = this.current.get();
+            removed = tree.get(key);
+        } while (removed != null
+                && !this.current.compareAndSet(tree, tree.delete(key)));
+        return removed;
+    }
+
+    /**
+     * Check that value with given key is present.
+     *
+     * @param key Key
+     * @return True if value is present
+     */
+    public boolean exists(final int key) {
+        return this.get(key) != null;
+    }
+
+    /**
+     * Iterate over keys in range of current snapshot.
+     *
+     * @param from The first key
+     * @param to   Key after the last one
+     * @return Iterator of keys and values
+     */
+    public Iterator<Map.Entry<Integer, String>> range(
+            final int from,
+            final int to
+    ) {
+        return this.snapshot().range(from, to);
+    }
+
+    @Override
+    public Iterator<Map.Entry<Integer, String>> iterator() {
+        return this.snapshot().iterator();
+    }
+
+    @Override
+    public boolean clear() {
+        this.current.set(new BtreeSnapshot(this.capacity));
+        return true;
+    }
+
+    @Override
+    public String get(final Integer key) {
+        return this.get(key.intValue());
+    }
+
+    @Override
+    public String put(final Integer key, final String value) {
+        return this.put(key.intValue(), value);
+    }
+
+    @Override
+    public String delete(final Integer key) {
+        return this.delete(key.intValue());
+    }
+
+    @Override
+    public boolean exists(final Integer key) {
+        return this.exists(key.intValue());
+    }
+
+    @Override
+    public int size() {
+        return this.current.get().size();
+    }
+}
@@ -0,0 +1,103 @@
+package com.lightbox.jmkv.btree;
+
+/**
+ * Keys of node in Eytzinger order.
+ * Keys are laid out as implicit binary search tree in breadth-first
+ * order: children of key i are keys 2i and 2i+1, so first steps of
+ * search read the same few cache lines for every key and the next
+ * two candidates are always neighbours in memory.
+ * Search has no early exit and result is decoded from path,
+ * it's encoded like in {@link SearchAlg} with positions of keys in node.
+ * Layout is a copy, so it suits nodes that are read much more often
+ * than changed
+ */
+final class EytzingerKeys {
+
+    /**
+     * Keys in Eytzinger order starting from 1.
+     */
+    private final int[] tree;
+
+    /**
+     * Position of every key of tree in sorted order.
+     */
+    private final int[] positions;
+
+    /**
+     * Ctor.
+     *
+     * @param node Node with keys
+     */
+    EytzingerKeys(final BtreeNode node) {
+        this(EytzingerKeys.keys(node));
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param sorted Keys in ascending order
+     */
+    EytzingerKeys(final int[] sorted) {
+        this.tree = new int[sorted.length + 1];
+        this.positions = new int[sorted.length + 1];
+        this.build(sorted, 0, 1);
+    }
+
+    /**
+     * Search key.
+     *
+     * @param key Key to find
+     * @return Position of key in sorted order if found,
+     * otherwise (-(insertion point) - 1)
+     */
+    int search(final int key) {
+        final int size = this.tree.length - 1;
+        int index = 1;
+        while (index <= size) {
+            index = 2 * index + (this.tree[index] < key ? 1 : 0);
+        }
+        index >>>= Integer.numberOfTrailingZeros(~index) + 1;
+        final int result;
+        if (index == 0) {
+            result = -(size + 1);
+        } else if (this.tree[index] == key) {
+            result = this.positions[index];
+        } else {
+            result = -(this.positions[index] + 1);
+        }
+        return result;
+    }
+
+    /**
+     * Fill subtree by in-order walk.
+     *
+     * @param sorted Keys in ascending order
+     * @param next   Position of the next sorted key
+     * @param index  Root of subtree
+     * @return Position of the next sorted key after subtree
+     */
+    private int build(final int[] sorted, final int next, final int index) {
+        int position = next;
+        if (index < this.tree.length) {
+            position = this.build(sorted, position, 2 * index);
+            this.tree[index] = sorted[position];
+            this.positions[index] = position;
+            position = this.build(sorted, position + 1, 2 * index + 1);
+        }
+        return position;
+    }
+
+    /**
+     * Keys of node.
+     *
+     * @param node Node
+     * @return Keys in ascending order
+     */
+    private static int[] keys(final BtreeNode node) {
+        final int[] keys = new int[node.keys()];
+        for (int index = 0; index < keys.length; index++) {
+            keys[index] = node.key(index).key;
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,562 @@
+package com.lightbox.jmkv.btree;
+
+import com.lightbox.jmkv.Cache;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * B-tree specialized for int keys.
+ * Node keeps keys in int array and values in a parallel array,
+ * so search and split work with primitives and never
+ * touch boxed Integer or per entry objects.
+ * Insert splits full nodes on the way down and delete fills
+ * nodes with minimal amount of keys on the way down,
+ * so both operations are one pass from root to leaf.
+ * Not thread safe
+ */
+public final class IntBtree implements Cache {
+
+    /**
+     * Default minimal degree.
+     */
+    public static final int DEGREE = 32;
+
+    /**
+     * Minimal degree t.
+     * Every node except root has from t-1 to 2t-1 keys
+     */
+    private final int degree;
+
+    /**
+     * Root.
+     */
+    private Node root;
+
+    /**
+     * Amount of keys.
+     */
+    private int size;
+
+    /**
+     * Ctor.
+     */
+    public IntBtree() {
+        this(DEGREE);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param degree Minimal degree, at least 2
+     */
+    public IntBtree(final int degree) {
+        if (degree < 2) {
+            throw new IllegalArgumentException(
+                    String.format("Degree %d is less than 2", degree)
+            );
+        }
+        this.degree = degree;
+        this.root = new Node(degree, true);
+    }
+
+    /**
+     * Get value by key.
+     *
+     * @param key Key
+     * @return Value or null
+     */
+    public String get(final int key) {
+        Node node = this.root;
+        String value = null;
+        while (node != null) {
+            final int index = node.search(key);
+            if (index >= 0) {
+                value = node.values[index];
+                node = null;
+            } else if (node.leaf) {
+                node = null;
+            } else {
+                node = node.children[-index - 1];
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Put key value pair, replacing previous value.
+     *
+     * @param key   Key
+     * @param value Value
+     * @return Value
+     */
+    public String put(final int key, final String value) {
+        Objects.requireNonNull(value, "Value can't be null");
+        if (this.root.size == this.root.keys.length) {
+            final Node top = new Node(this.degree, false);
+            top.children[0] = this.root;
+            top.split(0);
+            this.root = top;
+        }
+        Node node = this.root;
+        boolean done = false;
+        while (!done) {
+            int index = node.search(key);
+            if (index >= 0) {
+                node.values[index] = value;
+                done = true;
+            } else if (node.leaf) {
+                node.insert(-index - 1, key, value);
+                this.size++;
+                done = true;
+            } else {
+                index = -index - 1;
+                if (node.children[index].full()) {
+                    node.split(index);
+                    if (key > node.keys[index]) {
+                        index++;
+                    } else if (key == node.keys[index]) {
+                        node.values[index] = value;
+                        done = true;
+                    }
+                }
+                node = node.children[index];
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Delete value by key.
+     *
+     * @param key Key
+     * @return Deleted value or null
+     */
+    public String delete(final int key) {
+        final String removed = this.delete(this.root, key);
+        if (this.root.size == 0 && !this.root.leaf) {
+            this.root = this.root.children[0];
+        }
+        if (removed != null) {
+            this.size--;
+        }
+        return removed;
+    }
+
+    /**
+     * Check that value with given key is present.
+     *
+     * @param key Key
+     * @return True if value is present
+     */
+    public boolean exists(final int key) {
+        return this.get(key) != null;
+    }
+
+    @Override
+    public boolean clear() {
+        this.root = new Node(this.degree, true);
+        this.size = 0;
+        return true;
+    }
+
+    @Override
+    public String get(final Integer key) {
+        return this.get(key.intValue());
+    }
+
+    @Override
+    public String put(final Integer key, final String value) {
+        return this.put(key.intValue(), value);
+    }
+
+    @Override
+    public String delete(final Integer key) {
+        return this.delete(key.intValue());
+    }
+
+    @Override
+    public boolean exists(final Integer key) {
+        return this.exists(key.intValue());
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Height of tree.
+     *
+     * @return Amount of levels
+     */
+    public int height() {
+        int height = 1;
+        for (Node node = this.root; !node.leaf; node = node.children[0]) {
+            height++;
+        }
+        return height;
+    }
+
+    @Override
+    public String toString() {
+        return this.root.toString();
+    }
+
+    /**
+     * Delete key from subtree.
+     * Node has at least t keys unless it's root
+     *
+     * @param node Root of subtree
+     * @param key  Key
+     * @return Deleted value or null
+     */
+    private String delete(final Node node, final int key) {
+        final int index = node.search(key);
+        final String removed;
+        if (index >= 0 && node.leaf) {
+            removed = node.values[index];
+            node.remove(index);
+        } else if (index >= 0) {
+            removed = node.values[index];
+            this.deleteInner(node, index);
+        } else if (node.leaf) {
+            removed = null;
+        } else {
+            removed = this.delete(this.fill(node, -index - 1), key);
+        }
+        return removed;
+    }
+
+    /**
+     * Delete key of inner node.
+     * Key is replaced with predecessor or successor
+     * or both children are merged around it
+     *
+     * @param node  Inner node
+     * @param index Position of key
+     */
+    private void deleteInner(final Node node, final int index) {
+        final Node left = node.children[index];
+        final Node right = node.children[index + 1];
+        if (left.size >= this.degree) {
+            Node max = left;
+            while (!max.leaf) {
+                max = max.children[max.size];
+            }
+            final int pred = max.keys[max.size - 1];
+            node.keys[index] = pred;
+            node.values[index] = max.values[max.size - 1];
+            this.delete(left, pred);
+        } else if (right.size >= this.degree) {
+            Node min = right;
+            while (!min.leaf) {
+                min = min.children[0];
+            }
+            final int succ = min.keys[0];
+            node.keys[index] = succ;
+            node.values[index] = min.values[0];
+            this.delete(right, succ);
+        } else {
+            final int key = node.keys[index];
+            node.merge(index);
+            this.delete(left, key);
+        }
+    }
+
+    /**
+     * Make sure that child has at least t keys before descent.
+     * Borrows key from sibling or merges child with sibling
+     *
+     * @param node  Parent
+     * @param index Position of child
+     * @return Child to descend into
+     */
+    private Node fill(final Node node, final int index) {
+        final Node child = node.children[index];
+        Node next = child;
+        if (child.size < this.degree) {
+            if (index > 0 && node.children[index - 1].size >= this.degree) {
+                node.rotateRight(index - 1);
+            } else if (index < node.size
+                    && node.children[index + 1].size >= this.degree) {
+                node.rotateLeft(index);
+            } else if (index < node.size) {
+                node.merge(index);
+            } else {
+                next = node.children[index - 1];
+                node.merge(index - 1);
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Node of tree.
+     */
+    private static final class Node {
+
+        /**
+         * Sorted keys.
+         */
+        private final int[] keys;
+
+        /**
+         * Values of keys.
+         */
+        private final String[] values;
+
+        /**
+         * Children or null for leaf.
+         */
+        private final Node[] children;
+
+        /**
+         * True if node has no children.
+         */
+        private final boolean leaf;
+
+        /**
+         * Amount of keys.
+         */
+        private int size;
+
+        /**
+         * Ctor.
+         *
+         * @param degree Minimal degree
+         * @param leaf   True if node has no children
+         */
+        Node(final int degree, final boolean leaf) {
+            this.keys = new int[2 * degree - 1];
+            this.values = new String[2 * degree - 1];
+            this.leaf = leaf;
+            if (leaf) {
+                this.children = null;
+            } else {
+                this.children = new Node[2 * degree];
+            }
+        }
+
+        /**
+         * Search key.
+         *
+         * @param key Key
+         * @return Position of key or (-(insertion point) - 1)
+         */
+        int search(final int key) {
+            return Arrays.binarySearch(this.keys, 0, this.size, key);
+        }
+
+        /**
+         * Check that node can't take one more key.
+         *
+         * @return True if node has 2t-1 keys
+         */
+        boolean full() {
+            return this.size == this.keys.length;
+        }
+
+        /**
+         * Insert key into leaf.
+         *
+         * @param index Position
+         * @param key   Key
+         * @param value Value
+         */
+        void insert(final int index, final int key, final String value) {
+            final int tail = this.size - index;
+            System.arraycopy(this.keys, index, this.keys, index + 1, tail);
+            System.arraycopy(this.values, index, this.values, index + 1, tail);
+            this.keys[index] = key;
+            this.values[index] = value;
+            this.size++;
+        }
+
+        /**
+         * Remove key and its right child.
+         *
+         * @param index Position of key
+         */
+        void remove(final int index) {
+            final int tail = this.size - index - 1;
+            System.arraycopy(this.keys, index + 1, this.keys, index, tail);
+            System.arraycopy(this.values, index + 1, this.values, index, tail);
+            if (!this.leaf) {
+                System.arraycopy(
+                        this.children,
+                        index + 2,
+                        this.children,
+                        index + 1,
+                        tail
+                );
+                this.children[this.size] = null;
+            }
+            this.size--;
+            this.values[this.size] = null;
+        }
+
+        /**
+         * Split full child in two halves and move its
+         * middle key up to this node.
+         *
+         * @param index Position of full child
+         */
+        void split(final int index) {
+            final Node child = this.children[index];
+            final int half = child.keys.length / 2;
+            final Node right = new Node(half + 1, child.leaf);
+            System.arraycopy(child.keys, half + 1, right.keys, 0, half);
+            System.arraycopy(child.values, half + 1, right.values, 0, half);
+            if (!child.leaf) {
+                System.arraycopy(
+                        child.children,
+                        half + 1,
+                        right.children,
+                        0,
+                        half + 1
+                );
+                Arrays.fill(
+                        child.children,
+                        half + 1,
+                        child.children.length,
+                        null
+                );
+            }
+            right.size = half;
+            final int tail = this.size - index;
+            System.arraycopy(this.keys, index, this.keys, index + 1, tail);
+            System.arraycopy(this.values, index, this.values, index + 1, tail);
+            System.arraycopy(
+                    this.children,
+                    index + 1,
+                    this.children,
+                    index + 2,
+                    tail
+            );
+            this.keys[index] = child.keys[half];
+            this.values[index] = child.values[half];
+            this.children[index + 1] = right;
+            this.size++;
+            Arrays.fill(child.values, half, child.values.length, null);
+            child.size = half;
+        }
+
+        /**
+         * Merge child, key and the next child into the first child.
+         *
+         * @param index Position of key
+         */
+        void merge(final int index) {
+            final Node left = this.children[index];
+            final Node right = this.children[index + 1];
+            left.keys[left.size] = this.keys[index];
+            left.values[left.size] = this.values[index];
+            System.arraycopy(
+                    right.keys,
+                    0,
+                    left.keys,
+                    left.size + 1,
+                    right.size
+            );
+            System.arraycopy(
+                    right.values,
+                    0,
+                    left.values,
+                    left.size + 1,
+                    right.size
+            );
+            if (!left.leaf) {
+                System.arraycopy(
+                        right.children,
+                        0,
+                        left.children,
+                        left.size + 1,
+                        right.size + 1
+                );
+            }
+            left.size += right.size + 1;
+            this.remove(index);
+        }
+
+        /**
+         * Move the last key of left child up and key of this
+         * node down to the beginning of the next child.
+         *
+         * @param index Position of key between children
+         */
+        void rotateRight(final int index) {
+            final Node left = this.children[index];
+            final Node right = this.children[index + 1];
+            System.arraycopy(right.keys, 0, right.keys, 1, right.size);
+            System.arraycopy(right.values, 0, right.values, 1, right.size);
+            right.keys[0] = this.keys[index];
+            right.values[0] = this.values[index];
+            if (!right.leaf) {
+                System.arraycopy(
+                        right.children,
+                        0,
+                        right.children,
+                        1,
+                        right.size + 1
+                );
+                right.children[0] = left.children[left.size];
+                left.children[left.size] = null;
+            }
+            right.size++;
+            left.size--;
+            this.keys[index] = left.keys[left.size];
+            this.values[index] = left.values[left.size];
+            left.values[left.size] = null;
+        }
+
+        /**
+         * Move the first key of right child up and key of this
+         * node down to the end of the previous child.
+         *
+         * @param index Position of key between children
+         */
+        void rotateLeft(final int index) {
+            final Node left = this.children[index];
+            final Node right = this.children[index + 1];
+            left.keys[left.size] = this.keys[index];
+            left.values[left.size] = this.values[index];
+            if (!left.leaf) {
+                left.children[left.size + 1] = right.children[0];
+                System.arraycopy(
+                        right.children,
+                        1,
+                        right.children,
+                        0,
+                        right.size
+                );
+                right.children[right.size] = null;
+            }
+            left.size++;
+            this.keys[index] = right.keys[0];
+            this.values[index] = right.values[0];
+            right.size--;
+            System.arraycopy(right.keys, 1, right.keys, 0, right.size);
+            System.arraycopy(right.values, 1, right.values, 0, right.size);
+            right.values[right.size] = null;
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder out = new StringBuilder("[");
+            for (int i = 0; i < this.size; i++) {
+                if (!this.leaf) {
+                    out.append(this.children[i]).append(' ');
+                }
+                out.append(this.keys[i]);
+                if (i < this.size - 1 || !this.leaf) {
+                    out.append(' ');
+                }
+            }
+            if (!this.leaf) {
+                out.append(this.children[this.size]);
+            }
+            return out.append(']').toString();
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.lightbox.jmkv.btree;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append only memory out of java heap.
+ * Memory is a list of direct buffers of the same size,
+ * allocation never crosses border of buffer.
+ * Allocated block is addressed by int reference in units
+ * of ALIGN bytes, so arena addresses up to 32 GB
+ * and GC sees only a few buffers.
+ * Not thread safe
+ */
+final class OffHeapArena {
+
+    /**
+     * Alignment of blocks.
+     */
+    static final int ALIGN = 8;
+
+    /**
+     * Bits of alignment.
+     */
+    private static final int ALIGN_BITS = 3;
+
+    /**
+     * Max address.
+     */
+    private static final long LIMIT = (1L << Integer.SIZE) * ALIGN;
+
+    /**
+     * Bits of offset in slab.
+     */
+    private final int bits;
+
+    /**
+     * Slabs of memory.
+     */
+    private final List<ByteBuffer> slabs;
+
+    /**
+     * Address of the next block.
+     */
+    private long end;
+
+    /**
+     * Ctor.
+     *
+     * @param bits Size of slab is 2 in this power
+     */
+    OffHeapArena(final int bits) {
+        if (bits < ALIGN_BITS || bits > Integer.SIZE - 2) {
+            throw new IllegalArgumentException(
+                    String.format("Wrong size of slab 2^%d", bits)
+            );
+        }
+        this.bits = bits;
+        this.slabs = new ArrayList<>(0);
+    }
+
+    /**
+     * Allocate block.
+     *
+     * @param bytes Size of block
+     * @return Reference of block
+     */
+    int allocate(final int bytes) {
+        final int slab = 1 << this.bits;
+        if (bytes > slab) {
+            throw new IllegalArgumentException(
+                    String.format(
+                            "Block of %d bytes is bigger than slab %d",
+                            bytes,
+                            slab
+                    )
+            );
+        }
+        long address = (this.end + ALIGN - 1) & -ALIGN;
+        if (this.offset(address) + bytes > slab) {
+            address = ((address >>> this.bits) + 1L) << this.bits;
+        }
+        if (address + bytes > LIMIT) {
+            throw new IllegalStateException(
+                    String.format("Arena can't take %d bytes more", bytes)
+            );
+        }
+        while (this.slabs.size() <= (int) (address >>> this.bits)) {
+            this.slabs.add(ByteBuffer.allocateDirect(slab));
+        }
+        this.end = address + bytes;
+        return (int) (address >>> ALIGN_BITS);
+    }
+
+    /**
+     * Slab of block.
+     *
+     * @param ref Reference of block
+     * @return Slab
+     */
+    ByteBuffer slab(final int ref) {
+        return this.slabs.get((int) (OffHeapArena.address(ref) >>> this.bits));
+    }
+
+    /**
+     * Offset of block in its slab.
+     *
+     * @param ref Reference of block
+     * @return Offset
+     */
+    int offset(final int ref) {
+        return this.offset(OffHeapArena.address(ref));
+    }
+
+    /**
+     * Memory taken by slabs.
+     *
+     * @return Bytes
+     */
+    long bytes() {
+        return (long) this.slabs.size() << this.bits;
+    }
+
+    /**
+     * Drop all blocks.
+     * Slabs are freed when GC collects them
+     */
+    void clear() {
+        this.slabs.clear();
+        this.end = 0L;
+    }
+
+    /**
+     * Offset of address in slab.
+     *
+     * @param address Address
+     * @return Offset
+     */
+    private int offset(final long address) {
+        return (int) (address & ((1L << this.bits) - 1L));
+    }
+
+    /**
+     * Address of block.
+     *
+     * @param ref Reference of block
+     * @return Address
+     */
+    private static long address(final int ref) {
+        return Integer.toUnsignedLong(ref) << ALIGN_BITS;
+    }
+}
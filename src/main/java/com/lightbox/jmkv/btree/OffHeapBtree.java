@@ -0,0 +1,544 @@
+package com.lightbox.jmkv.btree;
+
+import com.lightbox.jmkv.Cache;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+/**
+ * B+tree for int keys that keeps nodes and values out of java heap.
+ * Node is a fixed size slot in direct buffers of {@link OffHeapArena}
+ * that refers to values and children by int, values are UTF-8 bytes
+ * in another arena, so tree of any size is a few objects for GC.
+ * Memory of nodes and of replaced or deleted values is reused
+ * only after clear. Not thread safe
+ */
+public final class OffHeapBtree implements Cache {
+
+    /**
+     * Default size of node.
+     */
+    public static final int NODE = 512;
+
+    /**
+     * Size of node header: type, amount of keys and the first child.
+     */
+    private static final int HEADER = 3 * Integer.BYTES;
+
+    /**
+     * Size of entry: key and reference of value or child.
+     */
+    private static final int ENTRY = 2 * Integer.BYTES;
+
+    /**
+     * Type of leaf.
+     */
+    private static final int LEAF = 0;
+
+    /**
+     * Type of inner node.
+     */
+    private static final int INNER = 1;
+
+    /**
+     * Slab of nodes is 2 in this power.
+     */
+    private static final int NODE_SLAB = 20;
+
+    /**
+     * Slab of values is 2 in this power.
+     */
+    private static final int VALUE_SLAB = 24;
+
+    /**
+     * Nodes.
+     */
+    private final OffHeapArena nodes;
+
+    /**
+     * Values.
+     */
+    private final OffHeapArena values;
+
+    /**
+     * Size of node.
+     */
+    private final int node;
+
+    /**
+     * Max amount of keys in node.
+     */
+    private final int capacity;
+
+    /**
+     * Reference of root.
+     */
+    private int root;
+
+    /**
+     * Amount of keys.
+     */
+    private int size;
+
+    /**
+     * Ctor.
+     */
+    public OffHeapBtree() {
+        this(NODE);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param node Size of node in bytes, multiple of 8
+     */
+    public OffHeapBtree(final int node) {
+        this.capacity = (node - HEADER) / ENTRY;
+        if (this.capacity < 3 || node % OffHeapArena.ALIGN != 0
+                || node > 1 << NODE_SLAB) {
+            throw new IllegalArgumentException(
+                    String.format("Wrong size of node %d", node)
+            );
+        }
+        this.node = node;
+        this.nodes = new OffHeapArena(NODE_SLAB);
+        this.values = new OffHeapArena(VALUE_SLAB);
+        this.root = this.allocate(LEAF);
+    }
+
+    /**
+     * Get value by key.
+     *
+     * @param key Key
+     * @return Value or null
+     */
+    public String get(final int key) {
+        final Node leaf = this.leaf(key);
+        final int index = leaf.search(key);
+        if (index >= 0) {
+            return this.value(leaf.ref(index));
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Put key value pair, replacing previous value.
+     *
+     * @param key   Key
+     * @param value Value
+     * @return Value
+     */
+    public String put(final int key, final String value) {
+        Objects.requireNonNull(value, "Value can't be null");
+        final int ref = this.store(value);
+        Node current = this.node(this.root);
+        if (current.size() == this.capacity) {
+            final int top = this.allocate(INNER);
+            final Node parent = this.node(top);
+            parent.first(this.root);
+            this.split(parent, 0, current);
+            this.root = top;
+            current = parent;
+        }
+        while (!current.leaf()) {
+            final int index = current.route(key);
+            Node child = this.node(current.child(index));
+            if (child.size() == this.capacity
+                    && key >= this.split(current, index, child)) {
+                child = this.node(current.child(index + 1));
+            }
+            current = child;
+        }
+        final int index = current.search(key);
+        if (index >= 0) {
+            current.ref(index, ref);
+        } else {
+            current.insert(-index - 1, key, ref);
+            this.size++;
+        }
+        return value;
+    }
+
+    /**
+     * Delete value by key.
+     *
+     * @param key Key
+     * @return Deleted value or null
+     */
+    public String delete(final int key) {
+        final Node leaf = this.leaf(key);
+        final int index = leaf.search(key);
+        String removed = null;
+        if (index >= 0) {
+            removed = this.value(leaf.ref(index));
+            leaf.remove(index);
+            this.size--;
+        }
+        return removed;
+    }
+
+    /**
+     * Check that value with given key is present.
+     *
+     * @param key Key
+     * @return True if value is present
+     */
+    public boolean exists(final int key) {
+        return this.leaf(key).search(key) >= 0;
+    }
+
+    @Override
+    public boolean clear() {
+        this.nodes.clear();
+        this.values.clear();
+        this.root = this.allocate(LEAF);
+        this.size = 0;
+        return true;
+    }
+
+    @Override
+    public String get(final Integer key) {
+        return this.get(key.intValue());
+    }
+
+    @Override
+    public String put(final Integer key, final String value) {
+        return this.put(key.intValue(), value);
+    }
+
+    @Override
+    public String delete(final Integer key) {
+        return this.delete(key.intValue());
+    }
+
+    @Override
+    public boolean exists(final Integer key) {
+        return this.exists(key.intValue());
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Height of tree.
+     *
+     * @return Amount of levels
+     */
+    public int height() {
+        int height = 1;
+        Node current = this.node(this.root);
+        while (!current.leaf()) {
+            current = this.node(current.child(0));
+            height++;
+        }
+        return height;
+    }
+
+    /**
+     * Memory out of heap taken by nodes and values.
+     *
+     * @return Bytes
+     */
+    public long bytes() {
+        return this.nodes.bytes() + this.values.bytes();
+    }
+
+    /**
+     * Leaf where key is or would be.
+     *
+     * @param key Key
+     * @return Leaf
+     */
+    private Node leaf(final int key) {
+        Node current = this.node(this.root);
+        while (!current.leaf()) {
+            current = this.node(current.child(current.route(key)));
+        }
+        return current;
+    }
+
+    /**
+     * Split full child in two halves.
+     *
+     * @param parent Parent that isn't full
+     * @param index  Position of child
+     * @param full   Full child
+     * @return Separator
+     */
+    private int split(final Node parent, final int index, final Node full) {
+        final int ref;
+        if (full.leaf()) {
+            ref = this.allocate(LEAF);
+        } else {
+            ref = this.allocate(INNER);
+        }
+        final Node right = this.node(ref);
+        final int half = full.size() / 2;
+        if (!full.leaf()) {
+            right.first(full.child(half + 1));
+        }
+        right.take(full, BplusNodes.upper(full.leaf(), half));
+        final int separator = full.key(half);
+        full.size(half);
+        parent.attach(index, separator, ref);
+        return separator;
+    }
+
+    /**
+     * Allocate empty node.
+     *
+     * @param type LEAF or INNER
+     * @return Reference of node
+     */
+    private int allocate(final int type) {
+        final int ref = this.nodes.allocate(this.node);
+        final Node created = this.node(ref);
+        created.slab.putInt(created.base, type);
+        created.size(0);
+        return ref;
+    }
+
+    /**
+     * Node by reference.
+     *
+     * @param ref Reference of node
+     * @return Node
+     */
+    private Node node(final int ref) {
+        return new Node(this.nodes.slab(ref), this.nodes.offset(ref));
+    }
+
+    /**
+     * Write value to value arena.
+     *
+     * @param value Value
+     * @return Reference of value
+     */
+    private int store(final String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        final int ref = this.values.allocate(Integer.BYTES + bytes.length);
+        final ByteBuffer slab = this.values.slab(ref).duplicate();
+        final int offset = this.values.offset(ref);
+        slab.putInt(offset, bytes.length);
+        slab.position(offset + Integer.BYTES);
+        slab.put(bytes);
+        return ref;
+    }
+
+    /**
+     * Read value from value arena.
+     *
+     * @param ref Reference of value
+     * @return Value
+     */
+    private String value(final int ref) {
+        final ByteBuffer slab = this.values.slab(ref).duplicate();
+        final int offset = this.values.offset(ref);
+        final byte[] bytes = new byte[slab.getInt(offset)];
+        slab.position(offset + Integer.BYTES);
+        slab.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * View of node slot.
+     * Header keeps type, amount of keys and the first child
+     * of inner node, entry i keeps key i and reference of
+     * its value in leaf or of child i+1 in inner node.
+     * Children are routed by {@link BplusNodes#route(int)}
+     */
+    private static final class Node implements BplusNodes.Keys {
+
+        /**
+         * Slab of node.
+         */
+        private final ByteBuffer slab;
+
+        /**
+         * Offset of node in slab.
+         */
+        private final int base;
+
+        /**
+         * Ctor.
+         *
+         * @param slab Slab of node
+         * @param base Offset of node in slab
+         */
+        Node(final ByteBuffer slab, final int base) {
+            this.slab = slab;
+            this.base = base;
+        }
+
+        /**
+         * Check that node has no children.
+         *
+         * @return True if node is leaf
+         */
+        boolean leaf() {
+            return this.slab.getInt(this.base) == LEAF;
+        }
+
+        @Override
+        public int size() {
+            return this.slab.getInt(this.base + Integer.BYTES);
+        }
+
+        /**
+         * Change amount of keys.
+         *
+         * @param size Amount of keys
+         */
+        void size(final int size) {
+            this.slab.putInt(this.base + Integer.BYTES, size);
+        }
+
+        @Override
+        public int key(final int index) {
+            return this.slab.getInt(this.slot(index));
+        }
+
+        /**
+         * Reference of value or of child after key.
+         *
+         * @param index Position of key
+         * @return Reference
+         */
+        int ref(final int index) {
+            return this.slab.getInt(this.slot(index) + Integer.BYTES);
+        }
+
+        /**
+         * Change reference of value.
+         *
+         * @param index Position of key
+         * @param ref   Reference
+         */
+        void ref(final int index, final int ref) {
+            this.slab.putInt(this.slot(index) + Integer.BYTES, ref);
+        }
+
+        /**
+         * Child of inner node.
+         *
+         * @param index Position of child
+         * @return Reference of child
+         */
+        int child(final int index) {
+            final int child;
+            if (index == 0) {
+                child = this.slab.getInt(this.base + 2 * Integer.BYTES);
+            } else {
+                child = this.ref(index - 1);
+            }
+            return child;
+        }
+
+        /**
+         * Change the first child of inner node.
+         *
+         * @param child Reference of child
+         */
+        void first(final int child) {
+            this.slab.putInt(this.base + 2 * Integer.BYTES, child);
+        }
+
+        /**
+         * Search key.
+         *
+         * @param key Key
+         * @return Position of key or (-(insertion point) - 1)
+         */
+        int search(final int key) {
+            return BplusNodes.search(this, key);
+        }
+
+        /**
+         * Position of child that may contain key.
+         *
+         * @param key Key
+         * @return Amount of separators that are lower or equal to key
+         */
+        int route(final int key) {
+            return BplusNodes.route(this.search(key));
+        }
+
+        /**
+         * Insert key with reference of value into leaf.
+         *
+         * @param index Position
+         * @param key   Key
+         * @param ref   Reference of value
+         */
+        void insert(final int index, final int key, final int ref) {
+            final int size = this.size();
+            for (int entry = size; entry > index; entry--) {
+                this.slab.putLong(
+                        this.slot(entry),
+                        this.slab.getLong(this.slot(entry - 1))
+                );
+            }
+            this.slab.putInt(this.slot(index), key);
+            this.ref(index, ref);
+            this.size(size + 1);
+        }
+
+        /**
+         * Insert separator and child after it.
+         *
+         * @param index     Position of separator
+         * @param separator Separator
+         * @param child     Reference of child
+         */
+        void attach(final int index, final int separator, final int child) {
+            this.insert(index, separator, child);
+        }
+
+        /**
+         * Remove key from leaf.
+         *
+         * @param index Position of key
+         */
+        void remove(final int index) {
+            final int size = this.size();
+            for (int entry = index + 1; entry < size; entry++) {
+                this.slab.putLong(
+                        this.slot(entry - 1),
+                        this.slab.getLong(this.slot(entry))
+                );
+            }
+            this.size(size - 1);
+        }
+
+        /**
+         * Move entries from position of other node to this empty node.
+         *
+         * @param other Node to split
+         * @param from  Position of the first entry to move
+         */
+        void take(final Node other, final int from) {
+            final int count = other.size() - from;
+            for (int entry = 0; entry < count; entry++) {
+                this.slab.putLong(
+                        this.slot(entry),
+                        other.slab.getLong(other.slot(from + entry))
+                );
+            }
+            this.size(count);
+        }
+
+        /**
+         * Offset of entry in slab.
+         *
+         * @param index Position of entry
+         * @return Offset
+         */
+        private int slot(final int index) {
+            return this.base + HEADER + index * ENTRY;
+        }
+    }
+}
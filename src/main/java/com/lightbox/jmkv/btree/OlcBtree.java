@@ -0,0 +1,603 @@
+package com.lightbox.jmkv.btree;
+
+import com.lightbox.jmkv.Cache;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Concurrent B+tree for int keys with optimistic lock coupling.
+ * Reader takes version of node, reads it and restarts from root
+ * if version changed, so reads never write shared memory.
+ * Writer upgrades versions to write locks only for the leaf,
+ * or for full node and its parent when it splits on the way down.
+ * Nodes are never merged or unlinked, so reader can't meet a
+ * removed one. Clear must not run concurrently with put or delete
+ */
+public final class OlcBtree implements Cache {
+
+    /**
+     * Default max amount of keys in node.
+     */
+    public static final int CAPACITY = 64;
+
+    /**
+     * Result of attempt that met concurrent change.
+     */
+    private static final Object RESTART = new Object();
+
+    /**
+     * Max amount of keys in node.
+     */
+    private final int capacity;
+
+    /**
+     * Amount of keys.
+     */
+    private final LongAdder size;
+
+    /**
+     * Root.
+     * Replaced only under write lock of previous root
+     */
+    private volatile Node root;
+
+    /**
+     * Ctor.
+     */
+    public OlcBtree() {
+        this(CAPACITY);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param capacity Max amount of keys in node, at least 3
+     */
+    public OlcBtree(final int capacity) {
+        if (capacity < 3) {
+            throw new IllegalArgumentException(
+                    String.format("Capacity %d is less than 3", capacity)
+            );
+        }
+        this.capacity = capacity;
+        this.size = new LongAdder();
+        this.root = new Node(capacity, true);
+    }
+
+    /**
+     * Get value by key.
+     *
+     * @param key Key
+     * @return Value or null
+     */
+    public String get(final int key) {
+        Object result;
+        do {
+            result = this.find(key);
+        } while (result == RESTART);
+        return (String) result;
+    }
+
+    /**
+     * Put key value pair, replacing previous value.
+     *
+     * @param key   Key
+     * @param value Value
+     * @return Value
+     */
+    public String put(final int key, final String value) {
+        Objects.requireNonNull(value, "Value can't be null");
+        Object result;
+        do {
+            result = this.insert(key, value);
+        } while (result == RESTART);
+        return (String) result;
+    }
+
+    /**
+     * Delete value by key.
+     *
+     * @param key Key
+     * @return Deleted value or null
+     */
+    public String delete(final int key) {
+        Object result;
+        do {
+            result = this.remove(key);
+        } while (result == RESTART);
+        return (String) result;
+    }
+
+    /**
+     * Check that value with given key is present.
+     *
+     * @param key Key
+     * @return True if value is present
+     */
+    public boolean exists(final int key) {
+        return this.get(key) != null;
+    }
+
+    @Override
+    public boolean clear() {
+        this.root = new Node(this.capacity, true);
+        this.size.reset();
+        return true;
+    }
+
+    @Override
+    public String get(final Integer key) {
+        return this.get(key.intValue());
+    }
+
+    @Override
+    public String put(final Integer key, final String value) {
+        return this.put(key.intValue(), value);
+    }
+
+    @Override
+    public String delete(final Integer key) {
+        return this.delete(key.intValue());
+    }
+
+    @Override
+    public boolean exists(final Integer key) {
+        return this.exists(key.intValue());
+    }
+
+    @Override
+    public int size() {
+        return (int) this.size.sum();
+    }
+
+    /**
+     * Height of tree.
+     * Must not run concurrently with put
+     *
+     * @return Amount of levels
+     */
+    public int height() {
+        int height = 1;
+        for (Node node = this.root; !node.leaf; node = node.children[0]) {
+            height++;
+        }
+        return height;
+    }
+
+    /**
+     * Try to read value of key.
+     *
+     * @param key Key
+     * @return Value, null or RESTART
+     */
+    private Object find(final int key) {
+        final Path path = this.descend(key);
+        Object result = RESTART;
+        if (path != null) {
+            final String value = path.node.value(key);
+            if (path.node.lock.validate(path.stamp)) {
+                result = value;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Try to put key value pair.
+     * Splits the first full node on the path and restarts
+     *
+     * @param key   Key
+     * @param value Value
+     * @return Value or RESTART
+     */
+    private Object insert(final int key, final String value) {
+        final Path path = new Path(this.root);
+        boolean valid = path.fresh(this.root);
+        while (valid && !path.node.full() && !path.node.leaf) {
+            valid = path.down(key);
+        }
+        Object result = RESTART;
+        if (valid) {
+            if (path.node.full()) {
+                this.split(path);
+            } else {
+                result = this.store(path, key, value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Try to delete key.
+     * Leaf is locked only if it has the key
+     *
+     * @param key Key
+     * @return Deleted value, null or RESTART
+     */
+    private Object remove(final int key) {
+        final Path path = this.descend(key);
+        Object result = RESTART;
+        if (path != null) {
+            final Node leaf = path.node;
+            final long stamp;
+            if (leaf.search(key) < 0) {
+                stamp = 0L;
+                if (leaf.lock.validate(path.stamp)) {
+                    result = null;
+                }
+            } else {
+                stamp = leaf.lock.tryConvertToWriteLock(path.stamp);
+            }
+            if (stamp != 0L) {
+                try {
+                    final int index = leaf.search(key);
+                    result = leaf.values[index];
+                    leaf.remove(index);
+                    this.size.decrement();
+                } finally {
+                    leaf.lock.unlockWrite(stamp);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Go down to leaf where key is or would be.
+     *
+     * @param key Key
+     * @return Path with leaf or null if tree changed under it
+     */
+    private Path descend(final int key) {
+        final Path path = new Path(this.root);
+        boolean valid = path.fresh(this.root);
+        while (valid && !path.node.leaf) {
+            valid = path.down(key);
+        }
+        if (valid) {
+            return path;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Put key value pair into leaf that isn't full.
+     *
+     * @param path  Path with leaf
+     * @param key   Key
+     * @param value Value
+     * @return Value or RESTART
+     */
+    private Object store(final Path path, final int key, final String value) {
+        final Node leaf = path.node;
+        final long stamp = leaf.lock.tryConvertToWriteLock(path.stamp);
+        Object result = RESTART;
+        if (stamp != 0L) {
+            try {
+                final int index = leaf.search(key);
+                if (index >= 0) {
+                    leaf.values[index] = value;
+                } else {
+                    leaf.insert(-index - 1, key, value);
+                    this.size.increment();
+                }
+                result = value;
+            } finally {
+                leaf.lock.unlockWrite(stamp);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Split full node of path if neither it nor its parent changed.
+     *
+     * @param path Path with full node
+     */
+    private void split(final Path path) {
+        final Node parent = path.parent;
+        long above = 0L;
+        if (parent != null) {
+            above = parent.lock.tryConvertToWriteLock(path.above);
+        }
+        if (parent == null || above != 0L) {
+            final Node full = path.node;
+            final long stamp = full.lock.tryConvertToWriteLock(path.stamp);
+            if (stamp != 0L) {
+                try {
+                    this.split(parent, full);
+                } finally {
+                    full.lock.unlockWrite(stamp);
+                }
+            }
+            if (above != 0L) {
+                parent.lock.unlockWrite(above);
+            }
+        }
+    }
+
+    /**
+     * Split locked full node in two halves.
+     * Root gets a new parent
+     *
+     * @param parent Locked parent that isn't full or null for root
+     * @param full   Locked full node
+     */
+    private void split(final Node parent, final Node full) {
+        final Node right = new Node(this.capacity, full.leaf);
+        final int half = full.size / 2;
+        final int separator = full.keys[half];
+        right.take(full, BplusNodes.upper(full.leaf, half));
+        full.size = half;
+        if (parent == null) {
+            final Node top = new Node(this.capacity, false);
+            top.children[0] = full;
+            top.attach(0, separator, right);
+            this.root = top;
+        } else {
+            parent.attach(parent.route(separator), separator, right);
+        }
+    }
+
+    /**
+     * Node of tree.
+     * Fields are read without lock, so every read must be
+     * validated against version before it's trusted
+     */
+    private static final class Node {
+
+        /**
+         * Version lock.
+         */
+        private final StampedLock lock;
+
+        /**
+         * Sorted keys or separators.
+         */
+        private final int[] keys;
+
+        /**
+         * Values of keys or null for inner node.
+         */
+        private final String[] values;
+
+        /**
+         * Children or null for leaf.
+         */
+        private final Node[] children;
+
+        /**
+         * True if node has no children.
+         */
+        private final boolean leaf;
+
+        /**
+         * Amount of keys.
+         */
+        private int size;
+
+        /**
+         * Ctor.
+         *
+         * @param capacity Max amount of keys
+         * @param leaf     True if node has no children
+         */
+        Node(final int capacity, final boolean leaf) {
+            this.lock = new StampedLock();
+            this.keys = new int[capacity];
+            this.leaf = leaf;
+            if (leaf) {
+                this.values = new String[capacity];
+                this.children = null;
+            } else {
+                this.values = null;
+                this.children = new Node[capacity + 1];
+            }
+        }
+
+        /**
+         * Search key.
+         *
+         * @param key Key
+         * @return Position of key or (-(insertion point) - 1)
+         */
+        int search(final int key) {
+            return Arrays.binarySearch(this.keys, 0, this.size, key);
+        }
+
+        /**
+         * Position of child that may contain key.
+         *
+         * @param key Key
+         * @return Amount of separators that are lower or equal to key
+         */
+        int route(final int key) {
+            return BplusNodes.route(this.search(key));
+        }
+
+        /**
+         * Child that may contain key.
+         *
+         * @param key Key
+         * @return Child
+         */
+        Node child(final int key) {
+            return this.children[this.route(key)];
+        }
+
+        /**
+         * Value of key in leaf.
+         *
+         * @param key Key
+         * @return Value or null
+         */
+        String value(final int key) {
+            final int index = this.search(key);
+            if (index >= 0) {
+                return this.values[index];
+            } else {
+                return null;
+            }
+        }
+
+        /**
+         * Check that node can't take one more key.
+         *
+         * @return True if node has max amount of keys
+         */
+        boolean full() {
+            return this.size == this.keys.length;
+        }
+
+        /**
+         * Insert key into leaf.
+         *
+         * @param index Position
+         * @param key   Key
+         * @param value Value
+         */
+        void insert(final int index, final int key, final String value) {
+            final int tail = this.size - index;
+            System.arraycopy(this.keys, index, this.keys, index + 1, tail);
+            System.arraycopy(this.values, index, this.values, index + 1, tail);
+            this.keys[index] = key;
+            this.values[index] = value;
+            this.size++;
+        }
+
+        /**
+         * Remove key from leaf.
+         *
+         * @param index Position of key
+         */
+        void remove(final int index) {
+            final int tail = this.size - index - 1;
+            System.arraycopy(this.keys, index + 1, this.keys, index, tail);
+            System.arraycopy(this.values, index + 1, this.values, index, tail);
+            this.size--;
+            this.values[this.size] = null;
+        }
+
+        /**
+         * Insert separator and child after it.
+         *
+         * @param index     Position of separator
+         * @param separator Separator
+         * @param child     Child that goes after separator
+         */
+        void attach(final int index, final int separator, final Node child) {
+            final int tail = this.size - index;
+            System.arraycopy(this.keys, index, this.keys, index + 1, tail);
+            System.arraycopy(
+                    this.children,
+                    index + 1,
+                    this.children,
+                    index + 2,
+                    tail
+            );
+            this.keys[index] = separator;
+            this.children[index + 1] = child;
+            this.size++;
+        }
+
+        /**
+         * Move the tail of other node to this empty node.
+         * Leaf keeps keys before position, inner node also
+         * keeps key in position for its parent
+         *
+         * @param other Node to split
+         * @param from  Position of the first key to move
+         */
+        void take(final Node other, final int from) {
+            final int count = other.size - from;
+            System.arraycopy(other.keys, from, this.keys, 0, count);
+            if (this.leaf) {
+                System.arraycopy(other.values, from, this.values, 0, count);
+                Arrays.fill(other.values, from, other.size, null);
+                other.size = from;
+            } else {
+                System.arraycopy(
+                        other.children,
+                        from,
+                        this.children,
+                        0,
+                        count + 1
+                );
+                Arrays.fill(other.children, from, other.size + 1, null);
+            }
+            this.size = count;
+        }
+    }
+
+    /**
+     * Position of writer or reader in tree.
+     * Keeps node with its version and parent with its version
+     */
+    private static final class Path {
+
+        /**
+         * Parent of node or null for root.
+         */
+        private Node parent;
+
+        /**
+         * Version of parent.
+         */
+        private long above;
+
+        /**
+         * Current node.
+         */
+        private Node node;
+
+        /**
+         * Version of current node, zero if it was locked.
+         */
+        private long stamp;
+
+        /**
+         * Ctor.
+         *
+         * @param root Root
+         */
+        Path(final Node root) {
+            this.node = root;
+            this.stamp = root.lock.tryOptimisticRead();
+        }
+
+        /**
+         * Check that node was free and it is still the root.
+         *
+         * @param root Current root
+         * @return True if path can go down
+         */
+        boolean fresh(final Node root) {
+            return this.stamp != 0L && this.node == root;
+        }
+
+        /**
+         * Go to child that may contain key.
+         * Version of child is taken before node is validated
+         *
+         * @param key Key
+         * @return True if nothing changed under path
+         */
+        boolean down(final int key) {
+            final Node child = this.node.child(key);
+            boolean valid = this.node.lock.validate(this.stamp);
+            if (valid) {
+                final long version = child.lock.tryOptimisticRead();
+                valid = version != 0L && this.node.lock.validate(this.stamp);
+                this.parent = this.node;
+                this.above = this.stamp;
+                this.node = child;
+                this.stamp = version;
+            }
+            return valid;
+        }
+    }
+}
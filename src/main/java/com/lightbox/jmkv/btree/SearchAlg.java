@@ -2,6 +2,8 @@ package com.lightbox.jmkv.btree;
 
 /**
  * Search key in Btree node.
+ * Result is encoded in int like in Arrays.binarySearch,
+ * so search doesn't allocate objects
  */
 interface SearchAlg {
 
@@ -12,41 +14,191 @@ interface SearchAlg {
      * @param indexFrom Start position
      * @param indexTo   End position
      * @param key       Key to find
-     * @return BtreeSearch with search result
+     * @return Position of key if found,
+     * otherwise (-(insertion point) - 1)
      */
-    BtreeSearch searchKey(
+    int searchKey(
             BtreeNode node,
             int indexFrom,
             int indexTo,
-            Integer key
+            int key
     );
 
+    /**
+     * Encode result of search by lower bound of key.
+     *
+     * @param node    Node with keys
+     * @param lower   Position of the first key that isn't lower than key
+     * @param indexTo End position
+     * @param key     Key to find
+     * @return Position of key if found,
+     * otherwise (-(insertion point) - 1)
+     */
+    static int result(
+            final BtreeNode node,
+            final int lower,
+            final int indexTo,
+            final int key
+    ) {
+        if (lower < indexTo && node.key(lower).key == key) {
+            return lower;
+        } else {
+            return -(lower + 1);
+        }
+    }
+
     /**
      * Default search using binary search.
      */
     final class DefaultBinarySearch implements SearchAlg {
 
         @Override
-        public BtreeSearch searchKey(
+        public int searchKey(
                 final BtreeNode node,
                 final int indexFrom,
                 final int indexTo,
-                final Integer key
+                final int key
         ) {
             int low = indexFrom;
             int high = indexTo - 1;
             while (low <= high) {
                 final int mid = (low + high) >>> 1;
-                final Integer midVal = node.key(mid).key;
+                final int midVal = node.key(mid).key;
                 if (midVal < key) {
                     low = mid + 1;
                 } else if (midVal > key) {
                     high = mid - 1;
                 } else {
-                    return new BtreeSearch(true, mid);
+                    return mid;
                 }
             }
-            return new BtreeSearch(false, low);
+            return -(low + 1);
+        }
+    }
+
+    /**
+     * Binary search without unpredictable branches.
+     * Range shrinks by half on every step whatever the comparison is,
+     * comparison only picks the base, so JIT can use conditional move
+     * and the amount of steps depends only on size of range
+     */
+    final class BranchlessBinarySearch implements SearchAlg {
+
+        @Override
+        public int searchKey(
+                final BtreeNode node,
+                final int indexFrom,
+                final int indexTo,
+                final int key
+        ) {
+            int base = indexFrom;
+            int length = indexTo - indexFrom;
+            while (length > 1) {
+                final int half = length >>> 1;
+                if (node.key(base + half - 1).key < key) {
+                    base += half;
+                }
+                length -= half;
+            }
+            if (length == 1 && node.key(base).key < key) {
+                base++;
+            }
+            return SearchAlg.result(node, base, indexTo, key);
+        }
+    }
+
+    /**
+     * Linear search unrolled by blocks of keys.
+     * Skips block if its last key is lower than key and then
+     * scans one block, so small node is read sequentially
+     * without mispredicted jumps of binary search
+     */
+    final class LinearSearch implements SearchAlg {
+
+        /**
+         * Amount of keys in block.
+         */
+        private static final int BLOCK = 4;
+
+        @Override
+        public int searchKey(
+                final BtreeNode node,
+                final int indexFrom,
+                final int indexTo,
+                final int key
+        ) {
+            int index = indexFrom;
+            while (index + BLOCK <= indexTo
+                    && node.key(index + BLOCK - 1).key < key) {
+                index += BLOCK;
+            }
+            while (index < indexTo && node.key(index).key < key) {
+                index++;
+            }
+            return SearchAlg.result(node, index, indexTo, key);
+        }
+    }
+
+    /**
+     * Search that picks algorithm by size of range.
+     * Linear search for small ranges, branchless binary search
+     * for the others, the threshold should come from
+     * SearchAlgJmhTest on target hardware
+     */
+    final class AdaptiveSearch implements SearchAlg {
+
+        /**
+         * Default max size of range for linear search.
+         */
+        public static final int THRESHOLD = 16;
+
+        /**
+         * Max size of range for linear search.
+         */
+        private final int threshold;
+
+        /**
+         * Search for small ranges.
+         */
+        private final SearchAlg small;
+
+        /**
+         * Search for big ranges.
+         */
+        private final SearchAlg big;
+
+        /**
+         * Ctor.
+         */
+        public AdaptiveSearch() {
+            this(THRESHOLD);
+        }
+
+        /**
+         * Ctor.
+         *
+         * @param threshold Max size of range for linear search
+         */
+        public AdaptiveSearch(final int threshold) {
+            this.threshold = threshold;
+            this.small = new LinearSearch();
+            this.big = new BranchlessBinarySearch();
+        }
+
+        @Override
+        public int searchKey(
+                final BtreeNode node,
+                final int indexFrom,
+                final int indexTo,
+                final int key
+        ) {
+            final int result;
+            if (indexTo - indexFrom <= this.threshold) {
+                result = this.small.searchKey(node, indexFrom, indexTo, key);
+            } else {
+                result = this.big.searchKey(node, indexFrom, indexTo, key);
+            }
+            return result;
         }
     }
 }
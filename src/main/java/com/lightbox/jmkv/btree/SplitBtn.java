@@ -3,7 +3,8 @@ package com.lightbox.jmkv.btree;
 /**
  * Create new btree node from given parent.
  * Move keys and children from parent to new node
- * using range
+ * using range, each range is copied at once,
+ * amount of keys in subtree is counted again
  */
 final class SplitBtn extends BtreeNode {
 
@@ -22,14 +23,11 @@ final class SplitBtn extends BtreeNode {
             final int toIndex
     ) {
         super(parent.keys(), parent.children());
-        for (int i = fromIndex; i < toIndex; i++) {
-            this.addKey(parent.key(i));
-        }
+        this.addKeys(parent, fromIndex, toIndex);
         if (parent.hasChildren()) {
-            for (int i = fromIndex; i <= toIndex; i++) {
-                this.addChild(parent.child(i));
-            }
+            this.addChildren(parent, fromIndex, toIndex + 1);
         }
+        this.recount();
     }
 
 }
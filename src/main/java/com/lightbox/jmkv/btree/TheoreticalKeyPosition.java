@@ -16,7 +16,7 @@ public final class TheoreticalKeyPosition extends BtreeSearch {
      */
     public TheoreticalKeyPosition(
             final BtreeNode node,
-            final Integer key
+            final int key
     ) {
         super(
                 node,
@@ -46,6 +46,17 @@ public final class TheoreticalKeyPosition extends BtreeSearch {
         );
     }
 
+    /**
+     * Find position before given key without allocation.
+     *
+     * @param node Node
+     * @param key  Key to search
+     * @return Previous position
+     */
+    public static int position(final BtreeNode node, final int key) {
+        return TheoreticalKeyPosition.search(node, 1, node.keys(), key);
+    }
+
     /**
      * Find position before given key.
      *
@@ -55,23 +66,12 @@ public final class TheoreticalKeyPosition extends BtreeSearch {
      * @param key       Key
      * @return Previous position
      */
-    private static BtreeSearch search(
+    private static int search(
             final BtreeNode node,
             final int indexFrom,
             final int indexTo,
-            final Integer key
+            final int key
     ) {
-        int low = indexFrom;
-        int high = indexTo - 1;
-        while (low <= high) {
-            final int mid = (low + high) >>> 1;
-            final Integer midVal = node.key(mid).key;
-            if (midVal < key) {
-                low = mid + 1;
-            } else if (midVal >= key) {
-                return new BtreeSearch(true, mid - 1);
-            }
-        }
-        return new BtreeSearch(true, node.keys() - 1);
+        return BtreeSearch.lower(node, indexFrom, indexTo, key) - 1;
     }
 }
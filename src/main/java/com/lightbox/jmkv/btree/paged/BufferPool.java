@@ -0,0 +1,429 @@
+package com.lightbox.jmkv.btree.paged;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Buffer pool of fixed size pages of one file.
+ * Page is read into free frame when it's pinned and stays there
+ * until it's unpinned and clock hand evicts it:
+ * hand skips pinned frames, clears reference bit of
+ * recently used ones and takes the first frame without it.
+ * Dirty page is written back only on eviction or flush,
+ * so memory is bounded by amount of frames.
+ * Not thread safe
+ */
+public final class BufferPool implements Closeable {
+
+    /**
+     * Frame without page.
+     */
+    private static final int FREE = -1;
+
+    /**
+     * File of pages.
+     */
+    private final Path file;
+
+    /**
+     * Channel of file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Size of page in bytes.
+     */
+    private final int size;
+
+    /**
+     * Content of frames.
+     */
+    private final ByteBuffer[] frames;
+
+    /**
+     * Page in frame or FREE.
+     */
+    private final int[] pages;
+
+    /**
+     * Amount of pins of frame.
+     */
+    private final int[] pins;
+
+    /**
+     * Frames changed since they were read.
+     */
+    private final boolean[] dirty;
+
+    /**
+     * Frames used since clock hand passed them.
+     */
+    private final boolean[] referenced;
+
+    /**
+     * Frame of every page in pool.
+     */
+    private final Map<Integer, Integer> table;
+
+    /**
+     * Position of clock hand.
+     */
+    private int hand;
+
+    /**
+     * Amount of pages in file including not written ones.
+     */
+    private int count;
+
+    /**
+     * Pins that found page in pool.
+     */
+    private long hits;
+
+    /**
+     * Pins that read page from file.
+     */
+    private long misses;
+
+    /**
+     * Pages evicted from pool.
+     */
+    private long evictions;
+
+    /**
+     * Pages written to file.
+     */
+    private long writes;
+
+    /**
+     * Ctor.
+     *
+     * @param file   File of pages, created if absent
+     * @param size   Size of page in bytes
+     * @param frames Amount of pages in memory
+     * @throws IOException if failed
+     */
+    public BufferPool(
+            final Path file,
+            final int size,
+            final int frames
+    ) throws IOException {
+        if (size <= 0 || frames <= 0) {
+            throw new IllegalArgumentException(
+                    String.format(
+                            "Wrong page size %d or amount of frames %d",
+                            size,
+                            frames
+                    )
+            );
+        }
+        this.file = file;
+        this.size = size;
+        this.channel = FileChannel.open(
+                file,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+        );
+        this.count = (int) (this.channel.size() / size);
+        this.frames = new ByteBuffer[frames];
+        for (int i = 0; i < frames; i++) {
+            this.frames[i] = ByteBuffer.allocate(size);
+        }
+        this.pages = new int[frames];
+        Arrays.fill(this.pages, FREE);
+        this.pins = new int[frames];
+        this.dirty = new boolean[frames];
+        this.referenced = new boolean[frames];
+        this.table = new HashMap<>(frames * 2);
+    }
+
+    /**
+     * Pin page, reading it from file if it isn't in pool.
+     * Page stays in pool until every pin is released
+     *
+     * @param page Id of page
+     * @return Content of page
+     * @throws IOException if failed
+     */
+    public ByteBuffer pin(final int page) throws IOException {
+        if (page < 0 || page >= this.count) {
+            throw new IllegalArgumentException(
+                    String.format("Page %d is not in %s", page, this.file)
+            );
+        }
+        Integer frame = this.table.get(page);
+        if (frame == null) {
+            this.misses++;
+            frame = this.victim();
+            this.read(this.frames[frame], page);
+            this.place(frame, page);
+        } else {
+            this.hits++;
+        }
+        this.pins[frame]++;
+        this.referenced[frame] = true;
+        return this.frames[frame];
+    }
+
+    /**
+     * Release pin of page.
+     *
+     * @param page  Id of page
+     * @param dirty True if page was changed
+     */
+    public void unpin(final int page, final boolean dirty) {
+        final Integer frame = this.table.get(page);
+        if (frame == null || this.pins[frame] == 0) {
+            throw new IllegalStateException(
+                    String.format("Page %d is not pinned", page)
+            );
+        }
+        this.pins[frame]--;
+        this.dirty[frame] |= dirty;
+    }
+
+    /**
+     * Add zeroed page to the end of file.
+     * Page is in pool and not pinned
+     *
+     * @return Id of page
+     * @throws IOException if failed
+     */
+    public int allocate() throws IOException {
+        final int frame = this.victim();
+        final ByteBuffer buffer = this.frames[frame];
+        Arrays.fill(buffer.array(), (byte) 0);
+        final int page = this.count;
+        this.count++;
+        this.place(frame, page);
+        this.dirty[frame] = true;
+        return page;
+    }
+
+    /**
+     * Write all dirty pages to file.
+     *
+     * @throws IOException if failed
+     */
+    public void flush() throws IOException {
+        for (int frame = 0; frame < this.frames.length; frame++) {
+            if (this.dirty[frame]) {
+                this.write(frame);
+            }
+        }
+        this.channel.force(false);
+    }
+
+    /**
+     * Drop all pages of pool and file.
+     *
+     * @throws IOException if failed
+     */
+    public void truncate() throws IOException {
+        for (int frame = 0; frame < this.frames.length; frame++) {
+            if (this.pins[frame] > 0) {
+                throw new IllegalStateException(
+                        String.format(
+                                "Page %d is pinned",
+                                this.pages[frame]
+                        )
+                );
+            }
+        }
+        Arrays.fill(this.pages, FREE);
+        Arrays.fill(this.dirty, false);
+        Arrays.fill(this.referenced, false);
+        this.table.clear();
+        this.channel.truncate(0L);
+        this.count = 0;
+    }
+
+    /**
+     * Amount of pages in file including not written ones.
+     *
+     * @return Amount of pages
+     */
+    public int pages() {
+        return this.count;
+    }
+
+    /**
+     * Amount of pages in pool.
+     *
+     * @return Amount of frames with page
+     */
+    public int resident() {
+        return this.table.size();
+    }
+
+    /**
+     * Pins that found page in pool.
+     *
+     * @return Amount of hits
+     */
+    public long hits() {
+        return this.hits;
+    }
+
+    /**
+     * Pins that read page from file.
+     *
+     * @return Amount of misses
+     */
+    public long misses() {
+        return this.misses;
+    }
+
+    /**
+     * Pages evicted from pool.
+     *
+     * @return Amount of evictions
+     */
+    public long evictions() {
+        return this.evictions;
+    }
+
+    /**
+     * Pages written to file.
+     *
+     * @return Amount of writes
+     */
+    public long writes() {
+        return this.writes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "pages=%d/%d hits=%d misses=%d evictions=%d writes=%d",
+                this.resident(),
+                this.frames.length,
+                this.hits,
+                this.misses,
+                this.evictions,
+                this.writes
+        );
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            this.flush();
+        } finally {
+            this.channel.close();
+        }
+    }
+
+    /**
+     * Find frame for new page, evicting page chosen by clock.
+     * Two turns of hand are enough: the first one clears
+     * every reference bit
+     *
+     * @return Free frame
+     * @throws IOException if failed to write evicted page
+     */
+    private int victim() throws IOException {
+        int victim = FREE;
+        for (int step = 0; step < 2 * this.frames.length; step++) {
+            final int frame = this.hand;
+            this.hand = (this.hand + 1) % this.frames.length;
+            if (this.pages[frame] == FREE) {
+                victim = frame;
+            } else if (this.pins[frame] == 0 && this.referenced[frame]) {
+                this.referenced[frame] = false;
+            } else if (this.pins[frame] == 0) {
+                this.evict(frame);
+                victim = frame;
+            }
+            if (victim != FREE) {
+                break;
+            }
+        }
+        if (victim == FREE) {
+            throw new IllegalStateException(
+                    String.format(
+                            "All %d frames are pinned",
+                            this.frames.length
+                    )
+            );
+        }
+        return victim;
+    }
+
+    /**
+     * Remove page from frame, writing it if it's dirty.
+     *
+     * @param frame Frame
+     * @throws IOException if failed
+     */
+    private void evict(final int frame) throws IOException {
+        if (this.dirty[frame]) {
+            this.write(frame);
+        }
+        this.table.remove(this.pages[frame]);
+        this.pages[frame] = FREE;
+        this.evictions++;
+    }
+
+    /**
+     * Put page to frame.
+     *
+     * @param frame Frame
+     * @param page  Id of page
+     */
+    private void place(final int frame, final int page) {
+        this.pages[frame] = page;
+        this.pins[frame] = 0;
+        this.dirty[frame] = false;
+        this.referenced[frame] = false;
+        this.table.put(page, frame);
+    }
+
+    /**
+     * Write page of frame to file.
+     *
+     * @param frame Frame
+     * @throws IOException if failed
+     */
+    private void write(final int frame) throws IOException {
+        final ByteBuffer buffer = this.frames[frame].duplicate();
+        buffer.clear();
+        long offset = (long) this.pages[frame] * this.size;
+        while (buffer.hasRemaining()) {
+            offset += this.channel.write(buffer, offset);
+        }
+        this.dirty[frame] = false;
+        this.writes++;
+    }
+
+    /**
+     * Read page from file.
+     * Part of page that was never written is zeroed
+     *
+     * @param frame Buffer of frame
+     * @param page  Id of page
+     * @throws IOException if failed
+     */
+    private void read(
+            final ByteBuffer frame,
+            final int page
+    ) throws IOException {
+        final ByteBuffer buffer = frame.duplicate();
+        buffer.clear();
+        long offset = (long) page * this.size;
+        int read = 0;
+        while (buffer.hasRemaining() && read >= 0) {
+            read = this.channel.read(buffer, offset);
+            offset += read;
+        }
+        Arrays.fill(frame.array(), buffer.position(), this.size, (byte) 0);
+    }
+}
@@ -0,0 +1,789 @@
+package com.lightbox.jmkv.btree.paged;
+
+import com.lightbox.jmkv.Cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * B+tree for int keys stored in fixed size pages of file.
+ * Nodes are accessed through {@link BufferPool} and operation pins
+ * at most three pages, so tree may be much bigger than memory.
+ * Leaf keeps offsets of values in {@link ValueHeap}, page 0 keeps
+ * root, size and page size of tree. Pages are never merged or reused,
+ * tree is durable only after flush or close. Not thread safe
+ */
+public final class PagedBtree implements Cache, Closeable {
+
+    /**
+     * Default size of page.
+     */
+    public static final int PAGE = 4096;
+
+    /**
+     * Default amount of pages in memory.
+     */
+    public static final int FRAMES = 256;
+
+    /**
+     * Name of file with pages.
+     */
+    static final String PAGES = "btree.pages";
+
+    /**
+     * Name of file with values.
+     */
+    static final String VALUES = "btree.values";
+
+    /**
+     * Id of page with meta data.
+     */
+    private static final int META = 0;
+
+    /**
+     * Marker of tree file.
+     */
+    private static final int MAGIC = 0x42545245;
+
+    /**
+     * Size of node header: type and amount of keys.
+     */
+    private static final int HEADER = 2 * Integer.BYTES;
+
+    /**
+     * Size of leaf entry: key and offset of value.
+     */
+    private static final int LEAF_ENTRY = Integer.BYTES + Long.BYTES;
+
+    /**
+     * Size of inner node entry: separator and child after it.
+     */
+    private static final int INNER_ENTRY = 2 * Integer.BYTES;
+
+    /**
+     * Type of leaf, zeroed page is an empty leaf.
+     */
+    private static final int LEAF = 0;
+
+    /**
+     * Type of inner node.
+     */
+    private static final int INNER = 1;
+
+    /**
+     * Pages.
+     */
+    private final BufferPool pool;
+
+    /**
+     * Values.
+     */
+    private final ValueHeap heap;
+
+    /**
+     * Size of page.
+     */
+    private final int page;
+
+    /**
+     * Max amount of keys in leaf.
+     */
+    private final int leaves;
+
+    /**
+     * Max amount of separators in inner node.
+     */
+    private final int inners;
+
+    /**
+     * Id of root page.
+     */
+    private int root;
+
+    /**
+     * Amount of keys.
+     */
+    private int size;
+
+    /**
+     * Ctor.
+     *
+     * @param directory Directory of tree files
+     * @throws IOException if failed
+     */
+    public PagedBtree(final Path directory) throws IOException {
+        this(directory, PAGE, FRAMES);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param directory Directory of tree files
+     * @param page      Size of page, the same as tree was created with
+     * @param frames    Amount of pages in memory, at least 3
+     * @throws IOException if failed
+     */
+    public PagedBtree(
+            final Path directory,
+            final int page,
+            final int frames
+    ) throws IOException {
+        this.page = page;
+        this.leaves = (page - HEADER) / LEAF_ENTRY;
+        this.inners = (page - HEADER - Integer.BYTES) / INNER_ENTRY;
+        if (frames < 3 || this.leaves < 3) {
+            throw new IllegalArgumentException(
+                    String.format(
+                            "Page size %d or amount of frames %d is too small",
+                            page,
+                            frames
+                    )
+            );
+        }
+        this.pool = new BufferPool(directory.resolve(PAGES), page, frames);
+        this.heap = new ValueHeap(directory.resolve(VALUES));
+        try {
+            if (this.pool.pages() == 0) {
+                this.init();
+            } else {
+                this.load();
+            }
+        } catch (final IOException ex) {
+            this.pool.close();
+            this.heap.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Get value by key.
+     *
+     * @param key Key
+     * @return Value or null
+     */
+    public String get(final int key) {
+        try {
+            final int leaf = this.leaf(key);
+            final Node node = this.pin(leaf);
+            final int index = node.search(key);
+            long offset = -1L;
+            if (index >= 0) {
+                offset = node.value(index);
+            }
+            this.pool.unpin(leaf, false);
+            String value = null;
+            if (offset >= 0L) {
+                value = this.heap.read(offset);
+            }
+            return value;
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Put key value pair, replacing previous value.
+     *
+     * @param key   Key
+     * @param value Value
+     * @return Value
+     */
+    public String put(final int key, final String value) {
+        Objects.requireNonNull(value, "Value can't be null");
+        try {
+            this.insert(key, this.heap.append(value));
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return value;
+    }
+
+    /**
+     * Delete value by key.
+     *
+     * @param key Key
+     * @return Deleted value or null
+     */
+    public String delete(final int key) {
+        try {
+            final int leaf = this.leaf(key);
+            final Node node = this.pin(leaf);
+            final int index = node.search(key);
+            String removed = null;
+            if (index >= 0) {
+                final long offset = node.value(index);
+                node.remove(index);
+                this.size--;
+                this.pool.unpin(leaf, true);
+                removed = this.heap.read(offset);
+            } else {
+                this.pool.unpin(leaf, false);
+            }
+            return removed;
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Check that value with given key is present.
+     *
+     * @param key Key
+     * @return True if value is present
+     */
+    public boolean exists(final int key) {
+        return this.get(key) != null;
+    }
+
+    @Override
+    public boolean clear() {
+        try {
+            this.pool.truncate();
+            this.heap.truncate();
+            this.init();
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return true;
+    }
+
+    @Override
+    public String get(final Integer key) {
+        return this.get(key.intValue());
+    }
+
+    @Override
+    public String put(final Integer key, final String value) {
+        return this.put(key.intValue(), value);
+    }
+
+    @Override
+    public String delete(final Integer key) {
+        return this.delete(key.intValue());
+    }
+
+    @Override
+    public boolean exists(final Integer key) {
+        return this.exists(key.intValue());
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Height of tree.
+     *
+     * @return Amount of levels
+     * @throws IOException if failed
+     */
+    public int height() throws IOException {
+        int height = 1;
+        int id = this.root;
+        Node node = this.pin(id);
+        while (!node.leaf()) {
+            final int child = node.child(0);
+            this.pool.unpin(id, false);
+            id = child;
+            node = this.pin(id);
+            height++;
+        }
+        this.pool.unpin(id, false);
+        return height;
+    }
+
+    /**
+     * Buffer pool of tree pages.
+     *
+     * @return Pool
+     */
+    public BufferPool pool() {
+        return this.pool;
+    }
+
+    /**
+     * Write values, meta data and dirty pages to disk.
+     *
+     * @throws IOException if failed
+     */
+    public void flush() throws IOException {
+        this.heap.sync();
+        this.store();
+        this.pool.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            this.heap.sync();
+            this.store();
+            this.pool.close();
+        } finally {
+            this.heap.close();
+        }
+    }
+
+    /**
+     * Create meta page and empty root.
+     *
+     * @throws IOException if failed
+     */
+    private void init() throws IOException {
+        this.pool.allocate();
+        this.root = this.pool.allocate();
+        this.size = 0;
+        this.store();
+    }
+
+    /**
+     * Read root and size from meta page.
+     *
+     * @throws IOException if failed
+     */
+    private void load() throws IOException {
+        final ByteBuffer meta = this.pool.pin(META);
+        final int magic = meta.getInt(0);
+        final int stored = meta.getInt(Integer.BYTES);
+        this.root = meta.getInt(2 * Integer.BYTES);
+        this.size = meta.getInt(3 * Integer.BYTES);
+        this.pool.unpin(META, false);
+        if (magic != MAGIC || stored != this.page) {
+            throw new IOException(
+                    String.format(
+                            "%s is not a tree with page size %d",
+                            PAGES,
+                            this.page
+                    )
+            );
+        }
+    }
+
+    /**
+     * Write root and size to meta page.
+     *
+     * @throws IOException if failed
+     */
+    private void store() throws IOException {
+        final ByteBuffer meta = this.pool.pin(META);
+        meta.putInt(0, MAGIC);
+        meta.putInt(Integer.BYTES, this.page);
+        meta.putInt(2 * Integer.BYTES, this.root);
+        meta.putInt(3 * Integer.BYTES, this.size);
+        this.pool.unpin(META, true);
+    }
+
+    /**
+     * Id of leaf where key is or would be.
+     *
+     * @param key Key
+     * @return Id of leaf page, not pinned
+     * @throws IOException if failed
+     */
+    private int leaf(final int key) throws IOException {
+        int id = this.root;
+        Node node = this.pin(id);
+        while (!node.leaf()) {
+            final int child = node.child(node.route(key));
+            this.pool.unpin(id, false);
+            id = child;
+            node = this.pin(id);
+        }
+        this.pool.unpin(id, false);
+        return id;
+    }
+
+    /**
+     * Put key with offset of value, splitting full nodes on the way.
+     * Only current node, its child and new page are pinned
+     *
+     * @param key    Key
+     * @param offset Offset of value
+     * @throws IOException if failed
+     */
+    private void insert(final int key, final long offset) throws IOException {
+        int id = this.root;
+        Node node = this.pin(id);
+        boolean dirty = false;
+        if (this.full(node)) {
+            final int top = this.pool.allocate();
+            final Node parent = this.pin(top);
+            parent.init(INNER);
+            parent.first(id);
+            this.split(parent, 0, node);
+            this.pool.unpin(id, true);
+            this.root = top;
+            id = top;
+            node = parent;
+            dirty = true;
+        }
+        while (!node.leaf()) {
+            final int index = node.route(key);
+            int next = node.child(index);
+            Node child = this.pin(next);
+            boolean split = false;
+            if (this.full(child)) {
+                split = true;
+                if (key >= this.split(node, index, child)) {
+                    this.pool.unpin(next, true);
+                    next = node.child(index + 1);
+                    child = this.pin(next);
+                }
+            }
+            this.pool.unpin(id, dirty || split);
+            id = next;
+            node = child;
+            dirty = split;
+        }
+        final int index = node.search(key);
+        if (index >= 0) {
+            node.value(index, offset);
+        } else {
+            node.insert(-index - 1, key, offset);
+            this.size++;
+        }
+        this.pool.unpin(id, true);
+    }
+
+    /**
+     * Split full child in two halves.
+     * Leaf copies its first key of right half to parent,
+     * inner node moves its middle key to parent
+     *
+     * @param parent Pinned parent that isn't full
+     * @param index  Position of child
+     * @param full   Pinned full child
+     * @return Separator
+     * @throws IOException if failed
+     */
+    private int split(
+            final Node parent,
+            final int index,
+            final Node full
+    ) throws IOException {
+        final int id = this.pool.allocate();
+        final Node right = this.pin(id);
+        final int separator;
+        if (full.leaf()) {
+            right.init(LEAF);
+            final int half = full.size() / 2;
+            right.take(full, half);
+            separator = right.key(0);
+            full.size(half);
+        } else {
+            right.init(INNER);
+            final int middle = full.size() / 2;
+            separator = full.key(middle);
+            right.take(full, middle + 1);
+            full.size(middle);
+        }
+        this.pool.unpin(id, true);
+        parent.attach(index, separator, id);
+        return separator;
+    }
+
+    /**
+     * Check that node can't take one more key.
+     *
+     * @param node Node
+     * @return True if node has max amount of keys
+     */
+    private boolean full(final Node node) {
+        final int max;
+        if (node.leaf()) {
+            max = this.leaves;
+        } else {
+            max = this.inners;
+        }
+        return node.size() == max;
+    }
+
+    /**
+     * Pin page of node.
+     *
+     * @param id Id of page
+     * @return Node
+     * @throws IOException if failed
+     */
+    private Node pin(final int id) throws IOException {
+        return new Node(this.pool.pin(id));
+    }
+
+    /**
+     * Node over pinned page.
+     * Header keeps type and amount of keys,
+     * leaf entry i keeps key and offset of value,
+     * inner node keeps child 0 after header and entry i keeps
+     * separator i and child i+1 after it.
+     * Child in position i has keys that are bigger or equal to
+     * separator i-1 and lower than separator i
+     */
+    private static final class Node {
+
+        /**
+         * Content of page.
+         */
+        private final ByteBuffer page;
+
+        /**
+         * Ctor.
+         *
+         * @param page Content of page
+         */
+        Node(final ByteBuffer page) {
+            this.page = page;
+        }
+
+        /**
+         * Make node empty.
+         *
+         * @param type LEAF or INNER
+         */
+        void init(final int type) {
+            this.page.putInt(0, type);
+            this.size(0);
+        }
+
+        /**
+         * Check that node has no children.
+         *
+         * @return True if node is leaf
+         */
+        boolean leaf() {
+            return this.page.getInt(0) == LEAF;
+        }
+
+        /**
+         * Amount of keys.
+         *
+         * @return Amount of keys
+         */
+        int size() {
+            return this.page.getInt(Integer.BYTES);
+        }
+
+        /**
+         * Change amount of keys.
+         *
+         * @param size Amount of keys
+         */
+        void size(final int size) {
+            this.page.putInt(Integer.BYTES, size);
+        }
+
+        /**
+         * Key or separator.
+         *
+         * @param index Position
+         * @return Key
+         */
+        int key(final int index) {
+            return this.page.getInt(this.slot(index));
+        }
+
+        /**
+         * Offset of value in leaf.
+         *
+         * @param index Position of key
+         * @return Offset
+         */
+        long value(final int index) {
+            return this.page.getLong(this.slot(index) + Integer.BYTES);
+        }
+
+        /**
+         * Change offset of value in leaf.
+         *
+         * @param index  Position of key
+         * @param offset Offset
+         */
+        void value(final int index, final long offset) {
+            this.page.putLong(this.slot(index) + Integer.BYTES, offset);
+        }
+
+        /**
+         * Child of inner node.
+         *
+         * @param index Position of child
+         * @return Id of page
+         */
+        int child(final int index) {
+            final int child;
+            if (index == 0) {
+                child = this.page.getInt(HEADER);
+            } else {
+                child = this.page.getInt(this.slot(index - 1) + Integer.BYTES);
+            }
+            return child;
+        }
+
+        /**
+         * Change the first child of inner node.
+         *
+         * @param child Id of page
+         */
+        void first(final int child) {
+            this.page.putInt(HEADER, child);
+        }
+
+        /**
+         * Search key.
+         *
+         * @param key Key
+         * @return Position of key or (-(insertion point) - 1)
+         */
+        int search(final int key) {
+            int low = 0;
+            int high = this.size() - 1;
+            int result = -1;
+            while (low <= high) {
+                final int mid = (low + high) >>> 1;
+                final int current = this.key(mid);
+                if (current < key) {
+                    low = mid + 1;
+                } else if (current > key) {
+                    high = mid - 1;
+                } else {
+                    result = mid;
+                    break;
+                }
+            }
+            if (result < 0) {
+                result = -(low + 1);
+            }
+            return result;
+        }
+
+        /**
+         * Position of child that may contain key.
+         *
+         * @param key Key
+         * @return Amount of separators that are lower or equal to key
+         */
+        int route(final int key) {
+            final int index = this.search(key);
+            if (index >= 0) {
+                return index + 1;
+            } else {
+                return -index - 1;
+            }
+        }
+
+        /**
+         * Insert key into leaf.
+         *
+         * @param index  Position
+         * @param key    Key
+         * @param offset Offset of value
+         */
+        void insert(final int index, final int key, final long offset) {
+            this.shift(index);
+            this.page.putInt(this.slot(index), key);
+            this.value(index, offset);
+            this.size(this.size() + 1);
+        }
+
+        /**
+         * Insert separator and child after it.
+         *
+         * @param index     Position of separator
+         * @param separator Separator
+         * @param child     Id of child page
+         */
+        void attach(final int index, final int separator, final int child) {
+            this.shift(index);
+            this.page.putInt(this.slot(index), separator);
+            this.page.putInt(this.slot(index) + Integer.BYTES, child);
+            this.size(this.size() + 1);
+        }
+
+        /**
+         * Remove key from leaf.
+         *
+         * @param index Position of key
+         */
+        void remove(final int index) {
+            final int size = this.size();
+            System.arraycopy(
+                    this.page.array(),
+                    this.slot(index + 1),
+                    this.page.array(),
+                    this.slot(index),
+                    (size - index - 1) * this.width()
+            );
+            this.size(size - 1);
+        }
+
+        /**
+         * Move the tail of other node to this empty node.
+         * Inner node also takes child before the first moved entry
+         *
+         * @param other Node to split
+         * @param from  Position of the first entry to move
+         */
+        void take(final Node other, final int from) {
+            final int count = other.size() - from;
+            if (!this.leaf()) {
+                this.first(other.child(from));
+            }
+            System.arraycopy(
+                    other.page.array(),
+                    other.slot(from),
+                    this.page.array(),
+                    this.slot(0),
+                    count * this.width()
+            );
+            this.size(count);
+        }
+
+        /**
+         * Make room for entry.
+         *
+         * @param index Position of entry
+         */
+        private void shift(final int index) {
+            System.arraycopy(
+                    this.page.array(),
+                    this.slot(index),
+                    this.page.array(),
+                    this.slot(index + 1),
+                    (this.size() - index) * this.width()
+            );
+        }
+
+        /**
+         * Offset of entry in page.
+         *
+         * @param index Position of entry
+         * @return Offset
+         */
+        private int slot(final int index) {
+            final int slot;
+            if (this.leaf()) {
+                slot = HEADER + index * LEAF_ENTRY;
+            } else {
+                slot = HEADER + Integer.BYTES + index * INNER_ENTRY;
+            }
+            return slot;
+        }
+
+        /**
+         * Size of entry.
+         *
+         * @return Size in bytes
+         */
+        private int width() {
+            final int width;
+            if (this.leaf()) {
+                width = LEAF_ENTRY;
+            } else {
+                width = INNER_ENTRY;
+            }
+            return width;
+        }
+    }
+}
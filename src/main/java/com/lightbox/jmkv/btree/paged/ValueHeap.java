@@ -0,0 +1,135 @@
+package com.lightbox.jmkv.btree.paged;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Append only file of values.
+ * Value is written as its length and UTF-8 bytes,
+ * B-tree pages keep offsets of values so entries have fixed size.
+ * Replaced and deleted values stay in file
+ */
+final class ValueHeap implements Closeable {
+
+    /**
+     * Size of value length.
+     */
+    private static final int LENGTH = Integer.BYTES;
+
+    /**
+     * Path of file.
+     */
+    private final Path file;
+
+    /**
+     * Channel of file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Offset of the next value.
+     */
+    private long end;
+
+    /**
+     * Ctor.
+     *
+     * @param file File, created if absent
+     * @throws IOException if failed
+     */
+    ValueHeap(final Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(
+                file,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+        );
+        this.end = this.channel.size();
+    }
+
+    /**
+     * Append value.
+     *
+     * @param value Value
+     * @return Offset of value
+     * @throws IOException if failed
+     */
+    long append(final String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        final ByteBuffer buffer = ByteBuffer.allocate(LENGTH + bytes.length);
+        buffer.putInt(bytes.length).put(bytes).flip();
+        final long offset = this.end;
+        while (buffer.hasRemaining()) {
+            this.end += this.channel.write(buffer, this.end);
+        }
+        return offset;
+    }
+
+    /**
+     * Read value.
+     *
+     * @param offset Offset of value
+     * @return Value
+     * @throws IOException if failed
+     */
+    String read(final long offset) throws IOException {
+        final ByteBuffer length = ByteBuffer.allocate(LENGTH);
+        this.read(length, offset);
+        final ByteBuffer bytes = ByteBuffer.allocate(length.getInt(0));
+        this.read(bytes, offset + LENGTH);
+        return new String(bytes.array(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Drop all values.
+     *
+     * @throws IOException if failed
+     */
+    void truncate() throws IOException {
+        this.channel.truncate(0L);
+        this.end = 0L;
+    }
+
+    /**
+     * Force values to disk.
+     *
+     * @throws IOException if failed
+     */
+    void sync() throws IOException {
+        this.channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * Fill buffer from given file position.
+     *
+     * @param buffer   Buffer to fill
+     * @param position File position
+     * @throws IOException if failed
+     */
+    private void read(
+            final ByteBuffer buffer,
+            final long position
+    ) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            final int read = this.channel.read(buffer, offset);
+            if (read < 0) {
+                throw new IOException(
+                        String.format("Unexpected end of %s", this.file)
+                );
+            }
+            offset += read;
+        }
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Package with B-tree stored in file pages.
+ */
+package com.lightbox.jmkv.btree.paged;
@@ -0,0 +1,142 @@
+package com.lightbox.jmkv.leveldb;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Decoding of LevelDB primitives.
+ * Varints keep 7 bits per byte, the highest bit means
+ * that more bytes follow, fixed size numbers are little endian
+ */
+final class Coding {
+
+    /**
+     * Bits of value in varint byte.
+     */
+    private static final int BITS = 7;
+
+    /**
+     * Flag of varint byte that has continuation.
+     */
+    private static final int MORE = 0x80;
+
+    /**
+     * Ctor.
+     */
+    private Coding() {
+    }
+
+    /**
+     * Read varint of up to 32 bits.
+     *
+     * @param buffer Buffer
+     * @return Value
+     * @throws IOException if varint is malformed
+     */
+    static int varint32(final ByteBuffer buffer) throws IOException {
+        final long value = Coding.varint64(buffer);
+        if (value >>> Integer.SIZE != 0L) {
+            throw new IOException(
+                    String.format("Varint %d doesn't fit 32 bits", value)
+            );
+        }
+        return (int) value;
+    }
+
+    /**
+     * Read varint of up to 64 bits.
+     *
+     * @param buffer Buffer
+     * @return Value
+     * @throws IOException if varint is malformed
+     */
+    static long varint64(final ByteBuffer buffer) throws IOException {
+        long value = 0L;
+        for (int shift = 0; shift < Long.SIZE; shift += BITS) {
+            if (!buffer.hasRemaining()) {
+                throw new IOException("Truncated varint");
+            }
+            final int current = buffer.get() & 0xff;
+            value |= (long) (current & ~MORE) << shift;
+            if ((current & MORE) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Varint is longer than 64 bits");
+    }
+
+    /**
+     * Read bytes prefixed by varint length.
+     *
+     * @param buffer Buffer
+     * @return Bytes
+     * @throws IOException if length is malformed
+     */
+    static byte[] prefixed(final ByteBuffer buffer) throws IOException {
+        final int length = Coding.varint32(buffer);
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IOException(
+                    String.format("Slice of %d bytes is truncated", length)
+            );
+        }
+        final byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Read little endian int at absolute position.
+     *
+     * @param bytes    Bytes
+     * @param position Position
+     * @return Value
+     */
+    static int fixed32(final byte[] bytes, final int position) {
+        int value = 0;
+        for (int i = Integer.BYTES - 1; i >= 0; i--) {
+            value = (value << Byte.SIZE) | (bytes[position + i] & 0xff);
+        }
+        return value;
+    }
+
+    /**
+     * Read little endian long at absolute position.
+     *
+     * @param bytes    Bytes
+     * @param position Position
+     * @return Value
+     */
+    static long fixed64(final byte[] bytes, final int position) {
+        long value = 0L;
+        for (int i = Long.BYTES - 1; i >= 0; i--) {
+            value = (value << Byte.SIZE) | (bytes[position + i] & 0xffL);
+        }
+        return value;
+    }
+
+    /**
+     * Compare prefixes of arrays as unsigned bytes.
+     *
+     * @param left  Left bytes
+     * @param llen  Length of left prefix
+     * @param right Right bytes
+     * @param rlen  Length of right prefix
+     * @return Comparison result
+     */
+    static int compare(
+            final byte[] left,
+            final int llen,
+            final byte[] right,
+            final int rlen
+    ) {
+        final int common = Math.min(llen, rlen);
+        int result = 0;
+        for (int i = 0; result == 0 && i < common; i++) {
+            result = (left[i] & 0xff) - (right[i] & 0xff);
+        }
+        if (result == 0) {
+            result = llen - rlen;
+        }
+        return result;
+    }
+}
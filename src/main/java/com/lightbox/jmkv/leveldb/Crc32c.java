@@ -0,0 +1,78 @@
+package com.lightbox.jmkv.leveldb;
+
+/**
+ * Crc32c (Castagnoli) checksum used by LevelDB.
+ * Stored checksums are masked, so crc of data
+ * that contains crc doesn't degenerate
+ */
+final class Crc32c {
+
+    /**
+     * Reversed Castagnoli polynomial.
+     */
+    private static final int POLY = 0x82f63b78;
+
+    /**
+     * Delta added by mask.
+     */
+    private static final int MASK_DELTA = 0xa282ead8;
+
+    /**
+     * Crc of every byte value.
+     */
+    private static final int[] TABLE = Crc32c.table();
+
+    /**
+     * Ctor.
+     */
+    private Crc32c() {
+    }
+
+    /**
+     * Checksum of bytes.
+     *
+     * @param bytes  Bytes
+     * @param offset Offset
+     * @param length Amount of bytes
+     * @return Crc32c
+     */
+    static int value(final byte[] bytes, final int offset, final int length) {
+        int crc = ~0;
+        for (int i = offset; i < offset + length; i++) {
+            crc = (crc >>> 8) ^ TABLE[(crc ^ bytes[i]) & 0xff];
+        }
+        return ~crc;
+    }
+
+    /**
+     * Restore checksum that was stored masked.
+     *
+     * @param masked Masked checksum
+     * @return Checksum
+     */
+    static int unmask(final int masked) {
+        final int rot = masked - MASK_DELTA;
+        return (rot >>> 17) | (rot << 15);
+    }
+
+    /**
+     * Build table of byte checksums.
+     *
+     * @return Table
+     */
+    private static int[] table() {
+        final int[] table = new int[256];
+        for (int i = 0; i < table.length; i++) {
+            int crc = i;
+            for (int bit = 0; bit < Byte.SIZE; bit++) {
+                if ((crc & 1) == 0) {
+                    crc >>>= 1;
+                } else {
+                    crc = (crc >>> 1) ^ POLY;
+                }
+            }
+            table[i] = crc;
+        }
+        return table;
+    }
+}
@@ -0,0 +1,159 @@
+package com.lightbox.jmkv.leveldb;
+
+import java.util.Comparator;
+
+/**
+ * Entry of LevelDB table or log.
+ * Internal key is user key followed by 8 byte little endian trailer
+ * sequence(56 bits) | type(8 bits).
+ * Internal keys are ordered by user key and then by trailer descending,
+ * so the newest entry of user key goes first
+ */
+final class Entry {
+
+    /**
+     * Size of trailer.
+     */
+    static final int TRAILER = 8;
+
+    /**
+     * Type of deletion.
+     */
+    static final byte DELETION = 0;
+
+    /**
+     * Type of value.
+     */
+    static final byte VALUE = 1;
+
+    /**
+     * The largest sequence.
+     */
+    static final long MAX_SEQUENCE = (1L << 56) - 1L;
+
+    /**
+     * Order of internal keys.
+     */
+    static final Comparator<byte[]> ORDER = (left, right) -> {
+        int result = Coding.compare(
+                left,
+                left.length - TRAILER,
+                right,
+                right.length - TRAILER
+        );
+        if (result == 0) {
+            result = Long.compareUnsigned(
+                    Coding.fixed64(right, right.length - TRAILER),
+                    Coding.fixed64(left, left.length - TRAILER)
+            );
+        }
+        return result;
+    };
+
+    /**
+     * Internal key.
+     */
+    private final byte[] key;
+
+    /**
+     * Value, empty for deletion.
+     */
+    private final byte[] value;
+
+    /**
+     * Ctor.
+     *
+     * @param key   Internal key
+     * @param value Value
+     */
+    Entry(final byte[] key, final byte[] value) {
+        this.key = key;
+        this.value = value;
+    }
+
+    /**
+     * Internal key.
+     *
+     * @return Key
+     */
+    byte[] key() {
+        return this.key;
+    }
+
+    /**
+     * Value.
+     *
+     * @return Value
+     */
+    byte[] value() {
+        return this.value;
+    }
+
+    /**
+     * User key.
+     *
+     * @return Copy of user key
+     */
+    byte[] user() {
+        final byte[] user = new byte[this.key.length - TRAILER];
+        System.arraycopy(this.key, 0, user, 0, user.length);
+        return user;
+    }
+
+    /**
+     * Check that entry is deletion marker.
+     *
+     * @return True if deleted
+     */
+    boolean deleted() {
+        return this.key[this.key.length - TRAILER] == DELETION;
+    }
+
+    /**
+     * Compare user key of entry with given one.
+     *
+     * @param user User key
+     * @return Comparison result
+     */
+    int compareUser(final byte[] user) {
+        return Coding.compare(
+                this.key,
+                this.key.length - TRAILER,
+                user,
+                user.length
+        );
+    }
+
+    /**
+     * Build internal key.
+     *
+     * @param user     User key
+     * @param sequence Sequence
+     * @param type     Type
+     * @return Internal key
+     */
+    static byte[] internal(
+            final byte[] user,
+            final long sequence,
+            final byte type
+    ) {
+        final byte[] key = new byte[user.length + TRAILER];
+        System.arraycopy(user, 0, key, 0, user.length);
+        long trailer = sequence << Byte.SIZE | type & 0xff;
+        for (int i = user.length; i < key.length; i++) {
+            key[i] = (byte) trailer;
+            trailer >>>= Byte.SIZE;
+        }
+        return key;
+    }
+
+    /**
+     * Internal key that goes before every entry of user key.
+     *
+     * @param user User key
+     * @return Internal key
+     */
+    static byte[] seek(final byte[] user) {
+        return Entry.internal(user, MAX_SEQUENCE, VALUE);
+    }
+}
@@ -0,0 +1,74 @@
+package com.lightbox.jmkv.leveldb;
+
+/**
+ * Table file listed in manifest.
+ */
+final class FileMeta {
+
+    /**
+     * Number of table file.
+     */
+    private final long number;
+
+    /**
+     * The smallest internal key.
+     */
+    private final byte[] smallest;
+
+    /**
+     * The largest internal key.
+     */
+    private final byte[] largest;
+
+    /**
+     * Ctor.
+     *
+     * @param number   Number of table file
+     * @param smallest The smallest internal key
+     * @param largest  The largest internal key
+     */
+    FileMeta(final long number, final byte[] smallest, final byte[] largest) {
+        this.number = number;
+        this.smallest = smallest;
+        this.largest = largest;
+    }
+
+    /**
+     * Number of table file.
+     *
+     * @return Number
+     */
+    long number() {
+        return this.number;
+    }
+
+    /**
+     * The smallest internal key.
+     *
+     * @return Key
+     */
+    byte[] smallest() {
+        return this.smallest;
+    }
+
+    /**
+     * Check that user key is inside key range of table.
+     *
+     * @param user User key
+     * @return True if table may contain key
+     */
+    boolean covers(final byte[] user) {
+        return new Entry(this.smallest, null).compareUser(user) <= 0
+                && new Entry(this.largest, null).compareUser(user) >= 0;
+    }
+
+    /**
+     * Check that table may contain keys not less than user key.
+     *
+     * @param user User key
+     * @return True if the largest key is not less than user key
+     */
+    boolean reaches(final byte[] user) {
+        return new Entry(this.largest, null).compareUser(user) >= 0;
+    }
+}
@@ -0,0 +1,94 @@
+package com.lightbox.jmkv.leveldb;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Mapping between integer keys of {@link com.lightbox.jmkv.Cache}
+ * and byte keys of LevelDB store.
+ */
+public interface KeyCodec {
+
+    /**
+     * Encode key.
+     *
+     * @param key Integer key
+     * @return LevelDB key
+     */
+    byte[] encode(int key);
+
+    /**
+     * Decode key.
+     *
+     * @param key LevelDB key
+     * @return Integer key
+     * @throws IllegalArgumentException if key is not produced by this codec
+     */
+    int decode(byte[] key);
+
+    /**
+     * Check that byte order of encoded keys matches numeric order.
+     * Only such codec can map range of integers to range of keys
+     *
+     * @return True if order is preserved
+     */
+    boolean ordered();
+
+    /**
+     * Decimal string, the way most tools write numeric keys.
+     * Byte order of decimal keys doesn't match numeric order
+     */
+    final class Decimal implements KeyCodec {
+
+        @Override
+        public byte[] encode(final int key) {
+            return Integer.toString(key).getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public int decode(final byte[] key) {
+            return Integer.parseInt(new String(key, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public boolean ordered() {
+            return false;
+        }
+    }
+
+    /**
+     * Big endian int with flipped sign bit.
+     * Byte order of keys matches numeric order, so ranges of
+     * integers are ranges of LevelDB keys
+     */
+    final class BigEndian implements KeyCodec {
+
+        @Override
+        public byte[] encode(final int key) {
+            final int flipped = key ^ Integer.MIN_VALUE;
+            final byte[] bytes = new byte[Integer.BYTES];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = (byte) (flipped >>> (Byte.SIZE * (3 - i)));
+            }
+            return bytes;
+        }
+
+        @Override
+        public int decode(final byte[] key) {
+            if (key.length != Integer.BYTES) {
+                throw new IllegalArgumentException(
+                        String.format("Key of %d bytes is not int", key.length)
+                );
+            }
+            int value = 0;
+            for (final byte part : key) {
+                value = (value << Byte.SIZE) | (part & 0xff);
+            }
+            return value ^ Integer.MIN_VALUE;
+        }
+
+        @Override
+        public boolean ordered() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,406 @@
+package com.lightbox.jmkv.leveldb;
+
+import com.lightbox.jmkv.queue.StaticHeap;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+
+/**
+ * Read only LevelDB store.
+ * Opening replays manifest to find tables of every level
+ * and replays logs that are not flushed yet into memory.
+ * Lookups check logged writes, then level 0 tables from newest
+ * to oldest, then one table per deeper level.
+ * Only uncompressed tables with bytewise comparator are supported
+ */
+public final class LevelDb implements Closeable {
+
+    /**
+     * Extension of log files.
+     */
+    private static final String LOG = ".log";
+
+    /**
+     * Size of write batch header, sequence(8) and count(4).
+     */
+    private static final int BATCH_HEADER = 12;
+
+    /**
+     * Tables by level.
+     */
+    private final List<List<Level>> levels;
+
+    /**
+     * Entries of logs by internal key.
+     */
+    private final NavigableMap<byte[], Entry> logged =
+            new TreeMap<>(Entry.ORDER);
+
+    /**
+     * Ctor.
+     *
+     * @param directory Directory of LevelDB store
+     * @throws IOException if failed or store is not supported
+     */
+    public LevelDb(final Path directory) throws IOException {
+        final Manifest manifest = new Manifest(directory);
+        this.levels = new ArrayList<>(Manifest.LEVELS);
+        try {
+            for (int i = 0; i < Manifest.LEVELS; i++) {
+                final List<Level> level = new ArrayList<>(0);
+                this.levels.add(level);
+                for (final FileMeta meta : manifest.level(i)) {
+                    level.add(
+                            new Level(meta, LevelDb.table(directory, meta))
+                    );
+                }
+            }
+            this.replay(directory, manifest);
+        } catch (final IOException ex) {
+            this.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Search value by key.
+     *
+     * @param key User key
+     * @return Value or null if store doesn't contain key
+     * @throws IOException if failed
+     */
+    public byte[] get(final byte[] key) throws IOException {
+        Entry entry = null;
+        final Map.Entry<byte[], Entry> log =
+                this.logged.ceilingEntry(Entry.seek(key));
+        if (log != null && log.getValue().compareUser(key) == 0) {
+            entry = log.getValue();
+        }
+        for (int i = 0; entry == null && i < this.levels.size(); i++) {
+            for (final Level table : this.levels.get(i)) {
+                if (table.meta.covers(key)) {
+                    entry = table.table.get(key);
+                    if (entry != null || i > 0) {
+                        break;
+                    }
+                }
+            }
+        }
+        final byte[] value;
+        if (entry == null || entry.deleted()) {
+            value = null;
+        } else {
+            value = entry.value();
+        }
+        return value;
+    }
+
+    /**
+     * Iterate over live keys in bytewise order.
+     *
+     * @param from The first key or null to start from the smallest key
+     * @param to   Key after the last one or null to iterate till the end
+     * @return Iterator of keys and values
+     */
+    public Iterator<Map.Entry<byte[], byte[]>> scan(
+            final byte[] from,
+            final byte[] to
+    ) {
+        final byte[] target;
+        if (from == null) {
+            target = null;
+        } else {
+            target = Entry.seek(from);
+        }
+        final List<Iterator<Entry>> sources = new ArrayList<>(0);
+        if (target == null) {
+            sources.add(this.logged.values().iterator());
+        } else {
+            sources.add(this.logged.tailMap(target, true).values().iterator());
+        }
+        for (final List<Level> level : this.levels) {
+            for (final Level table : level) {
+                if (from == null || table.meta.reaches(from)) {
+                    sources.add(table.table.seek(target));
+                }
+            }
+        }
+        return new Scan(sources, to);
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (final List<Level> level : this.levels) {
+            for (final Level table : level) {
+                table.table.close();
+            }
+        }
+    }
+
+    /**
+     * Replay logs that are not flushed to tables.
+     *
+     * @param directory Directory of store
+     * @param manifest  Manifest
+     * @throws IOException if failed
+     */
+    private void replay(
+            final Path directory,
+            final Manifest manifest
+    ) throws IOException {
+        final List<Path> logs = new ArrayList<>(0);
+        try (DirectoryStream<Path> files =
+                     Files.newDirectoryStream(directory, "*" + LOG)) {
+            for (final Path file : files) {
+                if (manifest.live(LevelDb.number(file))) {
+                    logs.add(file);
+                }
+            }
+        }
+        logs.sort(Comparator.comparingLong(LevelDb::number));
+        for (final Path file : logs) {
+            for (final byte[] batch : LogReader.read(file)) {
+                this.apply(batch);
+            }
+        }
+    }
+
+    /**
+     * Apply write batch.
+     * Layout:
+     * sequence(8) | count(4) | (type(1) | key | value if type is value)*
+     *
+     * @param batch Encoded batch
+     * @throws IOException if batch is malformed
+     */
+    private void apply(final byte[] batch) throws IOException {
+        if (batch.length < BATCH_HEADER) {
+            throw new IOException("Write batch is too small");
+        }
+        long sequence = Coding.fixed64(batch, 0);
+        final ByteBuffer records = ByteBuffer.wrap(batch);
+        records.position(BATCH_HEADER);
+        while (records.hasRemaining()) {
+            final byte type = records.get();
+            final byte[] user = Coding.prefixed(records);
+            final byte[] value;
+            if (type == Entry.VALUE) {
+                value = Coding.prefixed(records);
+            } else if (type == Entry.DELETION) {
+                value = new byte[0];
+            } else {
+                throw new IOException(
+                        String.format("Unknown write batch type %d", type)
+                );
+            }
+            final byte[] key = Entry.internal(user, sequence, type);
+            this.logged.put(key, new Entry(key, value));
+            sequence++;
+        }
+    }
+
+    /**
+     * Open table file, older stores use .sst extension.
+     *
+     * @param directory Directory of store
+     * @param meta      Table
+     * @return Table
+     * @throws IOException if failed
+     */
+    private static Table table(
+            final Path directory,
+            final FileMeta meta
+    ) throws IOException {
+        Path file = directory.resolve(
+                String.format("%06d.ldb", meta.number())
+        );
+        if (!Files.exists(file)) {
+            file = directory.resolve(
+                    String.format("%06d.sst", meta.number())
+            );
+        }
+        return new Table(file);
+    }
+
+    /**
+     * Number of file by name.
+     *
+     * @param file File
+     * @return Number
+     */
+    private static long number(final Path file) {
+        final String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.indexOf('.')));
+    }
+
+    /**
+     * Opened table with its manifest entry.
+     */
+    private static final class Level {
+
+        /**
+         * Manifest entry.
+         */
+        private final FileMeta meta;
+
+        /**
+         * Table.
+         */
+        private final Table table;
+
+        /**
+         * Ctor.
+         *
+         * @param meta  Manifest entry
+         * @param table Table
+         */
+        Level(final FileMeta meta, final Table table) {
+            this.meta = meta;
+            this.table = table;
+        }
+    }
+
+    /**
+     * Merge of sources that returns the newest live entry of every key.
+     */
+    private static final class Scan
+            implements Iterator<Map.Entry<byte[], byte[]>> {
+
+        /**
+         * Sources ordered by current internal key.
+         */
+        private final StaticHeap<Source> heap;
+
+        /**
+         * Key after the last one or null.
+         */
+        private final byte[] to;
+
+        /**
+         * Next pair to return.
+         */
+        private Map.Entry<byte[], byte[]> next;
+
+        /**
+         * Ctor.
+         *
+         * @param sources Sources positioned at the first key
+         * @param to      Key after the last one or null
+         */
+        Scan(final List<Iterator<Entry>> sources, final byte[] to) {
+            this.heap = new StaticHeap<>(
+                    Math.max(1, sources.size()),
+                    (left, right) -> Entry.ORDER.compare(
+                            left.current.key(),
+                            right.current.key()
+                    )
+            );
+            this.to = to;
+            for (final Iterator<Entry> source : sources) {
+                if (source.hasNext()) {
+                    this.heap.add(new Source(source));
+                }
+            }
+            this.advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.next != null;
+        }
+
+        @Override
+        public Map.Entry<byte[], byte[]> next() {
+            if (this.next == null) {
+                throw new NoSuchElementException("Scan is over");
+            }
+            final Map.Entry<byte[], byte[]> pair = this.next;
+            this.advance();
+            return pair;
+        }
+
+        /**
+         * Find next live entry.
+         */
+        private void advance() {
+            this.next = null;
+            while (this.next == null && !this.heap.empty()) {
+                final Entry newest = this.pop();
+                final byte[] user = newest.user();
+                if (this.to != null && newest.compareUser(this.to) >= 0) {
+                    while (!this.heap.empty()) {
+                        this.heap.poll();
+                    }
+                } else {
+                    while (!this.heap.empty()
+                            && this.heap.peek().current.compareUser(user)
+                            == 0) {
+                        this.pop();
+                    }
+                    if (!newest.deleted()) {
+                        this.next = new AbstractMap.SimpleImmutableEntry<>(
+                                user,
+                                newest.value()
+                        );
+                    }
+                }
+            }
+        }
+
+        /**
+         * Take current entry of the top source and move that source.
+         *
+         * @return Entry
+         */
+        private Entry pop() {
+            final Source top = this.heap.peek();
+            final Entry entry = top.current;
+            if (top.iterator.hasNext()) {
+                top.current = top.iterator.next();
+                this.heap.replaceTop(top);
+            } else {
+                this.heap.poll();
+            }
+            return entry;
+        }
+    }
+
+    /**
+     * Iterator with its current entry.
+     */
+    private static final class Source {
+
+        /**
+         * Iterator.
+         */
+        private final Iterator<Entry> iterator;
+
+        /**
+         * Current entry.
+         */
+        private Entry current;
+
+        /**
+         * Ctor.
+         *
+         * @param iterator Not empty iterator
+         */
+        Source(final Iterator<Entry> iterator) {
+            this.iterator = iterator;
+            this.current = iterator.next();
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.lightbox.jmkv.leveldb;
+
+import com.lightbox.jmkv.Cache;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Read-only cache over existing LevelDB directory.
+ * Keys are mapped to LevelDB keys by codec and values
+ * are decoded as UTF-8 strings
+ */
+public final class LevelDbCache implements Cache, Closeable {
+
+    /**
+     * Store.
+     */
+    private final LevelDb store;
+
+    /**
+     * Mapping of keys.
+     */
+    private final KeyCodec codec;
+
+    /**
+     * Ctor.
+     * Keys are decimal strings, so the cache has no ranges
+     *
+     * @param directory LevelDB directory
+     * @throws IOException if failed or store is not supported
+     */
+    public LevelDbCache(final Path directory) throws IOException {
+        this(new LevelDb(directory), new KeyCodec.Decimal());
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param store Store
+     * @param codec Mapping of keys
+     */
+    public LevelDbCache(final LevelDb store, final KeyCodec codec) {
+        this.store = store;
+        this.codec = codec;
+    }
+
+    @Override
+    public boolean clear() {
+        throw LevelDbCache.readOnly();
+    }
+
+    @Override
+    public String get(final Integer key) {
+        final byte[] value;
+        try {
+            value = this.store.get(this.codec.encode(key));
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        String result = null;
+        if (value != null) {
+            result = new String(value, StandardCharsets.UTF_8);
+        }
+        return result;
+    }
+
+    @Override
+    public String put(final Integer key, final String value) {
+        throw LevelDbCache.readOnly();
+    }
+
+    @Override
+    public String delete(final Integer key) {
+        throw LevelDbCache.readOnly();
+    }
+
+    @Override
+    public boolean exists(final Integer key) {
+        return this.get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        int size = 0;
+        final Iterator<Map.Entry<byte[], byte[]>> entries =
+                this.store.scan(null, null);
+        while (entries.hasNext()) {
+            entries.next();
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * Iterate over keys in range in numeric order.
+     * Range of integers is a range of encoded keys only if codec
+     * preserves order, like {@link KeyCodec.BigEndian}
+     *
+     * @param from The first key
+     * @param to   Key after the last one
+     * @return Iterator of keys and values
+     * @throws UnsupportedOperationException if codec doesn't keep order
+     */
+    public Iterator<Map.Entry<Integer, String>> range(
+            final int from,
+            final int to
+    ) {
+        if (!this.codec.ordered()) {
+            throw new UnsupportedOperationException(
+                    String.format(
+                            "%s doesn't keep order of keys",
+                            this.codec.getClass().getSimpleName()
+                    )
+            );
+        }
+        final Iterator<Map.Entry<byte[], byte[]>> entries =
+                this.store.scan(this.codec.encode(from), this.codec.encode(to));
+        return new Iterator<Map.Entry<Integer, String>>() {
+            @Override
+            public boolean hasNext() {
+                return entries.hasNext();
+            }
+
+            @Override
+            public Map.Entry<Integer, String> next() {
+                final Map.Entry<byte[], byte[]> entry = entries.next();
+                return new AbstractMap.SimpleImmutableEntry<>(
+                        LevelDbCache.this.codec.decode(entry.getKey()),
+                        new String(entry.getValue(), StandardCharsets.UTF_8)
+                );
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.store.close();
+    }
+
+    /**
+     * Error of modification.
+     *
+     * @return Exception
+     */
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException(
+                "LevelDB store is read-only"
+        );
+    }
+}
@@ -0,0 +1,97 @@
+package com.lightbox.jmkv.leveldb;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reader of LevelDB log format used by manifest and write ahead log.
+ * File is a sequence of 32KB blocks, every block holds fragments
+ * crc(4) | length(2) | type(1) | data
+ * Record is either one full fragment or first, middles and last.
+ * Reading stops at the first torn or zero filled fragment,
+ * which is how an unfinished or preallocated log ends
+ */
+final class LogReader {
+
+    /**
+     * Size of log block.
+     */
+    private static final int BLOCK = 32768;
+
+    /**
+     * Size of fragment header.
+     */
+    private static final int HEADER = 7;
+
+    /**
+     * Fragment with whole record.
+     */
+    private static final int FULL = 1;
+
+    /**
+     * The first fragment of record.
+     */
+    private static final int FIRST = 2;
+
+    /**
+     * Middle fragment of record.
+     */
+    private static final int MIDDLE = 3;
+
+    /**
+     * The last fragment of record.
+     */
+    private static final int LAST = 4;
+
+    /**
+     * Ctor.
+     */
+    private LogReader() {
+    }
+
+    /**
+     * Read all complete records.
+     *
+     * @param file Log file
+     * @return Records in log order
+     * @throws IOException if failed
+     */
+    static List<byte[]> read(final Path file) throws IOException {
+        final byte[] log = Files.readAllBytes(file);
+        final List<byte[]> records = new ArrayList<>(0);
+        final ByteArrayOutputStream record = new ByteArrayOutputStream();
+        int position = 0;
+        boolean valid = true;
+        while (valid && position + HEADER <= log.length) {
+            final int left = BLOCK - position % BLOCK;
+            if (left < HEADER) {
+                position += left;
+            } else {
+                final int length = (log[position + 4] & 0xff)
+                        | (log[position + 5] & 0xff) << Byte.SIZE;
+                final int type = log[position + 6];
+                valid = type >= FULL && type <= LAST
+                        && length <= left - HEADER
+                        && position + HEADER + length <= log.length
+                        && Crc32c.unmask(Coding.fixed32(log, position))
+                        == Crc32c.value(log, position + 6, length + 1);
+                if (valid) {
+                    if (type == FULL || type == FIRST) {
+                        record.reset();
+                    }
+                    record.write(log, position + HEADER, length);
+                    if (type == FULL || type == LAST) {
+                        records.add(record.toByteArray());
+                        record.reset();
+                    }
+                    position += HEADER + length;
+                }
+            }
+        }
+        return records;
+    }
+}
@@ -0,0 +1,222 @@
+package com.lightbox.jmkv.leveldb;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * State of LevelDB store replayed from manifest named by CURRENT file.
+ * Manifest is a log of version edits, edit is a sequence of
+ * varint tags followed by their fields
+ */
+final class Manifest {
+
+    /**
+     * Amount of levels.
+     */
+    static final int LEVELS = 7;
+
+    /**
+     * The only supported comparator.
+     */
+    private static final String COMPARATOR = "leveldb.BytewiseComparator";
+
+    /**
+     * Tag of comparator name.
+     */
+    private static final int TAG_COMPARATOR = 1;
+
+    /**
+     * Tag of log number.
+     */
+    private static final int TAG_LOG = 2;
+
+    /**
+     * Tag of the next file number.
+     */
+    private static final int TAG_NEXT_FILE = 3;
+
+    /**
+     * Tag of the last sequence.
+     */
+    private static final int TAG_SEQUENCE = 4;
+
+    /**
+     * Tag of compaction pointer.
+     */
+    private static final int TAG_POINTER = 5;
+
+    /**
+     * Tag of deleted file.
+     */
+    private static final int TAG_DELETED = 6;
+
+    /**
+     * Tag of new file.
+     */
+    private static final int TAG_NEW = 7;
+
+    /**
+     * Tag of previous log number.
+     */
+    private static final int TAG_PREVIOUS_LOG = 9;
+
+    /**
+     * Tables by level and number.
+     */
+    private final List<Map<Long, FileMeta>> files = new ArrayList<>(LEVELS);
+
+    /**
+     * The oldest log that is not flushed to tables.
+     */
+    private long log;
+
+    /**
+     * Log that was being flushed when manifest was written.
+     */
+    private long previous;
+
+    /**
+     * Ctor.
+     * Replay manifest of store
+     *
+     * @param directory Directory of store
+     * @throws IOException if failed or manifest is malformed
+     */
+    Manifest(final Path directory) throws IOException {
+        for (int i = 0; i < LEVELS; i++) {
+            this.files.add(new HashMap<>());
+        }
+        final Path current = directory.resolve("CURRENT");
+        if (!Files.exists(current)) {
+            throw new NoSuchFileException(
+                    current.toString(),
+                    null,
+                    "Not a LevelDB store"
+            );
+        }
+        final String name = new String(
+                Files.readAllBytes(current),
+                StandardCharsets.UTF_8
+        ).trim();
+        for (final byte[] edit : LogReader.read(directory.resolve(name))) {
+            this.apply(ByteBuffer.wrap(edit));
+        }
+    }
+
+    /**
+     * Tables of level.
+     * Level 0 tables go from the newest to the oldest,
+     * tables of other levels are ordered by keys
+     *
+     * @param level Level
+     * @return Tables
+     */
+    List<FileMeta> level(final int level) {
+        final List<FileMeta> tables = new ArrayList<>(
+                this.files.get(level).values()
+        );
+        if (level == 0) {
+            tables.sort(
+                    Comparator.comparingLong(FileMeta::number).reversed()
+            );
+        } else {
+            tables.sort(
+                    (left, right) -> Entry.ORDER.compare(
+                            left.smallest(),
+                            right.smallest()
+                    )
+            );
+        }
+        return tables;
+    }
+
+    /**
+     * Check that log is not flushed to tables yet.
+     *
+     * @param number Number of log
+     * @return True if log has to be replayed
+     */
+    boolean live(final long number) {
+        return number >= this.log || number == this.previous;
+    }
+
+    /**
+     * Apply one edit.
+     *
+     * @param edit Encoded edit
+     * @throws IOException if edit is malformed
+     */
+    private void apply(final ByteBuffer edit) throws IOException {
+        while (edit.hasRemaining()) {
+            final int tag = Coding.varint32(edit);
+            if (tag == TAG_COMPARATOR) {
+                final String comparator = new String(
+                        Coding.prefixed(edit),
+                        StandardCharsets.UTF_8
+                );
+                if (!COMPARATOR.equals(comparator)) {
+                    throw new IOException(
+                            String.format(
+                                    "Comparator %s is not supported",
+                                    comparator
+                            )
+                    );
+                }
+            } else if (tag == TAG_LOG) {
+                this.log = Coding.varint64(edit);
+            } else if (tag == TAG_PREVIOUS_LOG) {
+                this.previous = Coding.varint64(edit);
+            } else if (tag == TAG_NEXT_FILE || tag == TAG_SEQUENCE) {
+                Coding.varint64(edit);
+            } else if (tag == TAG_POINTER) {
+                Coding.varint32(edit);
+                Coding.prefixed(edit);
+            } else if (tag == TAG_DELETED) {
+                final int level = Manifest.level(edit);
+                this.files.get(level).remove(Coding.varint64(edit));
+            } else if (tag == TAG_NEW) {
+                final int level = Manifest.level(edit);
+                final long number = Coding.varint64(edit);
+                Coding.varint64(edit);
+                this.files.get(level).put(
+                        number,
+                        new FileMeta(
+                                number,
+                                Coding.prefixed(edit),
+                                Coding.prefixed(edit)
+                        )
+                );
+            } else {
+                throw new IOException(
+                        String.format("Unknown tag %d in manifest", tag)
+                );
+            }
+        }
+    }
+
+    /**
+     * Read level of file.
+     *
+     * @param edit Edit
+     * @return Level
+     * @throws IOException if level is out of range
+     */
+    private static int level(final ByteBuffer edit) throws IOException {
+        final int level = Coding.varint32(edit);
+        if (level < 0 || level >= LEVELS) {
+            throw new IOException(
+                    String.format("Level %d is out of range", level)
+            );
+        }
+        return level;
+    }
+}
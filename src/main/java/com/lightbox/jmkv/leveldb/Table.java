@@ -0,0 +1,242 @@
+package com.lightbox.jmkv.leveldb;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * LevelDB table file.
+ * Layout:
+ * data block* | meta block* | metaindex block | index block | footer
+ * footer: metaindex handle | index handle | padding to 40 bytes | magic(8)
+ * Every block is followed by compression type(1) and masked crc32c(4).
+ * Index entry maps a key that is not less than the last key
+ * of data block to varint offset and size of that block
+ */
+final class Table implements Closeable {
+
+    /**
+     * Size of footer.
+     */
+    private static final int FOOTER = 48;
+
+    /**
+     * Magic number that ends every table.
+     */
+    private static final long MAGIC = 0xdb4775248b80fb57L;
+
+    /**
+     * Size of block trailer.
+     */
+    private static final int TRAILER = 5;
+
+    /**
+     * Type of uncompressed block.
+     */
+    private static final byte PLAIN = 0;
+
+    /**
+     * Path of table file.
+     */
+    private final Path file;
+
+    /**
+     * Table file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Index block.
+     */
+    private final TableBlock index;
+
+    /**
+     * Ctor.
+     *
+     * @param file Path of table
+     * @throws IOException if failed
+     */
+    Table(final Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            final long size = this.channel.size();
+            if (size < FOOTER) {
+                throw new IOException(
+                        String.format("Table %s is too small", file)
+                );
+            }
+            final byte[] footer = this.read(size - FOOTER, FOOTER);
+            if (Coding.fixed64(footer, FOOTER - Long.BYTES) != MAGIC) {
+                throw new IOException(
+                        String.format("%s is not a LevelDB table", file)
+                );
+            }
+            final ByteBuffer handles = ByteBuffer.wrap(footer);
+            Coding.varint64(handles);
+            Coding.varint64(handles);
+            this.index = new TableBlock(this.block(handles));
+        } catch (final IOException ex) {
+            this.channel.close();
+            throw ex;
+        }
+    }
+
+    /**
+     * Search the newest entry of user key.
+     *
+     * @param user User key
+     * @return Entry or null if table doesn't contain key
+     * @throws IOException if failed
+     */
+    Entry get(final byte[] user) throws IOException {
+        try {
+            final Iterator<Entry> entries = this.seek(Entry.seek(user));
+            Entry entry = null;
+            if (entries.hasNext()) {
+                entry = entries.next();
+                if (entry.compareUser(user) != 0) {
+                    entry = null;
+                }
+            }
+            return entry;
+        } catch (final UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Iterate from the first entry that is not less than target.
+     * Data blocks are read lazily
+     *
+     * @param target Internal key or null to iterate from the beginning
+     * @return Iterator
+     */
+    Iterator<Entry> seek(final byte[] target) {
+        final Iterator<Entry> blocks = this.index.seek(target);
+        return new Iterator<Entry>() {
+            private Iterator<Entry> current = Collections.emptyIterator();
+
+            private boolean first = true;
+
+            @Override
+            public boolean hasNext() {
+                while (!this.current.hasNext() && blocks.hasNext()) {
+                    final byte[] handle = blocks.next().value();
+                    final byte[] from;
+                    if (this.first) {
+                        from = target;
+                    } else {
+                        from = null;
+                    }
+                    this.first = false;
+                    this.current = Table.this.data(handle).seek(from);
+                }
+                return this.current.hasNext();
+            }
+
+            @Override
+            public Entry next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException("Table is over");
+                }
+                return this.current.next();
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * Read data block.
+     *
+     * @param handle Encoded handle from index
+     * @return Block
+     */
+    private TableBlock data(final byte[] handle) {
+        try {
+            return new TableBlock(this.block(ByteBuffer.wrap(handle)));
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Read block by handle and verify its trailer.
+     *
+     * @param handle Buffer positioned at varint offset and size
+     * @return Block content
+     * @throws IOException if failed, corrupted or compressed
+     */
+    private byte[] block(final ByteBuffer handle) throws IOException {
+        final long offset = Coding.varint64(handle);
+        final long size = Coding.varint64(handle);
+        if (size < 0L || size > Integer.MAX_VALUE - TRAILER) {
+            throw new IOException(
+                    String.format("Block size %d in %s", size, this.file)
+            );
+        }
+        final byte[] block = this.read(offset, (int) size + TRAILER);
+        final int length = (int) size;
+        if (Crc32c.unmask(Coding.fixed32(block, length + 1))
+                != Crc32c.value(block, 0, length + 1)) {
+            throw new IOException(
+                    String.format(
+                            "Corrupted block at %d in %s",
+                            offset,
+                            this.file
+                    )
+            );
+        }
+        if (block[length] != PLAIN) {
+            throw new IOException(
+                    String.format(
+                            "Block at %d in %s is compressed with type %d,"
+                                    + " only uncompressed blocks are supported",
+                            offset,
+                            this.file,
+                            block[length]
+                    )
+            );
+        }
+        final byte[] content = new byte[length];
+        System.arraycopy(block, 0, content, 0, length);
+        return content;
+    }
+
+    /**
+     * Read bytes from given file position.
+     *
+     * @param position File position
+     * @param length   Amount of bytes
+     * @return Bytes
+     * @throws IOException if failed
+     */
+    private byte[] read(
+            final long position,
+            final int length
+    ) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            final int read = this.channel.read(buffer, offset);
+            if (read < 0) {
+                throw new IOException(
+                        String.format("Unexpected end of %s", this.file)
+                );
+            }
+            offset += read;
+        }
+        return buffer.array();
+    }
+}
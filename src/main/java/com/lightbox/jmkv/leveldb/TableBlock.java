@@ -0,0 +1,189 @@
+package com.lightbox.jmkv.leveldb;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Block of LevelDB table.
+ * Layout:
+ * entry* | restart offset(4)* | amount of restarts(4)
+ * entry: shared(varint) | not shared(varint) | value length(varint)
+ * | key suffix | value
+ * Key shares prefix with the previous key, restart entries
+ * keep the whole key and allow binary search
+ */
+final class TableBlock {
+
+    /**
+     * Block content without trailer.
+     */
+    private final byte[] content;
+
+    /**
+     * Position of restart offsets, the end of entries.
+     */
+    private final int restarts;
+
+    /**
+     * Amount of restarts.
+     */
+    private final int count;
+
+    /**
+     * Ctor.
+     *
+     * @param content Block content without trailer
+     * @throws IOException if block is malformed
+     */
+    TableBlock(final byte[] content) throws IOException {
+        if (content.length < Integer.BYTES) {
+            throw new IOException("Block is too small");
+        }
+        this.content = content;
+        this.count = Coding.fixed32(content, content.length - Integer.BYTES);
+        this.restarts = content.length - Integer.BYTES * (this.count + 1);
+        if (this.count < 0 || this.restarts < 0) {
+            throw new IOException(
+                    String.format("Wrong amount of restarts %d", this.count)
+            );
+        }
+    }
+
+    /**
+     * Iterate from the first entry that is not less than target.
+     *
+     * @param target Internal key or null to iterate from the beginning
+     * @return Iterator
+     */
+    Iterator<Entry> seek(final byte[] target) {
+        int low = 0;
+        if (target != null) {
+            int high = this.count - 1;
+            while (low < high) {
+                final int mid = (low + high + 1) >>> 1;
+                final byte[] key = new Cursor(this.restart(mid)).next().key();
+                if (Entry.ORDER.compare(key, target) < 0) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+        }
+        final Cursor cursor;
+        if (this.count == 0) {
+            cursor = new Cursor(this.restarts);
+        } else {
+            cursor = new Cursor(this.restart(low));
+        }
+        cursor.skip(target);
+        return cursor;
+    }
+
+    /**
+     * Offset of restart entry.
+     *
+     * @param index Index of restart
+     * @return Offset
+     */
+    private int restart(final int index) {
+        return Coding.fixed32(this.content, this.restarts + index * 4);
+    }
+
+    /**
+     * Sequential decoder of entries.
+     */
+    private final class Cursor implements Iterator<Entry> {
+
+        /**
+         * Position of the next entry.
+         */
+        private int position;
+
+        /**
+         * Key of the previous entry.
+         */
+        private byte[] key = new byte[0];
+
+        /**
+         * Entry that will be returned next or null.
+         */
+        private Entry next;
+
+        /**
+         * Ctor.
+         *
+         * @param position Offset of restart entry
+         */
+        Cursor(final int position) {
+            this.position = position;
+            this.next = this.decode();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.next != null;
+        }
+
+        @Override
+        public Entry next() {
+            if (this.next == null) {
+                throw new NoSuchElementException("Block is over");
+            }
+            final Entry entry = this.next;
+            this.next = this.decode();
+            return entry;
+        }
+
+        /**
+         * Skip entries less than target.
+         *
+         * @param target Internal key or null
+         */
+        void skip(final byte[] target) {
+            while (target != null && this.next != null
+                    && Entry.ORDER.compare(this.next.key(), target) < 0) {
+                this.next = this.decode();
+            }
+        }
+
+        /**
+         * Decode entry at current position.
+         *
+         * @return Entry or null if entries are over
+         */
+        private Entry decode() {
+            Entry entry = null;
+            if (this.position < TableBlock.this.restarts) {
+                final ByteBuffer buffer = ByteBuffer.wrap(
+                        TableBlock.this.content,
+                        this.position,
+                        TableBlock.this.restarts - this.position
+                );
+                try {
+                    final int shared = Coding.varint32(buffer);
+                    final int own = Coding.varint32(buffer);
+                    final int length = Coding.varint32(buffer);
+                    if (shared > this.key.length
+                            || own + length > buffer.remaining()) {
+                        throw new IOException("Block entry is malformed");
+                    }
+                    final byte[] current =
+                            Arrays.copyOf(this.key, shared + own);
+                    buffer.get(current, shared, own);
+                    final byte[] value = new byte[length];
+                    buffer.get(value);
+                    this.key = current;
+                    this.position = buffer.position();
+                    entry = new Entry(current, value);
+                } catch (final IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            }
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Package with read only access to LevelDB stores.
+ */
+package com.lightbox.jmkv.leveldb;
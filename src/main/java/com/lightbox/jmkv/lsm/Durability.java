@@ -0,0 +1,27 @@
+package com.lightbox.jmkv.lsm;
+
+/**
+ * When appended records reach the storage device.
+ */
+public enum Durability {
+
+    /**
+     * Every commit waits for write and sync of its batch.
+     * Concurrent writers share one sync
+     */
+    SYNC,
+
+    /**
+     * Commit waits for write of its batch to OS page cache,
+     * log is synced in background with fixed interval.
+     * Power loss drops at most one interval of writes
+     */
+    PERIODIC,
+
+    /**
+     * Commit waits for write of its batch to OS page cache,
+     * log is synced only by explicit sync and close.
+     * Survives crash of process, but not power loss
+     */
+    BUFFERED
+}
@@ -0,0 +1,252 @@
+package com.lightbox.jmkv.lsm;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Write ahead log stored in a single file.
+ * Layout of one entry:
+ * crc(4) | payload length(4) | key(4) | type(1) | value utf-8
+ * Crc covers payload, so a torn write at the end of file
+ * is detected during replay
+ * Appends are written to the OS page cache, call sync()
+ * to survive power loss.
+ * Appends may run concurrently
+ */
+public final class FileWal implements WriteAheadLog {
+
+    /**
+     * Size of crc and length.
+     */
+    static final int HEADER = 8;
+
+    /**
+     * Size of key and type.
+     */
+    static final int PAYLOAD_HEADER = 5;
+
+    /**
+     * Type of entry with value.
+     */
+    static final byte VALUE = 1;
+
+    /**
+     * Type of tombstone entry.
+     */
+    static final byte TOMBSTONE = 0;
+
+    /**
+     * Log file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Lock that keeps entries of concurrent appends whole.
+     */
+    private final Object lock = new Object();
+
+    /**
+     * Ctor.
+     *
+     * @param file Path to log file, created if absent
+     * @throws IOException if failed
+     */
+    public FileWal(final Path file) throws IOException {
+        this.channel = FileChannel.open(
+                file,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+        );
+        this.channel.position(this.channel.size());
+    }
+
+    @Override
+    public void append(final Record record) throws IOException {
+        final ByteBuffer buffer = FileWal.encode(record);
+        synchronized (this.lock) {
+            while (buffer.hasRemaining()) {
+                this.channel.write(buffer);
+            }
+        }
+    }
+
+    @Override
+    public void commit() {
+        // appends are already in OS page cache
+    }
+
+    @Override
+    public void sync() throws IOException {
+        this.channel.force(false);
+    }
+
+    @Override
+    public void replay(final Consumer<Record> consumer) throws IOException {
+        final long size = this.channel.size();
+        final ByteBuffer header = ByteBuffer.allocate(HEADER);
+        long position = 0L;
+        while (position + HEADER <= size) {
+            header.clear();
+            this.read(header, position);
+            header.flip();
+            final int crc = header.getInt();
+            final int length = header.getInt();
+            if (length < PAYLOAD_HEADER
+                    || position + HEADER + length > size) {
+                break;
+            }
+            final ByteBuffer payload = ByteBuffer.allocate(length);
+            this.read(payload, position + HEADER);
+            if (FileWal.crc(payload.array(), length) != crc) {
+                break;
+            }
+            consumer.accept(FileWal.decode(payload));
+            position += HEADER + length;
+        }
+        this.channel.truncate(position);
+        this.channel.position(position);
+    }
+
+    @Override
+    public void truncate() throws IOException {
+        this.channel.truncate(0L);
+        this.channel.position(0L);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.channel.isOpen()) {
+            this.channel.force(false);
+            this.channel.close();
+        }
+    }
+
+    /**
+     * Append encoded entries with one gathering write.
+     *
+     * @param buffers Entries produced by encode
+     * @throws IOException if failed
+     */
+    void write(final ByteBuffer... buffers) throws IOException {
+        long remaining = 0L;
+        for (final ByteBuffer buffer : buffers) {
+            remaining += buffer.remaining();
+        }
+        while (remaining > 0L) {
+            remaining -= this.channel.write(buffers);
+        }
+    }
+
+    /**
+     * Encode record to log entry with header.
+     *
+     * @param record Record
+     * @return Buffer ready for write
+     */
+    static ByteBuffer encode(final Record record) {
+        final byte[] value;
+        if (record.tombstone()) {
+            value = new byte[0];
+        } else {
+            value = record.value().getBytes(StandardCharsets.UTF_8);
+        }
+        final int length = PAYLOAD_HEADER + value.length;
+        final ByteBuffer buffer = ByteBuffer.allocate(HEADER + length);
+        buffer.position(HEADER);
+        buffer.putInt(record.key());
+        if (record.tombstone()) {
+            buffer.put(TOMBSTONE);
+        } else {
+            buffer.put(VALUE);
+        }
+        buffer.put(value);
+        buffer.putInt(0, FileWal.crc(buffer.array(), HEADER, length));
+        buffer.putInt(Integer.BYTES, length);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Decode payload of log entry.
+     *
+     * @param payload Payload without header
+     * @return Record
+     */
+    static Record decode(final ByteBuffer payload) {
+        payload.rewind();
+        final int key = payload.getInt();
+        final byte type = payload.get();
+        final Record record;
+        if (type == TOMBSTONE) {
+            record = new Record(key);
+        } else {
+            record = new Record(
+                    key,
+                    new String(
+                            payload.array(),
+                            PAYLOAD_HEADER,
+                            payload.remaining(),
+                            StandardCharsets.UTF_8
+                    )
+            );
+        }
+        return record;
+    }
+
+    /**
+     * Checksum of bytes.
+     *
+     * @param bytes  Bytes
+     * @param length Amount of bytes from the beginning
+     * @return Crc32 as int
+     */
+    private static int crc(final byte[] bytes, final int length) {
+        return FileWal.crc(bytes, 0, length);
+    }
+
+    /**
+     * Checksum of bytes.
+     *
+     * @param bytes  Bytes
+     * @param offset Offset
+     * @param length Amount of bytes
+     * @return Crc32 as int
+     */
+    private static int crc(
+            final byte[] bytes,
+            final int offset,
+            final int length
+    ) {
+        final CRC32 crc = new CRC32();
+        crc.update(bytes, offset, length);
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Fill buffer from given file position.
+     *
+     * @param buffer   Buffer to fill
+     * @param position File position
+     * @throws IOException if failed
+     */
+    private void read(
+            final ByteBuffer buffer,
+            final long position
+    ) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            final int read = this.channel.read(buffer, offset);
+            if (read < 0) {
+                throw new IOException("Unexpected end of log");
+            }
+            offset += read;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.lightbox.jmkv.lsm;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Memory bound of tree.
+ * Memtable that reaches size limit is frozen and flushed in background.
+ * When flushes fall behind and frozen memtables pile up,
+ * writers are delayed longer and longer starting from soft limit
+ * and wait for flush at hard limit,
+ * so memory used by memtables never exceeds limit * (hard + 1)
+ */
+public final class FlushPolicy {
+
+    /**
+     * Default amount of frozen memtables that slows writers down.
+     */
+    public static final int SOFT = 2;
+
+    /**
+     * Default amount of frozen memtables that stops writers.
+     */
+    public static final int HARD = 4;
+
+    /**
+     * Default delay of write at soft limit in nanoseconds.
+     */
+    public static final long DELAY = TimeUnit.MILLISECONDS.toNanos(1L);
+
+    /**
+     * Memtable size that triggers flush.
+     */
+    private final long limit;
+
+    /**
+     * Amount of frozen memtables that slows writers down.
+     */
+    private final int soft;
+
+    /**
+     * Amount of frozen memtables that stops writers.
+     */
+    private final int hard;
+
+    /**
+     * Delay of write at soft limit in nanoseconds.
+     */
+    private final long delay;
+
+    /**
+     * Ctor.
+     *
+     * @param limit Memtable size in bytes that triggers flush
+     */
+    public FlushPolicy(final long limit) {
+        this(limit, SOFT, HARD, DELAY);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param limit Memtable size in bytes that triggers flush
+     * @param soft  Amount of frozen memtables that slows writers down
+     * @param hard  Amount of frozen memtables that stops writers
+     * @param delay Delay of write at soft limit in nanoseconds,
+     *              every next frozen memtable adds one more delay
+     */
+    public FlushPolicy(
+            final long limit,
+            final int soft,
+            final int hard,
+            final long delay
+    ) {
+        if (limit <= 0L || soft <= 0 || hard < soft || delay < 0L) {
+            throw new IllegalArgumentException(
+                    String.format(
+                            "Wrong limit %d, soft %d, hard %d or delay %d",
+                            limit,
+                            soft,
+                            hard,
+                            delay
+                    )
+            );
+        }
+        this.limit = limit;
+        this.soft = soft;
+        this.hard = hard;
+        this.delay = delay;
+    }
+
+    /**
+     * Memtable size that triggers flush.
+     *
+     * @return Size in bytes
+     */
+    public long limit() {
+        return this.limit;
+    }
+
+    /**
+     * Delay of write.
+     *
+     * @param frozen Amount of frozen memtables
+     * @return Delay in nanoseconds, zero below soft limit
+     */
+    public long delay(final int frozen) {
+        long delay = 0L;
+        if (frozen >= this.soft && frozen < this.hard) {
+            delay = this.delay * (frozen - this.soft + 1);
+        }
+        return delay;
+    }
+
+    /**
+     * Check that writers have to wait for flush.
+     *
+     * @param frozen Amount of frozen memtables
+     * @return True at hard limit
+     */
+    public boolean stalls(final int frozen) {
+        return frozen >= this.hard;
+    }
+}
@@ -0,0 +1,369 @@
+package com.lightbox.jmkv.lsm;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Write ahead log with group commit.
+ * Append only encodes record and queues it in memory.
+ * The first thread that commits becomes a leader, it writes
+ * every queued record with one gathering write and syncs
+ * them once, threads that committed meanwhile wait for it
+ * and are released together.
+ * Records queued while leader writes form the next batch,
+ * so the amount of syncs grows slower than the amount of writers
+ */
+public final class GroupCommitWal implements WriteAheadLog {
+
+    /**
+     * Default interval of background sync in milliseconds.
+     */
+    public static final long INTERVAL = 10L;
+
+    /**
+     * Log file.
+     */
+    private final FileWal file;
+
+    /**
+     * Durability of commit.
+     */
+    private final Durability durability;
+
+    /**
+     * Thread that syncs log in periodic mode or null.
+     */
+    private final ScheduledExecutorService timer;
+
+    /**
+     * Lock that guards queue, counters and leadership.
+     */
+    private final Object lock = new Object();
+
+    /**
+     * Encoded records that are not written yet.
+     */
+    private List<ByteBuffer> queue = new ArrayList<>(0);
+
+    /**
+     * Amount of appended records.
+     */
+    private long appended;
+
+    /**
+     * Amount of records written to OS page cache.
+     */
+    private long written;
+
+    /**
+     * Amount of records synced to the storage device.
+     */
+    private long synced;
+
+    /**
+     * Amount of batches written by leaders.
+     */
+    private long batches;
+
+    /**
+     * Amount of syncs.
+     */
+    private long syncs;
+
+    /**
+     * True while some thread writes a batch.
+     */
+    private boolean leading;
+
+    /**
+     * Failure of write, log is unusable after it.
+     */
+    private IOException failure;
+
+    /**
+     * Ctor.
+     *
+     * @param file       Path to log file, created if absent
+     * @param durability Durability of commit
+     * @throws IOException if failed
+     */
+    public GroupCommitWal(
+            final Path file,
+            final Durability durability
+    ) throws IOException {
+        this(new FileWal(file), durability, INTERVAL);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param file       Log file
+     * @param durability Durability of commit
+     * @param interval   Interval of background sync in milliseconds,
+     *                   used only by periodic durability
+     */
+    public GroupCommitWal(
+            final FileWal file,
+            final Durability durability,
+            final long interval
+    ) {
+        this.file = file;
+        this.durability = durability;
+        if (durability == Durability.PERIODIC) {
+            this.timer = Executors.newSingleThreadScheduledExecutor(
+                    runnable -> {
+                        final Thread thread = new Thread(runnable, "wal-sync");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+            );
+            this.timer.scheduleWithFixedDelay(
+                    this::background,
+                    interval,
+                    interval,
+                    TimeUnit.MILLISECONDS
+            );
+        } else {
+            this.timer = null;
+        }
+    }
+
+    @Override
+    public void append(final Record record) throws IOException {
+        final ByteBuffer buffer = FileWal.encode(record);
+        synchronized (this.lock) {
+            this.check();
+            this.queue.add(buffer);
+            this.appended++;
+        }
+    }
+
+    @Override
+    public void commit() throws IOException {
+        final long target;
+        synchronized (this.lock) {
+            target = this.appended;
+        }
+        this.drain(target, this.durability == Durability.SYNC);
+    }
+
+    @Override
+    public void sync() throws IOException {
+        final long target;
+        synchronized (this.lock) {
+            target = this.appended;
+        }
+        this.drain(target, true);
+    }
+
+    @Override
+    public void replay(final Consumer<Record> consumer) throws IOException {
+        synchronized (this.lock) {
+            this.file.replay(consumer);
+        }
+    }
+
+    @Override
+    public void truncate() throws IOException {
+        synchronized (this.lock) {
+            this.await();
+            this.queue.clear();
+            this.written = this.appended;
+            this.synced = this.appended;
+            this.file.truncate();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (this.timer != null) {
+            this.timer.shutdown();
+            try {
+                this.timer.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException(ex.getMessage());
+            }
+        }
+        try {
+            this.sync();
+        } finally {
+            this.file.close();
+        }
+    }
+
+    /**
+     * Amount of batches written by leaders.
+     *
+     * @return Batches
+     */
+    public long batches() {
+        synchronized (this.lock) {
+            return this.batches;
+        }
+    }
+
+    /**
+     * Amount of syncs of log file.
+     *
+     * @return Syncs
+     */
+    public long syncs() {
+        synchronized (this.lock) {
+            return this.syncs;
+        }
+    }
+
+    @Override
+    public String toString() {
+        synchronized (this.lock) {
+            return String.format(
+                    "durability=%s appended=%d batches=%d syncs=%d",
+                    this.durability,
+                    this.appended,
+                    this.batches,
+                    this.syncs
+            );
+        }
+    }
+
+    /**
+     * Wait until records reach the log, write them as a leader
+     * if nobody writes now.
+     *
+     * @param target Amount of records that have to be written
+     * @param force  True if they have to be synced too
+     * @throws IOException if failed
+     */
+    private void drain(
+            final long target,
+            final boolean force
+    ) throws IOException {
+        List<ByteBuffer> batch = null;
+        long end = 0L;
+        synchronized (this.lock) {
+            if (!this.reached(target, force)) {
+                this.await();
+            }
+            this.check();
+            if (!this.reached(target, force)) {
+                this.leading = true;
+                batch = this.queue;
+                this.queue = new ArrayList<>(0);
+                end = this.appended;
+            }
+        }
+        if (batch != null) {
+            this.lead(batch, end, force);
+        }
+    }
+
+    /**
+     * Write batch outside of lock and release waiting threads.
+     *
+     * @param batch Encoded records
+     * @param end   Amount of records appended till the end of batch
+     * @param force True if batch has to be synced
+     * @throws IOException if failed
+     */
+    private void lead(
+            final List<ByteBuffer> batch,
+            final long end,
+            final boolean force
+    ) throws IOException {
+        IOException error = null;
+        try {
+            this.file.write(batch.toArray(new ByteBuffer[0]));
+            if (force) {
+                this.file.sync();
+            }
+        } catch (final IOException ex) {
+            error = ex;
+        }
+        synchronized (this.lock) {
+            this.leading = false;
+            if (error == null) {
+                this.written = end;
+                this.batches++;
+                if (force) {
+                    this.synced = end;
+                    this.syncs++;
+                }
+            } else {
+                this.failure = error;
+            }
+            this.lock.notifyAll();
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Check that records are durable enough.
+     * Must be called under lock
+     *
+     * @param target Amount of records
+     * @param force  True if records have to be synced
+     * @return True if records reached the log
+     */
+    private boolean reached(final long target, final boolean force) {
+        final long done;
+        if (force) {
+            done = this.synced;
+        } else {
+            done = this.written;
+        }
+        return done >= target;
+    }
+
+    /**
+     * Wait while leader writes.
+     * Must be called under lock
+     *
+     * @throws IOException if interrupted
+     */
+    private void await() throws IOException {
+        while (this.leading) {
+            try {
+                this.lock.wait();
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException(ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Rethrow failure of previous write.
+     * Must be called under lock
+     *
+     * @throws IOException if log failed
+     */
+    private void check() throws IOException {
+        if (this.failure != null) {
+            throw new IOException("Write ahead log failed", this.failure);
+        }
+    }
+
+    /**
+     * Sync log in periodic mode.
+     * Failure is kept and thrown by the next append or commit,
+     * background sync stops after it
+     */
+    private void background() {
+        try {
+            this.sync();
+        } catch (final IOException ex) {
+            this.timer.shutdown();
+        }
+    }
+}
@@ -0,0 +1,1106 @@
+package com.lightbox.jmkv.lsm;
+
+import com.lightbox.jmkv.Cache;
+import com.lightbox.jmkv.lsm.compaction.CompactionStats;
+import com.lightbox.jmkv.lsm.compaction.LeveledCompaction;
+import com.lightbox.jmkv.lsm.compaction.MergingIterator;
+import com.lightbox.jmkv.lsm.sstable.BlockCache;
+import com.lightbox.jmkv.lsm.sstable.SsTable;
+import com.lightbox.jmkv.lsm.sstable.SsTableWriter;
+import com.lightbox.jmkv.lsm.version.Version;
+import com.lightbox.jmkv.lsm.version.VersionEdit;
+import com.lightbox.jmkv.lsm.version.VersionSet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Log-structured merge tree.
+ * Every mutation is appended to write ahead log
+ * and then applied to in memory sorted memtable.
+ * Writes cost one sequential append, the log is
+ * replayed into memtable after restart.
+ * Log is committed outside of lock, so group commit log
+ * shares one sync between concurrent writers.
+ * Full memtable is frozen together with its log and a fresh
+ * memtable takes writes immediately, background thread flushes
+ * frozen memtables to new sorted tables in level 0
+ * and deletes their logs.
+ * Writers are slowed down and then stopped when frozen memtables
+ * pile up, see {@link FlushPolicy}.
+ * Background leveled compaction merges tables into deeper levels.
+ * Active and frozen memtables are published together as immutable
+ * view in volatile field, so reads never take a lock: they search
+ * memtables of the view from newest to oldest, then pin the current
+ * version of tables and search levels from newest to oldest.
+ * Memtables take concurrent puts, so writers append to log and
+ * memtable of the view in parallel: they share the read side of
+ * rotation lock, whose write side is taken only to replace
+ * memtable and its log. Writers of the same key are ordered by
+ * one of key stripes, so log replays every key in memtable order.
+ * The lock of the tree is taken by writers only to freeze full
+ * memtable or to wait for flush at hard limit
+ */
+public final class LsmTree implements Cache, Closeable {
+
+    /**
+     * Default memtable size limit.
+     */
+    public static final long MEMTABLE_LIMIT = 4L << 20;
+
+    /**
+     * Default block cache capacity.
+     */
+    public static final long BLOCK_CACHE = 8L << 20;
+
+    /**
+     * Name of write ahead log file of active memtable.
+     */
+    private static final String WAL = "wal.log";
+
+    /**
+     * Names of logs of frozen memtables.
+     */
+    private static final Pattern FROZEN =
+            Pattern.compile("wal-(\\d+)\\.log");
+
+    /**
+     * Extension of table that is being written.
+     */
+    private static final String TEMP = ".tmp";
+
+    /**
+     * Amount of key stripes that order writers of the same key.
+     */
+    private static final int STRIPES = 64;
+
+    /**
+     * Directory with storage files.
+     */
+    private final Path directory;
+
+    /**
+     * Source of empty memtables.
+     */
+    private final Supplier<Memtable> memtables;
+
+    /**
+     * Opens logs.
+     */
+    private final WriteAheadLog.Factory logs;
+
+    /**
+     * Memtable frozen with its log, the oldest is the first.
+     */
+    private final Deque<Frozen> frozen = new ArrayDeque<>(0);
+
+    /**
+     * Memory bound.
+     */
+    private final FlushPolicy policy;
+
+    /**
+     * Flushed tables.
+     */
+    private final VersionSet versions;
+
+    /**
+     * Bytes moved between levels.
+     */
+    private final CompactionStats stats;
+
+    /**
+     * Delayed and stopped writes.
+     */
+    private final StallStats stalls = new StallStats();
+
+    /**
+     * Cache of data blocks.
+     */
+    private final BlockCache cache;
+
+    /**
+     * Compaction policy.
+     */
+    private final LeveledCompaction compaction;
+
+    /**
+     * Thread that flushes frozen memtables.
+     */
+    private final ExecutorService flusher;
+
+    /**
+     * Thread that runs compactions.
+     */
+    private final ExecutorService compactor;
+
+    /**
+     * Lock that guards frozen memtables and compaction state.
+     */
+    private final Object lock = new Object();
+
+    /**
+     * Rotation lock, writers share the read side while they append
+     * to log and memtable of the view, the write side is taken
+     * to replace them. Taken after the lock when both are needed
+     */
+    private final ReadWriteLock writes = new ReentrantReadWriteLock();
+
+    /**
+     * Monitors that keep log order of the same key equal
+     * to its memtable order.
+     */
+    private final Object[] stripes = LsmTree.monitors(STRIPES);
+
+    /**
+     * Memtables visible to reads, replaced under lock.
+     */
+    private volatile View view;
+
+    /**
+     * Number of the last frozen log.
+     */
+    private long number;
+
+    /**
+     * Amount of frozen memtables, read by writers without lock.
+     */
+    private volatile int pending;
+
+    /**
+     * Incremented when tables are changed not by background compaction,
+     * result of merge that started before such change is dropped.
+     */
+    private long generation;
+
+    /**
+     * True if background flush is submitted.
+     */
+    private boolean flushing;
+
+    /**
+     * True if background compaction is submitted.
+     */
+    private boolean scheduled;
+
+    /**
+     * True after close.
+     */
+    private boolean closed;
+
+    /**
+     * Failure of background flush or compaction.
+     */
+    private volatile IOException failure;
+
+    /**
+     * Ctor.
+     * Open storage in given directory
+     *
+     * @param directory Directory with storage files
+     * @throws IOException if failed
+     */
+    public LsmTree(final Path directory) throws IOException {
+        this(directory, MEMTABLE_LIMIT);
+    }
+
+    /**
+     * Ctor.
+     * Open storage in given directory
+     *
+     * @param directory Directory with storage files
+     * @param limit     Memtable size in bytes that triggers flush
+     * @throws IOException if failed
+     */
+    public LsmTree(final Path directory, final long limit) throws IOException {
+        this(directory, limit, new BlockCache(BLOCK_CACHE));
+    }
+
+    /**
+     * Ctor.
+     * Open storage in given directory with group commit log
+     *
+     * @param directory  Directory with storage files
+     * @param limit      Memtable size in bytes that triggers flush
+     * @param durability Durability of writes
+     * @throws IOException if failed
+     */
+    public LsmTree(
+            final Path directory,
+            final long limit,
+            final Durability durability
+    ) throws IOException {
+        this(
+                directory,
+                SkipListMemtable::new,
+                file -> new GroupCommitWal(file, durability),
+                new FlushPolicy(limit),
+                new BlockCache(BLOCK_CACHE)
+        );
+    }
+
+    /**
+     * Ctor.
+     * Open storage in given directory
+     *
+     * @param directory Directory with storage files
+     * @param limit     Memtable size in bytes that triggers flush
+     * @param cache     Block cache, may be shared with other trees
+     * @throws IOException if failed
+     */
+    public LsmTree(
+            final Path directory,
+            final long limit,
+            final BlockCache cache
+    ) throws IOException {
+        this(
+                directory,
+                SkipListMemtable::new,
+                FileWal::new,
+                new FlushPolicy(limit),
+                cache
+        );
+    }
+
+    /**
+     * Ctor.
+     * Open tables and rebuild memtables from logs.
+     * Logs of memtables that were frozen but not flushed
+     * before close are flushed in background.
+     * Compacted tables are as big as memtable limit
+     *
+     * @param directory Directory with storage files
+     * @param memtables Source of empty memtables
+     * @param logs      Opens write ahead logs
+     * @param policy    Memory bound
+     * @param cache     Block cache
+     * @throws IOException if failed
+     */
+    public LsmTree(
+            final Path directory,
+            final Supplier<Memtable> memtables,
+            final WriteAheadLog.Factory logs,
+            final FlushPolicy policy,
+            final BlockCache cache
+    ) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.memtables = memtables;
+        this.logs = logs;
+        this.policy = policy;
+        this.cache = cache;
+        this.versions = new VersionSet(directory, cache);
+        this.stats = new CompactionStats(Version.LEVELS);
+        this.compaction = new LeveledCompaction(
+                this.versions,
+                this.stats,
+                policy.limit()
+        );
+        this.flusher = LsmTree.daemon("lsm-flush");
+        this.compactor = LsmTree.daemon("lsm-compaction");
+        this.recover();
+        final Memtable memtable = memtables.get();
+        final WriteAheadLog wal = logs.open(directory.resolve(WAL));
+        wal.replay(memtable::put);
+        this.publish(memtable, wal);
+        this.pending = this.frozen.size();
+        if (!this.frozen.isEmpty()) {
+            this.flushing = true;
+            this.flusher.execute(this::flushes);
+        }
+    }
+
+    @Override
+    public boolean clear() {
+        synchronized (this.lock) {
+            this.writes.writeLock().lock();
+            try (Version version = this.versions.current()) {
+                this.view.wal.truncate();
+                for (final Frozen old : this.frozen) {
+                    Files.deleteIfExists(old.log);
+                }
+                final VersionEdit edit = new VersionEdit();
+                for (int i = 0; i < Version.LEVELS; i++) {
+                    for (final SsTable table : version.level(i)) {
+                        edit.delete(i, table);
+                    }
+                }
+                this.versions.install(edit);
+                this.frozen.clear();
+                this.publish(this.memtables.get(), this.view.wal);
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            } finally {
+                this.writes.writeLock().unlock();
+            }
+            this.pending = 0;
+            this.generation++;
+            this.lock.notifyAll();
+        }
+        return true;
+    }
+
+    @Override
+    public String get(final Integer key) {
+        Record record = this.view.get(key);
+        if (record == null) {
+            try (Version version = this.versions.current()) {
+                record = version.get(key);
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        final String value;
+        if (record == null) {
+            value = null;
+        } else {
+            value = record.value();
+        }
+        return value;
+    }
+
+    @Override
+    public String put(final Integer key, final String value) {
+        this.write(
+                new Record(
+                        key,
+                        Objects.requireNonNull(value, "Value can't be null")
+                )
+        );
+        return value;
+    }
+
+    @Override
+    public String delete(final Integer key) {
+        final String previous = this.get(key);
+        if (previous != null) {
+            this.write(new Record(key));
+        }
+        return previous;
+    }
+
+    @Override
+    public boolean exists(final Integer key) {
+        return this.get(key) != null;
+    }
+
+    /**
+     * Amount of live keys.
+     * Merges memtables and all levels, so it takes time
+     * proportional to amount of records
+     *
+     * @return Size
+     */
+    @Override
+    public int size() {
+        final View memory = this.view;
+        int size = 0;
+        try (Version version = this.versions.current()) {
+            final List<Iterator<Record>> sources = memory.iterators();
+            sources.addAll(version.iterators());
+            final Iterator<Record> live = new MergingIterator(sources, true);
+            while (live.hasNext()) {
+                live.next();
+                size++;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Force log to the storage device.
+     *
+     * @throws IOException if failed
+     */
+    public void sync() throws IOException {
+        this.writes.readLock().lock();
+        try {
+            this.view.wal.sync();
+        } finally {
+            this.writes.readLock().unlock();
+        }
+    }
+
+    /**
+     * Freeze memtable and wait until every frozen memtable
+     * is written to level 0.
+     * Schedules background compaction
+     *
+     * @throws IOException if failed
+     */
+    public void flush() throws IOException {
+        synchronized (this.lock) {
+            this.check();
+            if (this.view.memtable.entries() > 0) {
+                this.freeze();
+            }
+            while (!this.frozen.isEmpty()
+                    && this.failure == null && !this.closed) {
+                this.await();
+            }
+            this.check();
+        }
+    }
+
+    /**
+     * Run compactions in calling thread until every level fits its limit.
+     *
+     * @return Amount of compactions
+     * @throws IOException if failed
+     */
+    public int compact() throws IOException {
+        synchronized (this.lock) {
+            this.check();
+            this.generation++;
+            return this.compaction.compact();
+        }
+    }
+
+    /**
+     * Amount of flushed tables in all levels.
+     *
+     * @return Amount of tables
+     */
+    public int tables() {
+        try (Version version = this.versions.current()) {
+            return version.tables();
+        }
+    }
+
+    /**
+     * Amount of tables in level.
+     *
+     * @param level Level
+     * @return Amount of tables
+     */
+    public int tables(final int level) {
+        try (Version version = this.versions.current()) {
+            return version.level(level).size();
+        }
+    }
+
+    /**
+     * Amount of memtables that wait for flush.
+     *
+     * @return Amount of frozen memtables
+     */
+    public int frozen() {
+        return this.pending;
+    }
+
+    /**
+     * Compaction counters.
+     *
+     * @return Stats
+     */
+    public CompactionStats stats() {
+        return this.stats;
+    }
+
+    /**
+     * Counters of delayed and stopped writes.
+     *
+     * @return Stats
+     */
+    public StallStats stalls() {
+        return this.stalls;
+    }
+
+    /**
+     * Block cache.
+     *
+     * @return Cache
+     */
+    public BlockCache cache() {
+        return this.cache;
+    }
+
+    /**
+     * Stop background threads, frozen memtables that are not flushed
+     * yet keep their logs and are flushed after restart.
+     *
+     * @throws IOException if failed
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this.lock) {
+            this.closed = true;
+            this.lock.notifyAll();
+        }
+        LsmTree.stop(this.flusher);
+        LsmTree.stop(this.compactor);
+        synchronized (this.lock) {
+            this.writes.writeLock().lock();
+            try {
+                this.view.wal.close();
+            } finally {
+                this.writes.writeLock().unlock();
+            }
+            this.versions.close();
+            this.check();
+        }
+    }
+
+    /**
+     * Append record and commit log.
+     *
+     * @param record Record or tombstone
+     */
+    private void write(final Record record) {
+        this.slowdown();
+        LsmTree.commit(this.append(record));
+    }
+
+    /**
+     * Append record to log and apply it to memtable of the view.
+     * Runs in parallel with writers of other keys.
+     * Freeze memtable if it's full.
+     * Waits for flush at hard limit
+     *
+     * @param record Record or tombstone
+     * @return Log that got record
+     */
+    private WriteAheadLog append(final Record record) {
+        try {
+            this.stall();
+            final View current;
+            this.writes.readLock().lock();
+            try {
+                current = this.view;
+                synchronized (this.stripes[
+                        Math.floorMod(record.key(), STRIPES)]) {
+                    current.wal.append(record);
+                    current.memtable.put(record);
+                }
+            } finally {
+                this.writes.readLock().unlock();
+            }
+            if (current.memtable.bytes() >= this.policy.limit()) {
+                synchronized (this.lock) {
+                    if (this.view.memtable == current.memtable) {
+                        this.freeze();
+                    }
+                }
+            }
+            return current.wal;
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Wait for durability of appended records.
+     * Called outside of lock, so concurrent writers
+     * can be committed together
+     *
+     * @param log Log that got records
+     */
+    private static void commit(final WriteAheadLog log) {
+        try {
+            log.commit();
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Delay writer above soft limit.
+     * Called outside of lock, so delayed writers don't block others
+     */
+    private void slowdown() {
+        final long delay = this.policy.delay(this.pending);
+        if (delay > 0L) {
+            final long start = System.nanoTime();
+            LockSupport.parkNanos(delay);
+            this.stalls.slowdown(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Wait for flush at hard limit.
+     * Takes lock only when writes have to stop
+     *
+     * @throws IOException if failed or interrupted
+     */
+    private void stall() throws IOException {
+        if (this.policy.stalls(this.pending)) {
+            synchronized (this.lock) {
+                if (this.policy.stalls(this.frozen.size())) {
+                    final long start = System.nanoTime();
+                    while (this.policy.stalls(this.frozen.size())
+                            && this.failure == null && !this.closed) {
+                        this.await();
+                    }
+                    this.stalls.stall(System.nanoTime() - start);
+                }
+            }
+        }
+        this.check();
+    }
+
+    /**
+     * Wait for notification of lock.
+     * Must be called under lock
+     *
+     * @throws IOException if interrupted
+     */
+    private void await() throws IOException {
+        try {
+            this.lock.wait();
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(ex.getMessage());
+        }
+    }
+
+    /**
+     * Replace memtable and its log with empty ones
+     * and schedule flush of the full memtable.
+     * Must be called under lock
+     *
+     * @throws IOException if failed
+     */
+    private void freeze() throws IOException {
+        this.writes.writeLock().lock();
+        try {
+            final View full = this.view;
+            full.wal.close();
+            this.number++;
+            final Path log = this.directory.resolve(
+                    String.format("wal-%06d.log", this.number)
+            );
+            Files.move(
+                    this.directory.resolve(WAL),
+                    log,
+                    StandardCopyOption.ATOMIC_MOVE
+            );
+            this.frozen.addLast(new Frozen(full.memtable, log));
+            this.publish(
+                    this.memtables.get(),
+                    this.logs.open(this.directory.resolve(WAL))
+            );
+        } finally {
+            this.writes.writeLock().unlock();
+        }
+        this.pending = this.frozen.size();
+        if (!this.flushing) {
+            this.flushing = true;
+            this.flusher.execute(this::flushes);
+        }
+    }
+
+    /**
+     * Make memtable, its log and frozen memtables the view of reads.
+     * Must be called under lock
+     *
+     * @param memtable Memtable that takes writes
+     * @param wal      Log of memtable
+     */
+    private void publish(final Memtable memtable, final WriteAheadLog wal) {
+        final List<Memtable> older = new ArrayList<>(this.frozen.size());
+        final Iterator<Frozen> newest = this.frozen.descendingIterator();
+        while (newest.hasNext()) {
+            older.add(newest.next().memtable);
+        }
+        this.view = new View(memtable, wal, older);
+    }
+
+    /**
+     * Replay logs of memtables that were frozen before close.
+     *
+     * @throws IOException if failed
+     */
+    private void recover() throws IOException {
+        final TreeMap<Long, Path> found = new TreeMap<>();
+        try (DirectoryStream<Path> files =
+                     Files.newDirectoryStream(this.directory)) {
+            for (final Path file : files) {
+                final Matcher matcher =
+                        FROZEN.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    found.put(Long.parseLong(matcher.group(1)), file);
+                }
+            }
+        }
+        for (final Path file : found.values()) {
+            final Memtable replayed = this.memtables.get();
+            try (WriteAheadLog log = this.logs.open(file)) {
+                log.replay(replayed::put);
+            }
+            if (replayed.entries() > 0) {
+                this.frozen.addLast(new Frozen(replayed, file));
+            } else {
+                Files.delete(file);
+            }
+        }
+        if (!found.isEmpty()) {
+            this.number = found.lastKey();
+        }
+    }
+
+    /**
+     * Flush frozen memtables from the oldest one until none is left.
+     * Tables are written without lock, so reads and writes
+     * are blocked only while table is installed
+     */
+    private void flushes() {
+        boolean running = true;
+        while (running) {
+            final Frozen next;
+            synchronized (this.lock) {
+                if (this.closed || this.failure != null) {
+                    next = null;
+                } else {
+                    next = this.frozen.peekFirst();
+                }
+                if (next == null) {
+                    this.flushing = false;
+                }
+            }
+            running = next != null && this.flush(next);
+        }
+    }
+
+    /**
+     * Write frozen memtable to table and install it in level 0.
+     *
+     * @param next The oldest frozen memtable
+     * @return False if flushes should stop
+     */
+    private boolean flush(final Frozen next) {
+        SsTable table = null;
+        IOException error = null;
+        try {
+            table = this.table(next.memtable);
+        } catch (final IOException ex) {
+            error = ex;
+        } catch (final UncheckedIOException ex) {
+            error = ex.getCause();
+        }
+        synchronized (this.lock) {
+            try {
+                if (this.frozen.peekFirst() != next) {
+                    if (table != null) {
+                        LsmTree.drop(Collections.singletonList(table));
+                    }
+                } else if (error != null) {
+                    throw error;
+                } else {
+                    this.versions.install(new VersionEdit().add(0, table));
+                    this.stats.flush(table.bytes());
+                    this.frozen.removeFirst();
+                    this.publish(this.view.memtable, this.view.wal);
+                    this.pending = this.frozen.size();
+                    Files.deleteIfExists(next.log);
+                    if (!this.scheduled) {
+                        this.scheduled = true;
+                        this.compactor.execute(this::background);
+                    }
+                }
+            } catch (final IOException ex) {
+                this.failure = ex;
+            }
+            this.lock.notifyAll();
+            if (this.failure != null) {
+                this.flushing = false;
+            }
+            return this.failure == null;
+        }
+    }
+
+    /**
+     * Write memtable to a new table.
+     *
+     * @param records Frozen memtable
+     * @return Table
+     * @throws IOException if failed
+     */
+    private SsTable table(final Memtable records) throws IOException {
+        final Path table = this.versions.newTable();
+        final Path temp = table.resolveSibling(table.getFileName() + TEMP);
+        try (SsTableWriter writer = new SsTableWriter(temp)) {
+            for (final Record record : records) {
+                writer.add(record);
+            }
+        }
+        Files.move(temp, table, StandardCopyOption.ATOMIC_MOVE);
+        return this.versions.open(table);
+    }
+
+    /**
+     * Rethrow failure of background work.
+     *
+     * @throws IOException if flush or compaction failed
+     */
+    private void check() throws IOException {
+        if (this.failure != null) {
+            throw new IOException("Background work failed", this.failure);
+        }
+    }
+
+    /**
+     * Compact levels until they fit their limits.
+     * Tables are merged without lock, so reads and writes
+     * are blocked only while compaction is picked and installed
+     */
+    private void background() {
+        boolean running = true;
+        while (running) {
+            final LeveledCompaction.Task task;
+            final long started;
+            synchronized (this.lock) {
+                task = this.next();
+                started = this.generation;
+                running = task != null;
+            }
+            if (running) {
+                running = this.run(task, started);
+            }
+        }
+    }
+
+    /**
+     * Pick next background compaction.
+     * Must be called under lock
+     *
+     * @return Task or null if there is nothing to do
+     */
+    private LeveledCompaction.Task next() {
+        LeveledCompaction.Task task = null;
+        if (!this.closed && this.failure == null) {
+            try {
+                task = this.compaction.pick();
+            } catch (final IOException ex) {
+                this.failure = ex;
+            }
+        }
+        if (task == null) {
+            this.scheduled = false;
+        }
+        return task;
+    }
+
+    /**
+     * Merge tables of task and install the result.
+     *
+     * @param task    Task
+     * @param started Generation when task was picked
+     * @return False if compaction should stop
+     */
+    private boolean run(
+            final LeveledCompaction.Task task,
+            final long started
+    ) {
+        List<SsTable> outputs = null;
+        IOException error = null;
+        try {
+            outputs = this.compaction.merge(task);
+        } catch (final IOException ex) {
+            error = ex;
+        } catch (final UncheckedIOException ex) {
+            error = ex.getCause();
+        }
+        boolean running = true;
+        synchronized (this.lock) {
+            try {
+                if (started != this.generation || this.closed) {
+                    LsmTree.drop(outputs);
+                } else if (error != null) {
+                    throw error;
+                } else {
+                    this.compaction.install(task, outputs);
+                }
+            } catch (final IOException ex) {
+                this.failure = ex;
+            } finally {
+                task.close();
+            }
+            if (this.failure != null || this.closed) {
+                this.scheduled = false;
+                running = false;
+                this.lock.notifyAll();
+            }
+        }
+        return running;
+    }
+
+    /**
+     * Delete tables that were not installed.
+     *
+     * @param tables Tables or null
+     * @throws IOException if failed
+     */
+    private static void drop(final List<SsTable> tables) throws IOException {
+        if (tables != null) {
+            for (final SsTable table : tables) {
+                table.close();
+                Files.delete(table.file());
+            }
+        }
+    }
+
+    /**
+     * Monitors of key stripes.
+     *
+     * @param amount Amount of stripes
+     * @return Monitors
+     */
+    private static Object[] monitors(final int amount) {
+        final Object[] monitors = new Object[amount];
+        for (int i = 0; i < amount; i++) {
+            monitors[i] = new Object();
+        }
+        return monitors;
+    }
+
+    /**
+     * Single daemon thread executor.
+     *
+     * @param name Name of thread
+     * @return Executor
+     */
+    private static ExecutorService daemon(final String name) {
+        return Executors.newSingleThreadExecutor(
+                runnable -> {
+                    final Thread thread = new Thread(runnable, name);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+        );
+    }
+
+    /**
+     * Wait until executor finishes submitted work.
+     *
+     * @param executor Executor
+     * @throws IOException if interrupted
+     */
+    private static void stop(
+            final ExecutorService executor
+    ) throws IOException {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+        } catch (final InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(ex.getMessage());
+        }
+    }
+
+    /**
+     * Immutable view of memtables for reads.
+     */
+    private static final class View {
+
+        /**
+         * Memtable that takes writes.
+         */
+        private final Memtable memtable;
+
+        /**
+         * Log of memtable.
+         */
+        private final WriteAheadLog wal;
+
+        /**
+         * Frozen memtables, the newest is the first.
+         */
+        private final List<Memtable> frozen;
+
+        /**
+         * Ctor.
+         *
+         * @param memtable Memtable that takes writes
+         * @param wal      Log of memtable
+         * @param frozen   Frozen memtables, the newest is the first
+         */
+        View(
+                final Memtable memtable,
+                final WriteAheadLog wal,
+                final List<Memtable> frozen
+        ) {
+            this.memtable = memtable;
+            this.wal = wal;
+            this.frozen = Collections.unmodifiableList(frozen);
+        }
+
+        /**
+         * Latest record of key from the newest memtable that knows it.
+         *
+         * @param key Key
+         * @return Record, tombstone or null
+         */
+        Record get(final int key) {
+            Record record = this.memtable.get(key);
+            final Iterator<Memtable> older = this.frozen.iterator();
+            while (record == null && older.hasNext()) {
+                record = older.next().get(key);
+            }
+            return record;
+        }
+
+        /**
+         * Iterators of memtables from the newest to the oldest.
+         *
+         * @return Iterators
+         */
+        List<Iterator<Record>> iterators() {
+            final List<Iterator<Record>> sources =
+                    new ArrayList<>(this.frozen.size() + 1);
+            sources.add(this.memtable.iterator());
+            for (final Memtable older : this.frozen) {
+                sources.add(older.iterator());
+            }
+            return sources;
+        }
+    }
+
+    /**
+     * Memtable that doesn't take writes anymore and waits for flush.
+     */
+    private static final class Frozen {
+
+        /**
+         * Records.
+         */
+        private final Memtable memtable;
+
+        /**
+         * Log that has to be kept until memtable is flushed.
+         */
+        private final Path log;
+
+        /**
+         * Ctor.
+         *
+         * @param memtable Records
+         * @param log      Log of records
+         */
+        Frozen(final Memtable memtable, final Path log) {
+            this.memtable = memtable;
+            this.log = log;
+        }
+    }
+}
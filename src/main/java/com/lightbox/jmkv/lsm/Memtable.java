@@ -0,0 +1,67 @@
+package com.lightbox.jmkv.lsm;
+
+/**
+ * In memory sorted buffer of the latest writes.
+ * Keeps tombstones for deleted keys so they
+ * shadow older values in flushed tables.
+ * Tree puts records of different keys concurrently and reads
+ * while puts run, so implementations have to be thread safe,
+ * see {@link SkipListMemtable}
+ */
+public interface Memtable extends Iterable<Record> {
+
+    /**
+     * Approximate heap cost of one entry without value characters.
+     */
+    int ENTRY_OVERHEAD = 64;
+
+    /**
+     * Put record, replacing previous record with the same key.
+     *
+     * @param record Record or tombstone
+     */
+    void put(Record record);
+
+    /**
+     * Get latest record by key.
+     *
+     * @param key Key
+     * @return Record, tombstone or null if memtable doesn't know the key
+     */
+    Record get(int key);
+
+    /**
+     * Amount of records including tombstones.
+     *
+     * @return Amount of records
+     */
+    int entries();
+
+    /**
+     * Approximate amount of memory used by records.
+     *
+     * @return Size in bytes
+     */
+    long bytes();
+
+    /**
+     * Remove all records.
+     */
+    void clear();
+
+    /**
+     * Approximate heap cost of a record.
+     *
+     * @param record Record
+     * @return Size in bytes
+     */
+    static long cost(final Record record) {
+        final long chars;
+        if (record.tombstone()) {
+            chars = 0L;
+        } else {
+            chars = record.value().length() * 2L;
+        }
+        return ENTRY_OVERHEAD + chars;
+    }
+}
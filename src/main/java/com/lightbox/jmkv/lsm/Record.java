@@ -0,0 +1,96 @@
+package com.lightbox.jmkv.lsm;
+
+import java.util.Objects;
+
+/**
+ * Entry of LSM tree.
+ * Record without value is a tombstone, it shadows
+ * older values of the same key until compaction drops it
+ */
+public final class Record implements Comparable<Record> {
+
+    /**
+     * Key.
+     */
+    private final int key;
+
+    /**
+     * Value or null for tombstone.
+     */
+    private final String value;
+
+    /**
+     * Ctor.
+     *
+     * @param key   Key
+     * @param value Value or null for tombstone
+     */
+    public Record(final int key, final String value) {
+        this.key = key;
+        this.value = value;
+    }
+
+    /**
+     * Tombstone ctor.
+     *
+     * @param key Deleted key
+     */
+    public Record(final int key) {
+        this(key, null);
+    }
+
+    /**
+     * Key of record.
+     *
+     * @return Key
+     */
+    public int key() {
+        return this.key;
+    }
+
+    /**
+     * Value of record.
+     *
+     * @return Value or null if record is a tombstone
+     */
+    public String value() {
+        return this.value;
+    }
+
+    /**
+     * Check that record marks deleted key.
+     *
+     * @return True if record doesn't have value
+     */
+    public boolean tombstone() {
+        return this.value == null;
+    }
+
+    @Override
+    public int compareTo(final Record other) {
+        return Integer.compare(this.key, other.key);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final Record record = (Record) obj;
+        return this.key == record.key
+                && Objects.equals(this.value, record.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(this.key, this.value);
+    }
+
+    @Override
+    public String toString() {
+        return this.key + "=" + this.value;
+    }
+}
@@ -0,0 +1,285 @@
+package com.lightbox.jmkv.lsm;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Lock-free memtable on top of insert only skip list.
+ * Nodes are never unlinked, a new node is published by
+ * compare-and-set of the previous node link at level 0
+ * and then linked into upper levels, replacement of a key
+ * only swaps record of its node.
+ * So concurrent writers never block each other and
+ * readers traverse links without any synchronization
+ * besides volatile reads.
+ * Iteration is weakly consistent: it sees every record
+ * put before it started and may see ones put concurrently.
+ * Clear must not run concurrently with put
+ */
+public final class SkipListMemtable implements Memtable {
+
+    /**
+     * Max height of node.
+     */
+    static final int MAX_HEIGHT = 12;
+
+    /**
+     * Inverse probability of node to reach the next level.
+     */
+    private static final int BRANCHING = 4;
+
+    /**
+     * Sentinel node that precedes every key on every level.
+     */
+    private final AtomicReference<Node> head =
+            new AtomicReference<>(new Node(0, null, MAX_HEIGHT));
+
+    /**
+     * Amount of records.
+     */
+    private final AtomicInteger entries = new AtomicInteger();
+
+    /**
+     * Approximate size.
+     */
+    private final AtomicLong size = new AtomicLong();
+
+    @Override
+    public void put(final Record record) {
+        final Node[] preds = new Node[MAX_HEIGHT];
+        final Node[] succs = new Node[MAX_HEIGHT];
+        final Node head = this.head.get();
+        boolean done = false;
+        while (!done) {
+            final Node found = SkipListMemtable.find(
+                    head,
+                    record.key(),
+                    preds,
+                    succs
+            );
+            if (found == null) {
+                final Node node = SkipListMemtable.insert(record, preds, succs);
+                if (node != null) {
+                    this.entries.incrementAndGet();
+                    this.size.addAndGet(Memtable.cost(record));
+                    SkipListMemtable.raise(head, node, preds, succs);
+                    done = true;
+                }
+            } else {
+                final Record previous = found.record.getAndSet(record);
+                this.size.addAndGet(
+                        Memtable.cost(record) - Memtable.cost(previous)
+                );
+                done = true;
+            }
+        }
+    }
+
+    @Override
+    public Record get(final int key) {
+        Node node = this.head.get();
+        for (int level = MAX_HEIGHT - 1; level >= 0; level--) {
+            Node next = node.level(level);
+            while (next != null && next.key < key) {
+                node = next;
+                next = node.level(level);
+            }
+        }
+        node = node.level(0);
+        Record record = null;
+        if (node != null && node.key == key) {
+            record = node.record.get();
+        }
+        return record;
+    }
+
+    @Override
+    public int entries() {
+        return this.entries.get();
+    }
+
+    @Override
+    public long bytes() {
+        return this.size.get();
+    }
+
+    @Override
+    public void clear() {
+        this.head.set(new Node(0, null, MAX_HEIGHT));
+        this.entries.set(0);
+        this.size.set(0L);
+    }
+
+    @Override
+    public Iterator<Record> iterator() {
+        final Node head = this.head.get();
+        return new Iterator<Record>() {
+            private Node next = head.level(0);
+
+            @Override
+            public boolean hasNext() {
+                return this.next != null;
+            }
+
+            @Override
+            public Record next() {
+                if (this.next == null) {
+                    throw new NoSuchElementException("Memtable is over");
+                }
+                final Record record = this.next.record.get();
+                this.next = this.next.level(0);
+                return record;
+            }
+        };
+    }
+
+    /**
+     * Search node of key and its neighbours on every level.
+     *
+     * @param head  Head of list
+     * @param key   Key
+     * @param preds Nodes before key on every level
+     * @param succs Nodes after preds on every level
+     * @return Node of key or null
+     */
+    private static Node find(
+            final Node head,
+            final int key,
+            final Node[] preds,
+            final Node[] succs
+    ) {
+        Node node = head;
+        for (int level = MAX_HEIGHT - 1; level >= 0; level--) {
+            Node next = node.level(level);
+            while (next != null && next.key < key) {
+                node = next;
+                next = node.level(level);
+            }
+            preds[level] = node;
+            succs[level] = next;
+        }
+        Node found = null;
+        if (succs[0] != null && succs[0].key == key) {
+            found = succs[0];
+        }
+        return found;
+    }
+
+    /**
+     * Publish new node at level 0.
+     *
+     * @param record Record
+     * @param preds  Nodes before key on every level
+     * @param succs  Nodes after preds on every level
+     * @return Published node or null if neighbours changed
+     */
+    private static Node insert(
+            final Record record,
+            final Node[] preds,
+            final Node[] succs
+    ) {
+        final Node node = new Node(
+                record.key(),
+                record,
+                SkipListMemtable.height()
+        );
+        node.next.set(0, succs[0]);
+        Node inserted = null;
+        if (preds[0].next.compareAndSet(0, succs[0], node)) {
+            inserted = node;
+        }
+        return inserted;
+    }
+
+    /**
+     * Link published node into upper levels.
+     * Upper levels only speed up search, so node is
+     * visible to readers even before it's raised
+     *
+     * @param head  Head of list
+     * @param node  Node published at level 0
+     * @param preds Nodes before key on every level
+     * @param succs Nodes after preds on every level
+     */
+    private static void raise(
+            final Node head,
+            final Node node,
+            final Node[] preds,
+            final Node[] succs
+    ) {
+        for (int level = 1; level < node.next.length(); level++) {
+            node.next.set(level, succs[level]);
+            while (!preds[level].next.compareAndSet(
+                    level,
+                    succs[level],
+                    node
+            )) {
+                SkipListMemtable.find(head, node.key, preds, succs);
+                node.next.set(level, succs[level]);
+            }
+        }
+    }
+
+    /**
+     * Random height of new node.
+     *
+     * @return Height from 1 to max height
+     */
+    private static int height() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        int height = 1;
+        while (height < MAX_HEIGHT && random.nextInt(BRANCHING) == 0) {
+            height++;
+        }
+        return height;
+    }
+
+    /**
+     * Node of skip list.
+     */
+    private static final class Node {
+
+        /**
+         * Key.
+         */
+        private final int key;
+
+        /**
+         * The latest record of key.
+         */
+        private final AtomicReference<Record> record;
+
+        /**
+         * Next nodes on every level of node.
+         */
+        private final AtomicReferenceArray<Node> next;
+
+        /**
+         * Ctor.
+         *
+         * @param key    Key
+         * @param record Record
+         * @param height Amount of levels
+         */
+        Node(final int key, final Record record, final int height) {
+            this.key = key;
+            this.record = new AtomicReference<>(record);
+            this.next = new AtomicReferenceArray<>(height);
+        }
+
+        /**
+         * Next node on level.
+         *
+         * @param level Level
+         * @return Node or null
+         */
+        Node level(final int level) {
+            return this.next.get(level);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.lightbox.jmkv.lsm;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of writes delayed or stopped because
+ * flushes fall behind.
+ */
+public final class StallStats {
+
+    /**
+     * Amount of delayed writes.
+     */
+    private final LongAdder slowdowns = new LongAdder();
+
+    /**
+     * Time of delays in nanoseconds.
+     */
+    private final LongAdder slowed = new LongAdder();
+
+    /**
+     * Amount of writes that waited for flush.
+     */
+    private final LongAdder stalls = new LongAdder();
+
+    /**
+     * Time of waiting for flush in nanoseconds.
+     */
+    private final LongAdder stalled = new LongAdder();
+
+    /**
+     * Register delayed write.
+     *
+     * @param nanos Time of delay
+     */
+    public void slowdown(final long nanos) {
+        this.slowdowns.increment();
+        this.slowed.add(nanos);
+    }
+
+    /**
+     * Register write that waited for flush.
+     *
+     * @param nanos Time of waiting
+     */
+    public void stall(final long nanos) {
+        this.stalls.increment();
+        this.stalled.add(nanos);
+    }
+
+    /**
+     * Amount of delayed writes.
+     *
+     * @return Writes
+     */
+    public long slowdowns() {
+        return this.slowdowns.sum();
+    }
+
+    /**
+     * Time of delays.
+     *
+     * @param unit Time unit
+     * @return Time
+     */
+    public long slowed(final TimeUnit unit) {
+        return unit.convert(this.slowed.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Amount of writes that waited for flush.
+     *
+     * @return Writes
+     */
+    public long stalls() {
+        return this.stalls.sum();
+    }
+
+    /**
+     * Time of waiting for flush.
+     *
+     * @param unit Time unit
+     * @return Time
+     */
+    public long stalled(final TimeUnit unit) {
+        return unit.convert(this.stalled.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "slowdowns=%d slowed=%dms stalls=%d stalled=%dms",
+                this.slowdowns(),
+                this.slowed(TimeUnit.MILLISECONDS),
+                this.stalls(),
+                this.stalled(TimeUnit.MILLISECONDS)
+        );
+    }
+}
@@ -0,0 +1,72 @@
+package com.lightbox.jmkv.lsm;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+/**
+ * Append only log of mutations.
+ * Every put and delete is written here before it
+ * reaches the memtable, so memtable can be rebuilt after restart
+ */
+public interface WriteAheadLog extends Closeable {
+
+    /**
+     * Append record to the end of log.
+     *
+     * @param record Record or tombstone
+     * @throws IOException if failed
+     */
+    void append(Record record) throws IOException;
+
+    /**
+     * Wait until records appended before this call reach
+     * durability promised by log.
+     * Called without lock of the tree, so concurrent writers
+     * can share one write and one sync
+     *
+     * @throws IOException if failed
+     */
+    void commit() throws IOException;
+
+    /**
+     * Force appended records to the storage device.
+     *
+     * @throws IOException if failed
+     */
+    void sync() throws IOException;
+
+    /**
+     * Read all valid records from the beginning of log.
+     * Torn or corrupted tail is dropped
+     *
+     * @param consumer Consumer of records in append order
+     * @throws IOException if failed
+     */
+    void replay(Consumer<Record> consumer) throws IOException;
+
+    /**
+     * Drop all records.
+     * Called when records are not needed anymore
+     *
+     * @throws IOException if failed
+     */
+    void truncate() throws IOException;
+
+    /**
+     * Opens log by path.
+     * Tree opens a new log for every memtable
+     */
+    interface Factory {
+
+        /**
+         * Open log, create file if it's absent.
+         *
+         * @param file Path to log file
+         * @return Log
+         * @throws IOException if failed
+         */
+        WriteAheadLog open(Path file) throws IOException;
+    }
+}
@@ -0,0 +1,147 @@
+package com.lightbox.jmkv.lsm.compaction;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counters of bytes moved between levels.
+ * Write amplification is the amount of bytes written to tables
+ * by flushes and compactions divided by bytes written by flushes
+ */
+public final class CompactionStats {
+
+    /**
+     * Bytes written by memtable flushes.
+     */
+    private final AtomicLong flushed = new AtomicLong();
+
+    /**
+     * Bytes read by compactions per input level.
+     */
+    private final AtomicLongArray read;
+
+    /**
+     * Bytes written by compactions per output level.
+     */
+    private final AtomicLongArray written;
+
+    /**
+     * Amount of compactions per input level.
+     */
+    private final AtomicLongArray compactions;
+
+    /**
+     * Ctor.
+     *
+     * @param levels Amount of levels
+     */
+    public CompactionStats(final int levels) {
+        this.read = new AtomicLongArray(levels);
+        this.written = new AtomicLongArray(levels);
+        this.compactions = new AtomicLongArray(levels);
+    }
+
+    /**
+     * Register flush of memtable to level 0.
+     *
+     * @param bytes Size of new table
+     */
+    public void flush(final long bytes) {
+        this.flushed.addAndGet(bytes);
+        this.written.addAndGet(0, bytes);
+    }
+
+    /**
+     * Register compaction.
+     *
+     * @param level  Input level, output level is the next one
+     * @param input  Bytes read from both levels
+     * @param output Bytes written to the next level
+     */
+    public void compaction(
+            final int level,
+            final long input,
+            final long output
+    ) {
+        this.compactions.incrementAndGet(level);
+        this.read.addAndGet(level, input);
+        this.written.addAndGet(level + 1, output);
+    }
+
+    /**
+     * Bytes written by memtable flushes.
+     *
+     * @return Bytes
+     */
+    public long flushed() {
+        return this.flushed.get();
+    }
+
+    /**
+     * Bytes read by compactions of given level.
+     *
+     * @param level Input level
+     * @return Bytes
+     */
+    public long read(final int level) {
+        return this.read.get(level);
+    }
+
+    /**
+     * Bytes written to given level.
+     *
+     * @param level Level
+     * @return Bytes
+     */
+    public long written(final int level) {
+        return this.written.get(level);
+    }
+
+    /**
+     * Amount of compactions of given level.
+     *
+     * @param level Input level
+     * @return Amount of compactions
+     */
+    public long compactions(final int level) {
+        return this.compactions.get(level);
+    }
+
+    /**
+     * Write amplification.
+     *
+     * @return Bytes written to all levels per flushed byte
+     */
+    public double amplification() {
+        long total = 0L;
+        for (int i = 0; i < this.written.length(); i++) {
+            total += this.written.get(i);
+        }
+        final double amplification;
+        if (this.flushed.get() == 0L) {
+            amplification = 0.0;
+        } else {
+            amplification = (double) total / this.flushed.get();
+        }
+        return amplification;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder(
+                String.format("amplification=%.2f", this.amplification())
+        );
+        for (int i = 0; i < this.written.length(); i++) {
+            builder.append(
+                    String.format(
+                            " L%d[written=%d read=%d compactions=%d]",
+                            i,
+                            this.written.get(i),
+                            this.read.get(i),
+                            this.compactions.get(i)
+                    )
+            );
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,416 @@
+package com.lightbox.jmkv.lsm.compaction;
+
+import com.lightbox.jmkv.lsm.Record;
+import com.lightbox.jmkv.lsm.sstable.SsTable;
+import com.lightbox.jmkv.lsm.sstable.SsTableWriter;
+import com.lightbox.jmkv.lsm.version.Version;
+import com.lightbox.jmkv.lsm.version.VersionEdit;
+import com.lightbox.jmkv.lsm.version.VersionSet;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Leveled compaction.
+ * Level 0 is merged into level 1 when it has too many tables,
+ * level N is merged into level N+1 one table at a time
+ * when it's bigger than base size multiplied by ratio^(N-1).
+ * Compaction is split into pick, merge and install.
+ * Task pins the version it was picked from,
+ * so merge can read input tables while other versions are installed
+ */
+public final class LeveledCompaction {
+
+    /**
+     * Default amount of level 0 tables that triggers compaction.
+     */
+    public static final int TRIGGER = 4;
+
+    /**
+     * Default ratio between sizes of neighbour levels.
+     */
+    public static final int RATIO = 10;
+
+    /**
+     * Tables.
+     */
+    private final VersionSet versions;
+
+    /**
+     * Counters.
+     */
+    private final CompactionStats stats;
+
+    /**
+     * Amount of level 0 tables that triggers compaction.
+     */
+    private final int trigger;
+
+    /**
+     * Max size of level 1 in bytes.
+     */
+    private final long base;
+
+    /**
+     * Ratio between sizes of neighbour levels.
+     */
+    private final int ratio;
+
+    /**
+     * Max size of output table in bytes.
+     */
+    private final long table;
+
+    /**
+     * The largest key compacted from every level.
+     * Next compaction of level starts after it
+     */
+    private final long[] pointers;
+
+    /**
+     * Ctor.
+     *
+     * @param versions Tables
+     * @param stats    Counters
+     * @param table    Max size of output table, level 1 is ratio tables
+     */
+    public LeveledCompaction(
+            final VersionSet versions,
+            final CompactionStats stats,
+            final long table
+    ) {
+        this(versions, stats, TRIGGER, RATIO, table);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param versions Tables
+     * @param stats    Counters
+     * @param trigger  Amount of level 0 tables that triggers compaction
+     * @param ratio    Ratio between sizes of neighbour levels
+     * @param table    Max size of output table, level 1 is ratio tables
+     */
+    public LeveledCompaction(
+            final VersionSet versions,
+            final CompactionStats stats,
+            final int trigger,
+            final int ratio,
+            final long table
+    ) {
+        this.versions = versions;
+        this.stats = stats;
+        this.trigger = trigger;
+        this.ratio = ratio;
+        this.base = table * ratio;
+        this.table = table;
+        this.pointers = new long[Version.LEVELS];
+        for (int i = 0; i < Version.LEVELS; i++) {
+            this.pointers[i] = Long.MIN_VALUE;
+        }
+    }
+
+    /**
+     * Choose level of the current version with the highest score
+     * and its input tables.
+     * Only one compaction can be picked and installed at a time
+     *
+     * @return Task that has to be closed or null if every level fits
+     * its limit
+     * @throws IOException if failed
+     */
+    public Task pick() throws IOException {
+        final Version version = this.versions.current();
+        Task task = null;
+        try {
+            int level = -1;
+            double score = 1.0;
+            final double young = (double) version.level(0).size()
+                    / this.trigger;
+            if (young >= score) {
+                level = 0;
+                score = young;
+            }
+            for (int i = 1; i < Version.LEVELS - 1; i++) {
+                final double current = (double) version.bytes(i)
+                        / this.limit(i);
+                if (current > score) {
+                    level = i;
+                    score = current;
+                }
+            }
+            if (level >= 0) {
+                task = this.task(version, level);
+            }
+        } finally {
+            if (task == null) {
+                version.close();
+            }
+        }
+        return task;
+    }
+
+    /**
+     * Merge input tables of task to new tables.
+     * Doesn't change versions, so it can run
+     * concurrently with reads and flushes
+     *
+     * @param task Task
+     * @return New tables for the next level
+     * @throws IOException if failed
+     */
+    public List<SsTable> merge(final Task task) throws IOException {
+        final List<Iterator<Record>> sources = new ArrayList<>(0);
+        for (final SsTable input : task.inputs) {
+            sources.add(input.iterator());
+        }
+        sources.add(Version.concat(task.overlaps));
+        final Iterator<Record> merged =
+                new MergingIterator(sources, task.bottom);
+        final List<SsTable> outputs = new ArrayList<>(0);
+        try {
+            while (merged.hasNext()) {
+                outputs.add(this.write(merged));
+            }
+        } catch (final IOException ex) {
+            for (final SsTable output : outputs) {
+                output.close();
+                Files.deleteIfExists(output.file());
+            }
+            throw ex;
+        }
+        return outputs;
+    }
+
+    /**
+     * Install version where input tables of task are replaced
+     * with merged ones.
+     *
+     * @param task    Task
+     * @param outputs Result of merge
+     * @throws IOException if failed
+     */
+    public void install(
+            final Task task,
+            final List<SsTable> outputs
+    ) throws IOException {
+        final VersionEdit edit = new VersionEdit();
+        long input = 0L;
+        for (final SsTable table : task.inputs) {
+            edit.delete(task.level, table);
+            input += table.bytes();
+        }
+        for (final SsTable table : task.overlaps) {
+            edit.delete(task.level + 1, table);
+            input += table.bytes();
+        }
+        long output = 0L;
+        for (final SsTable table : outputs) {
+            edit.add(task.level + 1, table);
+            output += table.bytes();
+        }
+        this.versions.install(edit);
+        this.stats.compaction(task.level, input, output);
+        if (task.level > 0) {
+            this.pointers[task.level] =
+                    task.inputs.get(task.inputs.size() - 1).largest();
+        }
+    }
+
+    /**
+     * Run compactions until every level fits its limit.
+     *
+     * @return Amount of compactions
+     * @throws IOException if failed
+     */
+    public int compact() throws IOException {
+        int count = 0;
+        for (Task task = this.pick(); task != null; task = this.pick()) {
+            try {
+                this.install(task, this.merge(task));
+            } finally {
+                task.close();
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Max size of level.
+     *
+     * @param level Level starting from 1
+     * @return Size in bytes
+     */
+    private long limit(final int level) {
+        long limit = this.base;
+        for (int i = 1; i < level; i++) {
+            limit *= this.ratio;
+        }
+        return limit;
+    }
+
+    /**
+     * Collect inputs for compaction of level.
+     *
+     * @param version Pinned version
+     * @param level   Level
+     * @return Task
+     */
+    private Task task(final Version version, final int level) {
+        final List<SsTable> inputs;
+        if (level == 0) {
+            inputs = version.level(0);
+        } else {
+            final List<SsTable> tables = version.level(level);
+            SsTable next = tables.get(0);
+            for (final SsTable candidate : tables) {
+                if (candidate.smallest() > this.pointers[level]) {
+                    next = candidate;
+                    break;
+                }
+            }
+            inputs = Collections.singletonList(next);
+        }
+        int smallest = Integer.MAX_VALUE;
+        int largest = Integer.MIN_VALUE;
+        for (final SsTable input : inputs) {
+            smallest = Math.min(smallest, input.smallest());
+            largest = Math.max(largest, input.largest());
+        }
+        final List<SsTable> overlaps = LeveledCompaction.overlaps(
+                version.level(level + 1),
+                smallest,
+                largest
+        );
+        boolean bottom = true;
+        for (int i = level + 2; bottom && i < Version.LEVELS; i++) {
+            bottom = LeveledCompaction.overlaps(
+                    version.level(i),
+                    smallest,
+                    largest
+            ).isEmpty();
+        }
+        return new Task(version, level, inputs, overlaps, bottom);
+    }
+
+    /**
+     * Write records to one table until it reaches size limit.
+     *
+     * @param records Merged records
+     * @return New table
+     * @throws IOException if failed
+     */
+    private SsTable write(final Iterator<Record> records) throws IOException {
+        final Path file = this.versions.newTable();
+        try (SsTableWriter writer = new SsTableWriter(file)) {
+            try {
+                while (records.hasNext() && writer.bytes() < this.table) {
+                    writer.add(records.next());
+                }
+            } catch (final IOException | RuntimeException ex) {
+                writer.abort();
+                throw ex;
+            }
+        }
+        return this.versions.open(file);
+    }
+
+    /**
+     * Tables of level that overlap with key range.
+     *
+     * @param tables   Tables of level
+     * @param smallest The smallest key of range
+     * @param largest  The largest key of range
+     * @return Overlapping tables
+     */
+    private static List<SsTable> overlaps(
+            final List<SsTable> tables,
+            final int smallest,
+            final int largest
+    ) {
+        final List<SsTable> overlaps = new ArrayList<>(0);
+        for (final SsTable table : tables) {
+            if (table.largest() >= smallest && table.smallest() <= largest) {
+                overlaps.add(table);
+            }
+        }
+        return overlaps;
+    }
+
+    /**
+     * Inputs of one compaction.
+     * Keeps its version pinned until closed
+     */
+    public static final class Task implements Closeable {
+
+        /**
+         * Version that contains inputs.
+         */
+        private final Version version;
+
+        /**
+         * Input level.
+         */
+        private final int level;
+
+        /**
+         * Tables of input level.
+         */
+        private final List<SsTable> inputs;
+
+        /**
+         * Overlapping tables of the next level.
+         */
+        private final List<SsTable> overlaps;
+
+        /**
+         * True if deeper levels don't overlap with inputs,
+         * so tombstones can be dropped.
+         */
+        private final boolean bottom;
+
+        /**
+         * Ctor.
+         *
+         * @param version  Pinned version that contains inputs
+         * @param level    Input level
+         * @param inputs   Tables of input level, the newest is the first
+         * @param overlaps Overlapping tables of the next level
+         * @param bottom   True if tombstones can be dropped
+         */
+        Task(
+                final Version version,
+                final int level,
+                final List<SsTable> inputs,
+                final List<SsTable> overlaps,
+                final boolean bottom
+        ) {
+            this.version = version;
+            this.level = level;
+            this.inputs = inputs;
+            this.overlaps = overlaps;
+            this.bottom = bottom;
+        }
+
+        /**
+         * Input level.
+         *
+         * @return Level
+         */
+        public int level() {
+            return this.level;
+        }
+
+        @Override
+        public void close() {
+            this.version.close();
+        }
+    }
+}
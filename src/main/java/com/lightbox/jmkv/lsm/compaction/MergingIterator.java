@@ -0,0 +1,151 @@
+package com.lightbox.jmkv.lsm.compaction;
+
+import com.lightbox.jmkv.lsm.Record;
+import com.lightbox.jmkv.queue.StaticHeap;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * K-way merge of sorted record iterators.
+ * Sources are kept in a heap ordered by current key,
+ * so every record costs O(log k) comparisons.
+ * When several sources have the same key only the record
+ * from the newest source survives
+ */
+public final class MergingIterator implements Iterator<Record> {
+
+    /**
+     * Sources ordered by current key and age.
+     */
+    private final StaticHeap<Source> heap;
+
+    /**
+     * Skip tombstones in output.
+     */
+    private final boolean drop;
+
+    /**
+     * Next record to return.
+     */
+    private Record next;
+
+    /**
+     * Ctor.
+     *
+     * @param sources Sorted iterators, the newest is the first
+     */
+    public MergingIterator(final List<Iterator<Record>> sources) {
+        this(sources, false);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param sources Sorted iterators, the newest is the first
+     * @param drop    Skip tombstones, only safe if there is nothing
+     *                older than given sources
+     */
+    public MergingIterator(
+            final List<Iterator<Record>> sources,
+            final boolean drop
+    ) {
+        this.heap = new StaticHeap<>(
+                Math.max(1, sources.size()),
+                Comparator.<Source>comparingInt(source -> source.current.key())
+                        .thenComparingInt(source -> source.rank)
+        );
+        this.drop = drop;
+        for (int i = 0; i < sources.size(); i++) {
+            final Iterator<Record> iterator = sources.get(i);
+            if (iterator.hasNext()) {
+                this.heap.add(new Source(iterator, i));
+            }
+        }
+        this.advance();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return this.next != null;
+    }
+
+    @Override
+    public Record next() {
+        if (this.next == null) {
+            throw new NoSuchElementException("Sources are over");
+        }
+        final Record record = this.next;
+        this.advance();
+        return record;
+    }
+
+    /**
+     * Find next record to return.
+     */
+    private void advance() {
+        this.next = null;
+        while (this.next == null && !this.heap.empty()) {
+            final Record newest = this.pop();
+            while (!this.heap.empty()
+                    && this.heap.peek().current.key() == newest.key()) {
+                this.pop();
+            }
+            if (!this.drop || !newest.tombstone()) {
+                this.next = newest;
+            }
+        }
+    }
+
+    /**
+     * Take current record of the top source and move that source forward.
+     *
+     * @return Record
+     */
+    private Record pop() {
+        final Source top = this.heap.peek();
+        final Record record = top.current;
+        if (top.iterator.hasNext()) {
+            top.current = top.iterator.next();
+            this.heap.replaceTop(top);
+        } else {
+            this.heap.poll();
+        }
+        return record;
+    }
+
+    /**
+     * Iterator with its current record.
+     */
+    private static final class Source {
+
+        /**
+         * Iterator.
+         */
+        private final Iterator<Record> iterator;
+
+        /**
+         * Age of source, lower is newer.
+         */
+        private final int rank;
+
+        /**
+         * Current record.
+         */
+        private Record current;
+
+        /**
+         * Ctor.
+         *
+         * @param iterator Not empty iterator
+         * @param rank     Age of source
+         */
+        Source(final Iterator<Record> iterator, final int rank) {
+            this.iterator = iterator;
+            this.rank = rank;
+            this.current = iterator.next();
+        }
+    }
+}
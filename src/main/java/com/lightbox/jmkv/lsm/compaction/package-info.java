@@ -0,0 +1,4 @@
+/**
+ * Package with leveled compaction of sorted tables.
+ */
+package com.lightbox.jmkv.lsm.compaction;
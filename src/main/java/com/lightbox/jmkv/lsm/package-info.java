@@ -0,0 +1,4 @@
+/**
+ * Package with Log-structured merge tree implementation.
+ */
+package com.lightbox.jmkv.lsm;
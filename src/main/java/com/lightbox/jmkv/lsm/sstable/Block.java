@@ -0,0 +1,156 @@
+package com.lightbox.jmkv.lsm.sstable;
+
+import com.lightbox.jmkv.lsm.Record;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Data block of table.
+ * Layout:
+ * entry* | entry offset(4)* | amount of entries(4)
+ * entry: key(4) | value length(4), -1 for tombstone | value utf-8
+ * Offsets allow binary search without decoding the whole block
+ */
+public final class Block implements Iterable<Record> {
+
+    /**
+     * Value length of tombstone.
+     */
+    static final int TOMBSTONE = -1;
+
+    /**
+     * Block content.
+     */
+    private final ByteBuffer content;
+
+    /**
+     * Amount of entries.
+     */
+    private final int count;
+
+    /**
+     * Position of offsets array.
+     */
+    private final int offsets;
+
+    /**
+     * Ctor.
+     *
+     * @param content Block content without checksum
+     */
+    public Block(final ByteBuffer content) {
+        this.content = content;
+        this.count = content.getInt(content.limit() - Integer.BYTES);
+        this.offsets = content.limit() - Integer.BYTES * (this.count + 1);
+    }
+
+    /**
+     * Amount of entries.
+     *
+     * @return Amount of entries
+     */
+    public int count() {
+        return this.count;
+    }
+
+    /**
+     * Size of block content.
+     *
+     * @return Size in bytes
+     */
+    public int bytes() {
+        return this.content.limit();
+    }
+
+    /**
+     * Key of entry.
+     *
+     * @param index Index of entry
+     * @return Key
+     */
+    public int key(final int index) {
+        return this.content.getInt(this.offset(index));
+    }
+
+    /**
+     * Decode entry.
+     *
+     * @param index Index of entry
+     * @return Record
+     */
+    public Record record(final int index) {
+        final int offset = this.offset(index);
+        final int key = this.content.getInt(offset);
+        final int length = this.content.getInt(offset + Integer.BYTES);
+        final Record record;
+        if (length == TOMBSTONE) {
+            record = new Record(key);
+        } else {
+            final byte[] value = new byte[length];
+            final ByteBuffer view = this.content.duplicate();
+            view.position(offset + Integer.BYTES * 2);
+            view.get(value);
+            record = new Record(
+                    key,
+                    new String(value, StandardCharsets.UTF_8)
+            );
+        }
+        return record;
+    }
+
+    /**
+     * Search record by key.
+     *
+     * @param key Key
+     * @return Record or null if block doesn't contain key
+     */
+    public Record find(final int key) {
+        int low = 0;
+        int high = this.count - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int midVal = this.key(mid);
+            if (midVal < key) {
+                low = mid + 1;
+            } else if (midVal > key) {
+                high = mid - 1;
+            } else {
+                return this.record(mid);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public Iterator<Record> iterator() {
+        return new Iterator<Record>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return this.next < Block.this.count;
+            }
+
+            @Override
+            public Record next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException("Block is over");
+                }
+                return Block.this.record(this.next++);
+            }
+        };
+    }
+
+    /**
+     * Offset of entry.
+     *
+     * @param index Index of entry
+     * @return Offset inside content
+     */
+    private int offset(final int index) {
+        return this.content.getInt(this.offsets + index * Integer.BYTES);
+    }
+}
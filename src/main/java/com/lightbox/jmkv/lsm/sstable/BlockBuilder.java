@@ -0,0 +1,120 @@
+package com.lightbox.jmkv.lsm.sstable;
+
+import com.lightbox.jmkv.lsm.Record;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Accumulate records in format of {@link Block}.
+ */
+final class BlockBuilder {
+
+    /**
+     * Initial capacity of offsets.
+     */
+    private static final int OFFSETS = 64;
+
+    /**
+     * Entries.
+     */
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    /**
+     * Writer of entries.
+     */
+    private final DataOutputStream out = new DataOutputStream(this.bytes);
+
+    /**
+     * Offsets of entries.
+     */
+    private int[] offsets = new int[OFFSETS];
+
+    /**
+     * Amount of entries.
+     */
+    private int count;
+
+    /**
+     * Key of the last added record.
+     */
+    private int last;
+
+    /**
+     * Add record.
+     * Records have to be added in ascending key order
+     *
+     * @param record Record
+     */
+    void add(final Record record) {
+        if (this.count == this.offsets.length) {
+            this.offsets = Arrays.copyOf(this.offsets, this.count << 1);
+        }
+        this.offsets[this.count++] = this.bytes.size();
+        this.last = record.key();
+        try {
+            this.out.writeInt(record.key());
+            if (record.tombstone()) {
+                this.out.writeInt(Block.TOMBSTONE);
+            } else {
+                final byte[] value =
+                        record.value().getBytes(StandardCharsets.UTF_8);
+                this.out.writeInt(value.length);
+                this.out.write(value);
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Check that builder doesn't have records.
+     *
+     * @return True if empty
+     */
+    boolean empty() {
+        return this.count == 0;
+    }
+
+    /**
+     * Key of the last record.
+     *
+     * @return Key
+     */
+    int lastKey() {
+        return this.last;
+    }
+
+    /**
+     * Estimated size of finished block.
+     *
+     * @return Size in bytes
+     */
+    int estimate() {
+        return this.bytes.size() + Integer.BYTES * (this.count + 1);
+    }
+
+    /**
+     * Finish block and reset builder.
+     *
+     * @return Block content
+     */
+    byte[] finish() {
+        try {
+            for (int i = 0; i < this.count; i++) {
+                this.out.writeInt(this.offsets[i]);
+            }
+            this.out.writeInt(this.count);
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        final byte[] block = this.bytes.toByteArray();
+        this.bytes.reset();
+        this.count = 0;
+        return block;
+    }
+}
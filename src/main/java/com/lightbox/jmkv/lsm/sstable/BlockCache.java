@@ -0,0 +1,463 @@
+package com.lightbox.jmkv.lsm.sstable;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LRU cache of decoded data blocks shared by tables.
+ * Capacity is a budget in bytes of block content,
+ * it's split between shards and every shard has its own lock,
+ * so concurrent lookups of different blocks rarely wait for each other.
+ * Index and filter blocks stay decoded in their table while it's open,
+ * the cache charges them to the same budget as pinned blocks, which
+ * push data blocks out and are never evicted themselves.
+ * Pinned blocks of many tables may take the whole budget, then data
+ * blocks are not cached and memory is above capacity by pinned bytes
+ */
+public final class BlockCache {
+
+    /**
+     * Default amount of shards.
+     */
+    public static final int SHARDS = 16;
+
+    /**
+     * Approximate memory used by cache entry besides block content.
+     */
+    static final int ENTRY_OVERHEAD = 96;
+
+    /**
+     * Shards, block goes to shard by hash of its key.
+     */
+    private final Shard[] shards;
+
+    /**
+     * Capacity in bytes.
+     */
+    private final long capacity;
+
+    /**
+     * Lookups that found block.
+     */
+    private final LongAdder hits = new LongAdder();
+
+    /**
+     * Lookups that didn't find block.
+     */
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Blocks removed to fit capacity.
+     */
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Ctor.
+     *
+     * @param capacity Capacity in bytes, zero disables cache
+     */
+    public BlockCache(final long capacity) {
+        this(capacity, SHARDS);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param capacity Capacity in bytes, zero disables cache
+     * @param shards   Amount of shards
+     */
+    public BlockCache(final long capacity, final int shards) {
+        if (capacity < 0L || shards <= 0) {
+            throw new IllegalArgumentException(
+                    String.format(
+                            "Wrong capacity %d or amount of shards %d",
+                            capacity,
+                            shards
+                    )
+            );
+        }
+        this.capacity = capacity;
+        this.shards = new Shard[shards];
+        for (int i = 0; i < shards; i++) {
+            this.shards[i] = new Shard(
+                    capacity / shards + (i < capacity % shards ? 1 : 0)
+            );
+        }
+    }
+
+    /**
+     * Search block.
+     *
+     * @param table  Id of table
+     * @param offset Offset of block in table file
+     * @return Block or null
+     */
+    public Block get(final long table, final long offset) {
+        final Key key = new Key(table, offset);
+        final Block block = this.shard(key).get(key);
+        if (block == null) {
+            this.misses.increment();
+        } else {
+            this.hits.increment();
+        }
+        return block;
+    }
+
+    /**
+     * Put block evicting least recently used blocks of its shard.
+     * Block bigger than shard capacity is not cached
+     *
+     * @param table  Id of table
+     * @param offset Offset of block in table file
+     * @param block  Block
+     */
+    public void put(final long table, final long offset, final Block block) {
+        final Key key = new Key(table, offset);
+        this.evictions.add(this.shard(key).put(key, block));
+    }
+
+    /**
+     * Charge block that table keeps in memory while it's open.
+     * Least recently used data blocks are evicted to fit capacity
+     *
+     * @param table  Id of table
+     * @param offset Offset of block in table file
+     * @param bytes  Size of block
+     */
+    public void pin(final long table, final long offset, final int bytes) {
+        final Key key = new Key(table, offset);
+        this.evictions.add(
+                this.shard(key).pin(key, (long) bytes + ENTRY_OVERHEAD)
+        );
+    }
+
+    /**
+     * Drop all blocks of table, pinned ones too.
+     * Table is closed, so its blocks won't be read again
+     *
+     * @param table Id of table
+     * @return Amount of dropped data blocks
+     */
+    public int evict(final long table) {
+        int dropped = 0;
+        for (final Shard shard : this.shards) {
+            dropped += shard.evict(table);
+        }
+        return dropped;
+    }
+
+    /**
+     * Capacity.
+     *
+     * @return Capacity in bytes
+     */
+    public long capacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Memory used by cached and pinned blocks.
+     *
+     * @return Bytes
+     */
+    public long bytes() {
+        long bytes = 0L;
+        for (final Shard shard : this.shards) {
+            bytes += shard.bytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Memory used by pinned blocks.
+     *
+     * @return Bytes
+     */
+    public long pinned() {
+        long bytes = 0L;
+        for (final Shard shard : this.shards) {
+            bytes += shard.pinned();
+        }
+        return bytes;
+    }
+
+    /**
+     * Lookups that found block.
+     *
+     * @return Amount of hits
+     */
+    public long hits() {
+        return this.hits.sum();
+    }
+
+    /**
+     * Lookups that didn't find block.
+     *
+     * @return Amount of misses
+     */
+    public long misses() {
+        return this.misses.sum();
+    }
+
+    /**
+     * Blocks removed to fit capacity.
+     *
+     * @return Amount of evictions
+     */
+    public long evictions() {
+        return this.evictions.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "bytes=%d/%d pinned=%d hits=%d misses=%d evictions=%d",
+                this.bytes(),
+                this.capacity,
+                this.pinned(),
+                this.hits(),
+                this.misses(),
+                this.evictions()
+        );
+    }
+
+    /**
+     * Shard of key.
+     *
+     * @param key Key
+     * @return Shard
+     */
+    private Shard shard(final Key key) {
+        final int hash = BloomFilter.hash(key.hashCode());
+        return this.shards[Math.floorMod(hash, this.shards.length)];
+    }
+
+    /**
+     * Memory charged for block.
+     *
+     * @param block Block
+     * @return Bytes
+     */
+    private static long charge(final Block block) {
+        return (long) block.bytes() + ENTRY_OVERHEAD;
+    }
+
+    /**
+     * Part of cache with its own lock.
+     */
+    private static final class Shard {
+
+        /**
+         * Blocks in access order, the least recently used is the first.
+         */
+        private final Map<Key, Block> blocks =
+                new LinkedHashMap<>(16, 0.75f, true);
+
+        /**
+         * Charges of pinned blocks.
+         */
+        private final Map<Key, Long> pins = new HashMap<>(0);
+
+        /**
+         * Capacity in bytes.
+         */
+        private final long capacity;
+
+        /**
+         * Lock that guards blocks and usage.
+         */
+        private final Object lock = new Object();
+
+        /**
+         * Memory used by blocks, pinned ones too.
+         */
+        private long usage;
+
+        /**
+         * Memory used by pinned blocks.
+         */
+        private long reserved;
+
+        /**
+         * Ctor.
+         *
+         * @param capacity Capacity in bytes
+         */
+        Shard(final long capacity) {
+            this.capacity = capacity;
+        }
+
+        /**
+         * Search block and mark it as recently used.
+         *
+         * @param key Key
+         * @return Block or null
+         */
+        Block get(final Key key) {
+            synchronized (this.lock) {
+                return this.blocks.get(key);
+            }
+        }
+
+        /**
+         * Put block and evict least recently used ones.
+         *
+         * @param key   Key
+         * @param block Block
+         * @return Amount of evicted blocks
+         */
+        int put(final Key key, final Block block) {
+            final long charge = BlockCache.charge(block);
+            int evicted = 0;
+            synchronized (this.lock) {
+                if (charge <= this.capacity - this.reserved) {
+                    final Block previous = this.blocks.put(key, block);
+                    if (previous != null) {
+                        this.usage -= BlockCache.charge(previous);
+                    }
+                    this.usage += charge;
+                    evicted = this.trim();
+                }
+            }
+            return evicted;
+        }
+
+        /**
+         * Charge pinned block and evict least recently used ones.
+         *
+         * @param key    Key
+         * @param charge Memory used by block
+         * @return Amount of evicted blocks
+         */
+        int pin(final Key key, final long charge) {
+            synchronized (this.lock) {
+                final Long previous = this.pins.put(key, charge);
+                if (previous != null) {
+                    this.usage -= previous;
+                    this.reserved -= previous;
+                }
+                this.usage += charge;
+                this.reserved += charge;
+                return this.trim();
+            }
+        }
+
+        /**
+         * Evict least recently used blocks until shard fits capacity
+         * or only pinned blocks are left.
+         * Must be called under lock
+         *
+         * @return Amount of evicted blocks
+         */
+        private int trim() {
+            int evicted = 0;
+            final Iterator<Block> eldest = this.blocks.values().iterator();
+            while (this.usage > this.capacity && eldest.hasNext()) {
+                this.usage -= BlockCache.charge(eldest.next());
+                eldest.remove();
+                evicted++;
+            }
+            return evicted;
+        }
+
+        /**
+         * Remove all blocks of table.
+         *
+         * @param table Id of table
+         * @return Amount of removed blocks
+         */
+        int evict(final long table) {
+            int removed = 0;
+            synchronized (this.lock) {
+                final Iterator<Map.Entry<Key, Block>> entries =
+                        this.blocks.entrySet().iterator();
+                while (entries.hasNext()) {
+                    final Map.Entry<Key, Block> entry = entries.next();
+                    if (entry.getKey().table == table) {
+                        this.usage -= BlockCache.charge(entry.getValue());
+                        entries.remove();
+                        removed++;
+                    }
+                }
+                final Iterator<Map.Entry<Key, Long>> pinned =
+                        this.pins.entrySet().iterator();
+                while (pinned.hasNext()) {
+                    final Map.Entry<Key, Long> entry = pinned.next();
+                    if (entry.getKey().table == table) {
+                        this.usage -= entry.getValue();
+                        this.reserved -= entry.getValue();
+                        pinned.remove();
+                    }
+                }
+            }
+            return removed;
+        }
+
+        /**
+         * Memory used by blocks, pinned ones too.
+         *
+         * @return Bytes
+         */
+        long bytes() {
+            synchronized (this.lock) {
+                return this.usage;
+            }
+        }
+
+        /**
+         * Memory used by pinned blocks.
+         *
+         * @return Bytes
+         */
+        long pinned() {
+            synchronized (this.lock) {
+                return this.reserved;
+            }
+        }
+    }
+
+    /**
+     * Block address.
+     */
+    private static final class Key {
+
+        /**
+         * Id of table.
+         */
+        private final long table;
+
+        /**
+         * Offset of block.
+         */
+        private final long offset;
+
+        /**
+         * Ctor.
+         *
+         * @param table  Id of table
+         * @param offset Offset of block
+         */
+        Key(final long table, final long offset) {
+            this.table = table;
+            this.offset = offset;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            boolean equal = this == other;
+            if (!equal && other instanceof Key) {
+                final Key key = (Key) other;
+                equal = this.table == key.table && this.offset == key.offset;
+            }
+            return equal;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(this.table * 31L + this.offset);
+        }
+    }
+}
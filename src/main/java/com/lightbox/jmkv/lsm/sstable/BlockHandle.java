@@ -0,0 +1,46 @@
+package com.lightbox.jmkv.lsm.sstable;
+
+/**
+ * Position of block inside table file.
+ */
+public final class BlockHandle {
+
+    /**
+     * Offset of the first byte of block.
+     */
+    private final long offset;
+
+    /**
+     * Size of block without checksum.
+     */
+    private final int size;
+
+    /**
+     * Ctor.
+     *
+     * @param offset Offset of block
+     * @param size   Size of block
+     */
+    public BlockHandle(final long offset, final int size) {
+        this.offset = offset;
+        this.size = size;
+    }
+
+    /**
+     * Offset of block.
+     *
+     * @return Offset in bytes
+     */
+    public long offset() {
+        return this.offset;
+    }
+
+    /**
+     * Size of block.
+     *
+     * @return Size in bytes
+     */
+    public int size() {
+        return this.size;
+    }
+}
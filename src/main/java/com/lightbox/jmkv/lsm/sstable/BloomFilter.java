@@ -0,0 +1,99 @@
+package com.lightbox.jmkv.lsm.sstable;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Bloom filter over keys of one table.
+ * Layout:
+ * bits | amount of probes(1)
+ * Every key sets k bits chosen by double hashing,
+ * key is absent for sure if any of its bits is not set.
+ * Empty filter answers that every key may be present
+ */
+final class BloomFilter {
+
+    /**
+     * Default amount of filter bits per key, about 1% false positives.
+     */
+    static final int BITS_PER_KEY = 10;
+
+    /**
+     * Filter content.
+     */
+    private final ByteBuffer content;
+
+    /**
+     * Amount of bits.
+     */
+    private final int bits;
+
+    /**
+     * Amount of probes per key.
+     */
+    private final int probes;
+
+    /**
+     * Ctor.
+     *
+     * @param content Encoded filter, may be empty
+     */
+    BloomFilter(final ByteBuffer content) {
+        this.content = content;
+        if (content.remaining() > 1) {
+            this.bits = (content.remaining() - 1) * Byte.SIZE;
+            this.probes = content.get(content.limit() - 1);
+        } else {
+            this.bits = 0;
+            this.probes = 0;
+        }
+    }
+
+    /**
+     * Check key.
+     *
+     * @param key Key
+     * @return False if key is not in table for sure
+     */
+    boolean mayContain(final int key) {
+        boolean contains = true;
+        if (this.bits > 0) {
+            int hash = BloomFilter.hash(key);
+            final int delta = BloomFilter.delta(hash);
+            for (int i = 0; contains && i < this.probes; i++) {
+                final int bit = Integer.remainderUnsigned(hash, this.bits);
+                contains = (this.content.get(
+                        this.content.position() + (bit >>> 3)
+                ) & (1 << (bit & 7))) != 0;
+                hash += delta;
+            }
+        }
+        return contains;
+    }
+
+    /**
+     * First probe of key.
+     * Finalizer of murmur3, it spreads sequential keys over all bits
+     *
+     * @param key Key
+     * @return Hash
+     */
+    static int hash(final int key) {
+        int hash = key;
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    /**
+     * Distance between probes of key.
+     *
+     * @param hash First probe
+     * @return Delta
+     */
+    static int delta(final int hash) {
+        return Integer.rotateRight(hash, 17);
+    }
+}
@@ -0,0 +1,114 @@
+package com.lightbox.jmkv.lsm.sstable;
+
+import java.util.Arrays;
+
+/**
+ * Accumulate keys and build {@link BloomFilter}.
+ */
+final class FilterBuilder {
+
+    /**
+     * Initial capacity of keys.
+     */
+    private static final int KEYS = 256;
+
+    /**
+     * Lower bound of filter size, small filters have high false positive
+     * rate.
+     */
+    private static final int MIN_BYTES = 8;
+
+    /**
+     * Upper bound of filter size.
+     */
+    private static final int MAX_BYTES = Integer.MAX_VALUE / Byte.SIZE;
+
+    /**
+     * Upper bound of probes per key.
+     */
+    private static final int MAX_PROBES = 30;
+
+    /**
+     * Filter bits per key, zero disables filter.
+     */
+    private final int bitsPerKey;
+
+    /**
+     * Added keys.
+     */
+    private int[] keys = new int[KEYS];
+
+    /**
+     * Amount of keys.
+     */
+    private int count;
+
+    /**
+     * Ctor.
+     *
+     * @param bitsPerKey Filter bits per key, zero disables filter
+     */
+    FilterBuilder(final int bitsPerKey) {
+        if (bitsPerKey < 0) {
+            throw new IllegalArgumentException(
+                    String.format("Negative bits per key %d", bitsPerKey)
+            );
+        }
+        this.bitsPerKey = bitsPerKey;
+    }
+
+    /**
+     * Add key.
+     *
+     * @param key Key
+     */
+    void add(final int key) {
+        if (this.bitsPerKey > 0) {
+            if (this.count == this.keys.length) {
+                this.keys = Arrays.copyOf(this.keys, this.count << 1);
+            }
+            this.keys[this.count++] = key;
+        }
+    }
+
+    /**
+     * Encode filter.
+     * Amount of probes is bits per key * ln(2)
+     * which minimizes false positive rate
+     *
+     * @return Filter content, empty if filter is disabled
+     */
+    byte[] finish() {
+        final byte[] content;
+        if (this.bitsPerKey == 0 || this.count == 0) {
+            content = new byte[0];
+        } else {
+            final int bytes = (int) Math.max(
+                    MIN_BYTES,
+                    Math.min(
+                            MAX_BYTES,
+                            ((long) this.count * this.bitsPerKey + 7L) >>> 3
+                    )
+            );
+            final int bits = bytes * Byte.SIZE;
+            content = new byte[bytes + 1];
+            content[bytes] = (byte) Math.max(
+                    1,
+                    Math.min(
+                            MAX_PROBES,
+                            (int) Math.round(this.bitsPerKey * Math.log(2))
+                    )
+            );
+            for (int i = 0; i < this.count; i++) {
+                int hash = BloomFilter.hash(this.keys[i]);
+                final int delta = BloomFilter.delta(hash);
+                for (int probe = 0; probe < content[bytes]; probe++) {
+                    final int bit = Integer.remainderUnsigned(hash, bits);
+                    content[bit >>> 3] |= (byte) (1 << (bit & 7));
+                    hash += delta;
+                }
+            }
+        }
+        return content;
+    }
+}
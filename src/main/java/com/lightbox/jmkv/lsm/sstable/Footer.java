@@ -0,0 +1,139 @@
+package com.lightbox.jmkv.lsm.sstable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed size tail of table file.
+ * Layout:
+ * index offset(8) | index size(4) | filter offset(8) | filter size(4)
+ * | entries(8) | smallest key(4) | magic(8)
+ */
+final class Footer {
+
+    /**
+     * Size of encoded footer.
+     */
+    static final int SIZE = 44;
+
+    /**
+     * Magic number that ends every table.
+     */
+    private static final long MAGIC = 0x6a6d6b7673737402L;
+
+    /**
+     * Handle of index block.
+     */
+    private final BlockHandle index;
+
+    /**
+     * Handle of filter block.
+     */
+    private final BlockHandle filter;
+
+    /**
+     * Amount of records.
+     */
+    private final long entries;
+
+    /**
+     * The smallest key.
+     */
+    private final int smallest;
+
+    /**
+     * Ctor.
+     *
+     * @param index    Handle of index block
+     * @param filter   Handle of filter block
+     * @param entries  Amount of records
+     * @param smallest The smallest key
+     */
+    Footer(
+            final BlockHandle index,
+            final BlockHandle filter,
+            final long entries,
+            final int smallest
+    ) {
+        this.index = index;
+        this.filter = filter;
+        this.entries = entries;
+        this.smallest = smallest;
+    }
+
+    /**
+     * Ctor.
+     * Decode footer
+     *
+     * @param buffer Buffer with footer
+     * @throws IOException if buffer is not a footer
+     */
+    Footer(final ByteBuffer buffer) throws IOException {
+        this(
+                new BlockHandle(buffer.getLong(0), buffer.getInt(Long.BYTES)),
+                new BlockHandle(
+                        buffer.getLong(Long.BYTES + Integer.BYTES),
+                        buffer.getInt(Long.BYTES * 2 + Integer.BYTES)
+                ),
+                buffer.getLong((Long.BYTES + Integer.BYTES) * 2),
+                buffer.getInt(Long.BYTES * 3 + Integer.BYTES * 2)
+        );
+        if (buffer.getLong(SIZE - Long.BYTES) != MAGIC) {
+            throw new IOException("Not a table file, magic doesn't match");
+        }
+    }
+
+    /**
+     * Handle of index block.
+     *
+     * @return Handle
+     */
+    BlockHandle index() {
+        return this.index;
+    }
+
+    /**
+     * Handle of filter block.
+     *
+     * @return Handle
+     */
+    BlockHandle filter() {
+        return this.filter;
+    }
+
+    /**
+     * Amount of records.
+     *
+     * @return Amount of records
+     */
+    long entries() {
+        return this.entries;
+    }
+
+    /**
+     * The smallest key.
+     *
+     * @return Key
+     */
+    int smallest() {
+        return this.smallest;
+    }
+
+    /**
+     * Encode footer.
+     *
+     * @return Buffer ready for write
+     */
+    ByteBuffer encode() {
+        final ByteBuffer buffer = ByteBuffer.allocate(SIZE);
+        buffer.putLong(this.index.offset());
+        buffer.putInt(this.index.size());
+        buffer.putLong(this.filter.offset());
+        buffer.putInt(this.filter.size());
+        buffer.putLong(this.entries);
+        buffer.putInt(this.smallest);
+        buffer.putLong(MAGIC);
+        buffer.flip();
+        return buffer;
+    }
+}
@@ -0,0 +1,317 @@
+package com.lightbox.jmkv.lsm.sstable;
+
+import com.lightbox.jmkv.lsm.Record;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Immutable sorted table opened for reads.
+ * Open reads only footer, filter and index, point lookup
+ * reads at most one data block and none if filter rejects the key.
+ * Filter and index stay in memory until close and are charged
+ * to block cache as pinned blocks.
+ * Blocks read by lookups go to block cache,
+ * iteration reads blocks directly so scans don't evict hot blocks
+ */
+public final class SsTable implements Closeable, Iterable<Record> {
+
+    /**
+     * Source of table ids.
+     */
+    private static final AtomicLong IDS = new AtomicLong();
+
+    /**
+     * Id of opened table, key of its blocks in cache.
+     */
+    private final long id = IDS.incrementAndGet();
+
+    /**
+     * Path of table file.
+     */
+    private final Path file;
+
+    /**
+     * Table file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Footer.
+     */
+    private final Footer footer;
+
+    /**
+     * Index of data blocks.
+     */
+    private final TableIndex index;
+
+    /**
+     * Bloom filter of keys.
+     */
+    private final BloomFilter filter;
+
+    /**
+     * Cache of data blocks.
+     */
+    private final BlockCache cache;
+
+    /**
+     * Ctor.
+     * Table doesn't cache blocks
+     *
+     * @param file Path of table
+     * @throws IOException if failed
+     */
+    public SsTable(final Path file) throws IOException {
+        this(file, new BlockCache(0L, 1));
+    }
+
+    /**
+     * Ctor.
+     * File is closed if table can't be opened
+     *
+     * @param file  Path of table
+     * @param cache Cache of data blocks
+     * @throws IOException if failed
+     */
+    public SsTable(final Path file, final BlockCache cache) throws IOException {
+        this.file = file;
+        this.cache = cache;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        boolean opened = false;
+        try {
+            final long size = this.channel.size();
+            if (size < Footer.SIZE) {
+                throw new IOException(
+                        String.format("Table %s is too small", file)
+                );
+            }
+            final ByteBuffer tail = ByteBuffer.allocate(Footer.SIZE);
+            this.read(tail, size - Footer.SIZE);
+            this.footer = new Footer(tail);
+            this.index = new TableIndex(this.block(this.footer.index()));
+            this.filter = new BloomFilter(this.block(this.footer.filter()));
+            cache.pin(
+                    this.id,
+                    this.footer.index().offset(),
+                    this.footer.index().size()
+            );
+            cache.pin(
+                    this.id,
+                    this.footer.filter().offset(),
+                    this.footer.filter().size()
+            );
+            opened = true;
+        } finally {
+            if (!opened) {
+                this.channel.close();
+            }
+        }
+    }
+
+    /**
+     * Path of table file.
+     *
+     * @return Path
+     */
+    public Path file() {
+        return this.file;
+    }
+
+    /**
+     * Search record by key.
+     *
+     * @param key Key
+     * @return Record, tombstone or null if table doesn't contain key
+     * @throws IOException if failed
+     */
+    public Record get(final int key) throws IOException {
+        final Record record;
+        if (!this.mayContain(key)) {
+            record = null;
+        } else {
+            final BlockHandle handle =
+                    this.index.handle(this.index.block(key));
+            Block block = this.cache.get(this.id, handle.offset());
+            if (block == null) {
+                block = new Block(this.block(handle));
+                this.cache.put(this.id, handle.offset(), block);
+            }
+            record = block.find(key);
+        }
+        return record;
+    }
+
+    /**
+     * Check key without reading data blocks.
+     *
+     * @param key Key
+     * @return False if table doesn't contain key for sure
+     */
+    public boolean mayContain(final int key) {
+        return this.footer.entries() > 0L
+                && key >= this.smallest() && key <= this.largest()
+                && this.filter.mayContain(key);
+    }
+
+    /**
+     * Amount of records including tombstones.
+     *
+     * @return Amount of records
+     */
+    public long entries() {
+        return this.footer.entries();
+    }
+
+    /**
+     * Id of table, key of its blocks in cache.
+     *
+     * @return Id
+     */
+    public long id() {
+        return this.id;
+    }
+
+    /**
+     * The smallest key of table.
+     *
+     * @return Key
+     */
+    public int smallest() {
+        return this.footer.smallest();
+    }
+
+    /**
+     * The largest key of table.
+     *
+     * @return Key
+     * @throws java.util.NoSuchElementException if table is empty
+     */
+    public int largest() {
+        return this.index.lastKey();
+    }
+
+    /**
+     * Size of table file.
+     *
+     * @return Size in bytes
+     * @throws IOException if failed
+     */
+    public long bytes() throws IOException {
+        return this.channel.size();
+    }
+
+    /**
+     * Iterate over records in key order.
+     * Reads data blocks one by one
+     *
+     * @return Iterator
+     */
+    @Override
+    public Iterator<Record> iterator() {
+        return new Iterator<Record>() {
+            private int next;
+
+            private Iterator<Record> current = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!this.current.hasNext()
+                        && this.next < SsTable.this.index.blocks()) {
+                    this.current = SsTable.this.data(this.next++).iterator();
+                }
+                return this.current.hasNext();
+            }
+
+            @Override
+            public Record next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException("Table is over");
+                }
+                return this.current.next();
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+        this.cache.evict(this.id);
+    }
+
+    /**
+     * Read data block by index.
+     *
+     * @param block Index of block
+     * @return Block
+     */
+    private Block data(final int block) {
+        try {
+            return new Block(this.block(this.index.handle(block)));
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Read block and verify its checksum.
+     *
+     * @param handle Handle of block
+     * @return Block content
+     * @throws IOException if failed or checksum doesn't match
+     */
+    private ByteBuffer block(final BlockHandle handle) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(
+                handle.size() + SsTableWriter.CHECKSUM
+        );
+        this.read(buffer, handle.offset());
+        final CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, handle.size());
+        if ((int) crc.getValue() != buffer.getInt(handle.size())) {
+            throw new IOException(
+                    String.format(
+                            "Corrupted block at %d in %s",
+                            handle.offset(),
+                            this.file
+                    )
+            );
+        }
+        buffer.flip();
+        buffer.limit(handle.size());
+        return buffer;
+    }
+
+    /**
+     * Fill buffer from given file position.
+     *
+     * @param buffer   Buffer to fill
+     * @param position File position
+     * @throws IOException if failed
+     */
+    private void read(
+            final ByteBuffer buffer,
+            final long position
+    ) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            final int read = this.channel.read(buffer, offset);
+            if (read < 0) {
+                throw new IOException(
+                        String.format("Unexpected end of %s", this.file)
+                );
+            }
+            offset += read;
+        }
+    }
+}
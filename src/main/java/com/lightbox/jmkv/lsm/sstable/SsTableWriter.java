@@ -0,0 +1,296 @@
+package com.lightbox.jmkv.lsm.sstable;
+
+import com.lightbox.jmkv.lsm.Record;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Write sorted records to a new table file.
+ * File layout:
+ * data block* | filter block | index block | footer
+ * Every block is followed by crc32 of its content.
+ * Close finishes table, unless add failed or writer was aborted,
+ * then partial file is deleted instead
+ */
+public final class SsTableWriter implements Closeable {
+
+    /**
+     * Default size of data block.
+     */
+    public static final int BLOCK_SIZE = 4096;
+
+    /**
+     * Size of block checksum.
+     */
+    static final int CHECKSUM = Integer.BYTES;
+
+    /**
+     * Path of table.
+     */
+    private final Path file;
+
+    /**
+     * Table file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Target size of data block.
+     */
+    private final int blockSize;
+
+    /**
+     * Current data block.
+     */
+    private final BlockBuilder block = new BlockBuilder();
+
+    /**
+     * Index of written blocks.
+     */
+    private final TableIndex index = new TableIndex();
+
+    /**
+     * Bloom filter of keys.
+     */
+    private final FilterBuilder filter;
+
+    /**
+     * Amount of written records.
+     */
+    private long entries;
+
+    /**
+     * The smallest key.
+     */
+    private int smallest;
+
+    /**
+     * True after finish.
+     */
+    private boolean finished;
+
+    /**
+     * True after failed add or abort.
+     */
+    private boolean failed;
+
+    /**
+     * Ctor.
+     *
+     * @param file Path of new table
+     * @throws IOException if failed
+     */
+    public SsTableWriter(final Path file) throws IOException {
+        this(file, BLOCK_SIZE);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param file      Path of new table
+     * @param blockSize Target size of data block
+     * @throws IOException if failed
+     */
+    public SsTableWriter(
+            final Path file,
+            final int blockSize
+    ) throws IOException {
+        this(file, blockSize, BloomFilter.BITS_PER_KEY);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param file       Path of new table
+     * @param blockSize  Target size of data block
+     * @param bitsPerKey Bloom filter bits per key, zero disables filter
+     * @throws IOException if failed
+     */
+    public SsTableWriter(
+            final Path file,
+            final int blockSize,
+            final int bitsPerKey
+    ) throws IOException {
+        this.filter = new FilterBuilder(bitsPerKey);
+        this.file = file;
+        this.channel = FileChannel.open(
+                file,
+                StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE
+        );
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * Add record.
+     * Records have to be added in strictly ascending key order
+     *
+     * @param record Record or tombstone
+     * @throws IOException if failed
+     */
+    public void add(final Record record) throws IOException {
+        this.check();
+        boolean added = false;
+        try {
+            if (this.entries == 0L) {
+                this.smallest = record.key();
+            } else if (record.key() <= this.lastKey()) {
+                throw new IllegalArgumentException(
+                        String.format(
+                                "Key %d is not bigger than previous key %d",
+                                record.key(),
+                                this.lastKey()
+                        )
+                );
+            }
+            this.block.add(record);
+            this.filter.add(record.key());
+            this.entries++;
+            if (this.block.estimate() >= this.blockSize) {
+                this.flushBlock();
+            }
+            added = true;
+        } finally {
+            if (!added) {
+                this.failed = true;
+            }
+        }
+    }
+
+    /**
+     * Drop table.
+     * Nothing else is written and close deletes partial file
+     */
+    public void abort() {
+        this.failed = true;
+    }
+
+    /**
+     * Amount of added records.
+     *
+     * @return Amount of records
+     */
+    public long entries() {
+        return this.entries;
+    }
+
+    /**
+     * Approximate size of table written so far.
+     *
+     * @return Size in bytes
+     * @throws IOException if failed
+     */
+    public long bytes() throws IOException {
+        return this.channel.position() + this.block.estimate();
+    }
+
+    /**
+     * Write index and footer and force file to the storage device.
+     *
+     * @throws IOException if failed
+     */
+    public void finish() throws IOException {
+        this.check();
+        if (!this.block.empty()) {
+            this.flushBlock();
+        }
+        final BlockHandle filter = this.write(this.filter.finish());
+        final BlockHandle handle = this.write(this.index.encode());
+        this.write(
+                new Footer(handle, filter, this.entries, this.smallest)
+                        .encode()
+        );
+        this.channel.force(true);
+        this.finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (!this.finished && !this.failed) {
+                this.finish();
+            }
+        } finally {
+            this.channel.close();
+            if (!this.finished) {
+                Files.deleteIfExists(this.file);
+            }
+        }
+    }
+
+    /**
+     * Check that writer can write.
+     */
+    private void check() {
+        if (this.failed) {
+            throw new IllegalStateException(
+                    String.format("Table %s was aborted", this.file)
+            );
+        }
+    }
+
+    /**
+     * Key of the last added record.
+     *
+     * @return Key
+     */
+    private int lastKey() {
+        final int last;
+        if (this.block.empty()) {
+            last = this.index.lastKey();
+        } else {
+            last = this.block.lastKey();
+        }
+        return last;
+    }
+
+    /**
+     * Write current data block and add it to index.
+     *
+     * @throws IOException if failed
+     */
+    private void flushBlock() throws IOException {
+        final int last = this.block.lastKey();
+        this.index.add(last, this.write(this.block.finish()));
+    }
+
+    /**
+     * Write block with checksum.
+     *
+     * @param content Block content
+     * @return Handle of written block
+     * @throws IOException if failed
+     */
+    private BlockHandle write(final byte[] content) throws IOException {
+        final CRC32 crc = new CRC32();
+        crc.update(content, 0, content.length);
+        final ByteBuffer buffer =
+                ByteBuffer.allocate(content.length + CHECKSUM);
+        buffer.put(content);
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+        final BlockHandle handle =
+                new BlockHandle(this.channel.position(), content.length);
+        this.write(buffer);
+        return handle;
+    }
+
+    /**
+     * Write whole buffer.
+     *
+     * @param buffer Buffer
+     * @throws IOException if failed
+     */
+    private void write(final ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            this.channel.write(buffer);
+        }
+    }
+}
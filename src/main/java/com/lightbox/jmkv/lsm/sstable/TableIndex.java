@@ -0,0 +1,164 @@
+package com.lightbox.jmkv.lsm.sstable;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * Index of data blocks.
+ * Keeps the last key and handle of every block,
+ * whole index lives in memory while table is open
+ * Layout of one entry: last key(4) | offset(8) | size(4)
+ */
+final class TableIndex {
+
+    /**
+     * Size of encoded entry.
+     */
+    static final int ENTRY = Integer.BYTES * 2 + Long.BYTES;
+
+    /**
+     * Initial capacity.
+     */
+    private static final int CAPACITY = 16;
+
+    /**
+     * Last key of every block.
+     */
+    private int[] keys;
+
+    /**
+     * Offset of every block.
+     */
+    private long[] offsets;
+
+    /**
+     * Size of every block.
+     */
+    private int[] sizes;
+
+    /**
+     * Amount of blocks.
+     */
+    private int count;
+
+    /**
+     * Ctor for empty index.
+     */
+    TableIndex() {
+        this.keys = new int[CAPACITY];
+        this.offsets = new long[CAPACITY];
+        this.sizes = new int[CAPACITY];
+    }
+
+    /**
+     * Ctor.
+     * Decode index from block content
+     *
+     * @param content Content of index block
+     */
+    TableIndex(final ByteBuffer content) {
+        this.count = content.remaining() / ENTRY;
+        this.keys = new int[this.count];
+        this.offsets = new long[this.count];
+        this.sizes = new int[this.count];
+        for (int i = 0; i < this.count; i++) {
+            this.keys[i] = content.getInt();
+            this.offsets[i] = content.getLong();
+            this.sizes[i] = content.getInt();
+        }
+    }
+
+    /**
+     * Add block.
+     *
+     * @param last   Last key in block
+     * @param handle Handle of block
+     */
+    void add(final int last, final BlockHandle handle) {
+        if (this.count == this.keys.length) {
+            final int capacity = this.count << 1;
+            this.keys = Arrays.copyOf(this.keys, capacity);
+            this.offsets = Arrays.copyOf(this.offsets, capacity);
+            this.sizes = Arrays.copyOf(this.sizes, capacity);
+        }
+        this.keys[this.count] = last;
+        this.offsets[this.count] = handle.offset();
+        this.sizes[this.count] = handle.size();
+        this.count++;
+    }
+
+    /**
+     * Amount of blocks.
+     *
+     * @return Amount of blocks
+     */
+    int blocks() {
+        return this.count;
+    }
+
+    /**
+     * Handle of block.
+     *
+     * @param index Index of block
+     * @return Handle
+     */
+    BlockHandle handle(final int index) {
+        return new BlockHandle(this.offsets[index], this.sizes[index]);
+    }
+
+    /**
+     * The last key of table.
+     *
+     * @return Key
+     * @throws NoSuchElementException if index has no blocks
+     */
+    int lastKey() {
+        if (this.count == 0) {
+            throw new NoSuchElementException("Table has no blocks");
+        }
+        return this.keys[this.count - 1];
+    }
+
+    /**
+     * Find block that may contain given key.
+     * It's the first block whose last key is bigger or equal to key
+     *
+     * @param key Key
+     * @return Index of block or -1 if key is bigger than all keys
+     */
+    int block(final int key) {
+        int low = 0;
+        int high = this.count - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (this.keys[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        final int block;
+        if (low == this.count) {
+            block = -1;
+        } else {
+            block = low;
+        }
+        return block;
+    }
+
+    /**
+     * Encode index.
+     *
+     * @return Index block content
+     */
+    byte[] encode() {
+        final ByteBuffer buffer = ByteBuffer.allocate(this.count * ENTRY);
+        for (int i = 0; i < this.count; i++) {
+            buffer.putInt(this.keys[i]);
+            buffer.putLong(this.offsets[i]);
+            buffer.putInt(this.sizes[i]);
+        }
+        return buffer.array();
+    }
+}
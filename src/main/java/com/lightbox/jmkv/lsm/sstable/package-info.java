@@ -0,0 +1,4 @@
+/**
+ * Package with sorted string table file format.
+ */
+package com.lightbox.jmkv.lsm.sstable;
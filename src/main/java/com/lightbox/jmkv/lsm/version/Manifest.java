@@ -0,0 +1,109 @@
+package com.lightbox.jmkv.lsm.version;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append only log of version edits.
+ * Layout of one entry:
+ * crc(4) | edit length(4) | edit
+ * Every append is forced to the storage device before
+ * the edit is applied, torn edit at the end of log
+ * is ignored on read as if it was never installed
+ */
+final class Manifest implements Closeable {
+
+    /**
+     * Size of crc and length.
+     */
+    private static final int HEADER = 8;
+
+    /**
+     * Log file.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Ctor.
+     *
+     * @param file Path of new manifest
+     * @throws IOException if failed
+     */
+    Manifest(final Path file) throws IOException {
+        this.channel = FileChannel.open(
+                file,
+                StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE
+        );
+    }
+
+    /**
+     * Append edit and force it to the storage device.
+     *
+     * @param edit Edit
+     * @throws IOException if failed
+     */
+    void append(final VersionEdit edit) throws IOException {
+        final byte[] content = edit.encode();
+        final ByteBuffer buffer = ByteBuffer.allocate(HEADER + content.length);
+        buffer.putInt(Manifest.crc(content));
+        buffer.putInt(content.length);
+        buffer.put(content);
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            this.channel.write(buffer);
+        }
+        this.channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * Read all complete edits.
+     *
+     * @param file Path of manifest
+     * @return Edits in order of installation
+     * @throws IOException if failed
+     */
+    static List<VersionEdit> read(final Path file) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        final List<VersionEdit> edits = new ArrayList<>(0);
+        while (buffer.remaining() >= HEADER) {
+            final int crc = buffer.getInt();
+            final int length = buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                break;
+            }
+            final byte[] content = new byte[length];
+            buffer.get(content);
+            if (Manifest.crc(content) != crc) {
+                break;
+            }
+            edits.add(VersionEdit.decode(ByteBuffer.wrap(content)));
+        }
+        return edits;
+    }
+
+    /**
+     * Checksum of bytes.
+     *
+     * @param bytes Bytes
+     * @return Crc32 as int
+     */
+    private static int crc(final byte[] bytes) {
+        final CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,217 @@
+package com.lightbox.jmkv.lsm.version;
+
+import com.lightbox.jmkv.lsm.Record;
+import com.lightbox.jmkv.lsm.sstable.SsTable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Immutable set of tables arranged by levels.
+ * Level 0 keeps flushed memtables, they overlap and the newest is the first.
+ * Every next level is a sorted run of non overlapping tables.
+ * Version is pinned while somebody reads it, tables that
+ * left the current version are deleted when the last version
+ * that contains them is closed
+ */
+public final class Version implements Closeable {
+
+    /**
+     * Amount of levels.
+     */
+    public static final int LEVELS = 7;
+
+    /**
+     * Owner of tables.
+     */
+    private final VersionSet set;
+
+    /**
+     * Unmodifiable tables by level.
+     */
+    private final List<List<SsTable>> levels;
+
+    /**
+     * References of readers and version set.
+     */
+    private final AtomicInteger refs = new AtomicInteger(1);
+
+    /**
+     * Ctor.
+     *
+     * @param set    Owner of tables
+     * @param levels Tables by level
+     */
+    Version(final VersionSet set, final List<List<SsTable>> levels) {
+        this.set = set;
+        final List<List<SsTable>> copy = new ArrayList<>(LEVELS);
+        for (final List<SsTable> level : levels) {
+            copy.add(Collections.unmodifiableList(new ArrayList<>(level)));
+        }
+        this.levels = Collections.unmodifiableList(copy);
+    }
+
+    /**
+     * Tables of level.
+     *
+     * @param level Level
+     * @return Unmodifiable list of tables
+     */
+    public List<SsTable> level(final int level) {
+        return this.levels.get(level);
+    }
+
+    /**
+     * Size of level.
+     *
+     * @param level Level
+     * @return Sum of table sizes in bytes
+     * @throws IOException if failed
+     */
+    public long bytes(final int level) throws IOException {
+        long bytes = 0L;
+        for (final SsTable table : this.levels.get(level)) {
+            bytes += table.bytes();
+        }
+        return bytes;
+    }
+
+    /**
+     * Amount of tables in all levels.
+     *
+     * @return Amount of tables
+     */
+    public int tables() {
+        int tables = 0;
+        for (final List<SsTable> level : this.levels) {
+            tables += level.size();
+        }
+        return tables;
+    }
+
+    /**
+     * Search the newest record by key.
+     *
+     * @param key Key
+     * @return Record, tombstone or null if tables don't contain key
+     * @throws IOException if failed
+     */
+    public Record get(final int key) throws IOException {
+        Record record = null;
+        final Iterator<SsTable> young = this.levels.get(0).iterator();
+        while (record == null && young.hasNext()) {
+            record = young.next().get(key);
+        }
+        for (int i = 1; record == null && i < LEVELS; i++) {
+            final SsTable table = Version.find(this.levels.get(i), key);
+            if (table != null) {
+                record = table.get(key);
+            }
+        }
+        return record;
+    }
+
+    /**
+     * Sorted sources of all records.
+     * Every table of level 0 is a separate source,
+     * every other level is one source
+     *
+     * @return Iterators, the newest is the first
+     */
+    public List<Iterator<Record>> iterators() {
+        final List<Iterator<Record>> sources = new ArrayList<>(0);
+        for (final SsTable table : this.levels.get(0)) {
+            sources.add(table.iterator());
+        }
+        for (int i = 1; i < LEVELS; i++) {
+            sources.add(Version.concat(this.levels.get(i)));
+        }
+        return sources;
+    }
+
+    /**
+     * Release reference.
+     * The last release lets version set delete obsolete tables
+     */
+    @Override
+    public void close() {
+        final int left = this.refs.decrementAndGet();
+        if (left == 0) {
+            this.set.release(this);
+        } else if (left < 0) {
+            throw new IllegalStateException("Version is closed twice");
+        }
+    }
+
+    /**
+     * Chain tables of sorted run.
+     *
+     * @param tables Non overlapping tables in key order
+     * @return Iterator over all records
+     */
+    public static Iterator<Record> concat(final List<SsTable> tables) {
+        final Iterator<SsTable> remaining = tables.iterator();
+        return new Iterator<Record>() {
+            private Iterator<Record> current = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!this.current.hasNext() && remaining.hasNext()) {
+                    this.current = remaining.next().iterator();
+                }
+                return this.current.hasNext();
+            }
+
+            @Override
+            public Record next() {
+                if (!this.hasNext()) {
+                    throw new NoSuchElementException("Tables are over");
+                }
+                return this.current.next();
+            }
+        };
+    }
+
+    /**
+     * Add reference.
+     * Called by version set while version is current,
+     * so references never come back from zero
+     *
+     * @return This version
+     */
+    Version ref() {
+        this.refs.incrementAndGet();
+        return this;
+    }
+
+    /**
+     * Find table of sorted run that may contain key.
+     *
+     * @param tables Non overlapping tables in key order
+     * @param key    Key
+     * @return Table or null
+     */
+    private static SsTable find(final List<SsTable> tables, final int key) {
+        int low = 0;
+        int high = tables.size() - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (tables.get(mid).largest() < key) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        SsTable table = null;
+        if (low < tables.size() && tables.get(low).smallest() <= key) {
+            table = tables.get(low);
+        }
+        return table;
+    }
+}
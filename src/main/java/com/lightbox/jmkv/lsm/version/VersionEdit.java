@@ -0,0 +1,253 @@
+package com.lightbox.jmkv.lsm.version;
+
+import com.lightbox.jmkv.lsm.sstable.SsTable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Change of table membership.
+ * Edits are appended to manifest, replaying them
+ * from the first one rebuilds the current version.
+ * Layout is a sequence of tagged fields:
+ * next file(1) number(8)
+ * add table(2) level(1) number(8)
+ * delete table(3) level(1) number(8)
+ */
+public final class VersionEdit {
+
+    /**
+     * Tag of the next file number.
+     */
+    private static final byte NEXT = 1;
+
+    /**
+     * Tag of added table.
+     */
+    private static final byte ADD = 2;
+
+    /**
+     * Tag of deleted table.
+     */
+    private static final byte DELETE = 3;
+
+    /**
+     * Size of encoded table entry.
+     */
+    private static final int ENTRY = 1 + 1 + Long.BYTES;
+
+    /**
+     * Added tables in order of addition.
+     */
+    private final List<Entry> added = new ArrayList<>(0);
+
+    /**
+     * Deleted tables.
+     */
+    private final List<Entry> deleted = new ArrayList<>(0);
+
+    /**
+     * The next file number or zero if edit doesn't change it.
+     */
+    private long next;
+
+    /**
+     * Add table to level.
+     *
+     * @param level Level
+     * @param table Table
+     * @return This edit
+     */
+    public VersionEdit add(final int level, final SsTable table) {
+        this.added.add(
+                new Entry(level, VersionSet.number(table.file()), table)
+        );
+        return this;
+    }
+
+    /**
+     * Delete table from level.
+     *
+     * @param level Level
+     * @param table Table
+     * @return This edit
+     */
+    public VersionEdit delete(final int level, final SsTable table) {
+        this.deleted.add(
+                new Entry(level, VersionSet.number(table.file()), table)
+        );
+        return this;
+    }
+
+    /**
+     * Added tables.
+     *
+     * @return Tables in order of addition
+     */
+    List<Entry> added() {
+        return Collections.unmodifiableList(this.added);
+    }
+
+    /**
+     * Deleted tables.
+     *
+     * @return Tables
+     */
+    List<Entry> deleted() {
+        return Collections.unmodifiableList(this.deleted);
+    }
+
+    /**
+     * Set the next file number.
+     *
+     * @param number Number
+     */
+    void next(final long number) {
+        this.next = number;
+    }
+
+    /**
+     * The next file number.
+     *
+     * @return Number or zero if edit doesn't change it
+     */
+    long next() {
+        return this.next;
+    }
+
+    /**
+     * Encode edit.
+     *
+     * @return Edit content
+     */
+    byte[] encode() {
+        final ByteBuffer buffer = ByteBuffer.allocate(
+                1 + Long.BYTES
+                        + ENTRY * (this.added.size() + this.deleted.size())
+        );
+        if (this.next > 0L) {
+            buffer.put(NEXT);
+            buffer.putLong(this.next);
+        }
+        for (final Entry entry : this.deleted) {
+            VersionEdit.put(buffer, DELETE, entry);
+        }
+        for (final Entry entry : this.added) {
+            VersionEdit.put(buffer, ADD, entry);
+        }
+        final byte[] content = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(content);
+        return content;
+    }
+
+    /**
+     * Decode edit.
+     * Decoded entries have numbers, but not opened tables
+     *
+     * @param buffer Edit content
+     * @return Edit
+     * @throws IOException if content is not an edit
+     */
+    static VersionEdit decode(final ByteBuffer buffer) throws IOException {
+        final VersionEdit edit = new VersionEdit();
+        while (buffer.hasRemaining()) {
+            final byte tag = buffer.get();
+            if (tag == NEXT) {
+                edit.next = buffer.getLong();
+            } else if (tag == ADD) {
+                edit.added.add(new Entry(buffer.get(), buffer.getLong(), null));
+            } else if (tag == DELETE) {
+                edit.deleted.add(
+                        new Entry(buffer.get(), buffer.getLong(), null)
+                );
+            } else {
+                throw new IOException(
+                        String.format("Unknown tag %d in version edit", tag)
+                );
+            }
+        }
+        return edit;
+    }
+
+    /**
+     * Put table entry.
+     *
+     * @param buffer Buffer
+     * @param tag    Tag
+     * @param entry  Entry
+     */
+    private static void put(
+            final ByteBuffer buffer,
+            final byte tag,
+            final Entry entry
+    ) {
+        buffer.put(tag);
+        buffer.put((byte) entry.level);
+        buffer.putLong(entry.number);
+    }
+
+    /**
+     * Table in level.
+     */
+    static final class Entry {
+
+        /**
+         * Level.
+         */
+        private final int level;
+
+        /**
+         * Number of table file.
+         */
+        private final long number;
+
+        /**
+         * Opened table or null if edit was decoded.
+         */
+        private final SsTable table;
+
+        /**
+         * Ctor.
+         *
+         * @param level  Level
+         * @param number Number of table file
+         * @param table  Opened table or null
+         */
+        Entry(final int level, final long number, final SsTable table) {
+            this.level = level;
+            this.number = number;
+            this.table = table;
+        }
+
+        /**
+         * Level.
+         *
+         * @return Level
+         */
+        int level() {
+            return this.level;
+        }
+
+        /**
+         * Number of table file.
+         *
+         * @return Number
+         */
+        long number() {
+            return this.number;
+        }
+
+        /**
+         * Opened table.
+         *
+         * @return Table or null if edit was decoded
+         */
+        SsTable table() {
+            return this.table;
+        }
+    }
+}
@@ -0,0 +1,428 @@
+package com.lightbox.jmkv.lsm.version;
+
+import com.lightbox.jmkv.lsm.sstable.BlockCache;
+import com.lightbox.jmkv.lsm.sstable.SsTable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Current version of tables and its history.
+ * Every change is appended to manifest as {@link VersionEdit}
+ * and then becomes the current version.
+ * CURRENT file holds the name of the live manifest, on open
+ * the manifest is replayed, compacted to a single edit in a new
+ * manifest and CURRENT is switched to it atomically.
+ * Tables that are not referenced by any version are deleted
+ */
+public final class VersionSet implements Closeable {
+
+    /**
+     * Name of file that points to the live manifest.
+     */
+    private static final String CURRENT = "CURRENT";
+
+    /**
+     * Prefix of manifest files.
+     */
+    private static final String MANIFEST = "MANIFEST-";
+
+    /**
+     * Extension of table files.
+     */
+    private static final String TABLE = ".sst";
+
+    /**
+     * Extension of file that is being written.
+     */
+    private static final String TEMP = ".tmp";
+
+    /**
+     * Order of tables in sorted run.
+     */
+    private static final Comparator<SsTable> SMALLEST =
+            Comparator.comparingInt(SsTable::smallest);
+
+    /**
+     * Directory with tables.
+     */
+    private final Path directory;
+
+    /**
+     * Cache of data blocks shared by tables.
+     */
+    private final BlockCache cache;
+
+    /**
+     * Number of the next file.
+     * Tables are allocated by flushes and background compactions
+     */
+    private final AtomicLong number = new AtomicLong();
+
+    /**
+     * Amount of versions that contain table.
+     */
+    private final Map<SsTable, Integer> live = new IdentityHashMap<>();
+
+    /**
+     * Lock that guards current version, manifest and live tables.
+     */
+    private final Object lock = new Object();
+
+    /**
+     * Log of edits.
+     */
+    private Manifest manifest;
+
+    /**
+     * Current version.
+     */
+    private Version current;
+
+    /**
+     * Ctor.
+     * Recover tables in given directory
+     *
+     * @param directory Directory with tables
+     * @throws IOException if failed
+     */
+    public VersionSet(final Path directory) throws IOException {
+        this(directory, new BlockCache(0L, 1));
+    }
+
+    /**
+     * Ctor.
+     * Recover tables in given directory
+     *
+     * @param directory Directory with tables
+     * @param cache     Cache of data blocks shared by tables
+     * @throws IOException if failed
+     */
+    public VersionSet(
+            final Path directory,
+            final BlockCache cache
+    ) throws IOException {
+        this.directory = directory;
+        this.cache = cache;
+        this.recover();
+    }
+
+    /**
+     * Allocate path for a new table.
+     * Table is deleted on open if it's not installed
+     *
+     * @return Path that doesn't exist yet
+     */
+    public Path newTable() {
+        return this.directory.resolve(
+                String.format("%06d%s", this.number.getAndIncrement(), TABLE)
+        );
+    }
+
+    /**
+     * Open written table with shared block cache.
+     *
+     * @param file Path of table
+     * @return Table
+     * @throws IOException if failed
+     */
+    public SsTable open(final Path file) throws IOException {
+        return new SsTable(file, this.cache);
+    }
+
+    /**
+     * Pin the current version.
+     * Version has to be closed after use
+     *
+     * @return Version
+     */
+    public Version current() {
+        synchronized (this.lock) {
+            return this.current.ref();
+        }
+    }
+
+    /**
+     * Log edit and make it the current version.
+     * Readers that pinned previous version keep reading it,
+     * deleted tables stay on disk until they are done
+     *
+     * @param edit Edit with opened tables
+     * @throws IOException if failed
+     */
+    public void install(final VersionEdit edit) throws IOException {
+        synchronized (this.lock) {
+            final List<List<SsTable>> levels = new ArrayList<>(Version.LEVELS);
+            for (int i = 0; i < Version.LEVELS; i++) {
+                levels.add(new ArrayList<>(this.current.level(i)));
+            }
+            for (final VersionEdit.Entry entry : edit.deleted()) {
+                if (!levels.get(entry.level()).remove(entry.table())) {
+                    throw new IllegalStateException(
+                            String.format(
+                                    "Table %06d is not in level %d",
+                                    entry.number(),
+                                    entry.level()
+                            )
+                    );
+                }
+            }
+            for (final VersionEdit.Entry entry : edit.added()) {
+                if (entry.level() == 0) {
+                    levels.get(0).add(0, entry.table());
+                } else {
+                    levels.get(entry.level()).add(entry.table());
+                }
+            }
+            for (int i = 1; i < Version.LEVELS; i++) {
+                levels.get(i).sort(SMALLEST);
+            }
+            edit.next(this.number.get());
+            this.manifest.append(edit);
+            this.swap(new Version(this, levels));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this.lock) {
+            this.manifest.close();
+            for (final SsTable table : this.live.keySet()) {
+                table.close();
+            }
+        }
+    }
+
+    /**
+     * Number of table or manifest file.
+     *
+     * @param file Path of file
+     * @return Number
+     */
+    static long number(final Path file) {
+        final String name = file.getFileName().toString();
+        final long number;
+        if (name.startsWith(MANIFEST)) {
+            number = Long.parseLong(name.substring(MANIFEST.length()));
+        } else {
+            number = Long.parseLong(
+                    name.substring(0, name.length() - TABLE.length())
+            );
+        }
+        return number;
+    }
+
+    /**
+     * Forget version that is not used anymore.
+     * Delete tables that are not in any other version,
+     * closed table drops its blocks from cache
+     *
+     * @param version Version without references
+     */
+    void release(final Version version) {
+        synchronized (this.lock) {
+            try {
+                for (int i = 0; i < Version.LEVELS; i++) {
+                    for (final SsTable table : version.level(i)) {
+                        final int left = this.live.get(table) - 1;
+                        if (left == 0) {
+                            this.live.remove(table);
+                            table.close();
+                            Files.deleteIfExists(table.file());
+                        } else {
+                            this.live.put(table, left);
+                        }
+                    }
+                }
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    /**
+     * Make version current and release the previous one.
+     *
+     * @param next New current version
+     */
+    private void swap(final Version next) {
+        for (int i = 0; i < Version.LEVELS; i++) {
+            for (final SsTable table : next.level(i)) {
+                this.live.merge(table, 1, Integer::sum);
+            }
+        }
+        final Version previous = this.current;
+        this.current = next;
+        if (previous != null) {
+            previous.close();
+        }
+    }
+
+    /**
+     * Replay manifest, drop files that are not in the recovered version
+     * and start a new manifest with a snapshot of it.
+     *
+     * @throws IOException if failed
+     */
+    private void recover() throws IOException {
+        final List<List<Long>> layout = new ArrayList<>(Version.LEVELS);
+        for (int i = 0; i < Version.LEVELS; i++) {
+            layout.add(new ArrayList<>(0));
+        }
+        final boolean known = this.replay(layout);
+        final Set<Long> tables = new HashSet<>(0);
+        for (final List<Long> level : layout) {
+            tables.addAll(level);
+        }
+        final List<Path> obsolete = new ArrayList<>(0);
+        final List<Long> loose = new ArrayList<>(0);
+        long max = Math.max(0L, this.number.get() - 1L);
+        try (DirectoryStream<Path> files =
+                     Files.newDirectoryStream(this.directory)) {
+            for (final Path file : files) {
+                final String name = file.getFileName().toString();
+                if (name.endsWith(TEMP)) {
+                    Files.delete(file);
+                } else if (name.endsWith(TABLE)) {
+                    final long num = VersionSet.number(file);
+                    max = Math.max(max, num);
+                    if (!known) {
+                        loose.add(num);
+                    } else if (!tables.contains(num)) {
+                        Files.delete(file);
+                    }
+                } else if (name.startsWith(MANIFEST)) {
+                    max = Math.max(max, VersionSet.number(file));
+                    obsolete.add(file);
+                }
+            }
+        }
+        loose.sort(Comparator.reverseOrder());
+        layout.get(0).addAll(loose);
+        this.number.set(max + 1L);
+        this.snapshot(layout);
+        for (final Path file : obsolete) {
+            Files.delete(file);
+        }
+    }
+
+    /**
+     * Rebuild layout from manifest.
+     *
+     * @param layout Numbers of tables by level, the newest level 0
+     *               table is the first
+     * @return False if store has no manifest
+     * @throws IOException if failed
+     */
+    private boolean replay(final List<List<Long>> layout) throws IOException {
+        final Path pointer = this.directory.resolve(CURRENT);
+        boolean known = true;
+        if (Files.exists(pointer)) {
+            final String name = new String(
+                    Files.readAllBytes(pointer),
+                    StandardCharsets.UTF_8
+            ).trim();
+            for (final VersionEdit edit
+                    : Manifest.read(this.directory.resolve(name))) {
+                for (final VersionEdit.Entry entry : edit.deleted()) {
+                    layout.get(entry.level()).remove(Long.valueOf(entry.number()));
+                }
+                for (final VersionEdit.Entry entry : edit.added()) {
+                    if (entry.level() == 0) {
+                        layout.get(0).add(0, entry.number());
+                    } else {
+                        layout.get(entry.level()).add(entry.number());
+                    }
+                }
+                if (edit.next() > this.number.get()) {
+                    this.number.set(edit.next());
+                }
+            }
+        } else {
+            known = false;
+        }
+        return known;
+    }
+
+    /**
+     * Open tables of layout, write them to a new manifest
+     * as one edit and point CURRENT to it.
+     *
+     * @param layout Numbers of tables by level
+     * @throws IOException if failed
+     */
+    private void snapshot(final List<List<Long>> layout) throws IOException {
+        final List<List<SsTable>> levels = new ArrayList<>(Version.LEVELS);
+        final VersionEdit edit = new VersionEdit();
+        for (int i = 0; i < Version.LEVELS; i++) {
+            final List<SsTable> level = new ArrayList<>(0);
+            for (final long num : layout.get(i)) {
+                level.add(
+                        this.open(
+                                this.directory.resolve(
+                                        String.format("%06d%s", num, TABLE)
+                                )
+                        )
+                );
+            }
+            if (i > 0) {
+                level.sort(SMALLEST);
+            }
+            levels.add(level);
+        }
+        final List<SsTable> young = levels.get(0);
+        for (int i = young.size() - 1; i >= 0; i--) {
+            edit.add(0, young.get(i));
+        }
+        for (int i = 1; i < Version.LEVELS; i++) {
+            for (final SsTable table : levels.get(i)) {
+                edit.add(i, table);
+            }
+        }
+        final String name = String.format(
+                "%s%06d",
+                MANIFEST,
+                this.number.getAndIncrement()
+        );
+        edit.next(this.number.get());
+        this.manifest = new Manifest(this.directory.resolve(name));
+        this.manifest.append(edit);
+        final Path temp = this.directory.resolve(CURRENT + TEMP);
+        try (FileChannel channel = FileChannel.open(
+                temp,
+                StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE
+        )) {
+            final ByteBuffer buffer = ByteBuffer.wrap(
+                    (name + '\n').getBytes(StandardCharsets.UTF_8)
+            );
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(
+                temp,
+                this.directory.resolve(CURRENT),
+                StandardCopyOption.ATOMIC_MOVE
+        );
+        this.swap(new Version(this, levels));
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Package with versions of table membership and their manifest log.
+ */
+package com.lightbox.jmkv.lsm.version;
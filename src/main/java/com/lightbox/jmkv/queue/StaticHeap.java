@@ -1,91 +1,204 @@
 package com.lightbox.jmkv.queue;
 
+import java.util.Comparator;
 import java.util.NoSuchElementException;
-import java.util.stream.IntStream;
 
-public final class StaticHeap {
+/**
+ * Binary heap with fixed capacity.
+ * The smallest element according to comparator is on top,
+ * pass reversed comparator to get max heap
+ *
+ * @param <T> Type of elements
+ */
+public final class StaticHeap<T> {
 
     /**
-     * TODO: move to test
+     * Elements in heap order.
      */
-    public static void main(String[] args) {
-        final StaticHeap staticHeap = new StaticHeap(12);
-        IntStream.of(
-                15, 13, 9, 5, 12, 8, 7, 4, 0, 6, 2, 1
-        ).forEach(staticHeap::add);
-        while (!staticHeap.empty()) {
-            System.out.println(staticHeap.pool());
-        }
-    }
+    private final Object[] elements;
 
-    private final int[] elements;
+    /**
+     * Order of elements.
+     */
+    private final Comparator<? super T> comparator;
 
+    /**
+     * Amount of elements.
+     */
     private int size;
 
-    public StaticHeap(final int size) {
-        this.elements = new int[size];
+    /**
+     * Ctor.
+     *
+     * @param capacity   Max amount of elements
+     * @param comparator Order of elements
+     */
+    public StaticHeap(
+            final int capacity,
+            final Comparator<? super T> comparator
+    ) {
+        this.elements = new Object[capacity];
+        this.comparator = comparator;
         this.size = 0;
     }
 
-    boolean empty() {
+    /**
+     * Check that heap doesn't have elements.
+     *
+     * @return True if empty
+     */
+    public boolean empty() {
         return this.size == 0;
     }
 
-    int add(final int number) {
-        this.replace(this.size++, number);
-        return number;
+    /**
+     * Amount of elements.
+     *
+     * @return Amount of elements
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Add element.
+     *
+     * @param element Element
+     * @return Added element
+     */
+    public T add(final T element) {
+        if (this.size == this.elements.length) {
+            throw new IllegalStateException("Heap is full");
+        }
+        this.elements[this.size] = element;
+        this.siftUp(this.size++);
+        return element;
     }
 
-    int pool() {
+    /**
+     * The smallest element without removing it.
+     *
+     * @return The smallest element
+     */
+    public T peek() {
         if (this.size == 0) {
             throw new NoSuchElementException("Heap is empty");
         }
-        final int max = this.elements[0];
-        this.elements[0] = this.elements[--this.size];
-        this.maxHeapify(0);
-        return max;
+        return this.element(0);
     }
 
-    private void replace(int position, final int value) {
-        this.elements[position] = value;
-        while (position > 1 && this.elements[this.parent(position)] < this.elements[position]) {
-            final int parentPosition = this.parent(position);
-            final int temp = this.elements[position];
-            this.elements[position] = this.elements[parentPosition];
-            this.elements[parentPosition] = temp;
-            position = parentPosition;
+    /**
+     * Remove the smallest element.
+     *
+     * @return The smallest element
+     */
+    public T poll() {
+        final T min = this.peek();
+        this.elements[0] = this.elements[--this.size];
+        this.elements[this.size] = null;
+        if (this.size > 0) {
+            this.siftDown(0);
         }
+        return min;
     }
 
-    private void maxHeapify(final int currentPosition) {
-        final int left = this.left(currentPosition);
-        final int right = this.right(currentPosition);
-        final int largestPosition;
-        if (left < this.size && this.elements[left] > this.elements[currentPosition] && this.elements[left] > this.elements[right]) {
-            largestPosition = left;
-        } else if (right < this.size && this.elements[right] > this.elements[currentPosition] && this.elements[right] > this.elements[left]) {
-            largestPosition = right;
-        } else {
-            largestPosition = currentPosition;
+    /**
+     * Replace the smallest element with given one.
+     * Costs one sift down instead of poll and add
+     *
+     * @param element New element
+     * @return Replaced element
+     */
+    public T replaceTop(final T element) {
+        final T min = this.peek();
+        this.elements[0] = element;
+        this.siftDown(0);
+        return min;
+    }
+
+    /**
+     * Move element up until parent is not bigger.
+     *
+     * @param start Position of element
+     */
+    private void siftUp(final int start) {
+        int position = start;
+        final T value = this.element(position);
+        while (position > 0) {
+            final int parent = StaticHeap.parent(position);
+            if (this.comparator.compare(this.element(parent), value) <= 0) {
+                break;
+            }
+            this.elements[position] = this.elements[parent];
+            position = parent;
         }
-        if (largestPosition != currentPosition) {
-            final int temp = this.elements[currentPosition];
-            this.elements[currentPosition] = this.elements[largestPosition];
-            this.elements[largestPosition] = temp;
-            this.maxHeapify(largestPosition);
+        this.elements[position] = value;
+    }
+
+    /**
+     * Move element down until children are not smaller.
+     *
+     * @param start Position of element
+     */
+    private void siftDown(final int start) {
+        int position = start;
+        final T value = this.element(position);
+        while (StaticHeap.left(position) < this.size) {
+            int smallest = StaticHeap.left(position);
+            final int right = StaticHeap.right(position);
+            if (right < this.size && this.comparator.compare(
+                    this.element(right),
+                    this.element(smallest)
+            ) < 0) {
+                smallest = right;
+            }
+            if (this.comparator.compare(this.element(smallest), value) >= 0) {
+                break;
+            }
+            this.elements[position] = this.elements[smallest];
+            position = smallest;
         }
+        this.elements[position] = value;
     }
 
-    private int parent(final int position) {
+    /**
+     * Element by position.
+     *
+     * @param position Position
+     * @return Element
+     */
+    @SuppressWarnings("unchecked")
+    private T element(final int position) {
+        return (T) this.elements[position];
+    }
+
+    /**
+     * Position of parent.
+     *
+     * @param position Position of child
+     * @return Position of parent
+     */
+    private static int parent(final int position) {
         return (position - 1) / 2;
     }
 
-    private int left(final int position) {
+    /**
+     * Position of left child.
+     *
+     * @param position Position of parent
+     * @return Position of left child
+     */
+    private static int left(final int position) {
         return (position * 2) + 1;
     }
 
-    private int right(final int position) {
+    /**
+     * Position of right child.
+     *
+     * @param position Position of parent
+     * @return Position of right child
+     */
+    private static int right(final int position) {
         return (position * 2) + 2;
     }
-
 }
@@ -0,0 +1,4 @@
+/**
+ * Package with priority queues.
+ */
+package com.lightbox.jmkv.queue;
@@ -0,0 +1,240 @@
+package com.lightbox.jmkv.btree;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test for {@link BlinkTree}.
+ */
+@SuppressWarnings("MagicNumber")
+public final class BlinkTreeTest {
+
+    /**
+     * Test that keys are found after splits of leaves,
+     * inner nodes and root.
+     */
+    @Test
+    public void testSplits() {
+        final BlinkTree tree = new BlinkTree(3);
+        for (int key = 10; key <= 100; key += 10) {
+            tree.put(key, String.valueOf(key));
+        }
+        Assert.assertThat(tree.height(), CoreMatchers.is(3));
+        Assert.assertThat(tree.size(), CoreMatchers.is(10));
+        for (int key = 5; key <= 105; key += 5) {
+            if (key % 10 == 0) {
+                Assert.assertThat(
+                        tree.get(key),
+                        CoreMatchers.is(String.valueOf(key))
+                );
+            } else {
+                Assert.assertNull(tree.get(key));
+            }
+        }
+    }
+
+    /**
+     * Test random puts and deletes against hash map.
+     */
+    @Test
+    public void testRandomOperations() {
+        for (final int capacity : new int[]{3, 4, 64}) {
+            final BlinkTree tree = new BlinkTree(capacity);
+            final Map<Integer, String> expected = new HashMap<>(0);
+            final Random random = new Random(capacity);
+            for (int i = 0; i < 20_000; i++) {
+                final int key = random.nextInt(5000);
+                if (random.nextInt(4) == 0) {
+                    Assert.assertThat(
+                            tree.delete(key),
+                            CoreMatchers.is(expected.remove(key))
+                    );
+                } else {
+                    final String value = String.valueOf(i);
+                    tree.put(key, value);
+                    expected.put(key, value);
+                }
+            }
+            Assert.assertThat(tree.size(), CoreMatchers.is(expected.size()));
+            for (int key = 0; key < 5000; key++) {
+                Assert.assertThat(
+                        tree.get(key),
+                        CoreMatchers.is(expected.get(key))
+                );
+            }
+        }
+    }
+
+    /**
+     * Test that readers find every key while concurrent writers
+     * split the nodes under them, so searches that went down
+     * before split have to move right.
+     * Readers are bounded by timeout, so a read that waits
+     * for a writer fails the test
+     *
+     * @throws Exception if failed
+     */
+    @Test
+    public void testReadsDuringSplits() throws Exception {
+        final BlinkTree tree = new BlinkTree(3);
+        final int writers = 4;
+        final int keys = 20_000;
+        final int step = writers * 2;
+        for (int key = 0; key < keys; key += 2) {
+            tree.put(key, String.valueOf(key));
+        }
+        final ExecutorService pool = Executors.newFixedThreadPool(writers + 3);
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch written = new CountDownLatch(writers);
+        final List<Future<Integer>> futures = new ArrayList<>(writers + 3);
+        for (int writer = 0; writer < writers; writer++) {
+            final int first = writer * 2 + 1;
+            futures.add(
+                    pool.submit(
+                            () -> {
+                                start.await();
+                                for (int key = first; key < keys;
+                                     key += step) {
+                                    tree.put(key, String.valueOf(key));
+                                }
+                                written.countDown();
+                                return 0;
+                            }
+                    )
+            );
+        }
+        for (int reader = 0; reader < 3; reader++) {
+            futures.add(
+                    pool.submit(
+                            BlinkTreeTest.reader(tree, keys, start, written)
+                    )
+            );
+        }
+        start.countDown();
+        try {
+            for (final Future<Integer> future : futures) {
+                future.get(30L, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        Assert.assertThat(tree.size(), CoreMatchers.is(keys));
+        for (int key = 0; key < keys; key++) {
+            Assert.assertThat(
+                    tree.get(key),
+                    CoreMatchers.is(String.valueOf(key))
+            );
+        }
+    }
+
+    /**
+     * Test that deletes of keys find them in nodes that
+     * concurrent writers split.
+     *
+     * @throws Exception if failed
+     */
+    @Test
+    public void testDeletesDuringSplits() throws Exception {
+        final BlinkTree tree = new BlinkTree(4);
+        final int keys = 10_000;
+        for (int key = 0; key < keys; key += 2) {
+            tree.put(key, String.valueOf(key));
+        }
+        final ExecutorService pool = Executors.newFixedThreadPool(2);
+        final CountDownLatch start = new CountDownLatch(1);
+        final Future<Integer> writer = pool.submit(
+                () -> {
+                    start.await();
+                    for (int key = 1; key < keys; key += 2) {
+                        tree.put(key, String.valueOf(key));
+                    }
+                    return 0;
+                }
+        );
+        final Future<Integer> deleter = pool.submit(
+                () -> {
+                    start.await();
+                    int deleted = 0;
+                    for (int key = 0; key < keys; key += 4) {
+                        if (String.valueOf(key).equals(tree.delete(key))) {
+                            deleted++;
+                        }
+                    }
+                    return deleted;
+                }
+        );
+        start.countDown();
+        try {
+            writer.get(30L, TimeUnit.SECONDS);
+            Assert.assertThat(
+                    deleter.get(30L, TimeUnit.SECONDS),
+                    CoreMatchers.is(keys / 4)
+            );
+        } finally {
+            pool.shutdownNow();
+        }
+        Assert.assertThat(tree.size(), CoreMatchers.is(keys - keys / 4));
+        for (int key = 0; key < keys; key++) {
+            if (key % 4 == 0) {
+                Assert.assertNull(tree.get(key));
+            } else {
+                Assert.assertThat(
+                        tree.get(key),
+                        CoreMatchers.is(String.valueOf(key))
+                );
+            }
+        }
+    }
+
+    /**
+     * Test that capacity lower than 3 is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSmallCapacity() {
+        new BlinkTree(2);
+    }
+
+    /**
+     * Reader that searches every even key until writers are done.
+     *
+     * @param tree    Tree
+     * @param keys    Amount of keys
+     * @param start   Released when writers start
+     * @param written Released when writers are done
+     * @return Reader that returns amount of passes over keys
+     */
+    private static Callable<Integer> reader(
+            final BlinkTree tree,
+            final int keys,
+            final CountDownLatch start,
+            final CountDownLatch written
+    ) {
+        return () -> {
+            start.await();
+            int passes = 0;
+            while (written.getCount() > 0L) {
+                for (int key = 0; key < keys; key += 2) {
+                    Assert.assertThat(
+                            tree.get(key),
+                            CoreMatchers.is(String.valueOf(key))
+                    );
+                }
+                passes++;
+            }
+            return passes;
+        };
+    }
+}
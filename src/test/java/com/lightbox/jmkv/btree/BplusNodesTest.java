@@ -0,0 +1,69 @@
+package com.lightbox.jmkv.btree;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Test {@link BplusNodes}.
+ */
+@SuppressWarnings("MagicNumber")
+public final class BplusNodesTest {
+
+    /**
+     * Test search in keys that aren't kept in node
+     * and routing to child by its result.
+     */
+    @Test
+    public void testSearchKeys() {
+        final int[] sorted = {1, 2, 4, 8, 16, 32};
+        final BplusNodes.Keys keys = new BplusNodes.Keys() {
+            @Override
+            public int size() {
+                return sorted.length;
+            }
+
+            @Override
+            public int key(final int index) {
+                return sorted[index];
+            }
+        };
+        Assert.assertThat(BplusNodes.search(keys, 8), CoreMatchers.is(3));
+        Assert.assertThat(BplusNodes.search(keys, 6), CoreMatchers.is(-4));
+        Assert.assertThat(BplusNodes.search(keys, 0), CoreMatchers.is(-1));
+        Assert.assertThat(BplusNodes.search(keys, 64), CoreMatchers.is(-7));
+        Assert.assertThat(
+                BplusNodes.route(BplusNodes.search(keys, 8)),
+                CoreMatchers.is(4)
+        );
+        Assert.assertThat(
+                BplusNodes.route(BplusNodes.search(keys, 6)),
+                CoreMatchers.is(3)
+        );
+    }
+
+    /**
+     * Test that leaf keeps separator in right half
+     * and inner node moves it to parent.
+     */
+    @Test
+    public void testSplitPositions() {
+        Assert.assertThat(BplusNodes.upper(true, 2), CoreMatchers.is(2));
+        Assert.assertThat(BplusNodes.upper(false, 2), CoreMatchers.is(3));
+    }
+
+    /**
+     * Test copies with one more item.
+     */
+    @Test
+    public void testInserted() {
+        Assert.assertArrayEquals(
+                new int[]{1, 2, 3},
+                BplusNodes.inserted(new int[]{1, 3}, 1, 2)
+        );
+        Assert.assertArrayEquals(
+                new String[]{"a", "b", "c"},
+                BplusNodes.inserted(new String[]{"a", "b"}, 2, "c")
+        );
+    }
+}
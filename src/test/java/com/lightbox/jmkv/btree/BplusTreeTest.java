@@ -0,0 +1,177 @@
+package com.lightbox.jmkv.btree;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Test for {@link BplusTree}.
+ */
+@SuppressWarnings("MagicNumber")
+public final class BplusTreeTest {
+
+    /**
+     * Test put, replace and get.
+     */
+    @Test
+    public void testPutAndGet() {
+        final BplusTree tree = new BplusTree(3);
+        for (int i = 0; i < 1000; i++) {
+            tree.put(i * 7 % 1000, String.valueOf(i * 7 % 1000));
+        }
+        tree.put(500, "five hundred");
+        Assert.assertThat(tree.size(), CoreMatchers.is(1000));
+        Assert.assertThat(tree.get(500), CoreMatchers.is("five hundred"));
+        Assert.assertThat(tree.get(999), CoreMatchers.is("999"));
+        Assert.assertNull(tree.get(1000));
+        Assert.assertNull(tree.get(-1));
+        Assert.assertTrue(tree.height() > 1);
+    }
+
+    /**
+     * Test scans of ranges in both directions.
+     */
+    @Test
+    public void testRange() {
+        final BplusTree tree = new BplusTree(4);
+        for (int i = 0; i < 500; i++) {
+            tree.put(i * 2, String.valueOf(i));
+        }
+        Assert.assertThat(
+                BplusTreeTest.keys(tree.range(101, 121)),
+                CoreMatchers.is(BplusTreeTest.sequence(102, 120, 2))
+        );
+        Assert.assertThat(
+                BplusTreeTest.keys(tree.descendingRange(100, 120)),
+                CoreMatchers.is(BplusTreeTest.sequence(118, 100, -2))
+        );
+        Assert.assertFalse(tree.range(2000, 3000).hasNext());
+        Assert.assertFalse(tree.range(10, 10).hasNext());
+        Assert.assertFalse(tree.descendingRange(-10, 0).hasNext());
+        Assert.assertThat(
+                BplusTreeTest.keys(tree.iterator()),
+                CoreMatchers.is(BplusTreeTest.sequence(0, 998, 2))
+        );
+    }
+
+    /**
+     * Test random puts and deletes against TreeMap.
+     */
+    @Test
+    public void testRandomOperations() {
+        for (final int capacity : new int[]{3, 4, 5, 64}) {
+            final BplusTree tree = new BplusTree(capacity);
+            final NavigableMap<Integer, String> expected = new TreeMap<>();
+            final Random random = new Random(capacity);
+            for (int i = 0; i < 20_000; i++) {
+                final int key = random.nextInt(2000);
+                if (random.nextInt(3) == 0) {
+                    Assert.assertThat(
+                            tree.delete(key),
+                            CoreMatchers.is(expected.remove(key))
+                    );
+                } else {
+                    final String value = String.valueOf(i);
+                    tree.put(key, value);
+                    expected.put(key, value);
+                }
+            }
+            Assert.assertThat(tree.size(), CoreMatchers.is(expected.size()));
+            final Iterator<Map.Entry<Integer, String>> entries =
+                    tree.iterator();
+            for (final Map.Entry<Integer, String> entry
+                    : expected.entrySet()) {
+                Assert.assertThat(entries.next(), CoreMatchers.is(entry));
+            }
+            Assert.assertFalse(entries.hasNext());
+            Assert.assertThat(
+                    BplusTreeTest.keys(tree.descendingRange(500, 1500)),
+                    CoreMatchers.is(
+                            new ArrayList<>(
+                                    expected.subMap(500, true, 1500, false)
+                                            .descendingKeySet()
+                            )
+                    )
+            );
+        }
+    }
+
+    /**
+     * Test that leaves are merged back after deletes.
+     */
+    @Test
+    public void testShrink() {
+        final BplusTree tree = new BplusTree(3);
+        for (int i = 0; i < 1000; i++) {
+            tree.put(i, "");
+        }
+        for (int i = 0; i < 999; i++) {
+            tree.delete(i);
+        }
+        Assert.assertThat(tree.size(), CoreMatchers.is(1));
+        Assert.assertThat(tree.height(), CoreMatchers.is(1));
+        Assert.assertThat(
+                BplusTreeTest.keys(tree.descendingRange(0, 1000)),
+                CoreMatchers.is(BplusTreeTest.sequence(999, 999, 1))
+        );
+    }
+
+    /**
+     * Test that scan fails after change of tree.
+     */
+    @Test(expected = ConcurrentModificationException.class)
+    public void testConcurrentModification() {
+        final BplusTree tree = new BplusTree();
+        tree.put(1, "one");
+        tree.put(2, "two");
+        final Iterator<Map.Entry<Integer, String>> entries = tree.iterator();
+        entries.next();
+        tree.delete(2);
+        entries.next();
+    }
+
+    /**
+     * Keys of scan.
+     *
+     * @param entries Scan
+     * @return Keys
+     */
+    private static List<Integer> keys(
+            final Iterator<Map.Entry<Integer, String>> entries
+    ) {
+        final List<Integer> keys = new ArrayList<>(0);
+        while (entries.hasNext()) {
+            keys.add(entries.next().getKey());
+        }
+        return keys;
+    }
+
+    /**
+     * Sequence of numbers.
+     *
+     * @param first The first number
+     * @param last  The last number
+     * @param step  Step
+     * @return Numbers
+     */
+    private static List<Integer> sequence(
+            final int first,
+            final int last,
+            final int step
+    ) {
+        final List<Integer> numbers = new ArrayList<>(0);
+        for (int num = first; num * step <= last * step; num += step) {
+            numbers.add(num);
+        }
+        return numbers;
+    }
+}
@@ -0,0 +1,114 @@
+package com.lightbox.jmkv.btree;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test performance of batch add of BtreeBB against single adds.
+ * Batch add should win because it descends once per leaf
+ * and splits leaf once per batch
+ */
+@Ignore
+@SuppressWarnings({"MagicNumber", "DesignForExtension"})
+public class BtreeBBJmhTest {
+
+    /**
+     * Run add benchmarks.
+     *
+     * @throws RunnerException if failed
+     */
+    @Test
+    public void testAddPerformance() throws RunnerException {
+        final Options opt = new OptionsBuilder()
+                .include(BtreeBBJmhTest.class.getSimpleName())
+                .mode(Mode.AverageTime)
+                .timeUnit(TimeUnit.MILLISECONDS)
+                .warmupTime(TimeValue.seconds(1))
+                .warmupIterations(5)
+                .measurementIterations(2)
+                .threads(1)
+                .forks(1)
+                .shouldFailOnError(true)
+                .shouldDoGC(false)
+                .build();
+        new Runner(opt).run();
+    }
+
+    /**
+     * Benchmark of single adds.
+     *
+     * @param data Batches to add
+     * @return Tree
+     */
+    @Benchmark
+    public BtreeBB<Integer> testSingleAdd(final TestData data) {
+        final BtreeBB<Integer> tree = new BtreeBB<>(data.order);
+        for (final List<Integer> batch : data.batches) {
+            batch.forEach(tree::add);
+        }
+        return tree;
+    }
+
+    /**
+     * Benchmark of batch adds.
+     *
+     * @param data Batches to add
+     * @return Tree
+     */
+    @Benchmark
+    public BtreeBB<Integer> testBatchAdd(final TestData data) {
+        final BtreeBB<Integer> tree = new BtreeBB<>(data.order);
+        for (final List<Integer> batch : data.batches) {
+            tree.addAll(batch);
+        }
+        return tree;
+    }
+
+    /**
+     * Class that provides test data for JMH benchmarking.
+     */
+    @State(Scope.Thread)
+    public static class TestData {
+        /**
+         * Order of tree.
+         */
+        @Param({"2", "16", "64"})
+        private int order;
+
+        /**
+         * Amount of values in batch.
+         */
+        @Param({"1000", "10000"})
+        private int size;
+
+        /**
+         * Batches of random values.
+         */
+        private List<List<Integer>> batches;
+
+        /**
+         * Setup ten batches of random values.
+         */
+        @Setup
+        public void setup() {
+            final Random random = new Random();
+            this.batches = new ArrayList<>(10);
+            for (int batch = 0; batch < 10; batch++) {
+                final List<Integer> values = new ArrayList<>(this.size);
+                random.ints(this.size).forEach(values::add);
+                this.batches.add(values);
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.lightbox.jmkv.btree;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test for {@link BtreeBB}.
+ */
+@SuppressWarnings("MagicNumber")
+public final class BtreeBBTest {
+
+    /**
+     * Test bulk load with different orders, fill factors and sizes.
+     */
+    @Test
+    public void testLoad() {
+        for (final int order : new int[]{1, 2, 3, 16}) {
+            for (final double fill : new double[]{0.1, 0.5, 0.7, 1.0}) {
+                for (final int size : new int[]{0, 1, 2, 5, 17, 100, 1001}) {
+                    final BtreeBB<Integer> tree = BtreeBB.load(
+                            order,
+                            fill,
+                            BtreeBBTest.sequence(size).iterator()
+                    );
+                    Assert.assertTrue(tree.validate());
+                    Assert.assertThat(tree.size(), CoreMatchers.is(size));
+                    for (int i = 0; i < size; i++) {
+                        Assert.assertTrue(tree.contains(i));
+                    }
+                    Assert.assertFalse(tree.contains(size));
+                }
+            }
+        }
+    }
+
+    /**
+     * Test that loaded tree can be changed.
+     */
+    @Test
+    public void testChangeLoaded() {
+        final BtreeBB<Integer> tree = BtreeBB.load(
+                2,
+                1.0,
+                BtreeBBTest.sequence(500).iterator()
+        );
+        for (int i = 0; i < 500; i += 2) {
+            Assert.assertThat(tree.remove(i), CoreMatchers.is(i));
+        }
+        for (int i = 500; i < 600; i++) {
+            Assert.assertTrue(tree.add(i));
+        }
+        Assert.assertTrue(tree.validate());
+        Assert.assertThat(tree.size(), CoreMatchers.is(350));
+        Assert.assertFalse(tree.contains(100));
+        Assert.assertTrue(tree.contains(101));
+    }
+
+    /**
+     * Test that unsorted values are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testLoadUnsorted() {
+        BtreeBB.load(2, 0.5, Arrays.asList(1, 3, 2).iterator());
+    }
+
+    /**
+     * Test that fill factor out of range is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongFillFactor() {
+        BtreeBB.load(2, 0.0, Collections.<Integer>emptyIterator());
+    }
+
+    /**
+     * Test batch add into empty and filled trees against single adds.
+     */
+    @Test
+    public void testAddAll() {
+        for (final int order : new int[]{1, 2, 3, 16}) {
+            final BtreeBB<Integer> tree = new BtreeBB<>(order);
+            final BtreeBB<Integer> expected = new BtreeBB<>(order);
+            final Random random = new Random(order);
+            for (final int size : new int[]{0, 1, 3, 10, 100, 1000, 5000}) {
+                final List<Integer> batch = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    batch.add(random.nextInt(1_000_000));
+                }
+                Assert.assertThat(tree.addAll(batch), CoreMatchers.is(size));
+                batch.forEach(expected::add);
+                Assert.assertTrue(tree.validate());
+                Assert.assertThat(
+                        tree.size(),
+                        CoreMatchers.is(expected.size())
+                );
+                for (final Integer value : batch) {
+                    Assert.assertTrue(tree.contains(value));
+                }
+            }
+            for (int i = 0; i < 2000; i++) {
+                final int value = random.nextInt(1_000_000);
+                Assert.assertThat(
+                        tree.remove(value),
+                        CoreMatchers.is(expected.remove(value))
+                );
+            }
+            Assert.assertTrue(tree.validate());
+        }
+    }
+
+    /**
+     * Test batch add of values bigger than all values in tree.
+     */
+    @Test
+    public void testAddAllAppend() {
+        final BtreeBB<Integer> tree = new BtreeBB<>(2);
+        for (int from = 0; from < 10_000; from += 1000) {
+            final List<Integer> batch = BtreeBBTest.sequence(1000);
+            final int shift = from;
+            batch.replaceAll(value -> value + shift);
+            Collections.shuffle(batch, new Random(from));
+            tree.addAll(batch);
+            Assert.assertTrue(tree.validate());
+        }
+        Assert.assertThat(tree.size(), CoreMatchers.is(10_000));
+        for (int i = 0; i < 10_000; i++) {
+            Assert.assertTrue(tree.contains(i));
+        }
+        Assert.assertFalse(tree.contains(10_000));
+    }
+
+    /**
+     * Numbers from zero.
+     *
+     * @param size Amount of numbers
+     * @return Numbers
+     */
+    private static List<Integer> sequence(final int size) {
+        final List<Integer> numbers = new ArrayList<>(size);
+        for (int num = 0; num < size; num++) {
+            numbers.add(num);
+        }
+        return numbers;
+    }
+}
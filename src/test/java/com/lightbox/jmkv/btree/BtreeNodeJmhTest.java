@@ -10,22 +10,26 @@ import org.openjdk.jmh.runner.options.Options;
 import org.openjdk.jmh.runner.options.OptionsBuilder;
 import org.openjdk.jmh.runner.options.TimeValue;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
- * Test performance of two sort algorithms in BtreeNode keys.
- * Default sort should be faster but if you need custom logic
- * use parametrized addKey method
+ * Test performance of positional insert of BtreeNode keys
+ * against sort on every add.
+ * Positional insert should be faster and the gap grows with
+ * node size, if you need custom logic use parametrized addKey method.
+ * Positional insert of children, split by ranges and one pass merge
+ * of neighbour and interleaved nodes are measured on the same sizes
  */
 @Ignore
 @SuppressWarnings({"MagicNumber", "DesignForExtension"})
 public class BtreeNodeJmhTest {
 
     /**
-     * Run two sort benchmarks.
+     * Run insert benchmarks.
      *
      * @throws RunnerException if failed
      */
@@ -46,24 +50,24 @@ public class BtreeNodeJmhTest {
     }
 
     /**
-     * Benchmark test for default sort of BtreeNode.
+     * Benchmark of positional insert of random keys.
      *
      * @param data Data to use for sort
      */
     @Benchmark
-    public void testDefaultSort(final TestData data) {
-        final BtreeNode node = new BtreeNode(100, 1);
+    public void testPositionalAddKey(final TestData data) {
+        final BtreeNode node = new BtreeNode(data.size + 1, 1);
         data.array.forEach(value -> node.addKey(new NodeKey(value, "")));
     }
 
     /**
-     * Benchmark test for custom sort of BtreeNode.
+     * Benchmark of insert of random keys with sort on every add.
      *
      * @param data Data to use for sort
      */
     @Benchmark
-    public void testCustomSort(final TestData data) {
-        final BtreeNode node = new BtreeNode(100, 1);
+    public void testSortedAddKey(final TestData data) {
+        final BtreeNode node = new BtreeNode(data.size + 1, 1);
         data.array
                 .forEach(value -> {
                             node.addKey(
@@ -74,6 +78,67 @@ public class BtreeNodeJmhTest {
                 );
     }
 
+    /**
+     * Benchmark of positional insert of children in random order.
+     *
+     * @param data Data with children
+     * @return Node with all children
+     */
+    @Benchmark
+    public BtreeNode testPositionalAddChild(final TestData data) {
+        final BtreeNode node = new BtreeNode(0, data.size);
+        data.children.forEach(node::addChild);
+        return node;
+    }
+
+    /**
+     * Benchmark of split of full node in two halves by ranges.
+     *
+     * @param data Data with full node
+     * @return Right half
+     */
+    @Benchmark
+    public BtreeNode testSplit(final TestData data) {
+        final int middle = data.full.keys() / 2;
+        new SplitBtn(data.full, 0, middle);
+        return new SplitBtn(data.full, middle + 1, data.full.keys());
+    }
+
+    /**
+     * Benchmark of merge of neighbour nodes with keys and children,
+     * like merge of siblings in Btree, right node is copied at once.
+     *
+     * @param data Data with neighbour nodes
+     * @return Merged node
+     */
+    @Benchmark
+    public BtreeNode testMergeNeighbours(final TestData data) {
+        final BtreeNode node = new BtreeNode(
+                data.size * 2,
+                data.size * 2 + 2
+        );
+        node.addAllKeys(data.left);
+        node.addAllChildren(data.left);
+        node.addAllKeys(data.right);
+        node.addAllChildren(data.right);
+        return node;
+    }
+
+    /**
+     * Benchmark of merge of nodes with interleaved keys,
+     * keys are merged from the end in one pass.
+     *
+     * @param data Data with interleaved nodes
+     * @return Merged node
+     */
+    @Benchmark
+    public BtreeNode testMergeInterleaved(final TestData data) {
+        final BtreeNode node = new BtreeNode(data.size * 2, 0);
+        node.addAllKeys(data.even);
+        node.addAllKeys(data.odd);
+        return node;
+    }
+
     /**
      * Class that provides test data for JMH benchmarking.
      */
@@ -84,20 +149,94 @@ public class BtreeNodeJmhTest {
          */
         private static final ArraySort SORT = new ArraySort.DefaultSort();
 
+        /**
+         * Amount of keys in node.
+         */
+        @Param({"99", "999", "9999"})
+        private int size;
+
         /**
          * Array of random ints.
          */
         private List<Integer> array;
 
         /**
-         * Setup random ints array.
+         * Leaves with one random key each.
+         */
+        private List<BtreeNode> children;
+
+        /**
+         * Node with sorted random keys.
+         */
+        private BtreeNode full;
+
+        /**
+         * Node with keys and children lower than keys of right node.
+         */
+        private BtreeNode left;
+
+        /**
+         * Node with keys and children bigger than keys of left node.
+         */
+        private BtreeNode right;
+
+        /**
+         * Node with even keys.
+         */
+        private BtreeNode even;
+
+        /**
+         * Node with odd keys.
+         */
+        private BtreeNode odd;
+
+        /**
+         * Setup random ints array and nodes.
          */
         @Setup
         public void setup() {
             this.array = new Random()
-                    .ints(99)
+                    .ints(this.size)
                     .boxed()
                     .collect(Collectors.toList());
+            this.children = new ArrayList<>(this.size);
+            this.full = new BtreeNode(this.size, 0);
+            for (final int key : this.array) {
+                final BtreeNode child = new BtreeNode(1, 0);
+                child.addKey(key, "");
+                this.children.add(child);
+                this.full.addKey(key, "");
+            }
+            this.left = TestData.node(0, this.size, 1);
+            this.right = TestData.node(this.size * 2, this.size, 1);
+            this.even = TestData.node(0, this.size, 2);
+            this.odd = TestData.node(1, this.size, 2);
+        }
+
+        /**
+         * Node with arithmetic progression of keys
+         * and a leaf child for every key and one more.
+         *
+         * @param first First key
+         * @param count Amount of keys
+         * @param step  Difference of neighbour keys
+         * @return Node
+         */
+        private static BtreeNode node(
+                final int first,
+                final int count,
+                final int step
+        ) {
+            final BtreeNode node = new BtreeNode(count, count + 1);
+            for (int i = 0; i < count; i++) {
+                node.addKey(first + i * step, "");
+            }
+            for (int i = 0; i <= count; i++) {
+                final BtreeNode child = new BtreeNode(1, 0);
+                child.addKey(first + i * step, "");
+                node.addChild(child);
+            }
+            return node;
         }
     }
 }
@@ -139,6 +139,98 @@ public final class BtreeNodeTest {
         }
     }
 
+    /**
+     * Test merge of nodes with interleaved keys and children.
+     */
+    @Test
+    public void testMergeInterleaved() {
+        final BtreeNode target = new BtreeNode(6, 6);
+        final BtreeNode source = new BtreeNode(3, 3);
+        for (int i = 0; i < 6; i += 2) {
+            target.addKey(i, "target");
+            target.addChild(BtreeNodeTest.leaf(i));
+            source.addKey(i + 1, "source");
+            source.addChild(BtreeNodeTest.leaf(i + 1));
+        }
+        target.addAllKeys(source);
+        target.addAllChildren(source);
+        Assert.assertThat(target.keys(), CoreMatchers.is(6));
+        Assert.assertThat(target.children(), CoreMatchers.is(6));
+        for (int i = 0; i < 6; i++) {
+            Assert.assertThat(target.key(i).key, CoreMatchers.is(i));
+            Assert.assertThat(target.child(i).key(0).key, CoreMatchers.is(i));
+            Assert.assertThat(
+                    target.child(i).parent(),
+                    CoreMatchers.is(target)
+            );
+        }
+    }
+
+    /**
+     * Test that equal keys of target go before keys of source.
+     */
+    @Test
+    public void testMergeDuplicates() {
+        final BtreeNode target = new BtreeNode(5, 0);
+        target.addKey(1, "target");
+        target.addKey(3, "target");
+        target.addKey(5, "target");
+        final BtreeNode source = new BtreeNode(2, 0);
+        source.addKey(3, "source");
+        source.addKey(4, "source");
+        target.addAllKeys(source);
+        final int[] keys = {1, 3, 3, 4, 5};
+        final String[] values = {
+            "target", "target", "source", "source", "target",
+        };
+        Assert.assertThat(target.keys(), CoreMatchers.is(5));
+        for (int i = 0; i < keys.length; i++) {
+            Assert.assertThat(target.key(i).key, CoreMatchers.is(keys[i]));
+            Assert.assertThat(target.key(i).value, CoreMatchers.is(values[i]));
+        }
+    }
+
+    /**
+     * Test that target keeps the first place when the last key
+     * of source equals the first key of target.
+     */
+    @Test
+    public void testMergeDuplicateBeforeTarget() {
+        final BtreeNode target = new BtreeNode(4, 0);
+        target.addKey(3, "target");
+        target.addKey(4, "target");
+        final BtreeNode source = new BtreeNode(2, 0);
+        source.addKey(1, "source");
+        source.addKey(3, "source");
+        target.addAllKeys(source);
+        final int[] keys = {1, 3, 3, 4};
+        final String[] values = {"source", "target", "source", "target"};
+        Assert.assertThat(target.keys(), CoreMatchers.is(4));
+        for (int i = 0; i < keys.length; i++) {
+            Assert.assertThat(target.key(i).key, CoreMatchers.is(keys[i]));
+            Assert.assertThat(target.key(i).value, CoreMatchers.is(values[i]));
+        }
+    }
+
+    /**
+     * Test merge with empty target and with empty source.
+     */
+    @Test
+    public void testMergeEmpty() {
+        final BtreeNode target = new BtreeNode(6, 0);
+        target.addAllKeys(new BtreeNode(0, 0));
+        Assert.assertFalse(target.hasKeys());
+        target.addAllKeys(this.nodeWithKeys(0, 5));
+        target.addAllKeys(new BtreeNode(0, 0));
+        Assert.assertThat(target.keys(), CoreMatchers.is(6));
+        for (int i = 0; i < 6; i++) {
+            Assert.assertThat(target.key(i).key, CoreMatchers.is(i));
+        }
+        final BtreeNode parent = new BtreeNode(0, 2);
+        parent.addAllChildren(new BtreeNode(0, 0));
+        Assert.assertFalse(parent.hasChildren());
+    }
+
     /**
      * Test index of child.
      * Add search child in position 2 and then search itgits
@@ -191,6 +283,18 @@ public final class BtreeNodeTest {
         return node;
     }
 
+    /**
+     * Leaf with one key.
+     *
+     * @param key Key
+     * @return Node
+     */
+    private static BtreeNode leaf(final int key) {
+        final BtreeNode node = new BtreeNode(1, 0);
+        node.addKey(key, "");
+        return node;
+    }
+
     /**
      * Generate node for test with children.
      * Generated node doesn't have keys
@@ -49,6 +49,42 @@ public final class BtreeSearchTest {
     public void testSearchNonExisting() {
         final BtreeSearch search = new BtreeSearch(this.testNode, 6);
         Assert.assertFalse(search.found());
-        Assert.assertThat(search.position(), CoreMatchers.is(4));
+        Assert.assertThat(search.position(), CoreMatchers.is(3));
+    }
+
+    /**
+     * Test search result encoded in int.
+     */
+    @Test
+    public void testEncodedSearch() {
+        final int existing = BtreeSearch.search(this.testNode, 8);
+        Assert.assertTrue(BtreeSearch.found(existing));
+        Assert.assertThat(BtreeSearch.position(existing), CoreMatchers.is(3));
+        final int missing = BtreeSearch.search(this.testNode, 6);
+        Assert.assertFalse(BtreeSearch.found(missing));
+        Assert.assertThat(BtreeSearch.position(missing), CoreMatchers.is(3));
+        Assert.assertThat(
+                BtreeSearch.position(BtreeSearch.search(this.testNode, 64)),
+                CoreMatchers.is(6)
+        );
+    }
+
+    /**
+     * Test position of the next key.
+     */
+    @Test
+    public void testNextKey() {
+        Assert.assertThat(
+                BtNextKeySearch.position(this.testNode, 5),
+                CoreMatchers.is(3)
+        );
+        Assert.assertThat(
+                BtNextKeySearch.position(this.testNode, 16),
+                CoreMatchers.is(4)
+        );
+        Assert.assertThat(
+                BtNextKeySearch.position(this.testNode, 64),
+                CoreMatchers.is(5)
+        );
     }
 }
@@ -1,25 +1,28 @@
-/*
 package com.lightbox.jmkv.btree;
 
 import org.hamcrest.CoreMatchers;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
 import java.util.stream.IntStream;
 
-*/
 /**
  * Test {@link com.lightbox.jmkv.btree.Btree} class.
- *//*
-
+ */
 @SuppressWarnings("MagicNumber")
 public final class BtreeTest {
 
-    */
-/**
+    /**
      * Test put method of {@link Btree}.
-     *//*
-
+     */
     @Test
     public void testPutAndGet() {
         final Btree btree = new Btree(2);
@@ -36,11 +39,9 @@ public final class BtreeTest {
         Assert.assertNull(btree.get(0));
     }
 
-    */
-/**
+    /**
      * Test that node was split after overflow.
-     *//*
-
+     */
     @Test
     public void testSplit() {
         final Btree btree = new Btree(2);
@@ -53,11 +54,9 @@ public final class BtreeTest {
         Assert.assertThat(root.child(1).key(1).key, CoreMatchers.is(5));
     }
 
-    */
-/**
+    /**
      * Test remove key from parent.
-     *//*
-
+     */
     @Test
     public void testRemoveFromRoot() {
         final Btree btree = new Btree(2);
@@ -69,8 +68,7 @@ public final class BtreeTest {
         Assert.assertThat(root.key(1).key, CoreMatchers.is(5));
     }
 
-    */
-/**
+    /**
      * Test remove in internal node.
      * Internal node has three child and two keys
      * Before:
@@ -79,8 +77,7 @@ public final class BtreeTest {
      * After:
      * ####6 9
      * #5   7  10
-     *//*
-
+     */
     @SuppressWarnings("LineLength")
     @Test
     public void testRemoveInternalNodeWithChildren() {
@@ -121,8 +118,7 @@ public final class BtreeTest {
         );
     }
 
-    */
-/**
+    /**
      * Test remove in internal node.
      * Internal node has two child and one key
      * Before:
@@ -133,8 +129,7 @@ public final class BtreeTest {
      * #######6
      * ###4       8
      * #1,3 5   7   9,10
-     *//*
-
+     */
     @Test
     public void testRemoveInternalNodeWithOneKey() {
         final Btree btree = new Btree(2);
@@ -178,5 +173,291 @@ public final class BtreeTest {
                 CoreMatchers.is(5)
         );
     }
+
+    /**
+     * Test floor, ceiling, lower and higher keys.
+     */
+    @Test
+    public void testNavigation() {
+        final Btree btree = new Btree(2);
+        for (int i = 0; i < 100; i += 10) {
+            btree.put(i, String.valueOf(i));
+        }
+        Assert.assertThat(btree.floorKey(35), CoreMatchers.is(30));
+        Assert.assertThat(btree.floorKey(30), CoreMatchers.is(30));
+        Assert.assertThat(btree.lowerKey(30), CoreMatchers.is(20));
+        Assert.assertThat(btree.ceilingKey(35), CoreMatchers.is(40));
+        Assert.assertThat(btree.ceilingKey(40), CoreMatchers.is(40));
+        Assert.assertThat(btree.higherKey(40), CoreMatchers.is(50));
+        Assert.assertNull(btree.lowerKey(0));
+        Assert.assertNull(btree.higherKey(90));
+        Assert.assertThat(btree.firstKey(), CoreMatchers.is(0));
+        Assert.assertThat(btree.lastEntry().getValue(), CoreMatchers.is("90"));
+        Assert.assertThat(btree.pollFirstEntry().getKey(), CoreMatchers.is(0));
+        Assert.assertThat(btree.size(), CoreMatchers.is(9));
+    }
+
+    /**
+     * Test sub, head and tail maps.
+     */
+    @Test
+    public void testRanges() {
+        final Btree btree = new Btree(3);
+        for (int i = 0; i < 200; i++) {
+            btree.put(i, String.valueOf(i));
+        }
+        final NavigableMap<Integer, String> sub =
+                btree.subMap(50, true, 60, false);
+        Assert.assertThat(sub.size(), CoreMatchers.is(10));
+        Assert.assertThat(sub.firstKey(), CoreMatchers.is(50));
+        Assert.assertThat(sub.lastKey(), CoreMatchers.is(59));
+        Assert.assertNull(sub.get(60));
+        Assert.assertThat(sub.ceilingKey(10), CoreMatchers.is(50));
+        Assert.assertNull(sub.higherKey(59));
+        Assert.assertThat(btree.headMap(5).size(), CoreMatchers.is(5));
+        Assert.assertThat(btree.tailMap(195, false).size(), CoreMatchers.is(4));
+        final NavigableMap<Integer, String> desc = sub.descendingMap();
+        Assert.assertThat(desc.firstKey(), CoreMatchers.is(59));
+        Assert.assertThat(desc.headMap(55).size(), CoreMatchers.is(4));
+        Assert.assertThat(desc.higherKey(55), CoreMatchers.is(54));
+        final List<Integer> keys = new ArrayList<>(desc.keySet());
+        Assert.assertThat(keys.get(0), CoreMatchers.is(59));
+        Assert.assertThat(keys.get(9), CoreMatchers.is(50));
+        sub.clear();
+        Assert.assertThat(btree.size(), CoreMatchers.is(190));
+        Assert.assertNull(btree.get(55));
+        Assert.assertThat(btree.get(60), CoreMatchers.is("60"));
+    }
+
+    /**
+     * Test that sub map rejects keys out of its range.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testOutOfRange() {
+        final Btree btree = new Btree(2);
+        btree.headMap(10).put(10, "");
+    }
+
+    /**
+     * Test in-order iteration and removal by iterator.
+     */
+    @Test
+    public void testIterator() {
+        final Btree btree = new Btree(2);
+        for (int i = 999; i >= 0; i--) {
+            btree.put(i, String.valueOf(i));
+        }
+        int expected = 0;
+        for (final Map.Entry<Integer, String> entry : btree.entrySet()) {
+            Assert.assertThat(entry.getKey(), CoreMatchers.is(expected));
+            expected++;
+        }
+        Assert.assertThat(expected, CoreMatchers.is(1000));
+        final Iterator<Integer> keys = btree.keySet().iterator();
+        while (keys.hasNext()) {
+            if (keys.next() % 2 == 0) {
+                keys.remove();
+            }
+        }
+        Assert.assertThat(btree.size(), CoreMatchers.is(500));
+        expected = 999;
+        final Iterator<Integer> desc = btree.descendingKeySet().iterator();
+        while (desc.hasNext()) {
+            Assert.assertThat(desc.next(), CoreMatchers.is(expected));
+            expected -= 2;
+        }
+        Assert.assertThat(expected, CoreMatchers.is(-1));
+    }
+
+    /**
+     * Test that iterator fails after change of tree.
+     */
+    @Test(expected = ConcurrentModificationException.class)
+    public void testConcurrentModification() {
+        final Btree btree = new Btree(2);
+        for (int i = 0; i < 10; i++) {
+            btree.put(i, "");
+        }
+        for (final Integer key : btree.keySet()) {
+            btree.remove(key);
+        }
+    }
+
+    /**
+     * Test random operations against TreeMap.
+     */
+    @Test
+    public void testAgainstTreeMap() {
+        final Random random = new Random(42L);
+        final Btree btree = new Btree(3);
+        final TreeMap<Integer, String> expected = new TreeMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            final int key = random.nextInt(2000);
+            if (random.nextInt(3) == 0) {
+                Assert.assertThat(
+                        btree.remove(key),
+                        CoreMatchers.is(expected.remove(key))
+                );
+            } else {
+                final String value = String.valueOf(i);
+                Assert.assertThat(
+                        btree.put(key, value),
+                        CoreMatchers.is(expected.put(key, value))
+                );
+            }
+        }
+        Assert.assertThat(btree.size(), CoreMatchers.is(expected.size()));
+        Assert.assertThat(btree, CoreMatchers.is(expected));
+        for (int key = -1; key <= 2000; key += 7) {
+            Assert.assertThat(
+                    btree.floorKey(key),
+                    CoreMatchers.is(expected.floorKey(key))
+            );
+            Assert.assertThat(
+                    btree.higherKey(key),
+                    CoreMatchers.is(expected.higherKey(key))
+            );
+            Assert.assertThat(
+                    new ArrayList<>(btree.subMap(key, key + 50).values()),
+                    CoreMatchers.is(
+                            new ArrayList<>(
+                                    expected.subMap(key, key + 50).values()
+                            )
+                    )
+            );
+        }
+    }
+
+    /**
+     * Test rank, select and count of keys against TreeMap.
+     */
+    @Test
+    public void testRankAndSelect() {
+        for (final int degree : new int[]{2, 3, 16}) {
+            final Random random = new Random(degree);
+            final Btree btree = new Btree(degree);
+            final TreeMap<Integer, String> expected = new TreeMap<>();
+            for (int i = 0; i < 10_000; i++) {
+                final int key = random.nextInt(1000);
+                if (random.nextInt(3) == 0) {
+                    btree.remove(key);
+                    expected.remove(key);
+                } else {
+                    btree.put(key, String.valueOf(i));
+                    expected.put(key, String.valueOf(i));
+                }
+                Assert.assertThat(
+                        btree.size(),
+                        CoreMatchers.is(expected.size())
+                );
+            }
+            final List<Map.Entry<Integer, String>> entries =
+                    new ArrayList<>(expected.entrySet());
+            for (int index = 0; index < entries.size(); index++) {
+                Assert.assertThat(
+                        btree.select(index),
+                        CoreMatchers.is(entries.get(index))
+                );
+            }
+            for (int key = -1; key <= 1000; key++) {
+                Assert.assertThat(
+                        btree.rank(key),
+                        CoreMatchers.is(expected.headMap(key).size())
+                );
+                Assert.assertThat(
+                        btree.count(key, key + 100),
+                        CoreMatchers.is(expected.subMap(key, key + 100).size())
+                );
+                Assert.assertThat(
+                        btree.subMap(key, false, key + 10, true).size(),
+                        CoreMatchers.is(
+                                expected.subMap(key, false, key + 10, true)
+                                        .size()
+                        )
+                );
+                Assert.assertThat(
+                        btree.tailMap(key).size(),
+                        CoreMatchers.is(expected.tailMap(key).size())
+                );
+            }
+        }
+    }
+
+    /**
+     * Test that select out of range fails.
+     */
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testSelectOutOfRange() {
+        final Btree btree = new Btree(2);
+        btree.put(1, "one");
+        btree.select(1);
+    }
+
+    /**
+     * Test range aggregates against scan of TreeMap.
+     */
+    @Test
+    public void testAggregates() {
+        final Aggregate<Long> sum = new Aggregate.Sum(
+                (key, value) -> Long.parseLong(value)
+        );
+        final Aggregate<Long> min = new Aggregate.Min(
+                (key, value) -> Long.parseLong(value)
+        );
+        final Aggregate<Long> max = new Aggregate.Max((key, value) -> key);
+        for (final int degree : new int[]{2, 3, 16}) {
+            final Random random = new Random(degree);
+            final Btree btree = new Btree(degree, sum, min, max);
+            final TreeMap<Integer, String> expected = new TreeMap<>();
+            for (int i = 0; i < 10_000; i++) {
+                final int key = random.nextInt(1000);
+                if (random.nextInt(3) == 0) {
+                    btree.remove(key);
+                    expected.remove(key);
+                } else {
+                    final String value = String.valueOf(random.nextInt(500));
+                    btree.put(key, value);
+                    expected.put(key, value);
+                }
+            }
+            for (int from = -1; from <= 1000; from += 3) {
+                final int to = from + random.nextInt(300);
+                final Map<Integer, String> range = expected.subMap(from, to);
+                Assert.assertThat(
+                        btree.aggregate(sum, from, to),
+                        CoreMatchers.is(
+                                range.values().stream()
+                                        .mapToLong(Long::parseLong)
+                                        .sum()
+                        )
+                );
+                Assert.assertThat(
+                        btree.aggregate(min, from, to),
+                        CoreMatchers.is(
+                                range.values().stream()
+                                        .mapToLong(Long::parseLong)
+                                        .min()
+                                        .orElse(Long.MAX_VALUE)
+                        )
+                );
+                Assert.assertThat(
+                        btree.aggregate(max, from, to),
+                        CoreMatchers.is(
+                                range.keySet().stream()
+                                        .mapToLong(Integer::longValue)
+                                        .max()
+                                        .orElse(Long.MIN_VALUE)
+                        )
+                );
+            }
+        }
+    }
+
+    /**
+     * Test that aggregate which isn't kept by tree is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownAggregate() {
+        new Btree(2).aggregate(new Aggregate.Sum((key, value) -> key), 0, 1);
+    }
 }
-*/
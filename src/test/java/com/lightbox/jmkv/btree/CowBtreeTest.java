@@ -0,0 +1,155 @@
+package com.lightbox.jmkv.btree;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Test for {@link CowBtree}.
+ */
+@SuppressWarnings("MagicNumber")
+public final class CowBtreeTest {
+
+    /**
+     * Test random puts and deletes against TreeMap.
+     */
+    @Test
+    public void testRandomOperations() {
+        for (final int capacity : new int[]{3, 4, 5, 32}) {
+            final CowBtree tree = new CowBtree(capacity);
+            final NavigableMap<Integer, String> expected = new TreeMap<>();
+            final Random random = new Random(capacity);
+            for (int i = 0; i < 20_000; i++) {
+                final int key = random.nextInt(2000);
+                if (random.nextInt(3) == 0) {
+                    Assert.assertThat(
+                            tree.delete(key),
+                            CoreMatchers.is(expected.remove(key))
+                    );
+                } else {
+                    final String value = String.valueOf(i);
+                    tree.put(key, value);
+                    expected.put(key, value);
+                }
+            }
+            Assert.assertThat(tree.size(), CoreMatchers.is(expected.size()));
+            CowBtreeTest.check(tree.iterator(), expected);
+            CowBtreeTest.check(
+                    tree.range(500, 1500),
+                    expected.subMap(500, true, 1500, false)
+            );
+        }
+    }
+
+    /**
+     * Test that snapshot doesn't see later changes.
+     */
+    @Test
+    public void testSnapshot() {
+        final CowBtree tree = new CowBtree(4);
+        final NavigableMap<Integer, String> expected = new TreeMap<>();
+        for (int i = 0; i < 1000; i++) {
+            tree.put(i, String.valueOf(i));
+            expected.put(i, String.valueOf(i));
+        }
+        final BtreeSnapshot snapshot = tree.snapshot();
+        final Iterator<Map.Entry<Integer, String>> scan = tree.iterator();
+        for (int i = 0; i < 1000; i += 2) {
+            tree.delete(i);
+        }
+        tree.put(1, "one");
+        tree.put(5000, "five thousand");
+        Assert.assertThat(tree.size(), CoreMatchers.is(501));
+        Assert.assertThat(snapshot.size(), CoreMatchers.is(1000));
+        Assert.assertThat(snapshot.get(0), CoreMatchers.is("0"));
+        Assert.assertThat(snapshot.get(1), CoreMatchers.is("1"));
+        Assert.assertNull(snapshot.get(5000));
+        CowBtreeTest.check(scan, expected);
+        CowBtreeTest.check(snapshot.iterator(), expected);
+        Assert.assertTrue(tree.clear());
+        Assert.assertThat(snapshot.size(), CoreMatchers.is(1000));
+        Assert.assertFalse(tree.iterator().hasNext());
+    }
+
+    /**
+     * Test that concurrent writers don't lose keys
+     * while scans read snapshots.
+     *
+     * @throws Exception if failed
+     */
+    @Test
+    public void testConcurrentWrites() throws Exception {
+        final CowBtree tree = new CowBtree(8);
+        final int threads = 4;
+        final int keys = 4000;
+        final ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+        final List<Future<?>> futures = new ArrayList<>(threads);
+        for (int thread = 0; thread < threads; thread++) {
+            final int first = thread;
+            futures.add(
+                    pool.submit(
+                            () -> {
+                                for (int i = first; i < keys; i += threads) {
+                                    tree.put(i, String.valueOf(i));
+                                }
+                            }
+                    )
+            );
+        }
+        final Future<?> scans = pool.submit(
+                () -> {
+                    for (int round = 0; round < 50; round++) {
+                        final BtreeSnapshot snapshot = tree.snapshot();
+                        int count = 0;
+                        int last = -1;
+                        for (final Map.Entry<Integer, String> entry
+                                : snapshot) {
+                            Assert.assertTrue(entry.getKey() > last);
+                            last = entry.getKey();
+                            count++;
+                        }
+                        Assert.assertThat(
+                                count,
+                                CoreMatchers.is(snapshot.size())
+                        );
+                    }
+                }
+        );
+        for (final Future<?> future : futures) {
+            future.get();
+        }
+        scans.get();
+        pool.shutdown();
+        Assert.assertThat(tree.size(), CoreMatchers.is(keys));
+        for (int i = 0; i < keys; i++) {
+            Assert.assertThat(tree.get(i), CoreMatchers.is(String.valueOf(i)));
+        }
+    }
+
+    /**
+     * Check that scan returns exactly expected entries.
+     *
+     * @param scan     Scan
+     * @param expected Expected entries
+     */
+    private static void check(
+            final Iterator<Map.Entry<Integer, String>> scan,
+            final Map<Integer, String> expected
+    ) {
+        for (final Map.Entry<Integer, String> entry : expected.entrySet()) {
+            Assert.assertThat(scan.next(), CoreMatchers.is(entry));
+        }
+        Assert.assertFalse(scan.hasNext());
+    }
+}
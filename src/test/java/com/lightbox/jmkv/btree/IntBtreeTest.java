@@ -0,0 +1,89 @@
+package com.lightbox.jmkv.btree;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Test for {@link IntBtree}.
+ */
+@SuppressWarnings("MagicNumber")
+public final class IntBtreeTest {
+
+    /**
+     * Test put, replace and get.
+     */
+    @Test
+    public void testPutAndGet() {
+        final IntBtree tree = new IntBtree(2);
+        for (int i = 0; i < 1000; i++) {
+            tree.put(i * 7 % 1000, String.valueOf(i * 7 % 1000));
+        }
+        tree.put(500, "five hundred");
+        Assert.assertThat(tree.size(), CoreMatchers.is(1000));
+        Assert.assertThat(tree.get(500), CoreMatchers.is("five hundred"));
+        Assert.assertThat(
+                tree.get(Integer.valueOf(999)),
+                CoreMatchers.is("999")
+        );
+        Assert.assertNull(tree.get(1000));
+        Assert.assertNull(tree.get(-1));
+        Assert.assertTrue(tree.height() <= 10);
+    }
+
+    /**
+     * Test random puts and deletes against TreeMap.
+     */
+    @Test
+    public void testRandomOperations() {
+        for (final int degree : new int[]{2, 3, 16}) {
+            final IntBtree tree = new IntBtree(degree);
+            final Map<Integer, String> expected = new TreeMap<>();
+            final Random random = new Random(degree);
+            for (int i = 0; i < 20_000; i++) {
+                final int key = random.nextInt(2000);
+                if (random.nextInt(3) == 0) {
+                    Assert.assertThat(
+                            tree.delete(key),
+                            CoreMatchers.is(expected.remove(key))
+                    );
+                } else {
+                    final String value = String.valueOf(i);
+                    tree.put(key, value);
+                    expected.put(key, value);
+                }
+            }
+            Assert.assertThat(tree.size(), CoreMatchers.is(expected.size()));
+            for (int key = 0; key < 2000; key++) {
+                Assert.assertThat(
+                        tree.get(key),
+                        CoreMatchers.is(expected.get(key))
+                );
+            }
+            for (final Integer key : expected.keySet()) {
+                Assert.assertNotNull(tree.delete(key));
+            }
+            Assert.assertThat(tree.size(), CoreMatchers.is(0));
+            Assert.assertThat(tree.height(), CoreMatchers.is(1));
+        }
+    }
+
+    /**
+     * Test clear.
+     */
+    @Test
+    public void testClear() {
+        final IntBtree tree = new IntBtree();
+        for (int i = 0; i < 100; i++) {
+            tree.put(i, "");
+        }
+        Assert.assertTrue(tree.clear());
+        Assert.assertThat(tree.size(), CoreMatchers.is(0));
+        Assert.assertFalse(tree.exists(5));
+        Assert.assertThat(tree.toString(), CoreMatchers.is("[]"));
+    }
+}
@@ -0,0 +1,84 @@
+package com.lightbox.jmkv.btree;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Test for {@link OffHeapBtree}.
+ */
+@SuppressWarnings("MagicNumber")
+public final class OffHeapBtreeTest {
+
+    /**
+     * Test random puts and deletes against TreeMap.
+     */
+    @Test
+    public void testRandomOperations() {
+        for (final int node : new int[]{40, 64, OffHeapBtree.NODE}) {
+            final OffHeapBtree tree = new OffHeapBtree(node);
+            final Map<Integer, String> expected = new TreeMap<>();
+            final Random random = new Random(node);
+            for (int i = 0; i < 20_000; i++) {
+                final int key = random.nextInt(2000) - 1000;
+                if (random.nextInt(3) == 0) {
+                    Assert.assertThat(
+                            tree.delete(key),
+                            CoreMatchers.is(expected.remove(key))
+                    );
+                } else {
+                    final String value = "значение" + i;
+                    tree.put(key, value);
+                    expected.put(key, value);
+                }
+            }
+            Assert.assertThat(tree.size(), CoreMatchers.is(expected.size()));
+            for (int key = -1000; key < 1000; key++) {
+                Assert.assertThat(
+                        tree.get(key),
+                        CoreMatchers.is(expected.get(key))
+                );
+                Assert.assertThat(
+                        tree.exists(key),
+                        CoreMatchers.is(expected.containsKey(key))
+                );
+            }
+        }
+    }
+
+    /**
+     * Test that values and nodes go to several slabs.
+     */
+    @Test
+    public void testManySlabs() {
+        final OffHeapBtree tree = new OffHeapBtree(64);
+        final StringBuilder value = new StringBuilder(1000);
+        for (int i = 0; i < 1000; i++) {
+            value.append('v');
+        }
+        for (int i = 0; i < 50_000; i++) {
+            tree.put(i, value.toString());
+        }
+        Assert.assertThat(tree.size(), CoreMatchers.is(50_000));
+        Assert.assertTrue(tree.height() > 5);
+        Assert.assertTrue(tree.bytes() > 50_000_000L);
+        Assert.assertThat(tree.get(49_999), CoreMatchers.is(value.toString()));
+        Assert.assertTrue(tree.clear());
+        Assert.assertThat(tree.bytes(), CoreMatchers.is(1L << 20));
+        Assert.assertNull(tree.get(1));
+        tree.put(1, "one");
+        Assert.assertThat(tree.get(1), CoreMatchers.is("one"));
+    }
+
+    /**
+     * Test that node must fit at least three keys.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testSmallNode() {
+        new OffHeapBtree(32);
+    }
+}
@@ -0,0 +1,107 @@
+package com.lightbox.jmkv.btree;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test scalability of OlcBtree reads against B+tree behind one lock.
+ * Run it with different amount of threads, throughput of
+ * optimistic reads should grow with threads while locked reads
+ * stay flat
+ */
+@Ignore
+@SuppressWarnings({"MagicNumber", "DesignForExtension"})
+public class OlcBtreeJmhTest {
+
+    /**
+     * Run read benchmarks on all cores.
+     *
+     * @throws RunnerException if failed
+     */
+    @Test
+    public void testReadScalability() throws RunnerException {
+        final Options opt = new OptionsBuilder()
+                .include(OlcBtreeJmhTest.class.getSimpleName())
+                .mode(Mode.Throughput)
+                .timeUnit(TimeUnit.MILLISECONDS)
+                .warmupTime(TimeValue.seconds(1))
+                .warmupIterations(5)
+                .measurementIterations(3)
+                .threads(Runtime.getRuntime().availableProcessors())
+                .forks(1)
+                .shouldFailOnError(true)
+                .shouldDoGC(false)
+                .build();
+        new Runner(opt).run();
+    }
+
+    /**
+     * Benchmark of optimistic reads.
+     *
+     * @param data Trees
+     * @return Value
+     */
+    @Benchmark
+    public String testOptimisticGet(final TestData data) {
+        return data.olc.get(ThreadLocalRandom.current().nextInt(data.size));
+    }
+
+    /**
+     * Benchmark of reads that take one lock.
+     *
+     * @param data Trees
+     * @return Value
+     */
+    @Benchmark
+    public String testLockedGet(final TestData data) {
+        final int key = ThreadLocalRandom.current().nextInt(data.size);
+        synchronized (data.locked) {
+            return data.locked.get(key);
+        }
+    }
+
+    /**
+     * Trees shared by all threads.
+     */
+    @State(Scope.Benchmark)
+    public static class TestData {
+
+        /**
+         * Amount of keys.
+         */
+        @Param({"10000", "1000000"})
+        private int size;
+
+        /**
+         * Tree with optimistic lock coupling.
+         */
+        private OlcBtree olc;
+
+        /**
+         * Tree for one lock.
+         */
+        private BplusTree locked;
+
+        /**
+         * Fill trees.
+         */
+        @Setup
+        public void setup() {
+            this.olc = new OlcBtree();
+            this.locked = new BplusTree();
+            for (int i = 0; i < this.size; i++) {
+                this.olc.put(i, "");
+                this.locked.put(i, "");
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.lightbox.jmkv.btree;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Test for {@link OlcBtree}.
+ */
+@SuppressWarnings("MagicNumber")
+public final class OlcBtreeTest {
+
+    /**
+     * Test put, replace and get.
+     */
+    @Test
+    public void testPutAndGet() {
+        final OlcBtree tree = new OlcBtree(3);
+        for (int i = 0; i < 1000; i++) {
+            tree.put(i * 7 % 1000, String.valueOf(i * 7 % 1000));
+        }
+        tree.put(500, "five hundred");
+        Assert.assertThat(tree.size(), CoreMatchers.is(1000));
+        Assert.assertThat(tree.get(500), CoreMatchers.is("five hundred"));
+        Assert.assertThat(tree.get(999), CoreMatchers.is("999"));
+        Assert.assertNull(tree.get(1000));
+        Assert.assertNull(tree.get(-1));
+        Assert.assertTrue(tree.height() > 1);
+    }
+
+    /**
+     * Test random puts and deletes against TreeMap.
+     */
+    @Test
+    public void testRandomOperations() {
+        for (final int capacity : new int[]{3, 4, 64}) {
+            final OlcBtree tree = new OlcBtree(capacity);
+            final Map<Integer, String> expected = new TreeMap<>();
+            final Random random = new Random(capacity);
+            for (int i = 0; i < 20_000; i++) {
+                final int key = random.nextInt(2000);
+                if (random.nextInt(3) == 0) {
+                    Assert.assertThat(
+                            tree.delete(key),
+                            CoreMatchers.is(expected.remove(key))
+                    );
+                } else {
+                    final String value = String.valueOf(i);
+                    tree.put(key, value);
+                    expected.put(key, value);
+                }
+            }
+            Assert.assertThat(tree.size(), CoreMatchers.is(expected.size()));
+            for (int key = 0; key < 2000; key++) {
+                Assert.assertThat(
+                        tree.get(key),
+                        CoreMatchers.is(expected.get(key))
+                );
+            }
+        }
+    }
+
+    /**
+     * Test that concurrent writers don't lose keys.
+     *
+     * @throws Exception if failed
+     */
+    @Test
+    public void testConcurrentPuts() throws Exception {
+        final OlcBtree tree = new OlcBtree(4);
+        final int threads = 8;
+        final int keys = 20_000;
+        final ExecutorService pool = Executors.newFixedThreadPool(threads);
+        final List<Future<?>> futures = new ArrayList<>(threads);
+        for (int thread = 0; thread < threads; thread++) {
+            final int first = thread;
+            futures.add(
+                    pool.submit(
+                            () -> {
+                                for (int i = first; i < keys; i += threads) {
+                                    tree.put(i, String.valueOf(i));
+                                }
+                            }
+                    )
+            );
+        }
+        for (final Future<?> future : futures) {
+            future.get();
+        }
+        pool.shutdown();
+        Assert.assertThat(tree.size(), CoreMatchers.is(keys));
+        for (int i = 0; i < keys; i++) {
+            Assert.assertThat(tree.get(i), CoreMatchers.is(String.valueOf(i)));
+        }
+    }
+
+    /**
+     * Test that readers always see keys that were put before
+     * while writers split nodes around them.
+     *
+     * @throws Exception if failed
+     */
+    @Test
+    public void testReadsDuringWrites() throws Exception {
+        final OlcBtree tree = new OlcBtree(4);
+        final int keys = 10_000;
+        for (int i = 0; i < keys; i += 2) {
+            tree.put(i, String.valueOf(i));
+        }
+        final AtomicBoolean writing = new AtomicBoolean(true);
+        final ExecutorService pool = Executors.newFixedThreadPool(4);
+        final List<Future<?>> readers = new ArrayList<>(3);
+        for (int reader = 0; reader < 3; reader++) {
+            readers.add(
+                    pool.submit(
+                            () -> {
+                                while (writing.get()) {
+                                    for (int i = 0; i < keys; i += 2) {
+                                        Assert.assertThat(
+                                                tree.get(i),
+                                                CoreMatchers.is(
+                                                        String.valueOf(i)
+                                                )
+                                        );
+                                    }
+                                }
+                            }
+                    )
+            );
+        }
+        pool.submit(
+                () -> {
+                    for (int round = 0; round < 5; round++) {
+                        for (int i = 1; i < keys; i += 2) {
+                            tree.put(i, "");
+                        }
+                        for (int i = 1; i < keys; i += 2) {
+                            tree.delete(i);
+                        }
+                    }
+                    writing.set(false);
+                }
+        ).get();
+        for (final Future<?> future : readers) {
+            future.get();
+        }
+        pool.shutdown();
+        Assert.assertThat(tree.size(), CoreMatchers.is(keys / 2));
+    }
+}
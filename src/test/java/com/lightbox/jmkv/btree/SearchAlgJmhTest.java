@@ -0,0 +1,182 @@
+package com.lightbox.jmkv.btree;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test performance of key search in node of different sizes.
+ * Linear search should win on small nodes and branchless
+ * binary search or Eytzinger layout on big ones,
+ * the crossing point is a threshold for AdaptiveSearch
+ */
+@Ignore
+@SuppressWarnings({"MagicNumber", "DesignForExtension"})
+public class SearchAlgJmhTest {
+
+    /**
+     * Run search benchmarks.
+     *
+     * @throws RunnerException if failed
+     */
+    @Test
+    public void testSearchPerformance() throws RunnerException {
+        final Options opt = new OptionsBuilder()
+                .include(SearchAlgJmhTest.class.getSimpleName())
+                .mode(Mode.AverageTime)
+                .timeUnit(TimeUnit.NANOSECONDS)
+                .warmupTime(TimeValue.seconds(1))
+                .warmupIterations(5)
+                .measurementIterations(3)
+                .threads(1)
+                .forks(1)
+                .shouldFailOnError(true)
+                .shouldDoGC(false)
+                .build();
+        new Runner(opt).run();
+    }
+
+    /**
+     * Benchmark of default binary search.
+     *
+     * @param data Node and keys
+     * @return Sum of results
+     */
+    @Benchmark
+    public int testBinary(final TestData data) {
+        return data.search(TestData.BINARY);
+    }
+
+    /**
+     * Benchmark of branchless binary search.
+     *
+     * @param data Node and keys
+     * @return Sum of results
+     */
+    @Benchmark
+    public int testBranchless(final TestData data) {
+        return data.search(TestData.BRANCHLESS);
+    }
+
+    /**
+     * Benchmark of linear search.
+     *
+     * @param data Node and keys
+     * @return Sum of results
+     */
+    @Benchmark
+    public int testLinear(final TestData data) {
+        return data.search(TestData.LINEAR);
+    }
+
+    /**
+     * Benchmark of adaptive search.
+     *
+     * @param data Node and keys
+     * @return Sum of results
+     */
+    @Benchmark
+    public int testAdaptive(final TestData data) {
+        return data.search(TestData.ADAPTIVE);
+    }
+
+    /**
+     * Benchmark of search in Eytzinger layout.
+     *
+     * @param data Node and keys
+     * @return Sum of results
+     */
+    @Benchmark
+    public int testEytzinger(final TestData data) {
+        int sum = 0;
+        for (final int key : data.keys) {
+            sum += data.eytzinger.search(key);
+        }
+        return sum;
+    }
+
+    /**
+     * Class that provides test data for JMH benchmarking.
+     */
+    @State(Scope.Thread)
+    public static class TestData {
+        /**
+         * Default binary search.
+         */
+        private static final SearchAlg BINARY =
+                new SearchAlg.DefaultBinarySearch();
+
+        /**
+         * Branchless binary search.
+         */
+        private static final SearchAlg BRANCHLESS =
+                new SearchAlg.BranchlessBinarySearch();
+
+        /**
+         * Linear search.
+         */
+        private static final SearchAlg LINEAR = new SearchAlg.LinearSearch();
+
+        /**
+         * Adaptive search.
+         */
+        private static final SearchAlg ADAPTIVE =
+                new SearchAlg.AdaptiveSearch();
+
+        /**
+         * Amount of keys in node.
+         */
+        @Param({"8", "16", "32", "64", "128", "256"})
+        private int size;
+
+        /**
+         * Node with even keys.
+         */
+        private BtreeNode node;
+
+        /**
+         * Same keys in Eytzinger layout.
+         */
+        private EytzingerKeys eytzinger;
+
+        /**
+         * Keys to search, half of them are missing.
+         */
+        private int[] keys;
+
+        /**
+         * Setup node and random keys.
+         */
+        @Setup
+        public void setup() {
+            this.node = new BtreeNode(this.size + 1, 0);
+            for (int i = 0; i < this.size; i++) {
+                this.node.addKey(i * 2, "");
+            }
+            this.eytzinger = new EytzingerKeys(this.node);
+            this.keys = new Random().ints(1024, 0, this.size * 2).toArray();
+        }
+
+        /**
+         * Search all keys.
+         *
+         * @param alg Search algorithm
+         * @return Sum of results
+         */
+        int search(final SearchAlg alg) {
+            int sum = 0;
+            for (final int key : this.keys) {
+                sum += alg.searchKey(this.node, 0, this.size, key);
+            }
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.lightbox.jmkv.btree;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+/**
+ * Test for {@link SearchAlg} and {@link EytzingerKeys}.
+ */
+@SuppressWarnings("MagicNumber")
+public final class SearchAlgTest {
+
+    /**
+     * Test that all algorithms agree with default binary search.
+     */
+    @Test
+    public void testAgainstBinarySearch() {
+        final SearchAlg expected = new SearchAlg.DefaultBinarySearch();
+        final SearchAlg[] algs = {
+            new SearchAlg.BranchlessBinarySearch(),
+            new SearchAlg.LinearSearch(),
+            new SearchAlg.AdaptiveSearch(),
+            new SearchAlg.AdaptiveSearch(4),
+        };
+        final Random random = new Random(42);
+        for (final int size : new int[]{0, 1, 2, 3, 7, 16, 17, 64, 255}) {
+            final BtreeNode node = SearchAlgTest.node(random, size);
+            for (int from = 0; from <= size; from += 1 + size / 5) {
+                for (int to = from; to <= size; to += 1 + size / 7) {
+                    for (int key = -1; key <= size * 3 + 1; key++) {
+                        for (final SearchAlg alg : algs) {
+                            Assert.assertThat(
+                                    alg.searchKey(node, from, to, key),
+                                    CoreMatchers.is(
+                                            expected.searchKey(
+                                                    node, from, to, key
+                                            )
+                                    )
+                            );
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Test that Eytzinger layout agrees with default binary search.
+     */
+    @Test
+    public void testEytzinger() {
+        final SearchAlg expected = new SearchAlg.DefaultBinarySearch();
+        final Random random = new Random(7);
+        for (int size = 0; size <= 70; size++) {
+            final BtreeNode node = SearchAlgTest.node(random, size);
+            final EytzingerKeys keys = new EytzingerKeys(node);
+            for (int key = -1; key <= size * 3 + 1; key++) {
+                Assert.assertThat(
+                        keys.search(key),
+                        CoreMatchers.is(expected.searchKey(node, 0, size, key))
+                );
+            }
+        }
+    }
+
+    /**
+     * Node with distinct random keys.
+     *
+     * @param random Random
+     * @param size   Amount of keys
+     * @return Node
+     */
+    private static BtreeNode node(final Random random, final int size) {
+        final TreeSet<Integer> keys = new TreeSet<>();
+        while (keys.size() < size) {
+            keys.add(random.nextInt(size * 3));
+        }
+        final BtreeNode node = new BtreeNode(size + 1, 0);
+        keys.forEach(key -> node.addKey(key, String.valueOf(key)));
+        return node;
+    }
+}
@@ -0,0 +1,126 @@
+package com.lightbox.jmkv.btree.paged;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Test for {@link BufferPool}.
+ */
+@SuppressWarnings("MagicNumber")
+public final class BufferPoolTest {
+
+    /**
+     * Folder for page files.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Test that evicted dirty pages are written and read back.
+     *
+     * @throws IOException if failed
+     */
+    @Test
+    public void testEvictAndReload() throws IOException {
+        final Path file = this.folder.newFile().toPath();
+        try (BufferPool pool = new BufferPool(file, 64, 2)) {
+            for (int i = 0; i < 10; i++) {
+                final int page = pool.allocate();
+                pool.pin(page).putInt(0, i * 10);
+                pool.unpin(page, true);
+            }
+            Assert.assertThat(pool.resident(), CoreMatchers.is(2));
+            Assert.assertThat(pool.evictions(), CoreMatchers.is(8L));
+            for (int i = 0; i < 10; i++) {
+                Assert.assertThat(
+                        pool.pin(i).getInt(0),
+                        CoreMatchers.is(i * 10)
+                );
+                pool.unpin(i, false);
+            }
+        }
+        try (BufferPool pool = new BufferPool(file, 64, 2)) {
+            Assert.assertThat(pool.pages(), CoreMatchers.is(10));
+            Assert.assertThat(pool.pin(9).getInt(0), CoreMatchers.is(90));
+            Assert.assertThat(pool.misses(), CoreMatchers.is(1L));
+        }
+    }
+
+    /**
+     * Test that clock never evicts pinned page.
+     *
+     * @throws IOException if failed
+     */
+    @Test
+    public void testPinnedStays() throws IOException {
+        try (BufferPool pool = this.pool(2, 5)) {
+            final long misses = pool.misses();
+            pool.pin(0).putInt(0, 42);
+            for (int i = 1; i < 5; i++) {
+                pool.pin(i);
+                pool.unpin(i, false);
+            }
+            Assert.assertThat(pool.pin(0).getInt(0), CoreMatchers.is(42));
+            Assert.assertThat(pool.misses() - misses, CoreMatchers.is(5L));
+            Assert.assertThat(pool.hits(), CoreMatchers.is(1L));
+            pool.unpin(0, true);
+            pool.unpin(0, false);
+        }
+    }
+
+    /**
+     * Test that pool fails when every frame is pinned.
+     *
+     * @throws IOException if failed
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testAllPinned() throws IOException {
+        try (BufferPool pool = this.pool(2, 3)) {
+            pool.pin(0);
+            pool.pin(1);
+            pool.pin(2);
+        }
+    }
+
+    /**
+     * Test that page can't be unpinned twice.
+     *
+     * @throws IOException if failed
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testUnpinTwice() throws IOException {
+        try (BufferPool pool = this.pool(2, 1)) {
+            pool.pin(0);
+            pool.unpin(0, false);
+            pool.unpin(0, false);
+        }
+    }
+
+    /**
+     * Pool with pages that are written to file.
+     *
+     * @param frames Amount of frames
+     * @param pages  Amount of pages
+     * @return Pool
+     * @throws IOException if failed
+     */
+    private BufferPool pool(final int frames, final int pages)
+            throws IOException {
+        final BufferPool pool = new BufferPool(
+                this.folder.newFile().toPath(),
+                64,
+                frames
+        );
+        for (int i = 0; i < pages; i++) {
+            pool.allocate();
+        }
+        pool.flush();
+        return pool;
+    }
+}
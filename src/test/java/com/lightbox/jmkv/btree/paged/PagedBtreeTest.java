@@ -0,0 +1,119 @@
+package com.lightbox.jmkv.btree.paged;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Test for {@link PagedBtree}.
+ */
+@SuppressWarnings("MagicNumber")
+public final class PagedBtreeTest {
+
+    /**
+     * Folder for tree files.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Test random puts and deletes against TreeMap
+     * with tree much bigger than buffer pool.
+     *
+     * @throws IOException if failed
+     */
+    @Test
+    public void testRandomOperations() throws IOException {
+        final Path directory = this.folder.newFolder().toPath();
+        final Map<Integer, String> expected = new TreeMap<>();
+        try (PagedBtree tree = new PagedBtree(directory, 128, 4)) {
+            final Random random = new Random(1);
+            for (int i = 0; i < 20_000; i++) {
+                final int key = random.nextInt(5000);
+                if (random.nextInt(3) == 0) {
+                    Assert.assertThat(
+                            tree.delete(key),
+                            CoreMatchers.is(expected.remove(key))
+                    );
+                } else {
+                    final String value = String.valueOf(i);
+                    tree.put(key, value);
+                    expected.put(key, value);
+                }
+            }
+            Assert.assertThat(tree.size(), CoreMatchers.is(expected.size()));
+            Assert.assertTrue(tree.height() > 2);
+            Assert.assertTrue(tree.pool().pages() > 100);
+            Assert.assertThat(tree.pool().resident(), CoreMatchers.is(4));
+            Assert.assertTrue(tree.pool().evictions() > 0L);
+            PagedBtreeTest.check(tree, expected);
+        }
+        try (PagedBtree tree = new PagedBtree(directory, 128, 4)) {
+            Assert.assertThat(tree.size(), CoreMatchers.is(expected.size()));
+            PagedBtreeTest.check(tree, expected);
+        }
+    }
+
+    /**
+     * Test replace of value and clear.
+     *
+     * @throws IOException if failed
+     */
+    @Test
+    public void testReplaceAndClear() throws IOException {
+        final Path directory = this.folder.newFolder().toPath();
+        try (PagedBtree tree = new PagedBtree(directory)) {
+            for (int i = 0; i < 1000; i++) {
+                tree.put(i, "value" + i);
+            }
+            tree.put(500, "five hundred");
+            Assert.assertThat(tree.size(), CoreMatchers.is(1000));
+            Assert.assertThat(tree.get(500), CoreMatchers.is("five hundred"));
+            Assert.assertTrue(tree.exists(999));
+            Assert.assertFalse(tree.exists(1000));
+            Assert.assertTrue(tree.clear());
+            Assert.assertThat(tree.size(), CoreMatchers.is(0));
+            Assert.assertNull(tree.get(500));
+            tree.put(1, "one");
+            Assert.assertThat(tree.get(1), CoreMatchers.is("one"));
+        }
+    }
+
+    /**
+     * Test that tree can't be opened with other page size.
+     *
+     * @throws IOException if failed
+     */
+    @Test(expected = IOException.class)
+    public void testWrongPageSize() throws IOException {
+        final Path directory = this.folder.newFolder().toPath();
+        new PagedBtree(directory, 128, 4).close();
+        new PagedBtree(directory, 256, 4).close();
+    }
+
+    /**
+     * Check every key of expected map.
+     *
+     * @param tree     Tree
+     * @param expected Expected keys and values
+     */
+    private static void check(
+            final PagedBtree tree,
+            final Map<Integer, String> expected
+    ) {
+        for (int key = 0; key < 5000; key++) {
+            Assert.assertThat(
+                    tree.get(key),
+                    CoreMatchers.is(expected.get(key))
+            );
+        }
+    }
+}
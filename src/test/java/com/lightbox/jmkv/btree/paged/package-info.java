@@ -0,0 +1,4 @@
+/**
+ * Tests for {@link com.lightbox.jmkv.btree.paged.PagedBtree}.
+ */
+package com.lightbox.jmkv.btree.paged;
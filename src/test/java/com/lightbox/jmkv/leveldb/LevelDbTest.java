@@ -0,0 +1,169 @@
+package com.lightbox.jmkv.leveldb;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Test {@link LevelDb} on store written by LevelDB.
+ */
+@SuppressWarnings("MagicNumber")
+public final class LevelDbTest {
+
+    /**
+     * Store with one table that maps "hello" to "almas".
+     */
+    private static final Path STORE = Paths.get("levelDBStore");
+
+    /**
+     * Test point lookups.
+     *
+     * @throws IOException if failed
+     */
+    @Test
+    public void testGet() throws IOException {
+        try (LevelDb store = new LevelDb(LevelDbTest.STORE)) {
+            Assert.assertThat(
+                    new String(
+                            store.get(LevelDbTest.bytes("hello")),
+                            StandardCharsets.UTF_8
+                    ),
+                    CoreMatchers.is("almas")
+            );
+            Assert.assertNull(store.get(LevelDbTest.bytes("hell")));
+            Assert.assertNull(store.get(LevelDbTest.bytes("hello!")));
+        }
+    }
+
+    /**
+     * Test range scans.
+     *
+     * @throws IOException if failed
+     */
+    @Test
+    public void testScan() throws IOException {
+        try (LevelDb store = new LevelDb(LevelDbTest.STORE)) {
+            final Iterator<Map.Entry<byte[], byte[]>> all =
+                    store.scan(null, null);
+            Assert.assertTrue(all.hasNext());
+            Assert.assertThat(
+                    new String(all.next().getKey(), StandardCharsets.UTF_8),
+                    CoreMatchers.is("hello")
+            );
+            Assert.assertFalse(all.hasNext());
+            Assert.assertTrue(
+                    store.scan(
+                            LevelDbTest.bytes("a"),
+                            LevelDbTest.bytes("i")
+                    ).hasNext()
+            );
+            Assert.assertFalse(
+                    store.scan(
+                            LevelDbTest.bytes("a"),
+                            LevelDbTest.bytes("hello")
+                    ).hasNext()
+            );
+            Assert.assertFalse(
+                    store.scan(LevelDbTest.bytes("hello!"), null).hasNext()
+            );
+        }
+    }
+
+    /**
+     * Test that cache over store rejects modifications.
+     *
+     * @throws IOException if failed
+     */
+    @Test(expected = UnsupportedOperationException.class)
+    public void testReadOnly() throws IOException {
+        try (LevelDbCache cache = new LevelDbCache(LevelDbTest.STORE)) {
+            Assert.assertThat(cache.size(), CoreMatchers.is(1));
+            Assert.assertNull(cache.get(1));
+            Assert.assertFalse(cache.exists(1));
+            cache.put(1, "one");
+        }
+    }
+
+    /**
+     * Test that big endian codec preserves order of keys.
+     */
+    @Test
+    public void testCodec() {
+        final KeyCodec codec = new KeyCodec.BigEndian();
+        final int[] keys = {Integer.MIN_VALUE, -300, -1, 0, 1, 255, 256};
+        for (int i = 0; i < keys.length; i++) {
+            final byte[] key = codec.encode(keys[i]);
+            Assert.assertThat(codec.decode(key), CoreMatchers.is(keys[i]));
+            if (i > 0) {
+                final byte[] previous = codec.encode(keys[i - 1]);
+                Assert.assertTrue(
+                        Coding.compare(
+                                previous,
+                                previous.length,
+                                key,
+                                key.length
+                        ) < 0
+                );
+            }
+        }
+    }
+
+    /**
+     * Test range of multi-digit keys.
+     * Decimal "10" goes before "2", so only ordered codec has ranges
+     *
+     * @throws IOException if failed
+     */
+    @Test
+    public void testMultiDigitRange() throws IOException {
+        final KeyCodec decimal = new KeyCodec.Decimal();
+        Assert.assertFalse(decimal.ordered());
+        final KeyCodec codec = new KeyCodec.BigEndian();
+        Assert.assertTrue(codec.ordered());
+        final byte[] from = codec.encode(2);
+        final byte[] to = codec.encode(10);
+        for (int key = 2; key <= 10; key++) {
+            final byte[] encoded = codec.encode(key);
+            Assert.assertTrue(
+                    Coding.compare(from, from.length, encoded, encoded.length)
+                            <= 0
+            );
+            Assert.assertThat(
+                    Coding.compare(encoded, encoded.length, to, to.length) < 0,
+                    CoreMatchers.is(key < 10)
+            );
+        }
+        try (LevelDbCache cache = new LevelDbCache(
+                new LevelDb(LevelDbTest.STORE),
+                codec
+        )) {
+            Assert.assertFalse(cache.range(2, 10).hasNext());
+        }
+        try (LevelDbCache cache = new LevelDbCache(LevelDbTest.STORE)) {
+            cache.range(2, 10);
+            Assert.fail("Range over decimal keys is allowed");
+        } catch (final UnsupportedOperationException ex) {
+            Assert.assertThat(
+                    ex.getMessage(),
+                    CoreMatchers.containsString("Decimal")
+            );
+        }
+    }
+
+    /**
+     * Bytes of string.
+     *
+     * @param text String
+     * @return UTF-8 bytes
+     */
+    private static byte[] bytes(final String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
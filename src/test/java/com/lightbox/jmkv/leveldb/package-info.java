@@ -0,0 +1,4 @@
+/**
+ * Tests for {@link com.lightbox.jmkv.leveldb.LevelDb}.
+ */
+package com.lightbox.jmkv.leveldb;
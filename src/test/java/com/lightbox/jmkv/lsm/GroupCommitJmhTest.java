@@ -0,0 +1,103 @@
+package com.lightbox.jmkv.lsm;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test throughput of puts with group commit log.
+ * With sync durability throughput should grow with amount
+ * of writer threads instead of staying at one sync per put
+ */
+@Ignore
+@SuppressWarnings({"MagicNumber", "DesignForExtension"})
+public class GroupCommitJmhTest {
+
+    /**
+     * Run put benchmark with 1, 4 and 16 writer threads.
+     *
+     * @throws RunnerException if failed
+     */
+    @Test
+    public void testPutThroughput() throws RunnerException {
+        for (final int threads : new int[]{1, 4, 16}) {
+            final Options opt = new OptionsBuilder()
+                    .include(GroupCommitJmhTest.class.getSimpleName())
+                    .mode(Mode.Throughput)
+                    .timeUnit(TimeUnit.SECONDS)
+                    .warmupTime(TimeValue.seconds(1))
+                    .warmupIterations(2)
+                    .measurementIterations(3)
+                    .threads(threads)
+                    .forks(1)
+                    .shouldFailOnError(true)
+                    .build();
+            new Runner(opt).run();
+        }
+    }
+
+    /**
+     * Benchmark put into tree shared by writer threads.
+     *
+     * @param tree Tree
+     */
+    @Benchmark
+    public void testPut(final Tree tree) {
+        final int key = ThreadLocalRandom.current().nextInt(100_000);
+        tree.tree.put(key, "value");
+    }
+
+    /**
+     * Tree shared by all benchmark threads.
+     */
+    @State(Scope.Benchmark)
+    public static class Tree {
+
+        /**
+         * Durability of log.
+         */
+        @Param({"SYNC", "PERIODIC", "BUFFERED"})
+        private Durability durability;
+
+        /**
+         * Tree.
+         */
+        private LsmTree tree;
+
+        /**
+         * Open tree in temporary directory.
+         *
+         * @throws IOException if failed
+         */
+        @Setup
+        public void setup() throws IOException {
+            final Path dir = Files.createTempDirectory("group-commit");
+            this.tree = new LsmTree(
+                    dir,
+                    LsmTree.MEMTABLE_LIMIT,
+                    this.durability
+            );
+        }
+
+        /**
+         * Close tree.
+         *
+         * @throws IOException if failed
+         */
+        @TearDown
+        public void tearDown() throws IOException {
+            this.tree.close();
+        }
+    }
+}
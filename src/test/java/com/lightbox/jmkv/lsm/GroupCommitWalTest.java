@@ -0,0 +1,157 @@
+package com.lightbox.jmkv.lsm;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Test {@link GroupCommitWal}.
+ */
+@SuppressWarnings("MagicNumber")
+public final class GroupCommitWalTest {
+
+    /**
+     * Folder for log files.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Test that queued records are written by one batch and one sync.
+     *
+     * @throws IOException if failed
+     */
+    @Test
+    public void testBatch() throws IOException {
+        final Path file = this.folder.getRoot().toPath().resolve("wal.log");
+        try (GroupCommitWal wal = new GroupCommitWal(file, Durability.SYNC)) {
+            for (int i = 0; i < 10; i++) {
+                wal.append(new Record(i, String.valueOf(i)));
+            }
+            wal.commit();
+            wal.commit();
+            Assert.assertThat(wal.batches(), CoreMatchers.is(1L));
+            Assert.assertThat(wal.syncs(), CoreMatchers.is(1L));
+        }
+        try (GroupCommitWal wal =
+                     new GroupCommitWal(file, Durability.BUFFERED)) {
+            final List<Record> records = new ArrayList<>(0);
+            wal.replay(records::add);
+            Assert.assertThat(records.size(), CoreMatchers.is(10));
+            Assert.assertThat(records.get(9).value(), CoreMatchers.is("9"));
+            wal.append(new Record(10));
+            wal.commit();
+            Assert.assertThat(wal.syncs(), CoreMatchers.is(0L));
+        }
+    }
+
+    /**
+     * Test that concurrent writers lose nothing and keep their order.
+     *
+     * @throws Exception if failed
+     */
+    @Test
+    public void testConcurrent() throws Exception {
+        final Path file = this.folder.getRoot().toPath().resolve("wal.log");
+        final int threads = 8;
+        final int writes = 200;
+        try (GroupCommitWal wal = new GroupCommitWal(file, Durability.SYNC)) {
+            final ExecutorService executor =
+                    Executors.newFixedThreadPool(threads);
+            final List<Future<?>> futures = new ArrayList<>(threads);
+            for (int thread = 0; thread < threads; thread++) {
+                final int id = thread;
+                futures.add(
+                        executor.submit(() -> {
+                            for (int i = 0; i < writes; i++) {
+                                try {
+                                    wal.append(
+                                            new Record(id, String.valueOf(i))
+                                    );
+                                    wal.commit();
+                                } catch (final IOException ex) {
+                                    throw new UncheckedIOException(ex);
+                                }
+                            }
+                        })
+                );
+            }
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+            Assert.assertTrue(wal.syncs() <= threads * writes);
+        }
+        try (GroupCommitWal wal =
+                     new GroupCommitWal(file, Durability.BUFFERED)) {
+            final int[] next = new int[threads];
+            wal.replay(
+                    record -> {
+                        Assert.assertThat(
+                                record.value(),
+                                CoreMatchers.is(
+                                        String.valueOf(next[record.key()])
+                                )
+                        );
+                        next[record.key()]++;
+                    }
+            );
+            for (final int count : next) {
+                Assert.assertThat(count, CoreMatchers.is(writes));
+            }
+        }
+    }
+
+    /**
+     * Test that periodic log is synced in background.
+     *
+     * @throws Exception if failed
+     */
+    @Test
+    public void testPeriodic() throws Exception {
+        try (GroupCommitWal wal = new GroupCommitWal(
+                new FileWal(this.folder.getRoot().toPath().resolve("wal.log")),
+                Durability.PERIODIC,
+                5L
+        )) {
+            wal.append(new Record(1, "one"));
+            wal.commit();
+            for (int i = 0; i < 1000 && wal.syncs() == 0L; i++) {
+                Thread.sleep(5L);
+            }
+            Assert.assertThat(wal.syncs(), CoreMatchers.is(1L));
+        }
+    }
+
+    /**
+     * Test that tree with group commit log survives restart.
+     *
+     * @throws IOException if failed
+     */
+    @Test
+    public void testTree() throws IOException {
+        final Path dir = this.folder.getRoot().toPath();
+        try (LsmTree tree = new LsmTree(dir, 4096L, Durability.SYNC)) {
+            for (int i = 0; i < 300; i++) {
+                tree.put(i, String.valueOf(i));
+            }
+            tree.delete(5);
+        }
+        try (LsmTree tree = new LsmTree(dir, 4096L, Durability.SYNC)) {
+            Assert.assertNull(tree.get(5));
+            Assert.assertThat(tree.get(299), CoreMatchers.is("299"));
+            Assert.assertThat(tree.size(), CoreMatchers.is(299));
+        }
+    }
+}
@@ -0,0 +1,481 @@
+package com.lightbox.jmkv.lsm;
+
+import com.lightbox.jmkv.lsm.sstable.BlockCache;
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Test {@link LsmTree}.
+ */
+@SuppressWarnings("MagicNumber")
+public final class LsmTreeTest {
+
+    /**
+     * Folder for storage files.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Test put and get.
+     *
+     * @throws IOException if failed
+     */
+    @Test
+    public void testPutAndGet() throws IOException {
+        try (LsmTree tree = new LsmTree(this.folder.getRoot().toPath())) {
+            tree.put(5, "almas");
+            tree.put(2, "abzal");
+            tree.put(5, "almat");
+            Assert.assertThat(tree.get(5), CoreMatchers.is("almat"));
+            Assert.assertThat(tree.get(2), CoreMatchers.is("abzal"));
+            Assert.assertNull(tree.get(322));
+            Assert.assertThat(tree.size(), CoreMatchers.is(2));
+        }
+    }
+
+    /**
+     * Test that delete leaves tombstone.
+     *
+     * @throws IOException if failed
+     */
+    @Test
+    public void testDelete() throws IOException {
+        try (LsmTree tree = new LsmTree(this.folder.getRoot().toPath())) {
+            tree.put(1, "one");
+            tree.put(2, "two");
+            Assert.assertThat(tree.delete(1), CoreMatchers.is("one"));
+            Assert.assertNull(tree.delete(1));
+            Assert.assertFalse(tree.exists(1));
+            Assert.assertTrue(tree.exists(2));
+            Assert.assertThat(tree.size(), CoreMatchers.is(1));
+        }
+    }
+
+    /**
+     * Test that memtable is rebuilt from log after restart.
+     *
+     * @throws IOException if failed
+     */
+    @Test
+    public void testRestart() throws IOException {
+        final Path dir = this.folder.getRoot().toPath();
+        try (LsmTree tree = new LsmTree(dir)) {
+            for (int i = 0; i < 100; i++) {
+                tree.put(i, String.valueOf(i));
+            }
+            tree.delete(50);
+            tree.put(7, "seven");
+        }
+        try (LsmTree tree = new LsmTree(dir)) {
+            Assert.assertThat(tree.size(), CoreMatchers.is(99));
+            Assert.assertNull(tree.get(50));
+            Assert.assertThat(tree.get(7), CoreMatchers.is("seven"));
+            Assert.assertThat(tree.get(99), CoreMatchers.is("99"));
+        }
+    }
+
+    /**
+     * Test reads through flushed tables.
+     *
+     * @throws IOException if failed
+     */
+    @Test
+    public void testFlush() throws IOException {
+        final Path dir = this.folder.getRoot().toPath();
+        try (LsmTree tree = new LsmTree(dir, 4096L)) {
+            for (int i = 0; i < 500; i++) {
+                tree.put(i, String.valueOf(i));
+            }
+            tree.delete(10);
+            tree.put(20, "twenty");
+            Assert.assertTrue(tree.tables() > 1);
+            Assert.assertNull(tree.get(10));
+            Assert.assertThat(tree.get(20), CoreMatchers.is("twenty"));
+            Assert.assertThat(tree.size(), CoreMatchers.is(499));
+        }
+        try (LsmTree tree = new LsmTree(dir, 4096L)) {
+            Assert.assertNull(tree.get(10));
+            Assert.assertThat(tree.get(20), CoreMatchers.is("twenty"));
+            Assert.assertThat(tree.get(499), CoreMatchers.is("499"));
+            Assert.assertThat(tree.size(), CoreMatchers.is(499));
+        }
+    }
+
+    /**
+     * Test that compaction keeps newest values and drops deleted ones.
+     *
+     * @throws IOException if failed
+     */
+    @Test
+    public void testCompaction() throws IOException {
+        final Path dir = this.folder.getRoot().toPath();
+        try (LsmTree tree = new LsmTree(dir, 4096L)) {
+            for (int round = 0; round < 5; round++) {
+                for (int i = 0; i < 300; i++) {
+                    tree.put(i, String.format("%d-%d", i, round));
+                }
+            }
+            for (int i = 0; i < 300; i += 3) {
+                tree.delete(i);
+            }
+            tree.flush();
+            tree.compact();
+            Assert.assertTrue(tree.tables(0) < 4);
+            Assert.assertTrue(tree.stats().compactions(0) > 0L);
+            Assert.assertTrue(tree.stats().amplification() > 1.0);
+            Assert.assertThat(tree.size(), CoreMatchers.is(200));
+        }
+        try (LsmTree tree = new LsmTree(dir, 4096L)) {
+            Assert.assertNull(tree.get(3));
+            Assert.assertThat(tree.get(4), CoreMatchers.is("4-4"));
+            Assert.assertThat(tree.size(), CoreMatchers.is(200));
+        }
+    }
+
+    /**
+     * Test that torn record at the end of log is dropped.
+     *
+     * @throws IOException if failed
+     */
+    @Test
+    public void testTornTail() throws IOException {
+        final Path dir = this.folder.getRoot().toPath();
+        try (LsmTree tree = new LsmTree(dir)) {
+            tree.put(1, "one");
+            tree.put(2, "two");
+        }
+        try (FileChannel log = FileChannel.open(
+                dir.resolve("wal.log"),
+                StandardOpenOption.WRITE
+        )) {
+            log.truncate(log.size() - 1);
+        }
+        try (LsmTree tree = new LsmTree(dir)) {
+            Assert.assertThat(tree.get(1), CoreMatchers.is("one"));
+            Assert.assertNull(tree.get(2));
+            tree.put(3, "three");
+        }
+        try (LsmTree tree = new LsmTree(dir)) {
+            Assert.assertThat(tree.get(3), CoreMatchers.is("three"));
+        }
+    }
+
+    /**
+     * Test that writers wait for flush at hard limit.
+     *
+     * @throws Exception if failed
+     */
+    @Test
+    public void testStall() throws Exception {
+        final CountDownLatch gate = new CountDownLatch(1);
+        try (LsmTree tree = new LsmTree(
+                this.folder.getRoot().toPath(),
+                () -> new Gated(gate, false),
+                FileWal::new,
+                new FlushPolicy(1024L, 1, 2, 1000L),
+                new BlockCache(0L)
+        )) {
+            final Thread writer = new Thread(
+                    () -> {
+                        for (int i = 0; i < 100; i++) {
+                            tree.put(i, String.valueOf(i));
+                        }
+                    }
+            );
+            writer.start();
+            while (writer.getState() != Thread.State.WAITING) {
+                Thread.sleep(1L);
+            }
+            Assert.assertThat(tree.frozen(), CoreMatchers.is(2));
+            Assert.assertTrue(tree.stalls().slowdowns() > 0L);
+            gate.countDown();
+            writer.join();
+            tree.flush();
+            Assert.assertThat(tree.frozen(), CoreMatchers.is(0));
+            Assert.assertTrue(tree.stalls().stalls() > 0L);
+            Assert.assertThat(tree.size(), CoreMatchers.is(100));
+        }
+    }
+
+    /**
+     * Test that frozen memtable is recovered from its log
+     * when flush failed.
+     *
+     * @throws IOException if failed
+     */
+    @Test
+    public void testFrozenRecovery() throws IOException {
+        final Path dir = this.folder.getRoot().toPath();
+        final LsmTree broken = new LsmTree(
+                dir,
+                () -> new Gated(new CountDownLatch(0), true),
+                FileWal::new,
+                new FlushPolicy(1024L),
+                new BlockCache(0L)
+        );
+        for (int i = 0; i < 20; i++) {
+            broken.put(i, String.valueOf(i));
+        }
+        try {
+            broken.flush();
+            Assert.fail("Flush has to fail");
+        } catch (final IOException ex) {
+            Assert.assertTrue(Files.exists(dir.resolve("wal-000001.log")));
+        }
+        try {
+            broken.close();
+        } catch (final IOException ex) {
+            Assert.assertNotNull(ex.getCause());
+        }
+        try (LsmTree tree = new LsmTree(dir, 1024L)) {
+            tree.flush();
+            Assert.assertFalse(Files.exists(dir.resolve("wal-000001.log")));
+            Assert.assertThat(tree.get(0), CoreMatchers.is("0"));
+            Assert.assertThat(tree.get(19), CoreMatchers.is("19"));
+            Assert.assertThat(tree.size(), CoreMatchers.is(20));
+        }
+    }
+
+    /**
+     * Test that reads don't wait for writer that is stuck
+     * in the middle of put.
+     *
+     * @throws Exception if failed
+     */
+    @Test
+    public void testReadDuringWrite() throws Exception {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch gate = new CountDownLatch(1);
+        try (LsmTree tree = new LsmTree(
+                this.folder.getRoot().toPath(),
+                () -> new Slow(entered, gate),
+                FileWal::new,
+                new FlushPolicy(1L << 20),
+                new BlockCache(0L)
+        )) {
+            tree.put(1, "one");
+            tree.put(2, "two");
+            final Thread writer = new Thread(() -> tree.put(42, "stuck"));
+            writer.start();
+            entered.await();
+            Assert.assertThat(tree.get(1), CoreMatchers.is("one"));
+            Assert.assertThat(tree.delete(7), CoreMatchers.nullValue());
+            Assert.assertThat(tree.size(), CoreMatchers.is(2));
+            tree.put(3, "three");
+            Assert.assertThat(tree.delete(2), CoreMatchers.is("two"));
+            gate.countDown();
+            writer.join();
+            Assert.assertThat(tree.get(42), CoreMatchers.is("stuck"));
+            Assert.assertThat(tree.size(), CoreMatchers.is(3));
+        }
+    }
+
+    /**
+     * Test that concurrent writers don't lose keys while
+     * memtables are frozen and flushed under them.
+     *
+     * @throws Exception if failed
+     */
+    @Test
+    public void testConcurrentWriters() throws Exception {
+        final Path dir = this.folder.getRoot().toPath();
+        final int threads = 16;
+        final int keys = 2000;
+        try (LsmTree tree = new LsmTree(dir, 16L << 10)) {
+            final ExecutorService pool = Executors.newFixedThreadPool(threads);
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<?>> writers = new ArrayList<>(threads);
+            for (int thread = 0; thread < threads; thread++) {
+                final int first = thread * keys;
+                writers.add(
+                        pool.submit(
+                                () -> {
+                                    start.await();
+                                    for (int i = first; i < first + keys; i++) {
+                                        tree.put(i, String.valueOf(i));
+                                    }
+                                    return null;
+                                }
+                        )
+                );
+            }
+            start.countDown();
+            for (final Future<?> writer : writers) {
+                writer.get();
+            }
+            pool.shutdown();
+            Assert.assertTrue(tree.tables() > 0);
+            for (int i = 0; i < threads * keys; i++) {
+                Assert.assertThat(
+                        tree.get(i),
+                        CoreMatchers.is(String.valueOf(i))
+                );
+            }
+            Assert.assertThat(tree.size(), CoreMatchers.is(threads * keys));
+        }
+        try (LsmTree tree = new LsmTree(dir, 16L << 10)) {
+            Assert.assertThat(tree.size(), CoreMatchers.is(threads * keys));
+        }
+    }
+
+    /**
+     * Memtable which put of key 42 waits for gate.
+     */
+    private static final class Slow implements Memtable {
+
+        /**
+         * Records.
+         */
+        private final Memtable origin = new SkipListMemtable();
+
+        /**
+         * Released when put of key 42 starts.
+         */
+        private final CountDownLatch entered;
+
+        /**
+         * Gate that holds put of key 42.
+         */
+        private final CountDownLatch gate;
+
+        /**
+         * Ctor.
+         *
+         * @param entered Released when put of key 42 starts
+         * @param gate    Gate that holds put of key 42
+         */
+        Slow(final CountDownLatch entered, final CountDownLatch gate) {
+            this.entered = entered;
+            this.gate = gate;
+        }
+
+        @Override
+        public void put(final Record record) {
+            if (record.key() == 42) {
+                this.entered.countDown();
+                try {
+                    this.gate.await();
+                } catch (final InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException(ex);
+                }
+            }
+            this.origin.put(record);
+        }
+
+        @Override
+        public Record get(final int key) {
+            return this.origin.get(key);
+        }
+
+        @Override
+        public int entries() {
+            return this.origin.entries();
+        }
+
+        @Override
+        public long bytes() {
+            return this.origin.bytes();
+        }
+
+        @Override
+        public void clear() {
+            this.origin.clear();
+        }
+
+        @Override
+        public Iterator<Record> iterator() {
+            return this.origin.iterator();
+        }
+    }
+
+    /**
+     * Memtable which iteration waits for gate or fails,
+     * so flush of it can be held back.
+     */
+    private static final class Gated implements Memtable {
+
+        /**
+         * Records.
+         */
+        private final Memtable origin = new SkipListMemtable();
+
+        /**
+         * Gate that holds iteration.
+         */
+        private final CountDownLatch gate;
+
+        /**
+         * True if iteration fails.
+         */
+        private final boolean fails;
+
+        /**
+         * Ctor.
+         *
+         * @param gate  Gate that holds iteration
+         * @param fails True if iteration fails
+         */
+        Gated(final CountDownLatch gate, final boolean fails) {
+            this.gate = gate;
+            this.fails = fails;
+        }
+
+        @Override
+        public void put(final Record record) {
+            this.origin.put(record);
+        }
+
+        @Override
+        public Record get(final int key) {
+            return this.origin.get(key);
+        }
+
+        @Override
+        public int entries() {
+            return this.origin.entries();
+        }
+
+        @Override
+        public long bytes() {
+            return this.origin.bytes();
+        }
+
+        @Override
+        public void clear() {
+            this.origin.clear();
+        }
+
+        @Override
+        public Iterator<Record> iterator() {
+            try {
+                this.gate.await();
+            } catch (final InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(ex);
+            }
+            if (this.fails) {
+                throw new UncheckedIOException(new IOException("Broken"));
+            }
+            return this.origin.iterator();
+        }
+    }
+}
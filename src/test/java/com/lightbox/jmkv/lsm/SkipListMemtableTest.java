@@ -0,0 +1,130 @@
+package com.lightbox.jmkv.lsm;
+
+import com.lightbox.jmkv.lsm.sstable.BlockCache;
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Test {@link SkipListMemtable}.
+ */
+@SuppressWarnings("MagicNumber")
+public final class SkipListMemtableTest {
+
+    /**
+     * Folder for storage files.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Test put, replace and sorted iteration.
+     */
+    @Test
+    public void testPutAndIterate() {
+        final Memtable memtable = new SkipListMemtable();
+        for (int i = 99; i >= 0; i--) {
+            memtable.put(new Record(i * 2, "old"));
+        }
+        memtable.put(new Record(10, "new"));
+        memtable.put(new Record(20));
+        Assert.assertThat(memtable.entries(), CoreMatchers.is(100));
+        Assert.assertThat(memtable.get(10).value(), CoreMatchers.is("new"));
+        Assert.assertTrue(memtable.get(20).tombstone());
+        Assert.assertNull(memtable.get(11));
+        Assert.assertNull(memtable.get(-1));
+        int expected = 0;
+        for (final Record record : memtable) {
+            Assert.assertThat(record.key(), CoreMatchers.is(expected));
+            expected += 2;
+        }
+        Assert.assertThat(expected, CoreMatchers.is(200));
+        memtable.clear();
+        Assert.assertThat(memtable.entries(), CoreMatchers.is(0));
+        Assert.assertThat(memtable.bytes(), CoreMatchers.is(0L));
+        Assert.assertFalse(memtable.iterator().hasNext());
+    }
+
+    /**
+     * Test that concurrent writers don't lose records.
+     *
+     * @throws Exception if failed
+     */
+    @Test
+    public void testConcurrent() throws Exception {
+        final Memtable memtable = new SkipListMemtable();
+        final int threads = 16;
+        final int keys = 2000;
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final List<Future<?>> futures = new ArrayList<>(threads);
+        for (int thread = 0; thread < threads; thread++) {
+            final int id = thread;
+            futures.add(
+                    executor.submit(() -> {
+                        for (int i = 0; i < keys; i++) {
+                            memtable.put(new Record(i * threads + id, "v"));
+                            memtable.put(new Record(i, "shared"));
+                        }
+                    })
+            );
+        }
+        for (final Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        Assert.assertThat(memtable.entries(), CoreMatchers.is(threads * keys));
+        int expected = 0;
+        for (final Record record : memtable) {
+            Assert.assertThat(record.key(), CoreMatchers.is(expected));
+            expected++;
+        }
+        Assert.assertThat(expected, CoreMatchers.is(threads * keys));
+        Assert.assertThat(
+                memtable.get(keys - 1).value(),
+                CoreMatchers.is("shared")
+        );
+        Assert.assertThat(
+                memtable.bytes(),
+                CoreMatchers.is(
+                        (long) threads * keys * Memtable.ENTRY_OVERHEAD
+                                + keys * 12L + (threads - 1) * keys * 2L
+                )
+        );
+    }
+
+    /**
+     * Test tree on top of skip list memtable.
+     *
+     * @throws IOException if failed
+     */
+    @Test
+    public void testTree() throws IOException {
+        final Path dir = this.folder.getRoot().toPath();
+        try (LsmTree tree = new LsmTree(
+                dir,
+                SkipListMemtable::new,
+                FileWal::new,
+                new FlushPolicy(4096L),
+                new BlockCache(0L)
+        )) {
+            for (int i = 0; i < 500; i++) {
+                tree.put(i, String.valueOf(i));
+            }
+            tree.delete(10);
+            Assert.assertTrue(tree.tables() > 0);
+            Assert.assertNull(tree.get(10));
+            Assert.assertThat(tree.get(499), CoreMatchers.is("499"));
+            Assert.assertThat(tree.size(), CoreMatchers.is(499));
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.lightbox.jmkv.lsm.compaction;
+
+import com.lightbox.jmkv.lsm.Record;
+import com.lightbox.jmkv.lsm.sstable.SsTable;
+import com.lightbox.jmkv.lsm.sstable.SsTableWriter;
+import com.lightbox.jmkv.lsm.version.Version;
+import com.lightbox.jmkv.lsm.version.VersionEdit;
+import com.lightbox.jmkv.lsm.version.VersionSet;
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Test {@link LeveledCompaction}.
+ */
+@SuppressWarnings("MagicNumber")
+public final class LeveledCompactionTest {
+
+    /**
+     * Folder for table files.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Test that level 0 is merged into sorted run of level 1.
+     *
+     * @throws IOException if failed
+     */
+    @Test
+    public void testLevelZero() throws IOException {
+        final Path dir = this.folder.getRoot().toPath();
+        final CompactionStats stats = new CompactionStats(Version.LEVELS);
+        try (VersionSet versions = new VersionSet(dir)) {
+            final LeveledCompaction compaction =
+                    new LeveledCompaction(versions, stats, 4, 10, 2048L);
+            for (int run = 0; run < 3; run++) {
+                LeveledCompactionTest.flush(versions, stats, run, 0, 300);
+            }
+            Assert.assertNull(compaction.pick());
+            LeveledCompactionTest.flush(versions, stats, 3, 0, 300);
+            Assert.assertThat(compaction.compact(), CoreMatchers.is(1));
+            try (Version version = versions.current()) {
+                Assert.assertTrue(version.level(0).isEmpty());
+                Assert.assertTrue(version.level(1).size() > 1);
+                int previous = Integer.MIN_VALUE;
+                for (final SsTable table : version.level(1)) {
+                    Assert.assertTrue(table.smallest() > previous);
+                    previous = table.largest();
+                }
+                for (int key = 0; key < 300; key++) {
+                    Assert.assertThat(
+                            version.get(key).value(),
+                            CoreMatchers.is(String.format("%d-%d", key, 3))
+                    );
+                }
+            }
+            Assert.assertThat(stats.compactions(0), CoreMatchers.is(1L));
+            Assert.assertTrue(stats.amplification() > 1.0);
+        }
+        try (VersionSet versions = new VersionSet(dir);
+             Version version = versions.current()) {
+            Assert.assertTrue(version.level(0).isEmpty());
+            Assert.assertThat(
+                    version.get(299).value(),
+                    CoreMatchers.is("299-3")
+            );
+        }
+    }
+
+    /**
+     * Test that tombstones disappear at the bottom level.
+     *
+     * @throws IOException if failed
+     */
+    @Test
+    public void testTombstones() throws IOException {
+        final CompactionStats stats = new CompactionStats(Version.LEVELS);
+        try (VersionSet versions =
+                     new VersionSet(this.folder.getRoot().toPath())) {
+            final LeveledCompaction compaction =
+                    new LeveledCompaction(versions, stats, 2, 10, 1L << 20);
+            LeveledCompactionTest.flush(versions, stats, 0, 0, 100);
+            final Path file = versions.newTable();
+            try (SsTableWriter writer = new SsTableWriter(file)) {
+                writer.add(new Record(7));
+            }
+            versions.install(
+                    new VersionEdit().add(0, versions.open(file))
+            );
+            compaction.compact();
+            try (Version version = versions.current()) {
+                Assert.assertThat(
+                        version.level(1).size(),
+                        CoreMatchers.is(1)
+                );
+                Assert.assertThat(
+                        version.level(1).get(0).entries(),
+                        CoreMatchers.is(99L)
+                );
+                Assert.assertNull(version.get(7));
+            }
+        }
+    }
+
+    /**
+     * Write table with values of one run to level 0.
+     *
+     * @param versions Versions
+     * @param stats    Counters
+     * @param run      Number of run that goes to values
+     * @param from     The first key
+     * @param to       Key after the last one
+     * @throws IOException if failed
+     */
+    private static void flush(
+            final VersionSet versions,
+            final CompactionStats stats,
+            final int run,
+            final int from,
+            final int to
+    ) throws IOException {
+        final Path file = versions.newTable();
+        try (SsTableWriter writer = new SsTableWriter(file)) {
+            for (int key = from; key < to; key++) {
+                writer.add(new Record(key, String.format("%d-%d", key, run)));
+            }
+        }
+        final SsTable table = versions.open(file);
+        versions.install(new VersionEdit().add(0, table));
+        stats.flush(table.bytes());
+    }
+}
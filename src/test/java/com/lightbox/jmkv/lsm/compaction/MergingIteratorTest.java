@@ -0,0 +1,88 @@
+package com.lightbox.jmkv.lsm.compaction;
+
+import com.lightbox.jmkv.lsm.Record;
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Test {@link MergingIterator}.
+ */
+@SuppressWarnings("MagicNumber")
+public final class MergingIteratorTest {
+
+    /**
+     * Test that the newest source wins on equal keys.
+     */
+    @Test
+    public void testNewestWins() {
+        final List<Record> merged = MergingIteratorTest.merge(
+                false,
+                Arrays.asList(new Record(2, "new"), new Record(5)),
+                Arrays.asList(
+                        new Record(1, "one"),
+                        new Record(2, "old"),
+                        new Record(5, "five"),
+                        new Record(7, "seven")
+                ),
+                Collections.singletonList(new Record(2, "oldest"))
+        );
+        Assert.assertThat(
+                merged,
+                CoreMatchers.is(
+                        Arrays.asList(
+                                new Record(1, "one"),
+                                new Record(2, "new"),
+                                new Record(5),
+                                new Record(7, "seven")
+                        )
+                )
+        );
+    }
+
+    /**
+     * Test that tombstones are dropped on request.
+     */
+    @Test
+    public void testDropTombstones() {
+        final List<Record> merged = MergingIteratorTest.merge(
+                true,
+                Arrays.asList(new Record(1), new Record(3)),
+                Collections.<Record>emptyList(),
+                Arrays.asList(new Record(1, "one"), new Record(2, "two"))
+        );
+        Assert.assertThat(
+                merged,
+                CoreMatchers.is(
+                        Collections.singletonList(new Record(2, "two"))
+                )
+        );
+    }
+
+    /**
+     * Merge lists of records.
+     *
+     * @param drop    Drop tombstones
+     * @param sources Sorted sources, the newest is the first
+     * @return Merged records
+     */
+    @SafeVarargs
+    private static List<Record> merge(
+            final boolean drop,
+            final List<Record>... sources
+    ) {
+        final List<Iterator<Record>> iterators = new ArrayList<>(0);
+        for (final List<Record> source : sources) {
+            iterators.add(source.iterator());
+        }
+        final List<Record> merged = new ArrayList<>(0);
+        new MergingIterator(iterators, drop).forEachRemaining(merged::add);
+        return merged;
+    }
+}
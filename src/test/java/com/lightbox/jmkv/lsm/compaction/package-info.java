@@ -0,0 +1,4 @@
+/**
+ * Tests for {@link com.lightbox.jmkv.lsm.compaction.LeveledCompaction}.
+ */
+package com.lightbox.jmkv.lsm.compaction;
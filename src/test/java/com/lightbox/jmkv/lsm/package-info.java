@@ -0,0 +1,4 @@
+/**
+ * Tests for {@link com.lightbox.jmkv.lsm.LsmTree}.
+ */
+package com.lightbox.jmkv.lsm;
@@ -0,0 +1,150 @@
+package com.lightbox.jmkv.lsm.sstable;
+
+import com.lightbox.jmkv.lsm.Record;
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * Test {@link BlockCache}.
+ */
+@SuppressWarnings("MagicNumber")
+public final class BlockCacheTest {
+
+    /**
+     * Folder for table files.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Test that least recently used blocks are evicted to fit capacity.
+     */
+    @Test
+    public void testEviction() {
+        final Block block = BlockCacheTest.block(100);
+        final long charge = block.bytes() + BlockCache.ENTRY_OVERHEAD;
+        final BlockCache cache = new BlockCache(charge * 3, 1);
+        cache.put(1L, 0L, block);
+        cache.put(1L, 100L, block);
+        cache.put(2L, 0L, block);
+        Assert.assertNotNull(cache.get(1L, 0L));
+        cache.put(2L, 100L, block);
+        Assert.assertNull(cache.get(1L, 100L));
+        Assert.assertNotNull(cache.get(1L, 0L));
+        Assert.assertNotNull(cache.get(2L, 100L));
+        Assert.assertThat(cache.hits(), CoreMatchers.is(3L));
+        Assert.assertThat(cache.misses(), CoreMatchers.is(1L));
+        Assert.assertThat(cache.evictions(), CoreMatchers.is(1L));
+        Assert.assertThat(cache.bytes(), CoreMatchers.is(charge * 3));
+    }
+
+    /**
+     * Test that blocks of deleted table are dropped.
+     */
+    @Test
+    public void testEvictTable() {
+        final Block block = BlockCacheTest.block(100);
+        final long charge = block.bytes() + BlockCache.ENTRY_OVERHEAD;
+        final BlockCache cache = new BlockCache(charge * 100, 4);
+        for (long offset = 0L; offset < 1000L; offset += 100L) {
+            cache.put(1L, offset, block);
+            cache.put(2L, offset, block);
+        }
+        Assert.assertThat(cache.evict(1L), CoreMatchers.is(10));
+        Assert.assertThat(cache.evict(1L), CoreMatchers.is(0));
+        Assert.assertNull(cache.get(1L, 0L));
+        Assert.assertNotNull(cache.get(2L, 0L));
+        Assert.assertThat(cache.bytes(), CoreMatchers.is(charge * 10));
+        Assert.assertThat(cache.evictions(), CoreMatchers.is(0L));
+    }
+
+    /**
+     * Test that pinned blocks push data blocks out of budget,
+     * stay in cache and leave it with their table.
+     */
+    @Test
+    public void testPinned() {
+        final Block block = BlockCacheTest.block(100);
+        final long charge = block.bytes() + BlockCache.ENTRY_OVERHEAD;
+        final BlockCache cache = new BlockCache(charge * 3, 1);
+        cache.put(1L, 0L, block);
+        cache.put(1L, 100L, block);
+        cache.put(1L, 200L, block);
+        cache.pin(2L, 0L, block.bytes());
+        Assert.assertNull(cache.get(1L, 0L));
+        Assert.assertThat(cache.pinned(), CoreMatchers.is(charge));
+        Assert.assertThat(cache.bytes(), CoreMatchers.is(charge * 3));
+        cache.pin(2L, 100L, block.bytes());
+        cache.pin(2L, 200L, block.bytes());
+        cache.pin(2L, 300L, block.bytes());
+        cache.put(1L, 0L, block);
+        Assert.assertNull(cache.get(1L, 0L));
+        Assert.assertThat(cache.bytes(), CoreMatchers.is(charge * 4));
+        Assert.assertThat(cache.evictions(), CoreMatchers.is(3L));
+        Assert.assertThat(cache.evict(2L), CoreMatchers.is(0));
+        Assert.assertThat(cache.pinned(), CoreMatchers.is(0L));
+        Assert.assertThat(cache.bytes(), CoreMatchers.is(0L));
+    }
+
+    /**
+     * Test that empty cache keeps nothing.
+     */
+    @Test
+    public void testDisabled() {
+        final BlockCache cache = new BlockCache(0L);
+        cache.put(1L, 0L, BlockCacheTest.block(1));
+        Assert.assertNull(cache.get(1L, 0L));
+        Assert.assertThat(cache.bytes(), CoreMatchers.is(0L));
+    }
+
+    /**
+     * Test that repeated lookups are served from cache.
+     *
+     * @throws IOException if failed
+     */
+    @Test
+    public void testTableLookups() throws IOException {
+        final Path file = this.folder.getRoot().toPath().resolve("1.sst");
+        try (SsTableWriter writer = new SsTableWriter(file, 256)) {
+            for (int i = 0; i < 1000; i++) {
+                writer.add(new Record(i, "value" + i));
+            }
+        }
+        final BlockCache cache = new BlockCache(1L << 20);
+        try (SsTable table = new SsTable(file, cache)) {
+            Assert.assertTrue(cache.pinned() > 0L);
+            for (int round = 0; round < 3; round++) {
+                for (int i = 0; i < 1000; i += 100) {
+                    Assert.assertThat(
+                            table.get(i).value(),
+                            CoreMatchers.is("value" + i)
+                    );
+                }
+            }
+        }
+        Assert.assertThat(cache.misses(), CoreMatchers.is(10L));
+        Assert.assertThat(cache.hits(), CoreMatchers.is(20L));
+        Assert.assertThat(cache.bytes(), CoreMatchers.is(0L));
+    }
+
+    /**
+     * Block with given amount of records.
+     *
+     * @param records Amount of records
+     * @return Block
+     */
+    private static Block block(final int records) {
+        final BlockBuilder builder = new BlockBuilder();
+        for (int i = 0; i < records; i++) {
+            builder.add(new Record(i, "v"));
+        }
+        return new Block(ByteBuffer.wrap(builder.finish()));
+    }
+}
@@ -0,0 +1,269 @@
+package com.lightbox.jmkv.lsm.sstable;
+
+import com.lightbox.jmkv.lsm.Record;
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+import java.util.stream.Stream;
+
+/**
+ * Test {@link SsTable} and {@link SsTableWriter}.
+ */
+@SuppressWarnings("MagicNumber")
+public final class SsTableTest {
+
+    /**
+     * Folder for table files.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Test point lookups across many blocks.
+     *
+     * @throws IOException if failed
+     */
+    @Test
+    public void testGet() throws IOException {
+        final Path file = this.table(1000);
+        try (SsTable table = new SsTable(file)) {
+            Assert.assertThat(table.entries(), CoreMatchers.is(1000L));
+            Assert.assertThat(table.smallest(), CoreMatchers.is(0));
+            Assert.assertThat(table.largest(), CoreMatchers.is(2997));
+            for (int i = 0; i < 1000; i++) {
+                final Record record = table.get(i * 3);
+                if (i % 10 == 0) {
+                    Assert.assertTrue(record.tombstone());
+                } else {
+                    Assert.assertThat(
+                            record.value(),
+                            CoreMatchers.is("value" + i)
+                    );
+                }
+                Assert.assertNull(table.get(i * 3 + 1));
+            }
+            Assert.assertNull(table.get(-1));
+            Assert.assertNull(table.get(5000));
+        }
+    }
+
+    /**
+     * Test iteration in key order.
+     *
+     * @throws IOException if failed
+     */
+    @Test
+    public void testIterate() throws IOException {
+        try (SsTable table = new SsTable(this.table(500))) {
+            int expected = 0;
+            for (final Record record : table) {
+                Assert.assertThat(record.key(), CoreMatchers.is(expected));
+                expected += 3;
+            }
+            Assert.assertThat(expected, CoreMatchers.is(1500));
+        }
+    }
+
+    /**
+     * Test that bloom filter rejects most missing keys.
+     *
+     * @throws IOException if failed
+     */
+    @Test
+    public void testFilter() throws IOException {
+        try (SsTable table = new SsTable(this.table(10_000))) {
+            int positives = 0;
+            for (int i = 0; i < 10_000; i++) {
+                Assert.assertTrue(table.mayContain(i * 3));
+                if (table.mayContain(i * 3 + 1)) {
+                    positives++;
+                }
+            }
+            Assert.assertTrue(positives < 300);
+            Assert.assertFalse(table.mayContain(-1));
+        }
+        final Path file = this.folder.getRoot().toPath().resolve("off.sst");
+        try (SsTableWriter writer = new SsTableWriter(file, 256, 0)) {
+            writer.add(new Record(1, "one"));
+            writer.add(new Record(5, "five"));
+        }
+        try (SsTable table = new SsTable(file)) {
+            Assert.assertTrue(table.mayContain(3));
+            Assert.assertNull(table.get(3));
+            Assert.assertThat(table.get(5).value(), CoreMatchers.is("five"));
+        }
+    }
+
+    /**
+     * Test that writer rejects unsorted keys.
+     *
+     * @throws IOException if failed
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsorted() throws IOException {
+        try (SsTableWriter writer = new SsTableWriter(
+                this.folder.getRoot().toPath().resolve("unsorted.sst")
+        )) {
+            writer.add(new Record(2, ""));
+            writer.add(new Record(1, ""));
+        }
+    }
+
+    /**
+     * Test that failed add leaves no table behind.
+     *
+     * @throws IOException if failed
+     */
+    @Test
+    public void testFailedAdd() throws IOException {
+        final Path file = this.folder.getRoot().toPath().resolve("failed.sst");
+        try (SsTableWriter writer = new SsTableWriter(file)) {
+            writer.add(new Record(2, ""));
+            writer.add(new Record(1, ""));
+            Assert.fail("Unsorted key is accepted");
+        } catch (final IllegalArgumentException ex) {
+            Assert.assertFalse(Files.exists(file));
+        }
+    }
+
+    /**
+     * Test that aborted table is deleted on close.
+     *
+     * @throws IOException if failed
+     */
+    @Test
+    public void testAbort() throws IOException {
+        final Path file = this.folder.getRoot().toPath().resolve("abort.sst");
+        try (SsTableWriter writer = new SsTableWriter(file, 256)) {
+            for (int i = 0; i < 100; i++) {
+                writer.add(new Record(i, "value" + i));
+            }
+            writer.abort();
+        }
+        Assert.assertFalse(Files.exists(file));
+    }
+
+    /**
+     * Test table without records.
+     *
+     * @throws IOException if failed
+     */
+    @Test
+    public void testEmpty() throws IOException {
+        final Path file = this.table(0);
+        try (SsTable table = new SsTable(file)) {
+            Assert.assertThat(table.entries(), CoreMatchers.is(0L));
+            Assert.assertFalse(table.mayContain(0));
+            Assert.assertNull(table.get(0));
+            Assert.assertFalse(table.iterator().hasNext());
+        }
+    }
+
+    /**
+     * Test that empty index has no last key.
+     */
+    @Test(expected = NoSuchElementException.class)
+    public void testEmptyIndex() {
+        new TableIndex().lastKey();
+    }
+
+    /**
+     * Test that corrupted block is detected.
+     *
+     * @throws IOException if failed
+     */
+    @Test(expected = IOException.class)
+    public void testCorruption() throws IOException {
+        final Path file = this.table(100);
+        try (FileChannel channel = FileChannel.open(
+                file,
+                StandardOpenOption.WRITE
+        )) {
+            channel.write(ByteBuffer.wrap(new byte[]{42}), 10L);
+        }
+        try (SsTable table = new SsTable(file)) {
+            table.get(0);
+        }
+    }
+
+    /**
+     * Test that table which lost its blocks before footer
+     * is rejected and its file is closed.
+     *
+     * @throws IOException if failed
+     */
+    @Test
+    public void testTruncated() throws IOException {
+        final Path file = this.table(1000);
+        final ByteBuffer footer = ByteBuffer.allocate(Footer.SIZE);
+        try (FileChannel channel = FileChannel.open(
+                file,
+                StandardOpenOption.READ,
+                StandardOpenOption.WRITE
+        )) {
+            channel.read(footer, channel.size() - Footer.SIZE);
+            footer.flip();
+            channel.truncate(channel.size() / 2);
+            channel.write(footer, channel.size());
+        }
+        final Path descriptors = Paths.get("/proc/self/fd");
+        final long before = SsTableTest.count(descriptors);
+        for (int i = 0; i < 100; i++) {
+            try (SsTable table = new SsTable(file)) {
+                Assert.fail(String.format("Table %s opened", table.file()));
+            } catch (final IOException ex) {
+                Assert.assertNotNull(ex.getMessage());
+            }
+        }
+        Assert.assertTrue(SsTableTest.count(descriptors) - before < 100L);
+    }
+
+    /**
+     * Write table with keys 0,3,6... and every tenth key deleted.
+     *
+     * @param records Amount of records
+     * @return Path of table
+     * @throws IOException if failed
+     */
+    private Path table(final int records) throws IOException {
+        final Path file = this.folder.getRoot().toPath().resolve("test.sst");
+        try (SsTableWriter writer = new SsTableWriter(file, 256)) {
+            for (int i = 0; i < records; i++) {
+                if (i % 10 == 0) {
+                    writer.add(new Record(i * 3));
+                } else {
+                    writer.add(new Record(i * 3, "value" + i));
+                }
+            }
+        }
+        return file;
+    }
+
+    /**
+     * Amount of files in directory, 0 if there is no such directory.
+     *
+     * @param dir Directory
+     * @return Amount of files
+     * @throws IOException if failed
+     */
+    private static long count(final Path dir) throws IOException {
+        long count = 0L;
+        if (Files.isDirectory(dir)) {
+            try (Stream<Path> files = Files.list(dir)) {
+                count = files.count();
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Tests for {@link com.lightbox.jmkv.lsm.sstable.SsTable}.
+ */
+package com.lightbox.jmkv.lsm.sstable;
@@ -0,0 +1,176 @@
+package com.lightbox.jmkv.lsm.version;
+
+import com.lightbox.jmkv.lsm.Record;
+import com.lightbox.jmkv.lsm.sstable.SsTable;
+import com.lightbox.jmkv.lsm.sstable.BlockCache;
+import com.lightbox.jmkv.lsm.sstable.SsTableWriter;
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Test {@link VersionSet}.
+ */
+@SuppressWarnings("MagicNumber")
+public final class VersionSetTest {
+
+    /**
+     * Folder for table files.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Test that layout survives restart and manifest is rewritten.
+     *
+     * @throws IOException if failed
+     */
+    @Test
+    public void testRecover() throws IOException {
+        final Path dir = this.folder.getRoot().toPath();
+        try (VersionSet versions = new VersionSet(dir)) {
+            final SsTable old = VersionSetTest.table(versions, 1);
+            versions.install(new VersionEdit().add(0, old));
+            versions.install(
+                    new VersionEdit().add(0, VersionSetTest.table(versions, 2))
+            );
+            versions.install(
+                    new VersionEdit()
+                            .delete(0, old)
+                            .add(2, VersionSetTest.table(versions, 3))
+            );
+        }
+        final String manifest = VersionSetTest.current(dir);
+        try (VersionSet versions = new VersionSet(dir);
+             Version version = versions.current()) {
+            Assert.assertThat(version.level(0).size(), CoreMatchers.is(1));
+            Assert.assertThat(version.level(2).size(), CoreMatchers.is(1));
+            Assert.assertThat(version.get(2).value(), CoreMatchers.is("2"));
+            Assert.assertThat(version.get(3).value(), CoreMatchers.is("3"));
+            Assert.assertNull(version.get(1));
+        }
+        Assert.assertFalse(Files.exists(dir.resolve(manifest)));
+        Assert.assertTrue(
+                Files.exists(dir.resolve(VersionSetTest.current(dir)))
+        );
+    }
+
+    /**
+     * Test that pinned version keeps deleted table on disk.
+     *
+     * @throws IOException if failed
+     */
+    @Test
+    public void testPinned() throws IOException {
+        try (VersionSet versions =
+                     new VersionSet(this.folder.getRoot().toPath())) {
+            final SsTable table = VersionSetTest.table(versions, 1);
+            versions.install(new VersionEdit().add(0, table));
+            final Version pinned = versions.current();
+            versions.install(new VersionEdit().delete(0, table));
+            try (Version current = versions.current()) {
+                Assert.assertThat(current.tables(), CoreMatchers.is(0));
+            }
+            Assert.assertTrue(Files.exists(table.file()));
+            Assert.assertThat(pinned.get(1).value(), CoreMatchers.is("1"));
+            pinned.close();
+            Assert.assertFalse(Files.exists(table.file()));
+        }
+    }
+
+    /**
+     * Test that blocks of deleted table leave cache.
+     *
+     * @throws IOException if failed
+     */
+    @Test
+    public void testEvictDeleted() throws IOException {
+        final BlockCache cache = new BlockCache(1 << 20);
+        try (VersionSet versions =
+                     new VersionSet(this.folder.getRoot().toPath(), cache)) {
+            final SsTable table = VersionSetTest.table(versions, 1);
+            versions.install(new VersionEdit().add(0, table));
+            try (Version current = versions.current()) {
+                Assert.assertThat(current.get(1).value(), CoreMatchers.is("1"));
+            }
+            Assert.assertTrue(cache.bytes() > 0L);
+            versions.install(new VersionEdit().delete(0, table));
+            Assert.assertFalse(Files.exists(table.file()));
+            Assert.assertThat(cache.bytes(), CoreMatchers.is(0L));
+        }
+    }
+
+    /**
+     * Test that torn edit and tables it mentions are dropped.
+     *
+     * @throws IOException if failed
+     */
+    @Test
+    public void testTornEdit() throws IOException {
+        final Path dir = this.folder.getRoot().toPath();
+        final Path orphan;
+        try (VersionSet versions = new VersionSet(dir)) {
+            versions.install(
+                    new VersionEdit().add(0, VersionSetTest.table(versions, 1))
+            );
+            final SsTable torn = VersionSetTest.table(versions, 2);
+            orphan = torn.file();
+            versions.install(new VersionEdit().add(1, torn));
+        }
+        try (FileChannel log = FileChannel.open(
+                dir.resolve(VersionSetTest.current(dir)),
+                StandardOpenOption.WRITE
+        )) {
+            log.truncate(log.size() - 1);
+        }
+        try (VersionSet versions = new VersionSet(dir);
+             Version version = versions.current()) {
+            Assert.assertThat(version.tables(), CoreMatchers.is(1));
+            Assert.assertThat(version.get(1).value(), CoreMatchers.is("1"));
+            Assert.assertNull(version.get(2));
+        }
+        Assert.assertFalse(Files.exists(orphan));
+    }
+
+    /**
+     * Write table with one record.
+     *
+     * @param versions Versions
+     * @param key      Key and value of record
+     * @return Opened table
+     * @throws IOException if failed
+     */
+    private static SsTable table(
+            final VersionSet versions,
+            final int key
+    ) throws IOException {
+        final Path file = versions.newTable();
+        try (SsTableWriter writer = new SsTableWriter(file)) {
+            writer.add(new Record(key, String.valueOf(key)));
+        }
+        return versions.open(file);
+    }
+
+    /**
+     * Name of the live manifest.
+     *
+     * @param dir Directory
+     * @return File name
+     * @throws IOException if failed
+     */
+    private static String current(final Path dir) throws IOException {
+        return new String(
+                Files.readAllBytes(dir.resolve("CURRENT")),
+                StandardCharsets.UTF_8
+        ).trim();
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Tests for {@link com.lightbox.jmkv.lsm.version.VersionSet}.
+ */
+package com.lightbox.jmkv.lsm.version;
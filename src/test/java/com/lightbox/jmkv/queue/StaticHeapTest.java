@@ -0,0 +1,83 @@
+package com.lightbox.jmkv.queue;
+
+import org.hamcrest.CoreMatchers;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Test {@link StaticHeap}.
+ */
+@SuppressWarnings("MagicNumber")
+public final class StaticHeapTest {
+
+    /**
+     * Test that elements are polled in ascending order.
+     */
+    @Test
+    public void testPollOrder() {
+        final StaticHeap<Integer> heap =
+                new StaticHeap<>(12, Comparator.naturalOrder());
+        IntStream.of(
+                15, 13, 9, 5, 12, 8, 7, 4, 0, 6, 2, 1
+        ).forEach(heap::add);
+        final int[] expected = {0, 1, 2, 4, 5, 6, 7, 8, 9, 12, 13, 15};
+        for (final int value : expected) {
+            Assert.assertThat(heap.poll(), CoreMatchers.is(value));
+        }
+        Assert.assertTrue(heap.empty());
+    }
+
+    /**
+     * Test max heap with reversed comparator.
+     */
+    @Test
+    public void testMaxHeap() {
+        final StaticHeap<Integer> heap =
+                new StaticHeap<>(3, Comparator.reverseOrder());
+        heap.add(1);
+        heap.add(3);
+        heap.add(2);
+        Assert.assertThat(heap.poll(), CoreMatchers.is(3));
+        Assert.assertThat(heap.poll(), CoreMatchers.is(2));
+        Assert.assertThat(heap.poll(), CoreMatchers.is(1));
+    }
+
+    /**
+     * Test replace of the smallest element against random data.
+     */
+    @Test
+    public void testReplaceTop() {
+        final Random random = new Random(42L);
+        final StaticHeap<Integer> heap =
+                new StaticHeap<>(100, Comparator.naturalOrder());
+        for (int i = 0; i < 100; i++) {
+            heap.add(random.nextInt(1000));
+        }
+        for (int i = 0; i < 1000; i++) {
+            final int top = heap.peek();
+            final int next = top + random.nextInt(100);
+            Assert.assertThat(heap.replaceTop(next), CoreMatchers.is(top));
+        }
+        int previous = Integer.MIN_VALUE;
+        while (!heap.empty()) {
+            final int current = heap.poll();
+            Assert.assertTrue(previous <= current);
+            previous = current;
+        }
+    }
+
+    /**
+     * Test that full heap rejects new elements.
+     */
+    @Test(expected = IllegalStateException.class)
+    public void testFull() {
+        final StaticHeap<Integer> heap =
+                new StaticHeap<>(1, Comparator.naturalOrder());
+        heap.add(1);
+        heap.add(2);
+    }
+}
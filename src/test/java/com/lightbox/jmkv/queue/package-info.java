@@ -0,0 +1,4 @@
+/**
+ * Tests for {@link com.lightbox.jmkv.queue.StaticHeap}.
+ */
+package com.lightbox.jmkv.queue;